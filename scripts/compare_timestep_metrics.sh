@@ -2,7 +2,7 @@
 set -euo pipefail
 
 if [[ $# -ne 2 ]]; then
-  echo "Usage: $0 <dump_step1h.tsv> <dump_step6h.tsv>"
+  echo "Usage: $0 <dump_step1h.tsv[.gz]> <dump_step6h.tsv[.gz]>"
   exit 1
 fi
 
@@ -18,11 +18,22 @@ tmp1="$(mktemp)"
 tmp2="$(mktemp)"
 trap 'rm -f "$tmp1" "$tmp2"' EXIT
 
+# Дампы пишет TileDumpWriter: tsv или tsv.gz (-Dplanet.dump.format).
+read_dump() {
+  case "$1" in
+    *.gz) gzip -dc "$1" ;;
+    *) cat "$1" ;;
+  esac
+}
+
 summarize() {
   local in="$1"
   local out="$2"
-  awk -F'\t' '
-    NR==44{
+  # Число строк "# ..." зависит от лун и ресурсов — строка колонок ищется по первому полю "id".
+  read_dump "$in" | awk -F'\t' '
+    /^#/{ next }
+    !hdr && $1=="id"{
+      hdr=1
       for(i=1;i<=NF;i++){
         if($i=="lat") lat=i
         else if($i=="precip_kgm2day") p=i
@@ -32,7 +43,7 @@ summarize() {
       }
       next
     }
-    NR>44{
+    hdr{
       n++
       sp+=$p; se+=$e; ss+=$s; sa+=$a
       la=($lat<0)?-$lat:$lat
@@ -45,7 +56,7 @@ summarize() {
         printf "BAND\t%s\tN=%d\tP=%.4f\tE=%.4f\tSoil=%.4f\tAtm=%.4f\n", k, bn[k], bp[k]/bn[k], be[k]/bn[k], bs[k]/bn[k], ba[k]/bn[k]
       }
     }
-  ' "$in" | sort > "$out"
+  ' | sort > "$out"
 }
 
 summarize "$f1" "$tmp1"
@@ -1,6 +1,7 @@
 package org.planet.app;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.control.*;
@@ -10,13 +11,16 @@ import javafx.scene.layout.VBox;
 import javafx.scene.layout.GridPane;
 import javafx.geometry.Insets;
 import javafx.stage.Stage;
-import javafx.concurrent.Task;
 import javafx.scene.paint.Color;
+import org.planet.core.generation.CancellationToken;
+import org.planet.core.generation.DirtyRegion;
+import org.planet.core.generation.GenerationCancelledException;
 import org.planet.core.generation.GenerationPipeline;
+import org.planet.core.generation.WorldContext;
 import org.planet.core.io.CsvTileLoader;
 import org.planet.core.io.PlanetSurfaceSerializer;
+import org.planet.core.io.TileDumpWriter;
 import org.planet.core.io.TileSetSelector;
-import org.planet.core.model.BiomeModifier;
 import org.planet.core.model.SurfaceType;
 import org.planet.core.model.Tile;
 import org.planet.core.model.config.ClimateModelMode;
@@ -24,10 +28,12 @@ import org.planet.core.model.config.GeneratorSettings;
 import org.planet.core.model.config.PlanetConfig;
 import org.planet.ui.EditorController;
 import org.planet.ui.MapRenderer;
+import org.planet.core.generation.ResourceStore;
 import org.planet.core.generation.ResourceType;
-import org.planet.core.generation.ResourceStatsReport;
 import org.planet.core.generation.StageProfile;
 import org.planet.core.generation.ConsoleStageListener;
+import org.planet.core.generation.StageId;
+import org.planet.core.generation.StageListener;
 import org.planet.core.generation.WorldClassifier;
 import org.planet.core.generation.WorldType;
 import org.planet.core.generation.PlanetTuning;
@@ -39,19 +45,20 @@ import org.planet.core.db.PlanetConfigMapper;
 import org.planet.core.db.PlanetSurfaceRepository;
 import org.planet.core.db.StarSystemRepository;
 import org.planet.core.db.dto.StarSystemObjectRow;
+import org.planet.core.service.GenerationService;
 
 import javax.sql.DataSource;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
 import java.util.prefs.Preferences;
 
 public class Main extends Application {
@@ -68,6 +75,10 @@ public class Main extends Application {
     private static final String PREF_STAR_TABLE = "db.table.starsystems";
     private static final String PREF_SURFACE_TABLE = "db.table.surfaces";
     private static final int PDATA_FIELDS_COUNT = 38;
+    private static final String JOB_PREVIEW = "preview";
+    private static final String JOB_EDIT = "edit";
+    private static final String JOB_BATCH_SAVE = "batch-save";
+    private static final String JOB_BATCH_DUMP = "batch-dump";
     private static final String[] PDATA_FIELD_NAMES = {
             "PData[0] Kind",
             "PData[1] mE (Earth masses)",
@@ -130,13 +141,25 @@ public class Main extends Application {
     private static final class GenerationResult {
         final PlanetConfig planet;
         final List<Tile> tiles;
+        final GenerationPipeline pipeline;
+        final WorldContext ctx;
 
-        GenerationResult(PlanetConfig planet, List<Tile> tiles) {
+        GenerationResult(PlanetConfig planet, List<Tile> tiles, GenerationPipeline pipeline, WorldContext ctx) {
             this.planet = planet;
             this.tiles = tiles;
+            this.pipeline = pipeline;
+            this.ctx = ctx;
         }
     }
 
+    /** Фоновые генерации (превью, пакеты): ограниченный пул, отмена, схлопывание повторов. */
+    private final GenerationService generationService = new GenerationService();
+
+    @Override
+    public void stop() {
+        generationService.close();
+    }
+
     @Override
     public void start(Stage stage) {
         // 0) База данных
@@ -194,6 +217,7 @@ public class Main extends Application {
         // 8) UI
         Canvas canvas = new Canvas(1200, 600);
         final PlanetConfig[] planetRef = {planet};
+        final GenerationResult[] generatedRef = {generated};
 
         MapRenderer renderer = new MapRenderer(canvas);
         EditorController editor = new EditorController(canvas, tiles);
@@ -281,7 +305,7 @@ public class Main extends Application {
         Button dumpButton = new Button("Dump Tiles");
         dumpButton.setOnAction(e -> {
             try {
-                Path dumpPath = dumpTilesForDebug(row, planetRef[0], tiles);
+                Path dumpPath = dumpTilesForDebug(row, planetRef[0], tiles, generatedRef[0].ctx.resources);
                 System.out.println("[DUMP] Dumped: " + dumpPath);
             } catch (Exception ex) {
                 System.err.println("[DUMP] Dump failed: " + ex.getMessage());
@@ -352,16 +376,36 @@ public class Main extends Application {
         bottom.setPadding(new Insets(4, 8, 8, 8));
         root.setBottom(bottom);
 
-        Runnable rerenderMap = () -> renderer.render(tiles, currentMode[0], seasonBox.getValue(), resourceBox.getValue(), layerBox.getValue(),
-                planetRef[0].tidalLocked, terminatorLatitudeForView(planetRef[0], seasonBox.getValue()));
+        Runnable rerenderMap = () -> {
+            renderer.invalidate();
+            renderer.render(tiles, currentMode[0], seasonBox.getValue(), resourceBox.getValue(), layerBox.getValue(),
+                    planetRef[0].tidalLocked, terminatorLatitudeForView(planetRef[0], seasonBox.getValue()));
+        };
         Runnable refreshBottom = () -> {
             VBox newBottom = new VBox(4, buildStatsBar(tiles), buildSaveBar(ds, row, tiles, planetRef[0], computeSeed(row), starSystemsTable, planetSurfacesTable));
             newBottom.setPadding(new Insets(4, 8, 8, 8));
             root.setBottom(newBottom);
         };
 
+        // Перерисовку после правки на области делает обработчик клика по канве выше;
+        // после фоновой перегенерации карту перерисовываем сами.
+        final int[][] pendingEdits = {null};
+        Runnable afterEdit = () -> {
+            renderer.invalidate();
+            rebuildPresentResources(tiles, presentResources);
+            refreshBottom.run();
+        };
+        editor.setOnEdit(region -> {
+            boolean applied = applyTileEdit(region, generatedRef, pendingEdits, repo, row, climateMode, planetRef, tiles,
+                    () -> {
+                        afterEdit.run();
+                        rerenderMap.run();
+                    });
+            if (applied) afterEdit.run();
+        });
+
         planetEditButton.setOnAction(e -> openPlanetEditorWindow(
-                stage, repo, row, climateMode, planetRef, tiles, presentResources,
+                stage, repo, row, climateMode, planetRef, generatedRef, tiles, presentResources,
                 resourceBox, updateLegend, rerenderMap, refreshBottom
         ));
         stage.setScene(new Scene(root));
@@ -370,6 +414,23 @@ public class Main extends Application {
     }
 
     private GenerationResult generatePlanetPreview(StarSystemRepository repo, StarSystemObjectRow row, ClimateModelMode climateMode) {
+        return generatePlanetPreview(repo, row, climateMode, CancellationToken.NONE, new ConsoleStageListener());
+    }
+
+    private GenerationResult generatePlanetPreview(StarSystemRepository repo,
+                                                   StarSystemObjectRow row,
+                                                   ClimateModelMode climateMode,
+                                                   CancellationToken cancellation,
+                                                   StageListener listener) {
+        return generatePlanetPreview(repo, row, climateMode, cancellation, listener, null);
+    }
+
+    private GenerationResult generatePlanetPreview(StarSystemRepository repo,
+                                                   StarSystemObjectRow row,
+                                                   ClimateModelMode climateMode,
+                                                   CancellationToken cancellation,
+                                                   StageListener listener,
+                                                   int[] surfaceOverride) {
         PlanetConfig planet = PlanetConfigMapper.fromDescription(row);
         MoonTideResolver.populateMoonTideSources(planet, row, repo);
 
@@ -398,10 +459,68 @@ public class Main extends Application {
                         0.7, 0.3, 0.15,
                         profile,
                         true,
-                        new ConsoleStageListener()
+                        listener
                 );
-        pipeline.run(tiles, planet, settings, plateCount);
-        return new GenerationResult(planet, tiles);
+        WorldContext ctx = pipeline.run(tiles, planet, settings, plateCount, cancellation, surfaceOverride);
+        return new GenerationResult(planet, tiles, pipeline, ctx);
+    }
+
+    /**
+     * Правка тайла в редакторе: стадии после неё повторяются только на области правки.
+     * Если правка задевает глобальные стадии (вода/суша -> сток и климат), планета генерируется
+     * заново в фоне (GenerationService, новая правка отменяет предыдущую генерацию), а все правки
+     * пользователя закрепляются на каждой стадии — вода, климат и реки считаются уже с ними.
+     * Пока идёт перегенерация, новые правки копятся в pendingEdits и уходят в следующую.
+     *
+     * @return true, если правка применена сразу; иначе по готовности вызывается onRegenerated (FX-поток)
+     */
+    private boolean applyTileEdit(DirtyRegion region,
+                                  GenerationResult[] generatedRef,
+                                  int[][] pendingEdits,
+                                  StarSystemRepository repo,
+                                  StarSystemObjectRow row,
+                                  ClimateModelMode climateMode,
+                                  PlanetConfig[] planetRef,
+                                  List<Tile> tiles,
+                                  Runnable onRegenerated) {
+        GenerationResult current = generatedRef[0];
+        if (pendingEdits[0] == null && current.pipeline.rerun(current.ctx, region)) return true;
+
+        int[] pins = pendingEdits[0];
+        if (pins == null) {
+            int[] previous = current.ctx.surfaceOverride;
+            pins = (previous != null) ? previous.clone() : new int[tiles.size()];
+            if (previous == null) Arrays.fill(pins, -1);
+            pendingEdits[0] = pins;
+        }
+        for (var pin : region.pins().entrySet()) {
+            pins[pin.getKey()] = pin.getValue().ordinal();
+        }
+        int[] submitted = pins.clone();
+        System.out.println("[EDIT] Water/land edit: regenerating planet with " + region.pins().size() + " new pinned tile(s)...");
+
+        generationService.submit(JOB_EDIT,
+                (cancel, listener) -> generatePlanetPreview(repo, row, climateMode, cancel, listener, submitted),
+                new ConsoleStageListener()).result().whenComplete((full, ex) -> Platform.runLater(() -> {
+            if (ex != null) {
+                Throwable cause = jobFailure(ex);
+                if (!(cause instanceof CancellationException) && Arrays.equals(pendingEdits[0], submitted)) {
+                    pendingEdits[0] = null;
+                    System.err.println("[EDIT] Regeneration failed: " + cause.getMessage());
+                }
+                return;
+            }
+            // за это время пришли новые правки: результат устарел, следом идёт их генерация
+            if (!Arrays.equals(pendingEdits[0], submitted)) return;
+            pendingEdits[0] = null;
+            generatedRef[0] = full;
+            planetRef[0] = full.planet;
+            tiles.clear();
+            tiles.addAll(full.tiles);
+            onRegenerated.run();
+            System.out.println("[EDIT] Regeneration done.");
+        }));
+        return false;
     }
 
     private void openPlanetEditorWindow(Stage owner,
@@ -409,6 +528,7 @@ public class Main extends Application {
                                         StarSystemObjectRow row,
                                         ClimateModelMode climateMode,
                                         PlanetConfig[] planetRef,
+                                        GenerationResult[] generatedRef,
                                         List<Tile> tiles,
                                         java.util.Set<ResourceType> presentResources,
                                         ComboBox<ResourceType> resourceBox,
@@ -445,13 +565,33 @@ public class Main extends Application {
         Button resetButton = new Button("Reset");
 
         regenerateButton.setOnAction(e -> {
-            try {
-                String newDesc = joinObjectDescription(fields, PDATA_FIELDS_COUNT);
-                StarSystemObjectRow edited = cloneRowWithDescription(row, newDesc);
-                GenerationResult result = generatePlanetPreview(repo, edited, climateMode);
+            String newDesc = joinObjectDescription(fields, PDATA_FIELDS_COUNT);
+            StarSystemObjectRow edited = cloneRowWithDescription(row, newDesc);
+            status.setText("Regenerating...");
+            // Повторное нажатие отменяет текущую генерацию превью: до конца дойдёт только последняя.
+            generationService.submit(JOB_PREVIEW,
+                    (cancel, listener) -> generatePlanetPreview(repo, edited, climateMode, cancel, listener),
+                    new StageListener() {
+                        @Override
+                        public void onStageStart(StageId id, String name) {
+                            Platform.runLater(() -> status.setText("Regenerating... " + name));
+                        }
 
+                        @Override
+                        public void onStageEnd(StageId id, String name, long elapsedMs) {
+                        }
+                    }).result().whenComplete((result, ex) -> Platform.runLater(() -> {
+                if (ex != null) {
+                    // отменённую (вытесненную) генерацию молча пропускаем: следом идёт новая
+                    Throwable cause = jobFailure(ex);
+                    if (!(cause instanceof CancellationException)) {
+                        status.setText("Regenerate failed: " + cause.getMessage());
+                    }
+                    return;
+                }
                 row.objectDescription = newDesc;
                 planetRef[0] = result.planet;
+                generatedRef[0] = result;
                 tiles.clear();
                 tiles.addAll(result.tiles);
                 rebuildPresentResources(tiles, presentResources);
@@ -461,9 +601,7 @@ public class Main extends Application {
                 updateLegend.run();
                 refreshBottom.run();
                 status.setText("Preview regenerated from edited parameters.");
-            } catch (Exception ex) {
-                status.setText("Regenerate failed: " + ex.getMessage());
-            }
+            }));
         });
 
         saveDbButton.setOnAction(e -> {
@@ -781,284 +919,10 @@ public class Main extends Application {
         return bar;
     }
 
-    private Path dumpTilesForDebug(StarSystemObjectRow row, PlanetConfig planet, List<Tile> tiles) throws Exception {
-        String safeName = sanitizeFilePart(row.objectName);
-        String fileName = "debug_tiles_StarSystem_" + row.starSysIdx + "_" + safeName + "_obj" + row.objectInternalId + ".tsv";
-        Path out = Paths.get("/home/vladimirs/PlanetSurfaceGenerator/planet-generator", fileName);
-        List<String> lines = new ArrayList<>(tiles.size() + 4);
-
-        lines.add("# Planet debug dump");
-        lines.add("# generatedAtUtc=" + Instant.now());
-        lines.add("# row.starSysIdx=" + row.starSysIdx);
-        lines.add("# row.objectInternalId=" + row.objectInternalId);
-        lines.add("# row.objectPlanetType=" + row.objectPlanetType);
-        lines.add("# row.objectName=" + row.objectName);
-        lines.add("# row.orbitMeanMotionPerDay=" + fmt(row.orbitMeanMotionPerDay));
-        lines.add("# row.axialTiltDeg=" + fmt(row.axialTiltDeg));
-        lines.add("# row.rotationPeriodHours=" + fmt(row.rotationPeriodHours));
-        lines.add("# row.rotationSpeed=" + fmt(row.rotationSpeed));
-        lines.add("# row.rotationPrograde=" + row.rotationPrograde);
-        lines.add("# row.objectType=" + row.objectType);
-        lines.add("# row.objectOrbitHost=" + row.objectOrbitHost);
-        lines.add("# row.orbitSemimajorAxisAU=" + fmt(row.orbitSemimajorAxisAU));
-        lines.add("# seed=" + computeSeed(row));
-        lines.add("#");
-        lines.add("# planet.tidalLocked=" + planet.tidalLocked);
-        lines.add("# planet.hasAtmosphere=" + planet.hasAtmosphere);
-        lines.add("# planet.atmosphereDensity=" + fmt(planet.atmosphereDensity));
-        lines.add("# planet.gravity=" + fmt(planet.gravity));
-        lines.add("# planet.radiusKm=" + fmt(planet.radiusKm));
-        lines.add("# planet.axialTilt=" + fmt(planet.axialTilt));
-        lines.add("# planet.rotationPeriodHours=" + fmt(planet.rotationPeriodHours));
-        lines.add("# planet.rotationSpeed=" + fmt(planet.rotationSpeed));
-        lines.add("# planet.rotationPrograde=" + planet.rotationPrograde);
-        lines.add("# planet.meanTemperature=" + fmt(planet.meanTemperature));
-        lines.add("# planet.meanTemperatureK=" + fmt(planet.meanTemperatureK));
-        lines.add("# planet.minTemperatureK=" + fmt(planet.minTemperatureK));
-        lines.add("# planet.maxTemperatureK=" + fmt(planet.maxTemperatureK));
-        lines.add("# planet.equilibriumTemperatureK=" + fmt(planet.equilibriumTemperatureK));
-        lines.add("# planet.greenhouseDeltaK=" + fmt(planet.greenhouseDeltaK));
-        lines.add("# planet.waterCoverageOrdinal=" + planet.waterCoverageOrdinal);
-        lines.add("# planet.waterGelKm=" + fmt(planet.waterGelKm));
-        lines.add("# planet.fracIron=" + fmt(planet.fracIron));
-        lines.add("# planet.fracRock=" + fmt(planet.fracRock));
-        lines.add("# planet.fracIce=" + fmt(planet.fracIce));
-        lines.add("# planet.o2Pct=" + fmt(planet.o2Pct));
-        lines.add("# planet.hasLife=" + planet.hasLife);
-        lines.add("# planet.lavaWorld=" + planet.lavaWorld);
-        lines.add("# planet.volcanism=" + planet.volcanism);
-        lines.add("# planet.methaneIceFrac=" + fmt(planet.methaneIceFrac));
-        lines.add("# planet.ammoniaIceFrac=" + fmt(planet.ammoniaIceFrac));
-        lines.add("# planet.organicsFrac=" + fmt(planet.organicsFrac));
-        lines.add("# planet.heavyHydrocarbons=" + planet.heavyHydrocarbons);
-        lines.add("# planet.lightHydrocarbons=" + planet.lightHydrocarbons);
-        lines.add("# planet.moonCount=" + (planet.moonTideSources == null ? 0 : planet.moonTideSources.size()));
-        lines.add("# planet.tidalOpenOceanRangeM=" + fmt(planet.tidalOpenOceanRangeM));
-        lines.add("# planet.tidalCyclesPerDay=" + fmt(planet.tidalCyclesPerDay));
-        lines.add("# planet.tidalDominantPeriodHours=" + fmt(planet.tidalDominantPeriodHours));
-        if (planet.moonTideSources != null) {
-            for (int i = 0; i < planet.moonTideSources.size(); i++) {
-                PlanetConfig.MoonTideSource m = planet.moonTideSources.get(i);
-                lines.add("# moon[" + i + "].id=" + m.objectInternalId
-                        + " name=" + (m.objectName == null ? "" : m.objectName)
-                        + " massEarth=" + fmt(m.massEarth)
-                        + " axisAU=" + fmt(m.orbitSemimajorAxisAU)
-                        + " inclDeg=" + fmt(m.orbitInclinationDeg)
-                        + " meanMotionDegDay=" + fmt(m.meanMotionPerDay)
-                        + " forcingRelEarthMoon=" + fmt(m.forcingRelativeEarthMoon));
-            }
-        }
-        lines.addAll(ResourceStatsReport.buildDumpHeaderLines(tiles));
-        lines.add("#");
-        lines.add("id\tlat\tlon\tsurface\telev\tunderwater_elev\ttempC\ttempMin\ttempMax\tpressure\twindX_mps\twindY_mps\twindAvg_mps\twindMax_mps\t"
-                + "precip\tevap\tprecip_kgm2day\tevap_kgm2day\tsoilMoist\tsoilStart\tsoilEnd\tsoilFromPrecip\tsoilFromEvap\tsoilFromDiff\tatmMoist\triverType\triverBase\triverTag\triverTo\triverOrder\triverFlow\triver_kgs\triver_tps\t"
-                + "tempWarm\ttempCold\ttempMinInter\ttempMaxInter\ttempMinWarm\ttempMaxWarm\ttempMinCold\ttempMaxCold\twindXWarm_mps\twindYWarm_mps\twindXCold_mps\twindYCold_mps\twindWarm_mps\twindCold_mps\twindMaxWarm_mps\twindMaxCold_mps\t"
-                + "precipWarm\tprecipCold\tprecipPhysInter_kgm2day\tprecipPhysWarm_kgm2day\tprecipPhysCold_kgm2day\tevapPhysInter_kgm2day\tevapPhysWarm_kgm2day\tevapPhysCold_kgm2day\trunoffPhysInter_kgm2day\trunoffPhysWarm_kgm2day\trunoffPhysCold_kgm2day\t"
-                + "solarKwhDayInter\tsolarKwhDayWarm\tsolarKwhDayCold\t"
-                + "tidalRangeM\ttidalPeriodH\ttidalCyclesPerDay\ttidalCoastAmpl\ttidalWaterBodyKm\t"
-                + "biomeTempInter\tbiomeTempWarm\tbiomeTempCold\tbiomePrecipInter\tbiomePrecipWarm\tbiomePrecipCold\tbiomeEvapInter\tbiomeEvapWarm\tbiomeEvapCold\tbiomeMoistInter\tbiomeMoistWarm\tbiomeMoistCold\tbiomePreferredSeason\tbiomePreferredSeasonName\tbiomeWarmFromPosTilt\t"
-                + "biomeRegime\tbiomeMods\tbiomeModMask\tbiomeTempRange\tbiomeAiAnn\tbiomeAiWarm\tbiomeAiCold\tbiomeMonsoon\tneighbors\triverFrom\tresources");
-
-        for (Tile t : tiles) {
-            String neighbors = joinTileIds(t.neighbors);
-            String riverFrom = joinIntList(t.riverFrom);
-            String resources = compactResources(t);
-
-            lines.add(
-                    t.id + "\t" +
-                            fmt(t.lat) + "\t" +
-                            fmt(t.lon) + "\t" +
-                            (t.surfaceType != null ? t.surfaceType.name() : "UNKNOWN") + "\t" +
-                            t.elevation + "\t" +
-                            t.underwaterElevation + "\t" +
-                            t.temperature + "\t" +
-                            fmt(nan0(t.tempMin)) + "\t" +
-                            fmt(nan0(t.tempMax)) + "\t" +
-                            t.pressure + "\t" +
-                            fmt(t.windX) + "\t" +
-                            fmt(t.windY) + "\t" +
-                            fmt(nan0(t.windAvg)) + "\t" +
-                            fmt(nan0(t.windMax)) + "\t" +
-                            fmt(nan0(t.precipAvg)) + "\t" +
-                            fmt(nan0(t.evapAvg)) + "\t" +
-                            fmt(nan0(t.precipKgM2Day)) + "\t" +
-                            fmt(nan0(t.evapKgM2Day)) + "\t" +
-                            fmt(nan0(t.moisture)) + "\t" +
-                            fmt(nan0(t.soilStartDiag)) + "\t" +
-                            fmt(nan0(t.soilEndDiag)) + "\t" +
-                            fmt(nan0(t.soilFromPrecipDiag)) + "\t" +
-                            fmt(nan0(t.soilFromEvapDiag)) + "\t" +
-                            fmt(nan0(t.soilFromDiffDiag)) + "\t" +
-                            fmt(nan0(t.atmMoist)) + "\t" +
-                            t.riverType + "\t" +
-                            (t.riverBaseType == null ? "NONE" : t.riverBaseType.name()) + "\t" +
-                            (t.riverTag == null ? "" : t.riverTag) + "\t" +
-                            t.riverTo + "\t" +
-                            t.riverOrder + "\t" +
-                            fmt(t.riverFlow) + "\t" +
-                            fmt(t.riverDischargeKgS) + "\t" +
-                            fmt(t.riverDischargeTps) + "\t" +
-                            fmt(nan0(t.tempWarm)) + "\t" +
-                            fmt(nan0(t.tempCold)) + "\t" +
-                            fmt(nan0(t.tempMinInterseason)) + "\t" +
-                            fmt(nan0(t.tempMaxInterseason)) + "\t" +
-                            fmt(nan0(t.tempMinWarm)) + "\t" +
-                            fmt(nan0(t.tempMaxWarm)) + "\t" +
-                            fmt(nan0(t.tempMinCold)) + "\t" +
-                            fmt(nan0(t.tempMaxCold)) + "\t" +
-                            fmt(nan0(t.windXWarm)) + "\t" +
-                            fmt(nan0(t.windYWarm)) + "\t" +
-                            fmt(nan0(t.windXCold)) + "\t" +
-                            fmt(nan0(t.windYCold)) + "\t" +
-                            fmt(nan0(t.windWarm)) + "\t" +
-                            fmt(nan0(t.windCold)) + "\t" +
-                            fmt(nan0(t.windMaxWarm)) + "\t" +
-                            fmt(nan0(t.windMaxCold)) + "\t" +
-                            fmt(nan0(t.precipWarm)) + "\t" +
-                            fmt(nan0(t.precipCold)) + "\t" +
-                            fmt(nan0(t.precipKgM2DayInterseason)) + "\t" +
-                            fmt(nan0(t.precipKgM2DayWarm)) + "\t" +
-                            fmt(nan0(t.precipKgM2DayCold)) + "\t" +
-                            fmt(nan0(t.evapKgM2DayInterseason)) + "\t" +
-                            fmt(nan0(t.evapKgM2DayWarm)) + "\t" +
-                            fmt(nan0(t.evapKgM2DayCold)) + "\t" +
-                            fmt(nan0(t.surfaceRunoffKgM2DayInterseason)) + "\t" +
-                            fmt(nan0(t.surfaceRunoffKgM2DayWarm)) + "\t" +
-                            fmt(nan0(t.surfaceRunoffKgM2DayCold)) + "\t" +
-                            fmt(nan0(t.solarKwhDayInter)) + "\t" +
-                            fmt(nan0(t.solarKwhDayWarm)) + "\t" +
-                            fmt(nan0(t.solarKwhDayCold)) + "\t" +
-                            fmt(nan0(t.tidalRangeM)) + "\t" +
-                            fmt(nan0(t.tidalPeriodHours)) + "\t" +
-                            fmt(nan0(t.tidalCyclesPerDay)) + "\t" +
-                            fmt(nan0(t.tidalCoastAmplification)) + "\t" +
-                            fmt(nan0(t.tidalWaterBodyScaleKm)) + "\t" +
-                            fmt(nan0(t.biomeTempInterseason)) + "\t" +
-                            fmt(nan0(t.biomeTempWarm)) + "\t" +
-                            fmt(nan0(t.biomeTempCold)) + "\t" +
-                            fmt(nan0(t.biomePrecipInterseason)) + "\t" +
-                            fmt(nan0(t.biomePrecipWarm)) + "\t" +
-                            fmt(nan0(t.biomePrecipCold)) + "\t" +
-                            fmt(nan0(t.biomeEvapInterseason)) + "\t" +
-                            fmt(nan0(t.biomeEvapWarm)) + "\t" +
-                            fmt(nan0(t.biomeEvapCold)) + "\t" +
-                            fmt(nan0(t.biomeMoistureInterseason)) + "\t" +
-                            fmt(nan0(t.biomeMoistureWarm)) + "\t" +
-                            fmt(nan0(t.biomeMoistureCold)) + "\t" +
-                            t.biomePreferredSeason + "\t" +
-                            biomePreferredSeasonName(t.biomePreferredSeason) + "\t" +
-                            t.biomeWarmFromPositiveTilt + "\t" +
-                            (t.biomeRegime == null ? "UNKNOWN" : t.biomeRegime.name()) + "\t" +
-                            BiomeModifier.toCsv(t.biomeModifierMask) + "\t" +
-                            t.biomeModifierMask + "\t" +
-                            fmt(nan0(t.biomeTempRange)) + "\t" +
-                            fmt(nan0(t.biomeAiAnn)) + "\t" +
-                            fmt(nan0(t.biomeAiWarm)) + "\t" +
-                            fmt(nan0(t.biomeAiCold)) + "\t" +
-                            fmt(nan0(t.biomeMonsoon)) + "\t" +
-                            neighbors + "\t" +
-                            riverFrom + "\t" +
-                            resources
-            );
-        }
-
-        rotateDumpHistory(out);
-        Files.write(
-                out,
-                lines,
-                StandardCharsets.UTF_8,
-                StandardOpenOption.CREATE,
-                StandardOpenOption.TRUNCATE_EXISTING,
-                StandardOpenOption.WRITE
-        );
-        return out;
-    }
-
-    private void rotateDumpHistory(Path current) throws Exception {
-        String name = current.getFileName().toString();
-        int dot = name.lastIndexOf('.');
-        String base = (dot >= 0) ? name.substring(0, dot) : name;
-        String ext = (dot >= 0) ? name.substring(dot) : "";
-
-        Path prev1 = current.resolveSibling(base + "_prev1" + ext);
-        Path prev2 = current.resolveSibling(base + "_prev2" + ext);
-
-        Files.deleteIfExists(prev2);
-        if (Files.exists(prev1)) {
-            Files.move(prev1, prev2, StandardCopyOption.REPLACE_EXISTING);
-        }
-        if (Files.exists(current)) {
-            Files.move(current, prev1, StandardCopyOption.REPLACE_EXISTING);
-        }
-    }
-
-    private String joinTileIds(List<Tile> list) {
-        if (list == null || list.isEmpty()) return "";
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < list.size(); i++) {
-            if (i > 0) sb.append(',');
-            Tile t = list.get(i);
-            sb.append(t != null ? t.id : -1);
-        }
-        return sb.toString();
-    }
-
-    private String joinIntList(List<Integer> list) {
-        if (list == null || list.isEmpty()) return "";
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < list.size(); i++) {
-            if (i > 0) sb.append(',');
-            Integer v = list.get(i);
-            sb.append(v != null ? v : -1);
-        }
-        return sb.toString();
-    }
-
-    private String compactResources(Tile t) {
-        if (t.resources == null || t.resources.isEmpty()) return "";
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < t.resources.size(); i++) {
-            org.planet.core.generation.ResourcePresence r = t.resources.get(i);
-            if (i > 0) sb.append(';');
-            sb.append(r.type.id).append(':')
-                    .append(r.layer.ordinal()).append(':')
-                    .append(r.quality).append(':')
-                    .append(r.saturation).append(':')
-                    .append(r.amount);
-            if (r.type == ResourceType.TIDAL_PWR) {
-                sb.append(':').append(fmt(r.logTonnes)).append(':').append(fmt(r.tonnes));
-            }
-        }
-        return sb.toString();
-    }
-
-    private String fmt(double v) {
-        return String.format(Locale.US, "%.4f", v);
-    }
-
-    private String sanitizeFilePart(String s) {
-        if (s == null || s.isBlank()) return "unnamed";
-        String cleaned = s.trim()
-                .replaceAll("[^a-zA-Z0-9._-]+", "_")
-                .replaceAll("_+", "_");
-        if (cleaned.length() > 80) {
-            cleaned = cleaned.substring(0, 80);
-        }
-        if (cleaned.isBlank()) return "unnamed";
-        return cleaned;
-    }
-
-    private double nan0(double v) {
-        return Double.isNaN(v) ? 0.0 : v;
-    }
-
-    private String biomePreferredSeasonName(int id) {
-        return switch (id) {
-            case 0 -> "INTERSEASON";
-            case 1 -> "SUMMER";
-            case 2 -> "WINTER";
-            default -> "UNKNOWN";
-        };
+    private Path dumpTilesForDebug(StarSystemObjectRow row, PlanetConfig planet, List<Tile> tiles,
+                                   ResourceStore resources) throws Exception {
+        return TileDumpWriter.dump(Paths.get("/home/vladimirs/PlanetSurfaceGenerator/planet-generator"),
+                row, computeSeed(row), planet, tiles, resources);
     }
 
     private HBox buildSaveBar(DataSource ds,
@@ -1074,6 +938,7 @@ public class Main extends Application {
         Button saveButton = new Button("Save To DB");
         Button batchButton = new Button("Batch Save");
         Button dumpBatchButton = new Button("Batch Dump");
+        Button cancelBatchButton = new Button("Cancel Batch");
         TextField fromField = new TextField("2");
         TextField toField = new TextField("50001");
         fromField.setPrefWidth(80);
@@ -1147,28 +1012,14 @@ public class Main extends Application {
             batchButton.setDisable(true);
             saveStatus.setText("Batch running...");
 
-            Task<Void> task = new Task<>() {
-                @Override
-                protected Void call() {
-                    runBatch(repo, surfaceRepo, from, to);
-                    return null;
-                }
-            };
-            task.setOnSucceeded(ev -> {
-                saveStatus.setText("Batch done.");
-                saveButton.setDisable(false);
-                batchButton.setDisable(false);
-            });
-            task.setOnFailed(ev -> {
-                Throwable ex2 = task.getException();
-                saveStatus.setText("Batch failed: " + (ex2 != null ? ex2.getMessage() : "unknown"));
+            generationService.submit(JOB_BATCH_SAVE, (cancel, listener) -> {
+                runBatch(repo, surfaceRepo, from, to, cancel, listener);
+                return null;
+            }, null).result().whenComplete((v, ex) -> Platform.runLater(() -> {
+                saveStatus.setText(batchStatus("Batch", ex));
                 saveButton.setDisable(false);
                 batchButton.setDisable(false);
-            });
-
-            Thread th = new Thread(task, "batch-save");
-            th.setDaemon(true);
-            th.start();
+            }));
         });
 
         dumpBatchButton.setOnAction(e -> {
@@ -1191,30 +1042,21 @@ public class Main extends Application {
             dumpBatchButton.setDisable(true);
             saveStatus.setText("Batch dump running...");
 
-            Task<Void> task = new Task<>() {
-                @Override
-                protected Void call() throws Exception {
-                    runDumpBatch(repo, reqPath);
-                    return null;
-                }
-            };
-            task.setOnSucceeded(ev -> {
-                saveStatus.setText("Batch dump done.");
-                saveButton.setDisable(false);
-                batchButton.setDisable(false);
-                dumpBatchButton.setDisable(false);
-            });
-            task.setOnFailed(ev -> {
-                Throwable ex2 = task.getException();
-                saveStatus.setText("Batch dump failed: " + (ex2 != null ? ex2.getMessage() : "unknown"));
+            generationService.submit(JOB_BATCH_DUMP, (cancel, listener) -> {
+                runDumpBatch(repo, reqPath, cancel, listener);
+                return null;
+            }, null).result().whenComplete((v, ex) -> Platform.runLater(() -> {
+                saveStatus.setText(batchStatus("Batch dump", ex));
                 saveButton.setDisable(false);
                 batchButton.setDisable(false);
                 dumpBatchButton.setDisable(false);
-            });
+            }));
+        });
 
-            Thread th = new Thread(task, "batch-dump");
-            th.setDaemon(true);
-            th.start();
+        cancelBatchButton.setOnAction(e -> {
+            generationService.cancel(JOB_BATCH_SAVE);
+            generationService.cancel(JOB_BATCH_DUMP);
+            saveStatus.setText("Cancelling batch...");
         });
 
         HBox bar = new HBox(
@@ -1228,16 +1070,31 @@ public class Main extends Application {
                 new Label("Dump request:"),
                 new Label(DUMP_REQUEST_FILE.toString()),
                 dumpBatchButton,
+                cancelBatchButton,
                 saveStatus
         );
         bar.setPadding(new Insets(8));
         return bar;
     }
 
+    /** Исключение фоновой задачи без обёртки CompletionException. */
+    private static Throwable jobFailure(Throwable ex) {
+        return (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+    }
+
+    private static String batchStatus(String what, Throwable ex) {
+        if (ex == null) return what + " done.";
+        Throwable cause = jobFailure(ex);
+        if (cause instanceof CancellationException) return what + " cancelled.";
+        return what + " failed: " + (cause.getMessage() != null ? cause.getMessage() : "unknown");
+    }
+
     private void runBatch(StarSystemRepository repo,
                           PlanetSurfaceRepository surfaceRepo,
                           int from,
-                          int to) {
+                          int to,
+                          CancellationToken cancellation,
+                          StageListener listener) {
         long batchStartMs = System.currentTimeMillis();
         int systemsOk = 0;
         int systemsFail = 0;
@@ -1258,6 +1115,7 @@ public class Main extends Application {
                 appendBatchLog(BATCH_LOG_FILE, "[SYS_START] sys=" + sys + " candidates=" + candidates.size());
 
                 for (StarSystemObjectRow candidate : candidates) {
+                    cancellation.throwIfCancelled();
                     try {
                         StarSystemObjectRow row = repo.loadObjectRow(sys, candidate.objectInternalId);
                         if (row == null) continue;
@@ -1268,6 +1126,7 @@ public class Main extends Application {
                         List<Tile> tiles = CsvTileLoader.load(tilesPath);
                         WorldType worldType = WorldClassifier.classify(planet);
                         int plateCount = PlanetTuning.plateCount(planet, worldType);
+                        ResourceStore resources = null;
 
                         if (planet.lavaWorld) {
                             for (Tile t : tiles) {
@@ -1288,12 +1147,12 @@ public class Main extends Application {
                                             0.7, 0.3, 0.15,
                                             profile,
                                             true,
-                                            new ConsoleStageListener()
+                                            listener
                                     );
-                            pipeline.run(tiles, planet, settings, plateCount);
+                            resources = pipeline.run(tiles, planet, settings, plateCount, cancellation).resources;
                         }
 
-                        String hexJson = PlanetSurfaceSerializer.toJson(tiles, planet);
+                        String hexJson = PlanetSurfaceSerializer.toJson(tiles, planet, resources);
                         PlanetSurfaceRepository.UpsertReceipt receipt = surfaceRepo.upsertSurface(
                                 row.starSysIdx,
                                 row.objectInternalId,
@@ -1307,6 +1166,8 @@ public class Main extends Application {
                                 + " rows=" + receipt.rowsAffected
                                 + " bytes=" + receipt.charLength
                                 + " jsonKeys=" + receipt.jsonLength);
+                    } catch (GenerationCancelledException ex) {
+                        throw ex;
                     } catch (Exception ex) {
                         planetsFail++;
                         System.out.println("Failed to generate/save planet " + candidate.objectInternalId +
@@ -1321,6 +1182,10 @@ public class Main extends Application {
                         + " ok=" + planetsOk
                         + " fail=" + planetsFail
                         + " durMs=" + (System.currentTimeMillis() - sysStartMs));
+            } catch (GenerationCancelledException ex) {
+                appendBatchLog(BATCH_LOG_FILE, "[BATCH_CANCEL] sys=" + sys
+                        + " durMs=" + (System.currentTimeMillis() - batchStartMs));
+                throw ex;
             } catch (Exception ex) {
                 systemsFail++;
                 System.out.println("Failed StarSystem_" + sys + ": " + ex.getMessage());
@@ -1353,7 +1218,10 @@ public class Main extends Application {
         return s.replace('\n', ' ').replace('\r', ' ').trim();
     }
 
-    private void runDumpBatch(StarSystemRepository repo, Path requestFile) throws Exception {
+    private void runDumpBatch(StarSystemRepository repo,
+                              Path requestFile,
+                              CancellationToken cancellation,
+                              StageListener listener) throws Exception {
         List<String> lines = Files.readAllLines(requestFile, StandardCharsets.UTF_8);
         int ok = 0;
         int fail = 0;
@@ -1363,6 +1231,7 @@ public class Main extends Application {
             if (raw == null) continue;
             String line = raw.trim();
             if (line.isEmpty() || line.startsWith("#")) continue;
+            cancellation.throwIfCancelled();
 
             try {
                 String[] parts = line.split("[,;\\t ]+");
@@ -1383,6 +1252,7 @@ public class Main extends Application {
                 List<Tile> batchTiles = CsvTileLoader.load(tilesPath);
                 WorldType worldType = WorldClassifier.classify(planet);
                 int plateCount = PlanetTuning.plateCount(planet, worldType);
+                ResourceStore resources = null;
 
                 if (planet.lavaWorld) {
                     for (Tile t : batchTiles) {
@@ -1395,6 +1265,8 @@ public class Main extends Application {
                     GeneratorSettings settings = new GeneratorSettings(seed);
                     settings.seed = seed;
                     PlanetTuning.apply(settings, planet, worldType);
+                    // дамп читает хранилище ресурсов, копия в tile.resources не нужна
+                    settings.materializeResources = false;
 
                     StageProfile profile = WorldClassifier.profileFor(worldType, planet);
                     GenerationPipeline pipeline =
@@ -1403,14 +1275,17 @@ public class Main extends Application {
                                     0.7, 0.3, 0.15,
                                     profile,
                                     true,
-                                    new ConsoleStageListener()
+                                    listener
                             );
-                    pipeline.run(batchTiles, planet, settings, plateCount);
+                    resources = pipeline.run(batchTiles, planet, settings, plateCount, cancellation).resources;
                 }
 
-                Path dumpPath = dumpTilesForDebug(req, planet, batchTiles);
+                Path dumpPath = dumpTilesForDebug(req, planet, batchTiles, resources);
                 System.out.println("[DUMP-BATCH] OK sys=" + sys + " obj=" + obj + " -> " + dumpPath);
                 ok++;
+            } catch (GenerationCancelledException ex) {
+                System.out.println("[DUMP-BATCH] Cancelled. ok=" + ok + " fail=" + fail);
+                throw ex;
             } catch (Exception ex) {
                 System.err.println("[DUMP-BATCH] FAIL line=" + (i + 1) + " : " + ex.getMessage());
                 fail++;
@@ -1,5 +1,6 @@
 package org.planet.core.generation;
 
+import org.planet.core.model.SurfaceTrait;
 import org.planet.core.model.SurfaceType;
 import org.planet.core.model.Tile;
 import org.planet.core.model.BiomeModifier;
@@ -7,311 +8,386 @@ import org.planet.core.model.BiomeRegime;
 import org.planet.core.model.config.ClimateModelMode;
 import org.planet.core.model.config.PlanetConfig;
 
-import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 public class BiomeGeneratorV2 {
 
+    // Классы поверхностей как таблицы по ordinal(): вместо цепочек сравнений в цикле по тайлам.
+    /** Не классифицируются вовсе: вода, лёд над океаном, вулканика, безатмосферные поверхности, берег. */
+    private static final boolean[] EXCLUDED = mask(EnumSet.of(
+            SurfaceType.OCEAN, SurfaceType.ICE_OCEAN, SurfaceType.LAVA_OCEAN,
+            SurfaceType.CRATERED_SURFACE, SurfaceType.REGOLITH,
+            SurfaceType.METHANE_ICE, SurfaceType.AMMONIA_ICE, SurfaceType.CO2_ICE,
+            SurfaceType.VOLCANIC, SurfaceType.VOLCANIC_FIELD, SurfaceType.VOLCANO, SurfaceType.LAVA_PLAINS,
+            SurfaceType.LAVA_ISLANDS, SurfaceType.LAVA,
+            SurfaceType.OPEN_WATER_DEEP, SurfaceType.OPEN_WATER_SHALLOW,
+            SurfaceType.LAKE_FRESH, SurfaceType.LAKE_SALT, SurfaceType.LAKE_BRINE, SurfaceType.LAKE_ACID,
+            SurfaceType.SEA_ICE_SHALLOW, SurfaceType.SEA_ICE_DEEP, SurfaceType.STEAM_SEA,
+            SurfaceType.COAST_SANDY, SurfaceType.COAST_ROCKY));
+    /** Болота сохраняются только вне PHYSICAL-режима. */
+    private static final boolean[] EXCLUDED_WETLAND = mask(EnumSet.of(SurfaceType.SWAMP, SurfaceType.MUD_SWAMP));
+    private static final boolean[] ICE_COVER = mask(EnumSet.of(SurfaceType.ICE_SHEET, SurfaceType.GLACIER));
+    private static final boolean[] MOUNTAIN_RELIEF = mask(EnumSet.of(
+            SurfaceType.MOUNTAINS, SurfaceType.HIGH_MOUNTAINS, SurfaceType.MOUNTAINS_SNOW));
+    /** Холмистые типы, включая лесные/травяные варианты холмов. */
+    private static final boolean[] HILL_RELIEF = mask(EnumSet.of(
+            SurfaceType.HILLS, SurfaceType.HILLS_GRASS, SurfaceType.HILLS_FOREST, SurfaceType.HILLS_RAINFOREST,
+            SurfaceType.HIGHLANDS, SurfaceType.PLATEAU));
+
+    private static boolean[] mask(EnumSet<SurfaceType> types) {
+        boolean[] m = new boolean[SurfaceType.values().length];
+        for (SurfaceType st : types) m[st.ordinal()] = true;
+        return m;
+    }
+
+    /** Общие для всех тайлов входы классификации (перцентили планеты, режимы). */
+    private record TileEnv(
+            PlanetConfig planet,
+            boolean hasLiquidWater,
+            long seed,
+            boolean hasLife,
+            boolean physicalMode,
+            double lifeMaxTempC,
+            PlanetTuning.SeasonFavorabilityTuning favor,
+            int p70,
+            int p85,
+            int minElev,
+            int maxElev,
+            double peP10,
+            double peP90,
+            double soilP10,
+            double soilP90
+    ) {}
+
     public void apply(List<Tile> tiles, PlanetConfig planet, boolean hasLiquidWater, long seed, ClimateModelMode climateMode) {
+        apply(tiles, planet, hasLiquidWater, seed, climateMode, new PlanetStats());
+    }
+
+    public void apply(List<Tile> tiles,
+                      PlanetConfig planet,
+                      boolean hasLiquidWater,
+                      long seed,
+                      ClimateModelMode climateMode,
+                      PlanetStats stats) {
+        apply(tiles, planet, hasLiquidWater, seed, climateMode, stats, null);
+    }
+
+    /**
+     * Классификация только тайлов из only (id; null — все). Перцентили по-прежнему по всей планете,
+     * поэтому тайл получает тот же биом, что и при полном прогоне с тем же входом.
+     */
+    public void apply(List<Tile> tiles,
+                      PlanetConfig planet,
+                      boolean hasLiquidWater,
+                      long seed,
+                      ClimateModelMode climateMode,
+                      PlanetStats stats,
+                      int[] only) {
         boolean hasLife = (planet == null) || planet.hasSurfaceLife;
         boolean physicalMode = climateMode == ClimateModelMode.PHYSICAL;
         double lifeMaxTempC = lifeMaxTemperatureC(planet);
         PlanetTuning.SeasonFavorabilityTuning favor = PlanetTuning.seasonFavorabilityTuning();
         // compute elevation percentiles to classify hills/mountains on this planet
-        int[] elev = tiles.stream()
+        Supplier<double[]> landElevation = () -> tiles.stream()
                 .filter(t -> t.surfaceType != SurfaceType.OCEAN && t.surfaceType != SurfaceType.ICE_OCEAN && t.surfaceType != SurfaceType.LAVA_OCEAN)
-                .mapToInt(t -> t.elevation)
-                .sorted()
+                .mapToDouble(t -> t.elevation)
                 .toArray();
-        int p70 = percentile(elev, 0.70);
-        int p85 = percentile(elev, 0.85);
-        int minElev = elev.length > 0 ? elev[0] : 0;
-        int maxElev = elev.length > 0 ? elev[elev.length - 1] : 1;
-
-        int hydroCount = 0;
-        for (Tile t : tiles) {
-            if (!isWaterLike(t.surfaceType)) hydroCount++;
-        }
-        double[] peVals = new double[hydroCount];
-        double[] soilVals = new double[hydroCount];
-        int hk = 0;
-        for (Tile t : tiles) {
-            if (isWaterLike(t.surfaceType)) continue;
-            double pPhys = Double.isNaN(t.precipKgM2Day) ? 0.0 : t.precipKgM2Day;
-            double ePhys = Double.isNaN(t.evapKgM2Day) ? 0.0 : t.evapKgM2Day;
-            peVals[hk] = pPhys - ePhys;
-            soilVals[hk] = Double.isNaN(t.moisture) ? 0.0 : t.moisture;
-            hk++;
-        }
-        double peP10 = percentile(peVals, 0.10);
-        double peP90 = percentile(peVals, 0.90);
-        double soilP10 = percentile(soilVals, 0.10);
-        double soilP90 = percentile(soilVals, 0.90);
-
-        for (Tile t : tiles) {
-            t.biomeTempRange = Double.NaN;
-            t.biomeAiAnn = Double.NaN;
-            t.biomeAiWarm = Double.NaN;
-            t.biomeAiCold = Double.NaN;
-            t.biomeMonsoon = Double.NaN;
-            t.biomeRegime = BiomeRegime.UNKNOWN;
-            t.biomeModifierMask = 0;
-            t.biomeWarmFromPositiveTilt = -1;
-            t.biomePreferredSeason = -1;
-
-            if (t.surfaceType == SurfaceType.OCEAN || t.surfaceType == SurfaceType.ICE_OCEAN || t.surfaceType == SurfaceType.LAVA_OCEAN
-                    || t.surfaceType == SurfaceType.CRATERED_SURFACE || t.surfaceType == SurfaceType.REGOLITH
-                    || t.surfaceType == SurfaceType.METHANE_ICE || t.surfaceType == SurfaceType.AMMONIA_ICE || t.surfaceType == SurfaceType.CO2_ICE
-                    || t.surfaceType == SurfaceType.VOLCANIC || t.surfaceType == SurfaceType.VOLCANIC_FIELD
-                    || t.surfaceType == SurfaceType.VOLCANO || t.surfaceType == SurfaceType.LAVA_PLAINS
-                    || t.surfaceType == SurfaceType.LAVA_ISLANDS || t.surfaceType == SurfaceType.LAVA
-                    || (!physicalMode && (t.surfaceType == SurfaceType.SWAMP || t.surfaceType == SurfaceType.MUD_SWAMP))
-                    || t.surfaceType == SurfaceType.OPEN_WATER_DEEP || t.surfaceType == SurfaceType.OPEN_WATER_SHALLOW
-                    || t.surfaceType == SurfaceType.LAKE_FRESH || t.surfaceType == SurfaceType.LAKE_SALT
-                    || t.surfaceType == SurfaceType.LAKE_BRINE || t.surfaceType == SurfaceType.LAKE_ACID
-                    || t.surfaceType == SurfaceType.SEA_ICE_SHALLOW || t.surfaceType == SurfaceType.SEA_ICE_DEEP
-                    || t.surfaceType == SurfaceType.STEAM_SEA
-                    || t.surfaceType == SurfaceType.COAST_SANDY || t.surfaceType == SurfaceType.COAST_ROCKY) {
-                continue;
-            }
+        double[] elevP = stats.percentiles(PlanetStats.BIOME_LAND_ELEVATION, landElevation, 0.0, 0.70, 0.85, 1.0);
+        boolean hasLand = stats.size(PlanetStats.BIOME_LAND_ELEVATION, landElevation) > 0;
+        int p70 = (int) elevP[1];
+        int p85 = (int) elevP[2];
+        int minElev = hasLand ? (int) elevP[0] : 0;
+        int maxElev = hasLand ? (int) elevP[3] : 1;
+
+        double[] peP = stats.percentiles(PlanetStats.BIOME_PRECIP_MINUS_EVAP, () -> tiles.stream()
+                .filter(t -> !isWaterLike(t.surfaceType))
+                .mapToDouble(t -> (Double.isNaN(t.precipKgM2Day) ? 0.0 : t.precipKgM2Day)
+                        - (Double.isNaN(t.evapKgM2Day) ? 0.0 : t.evapKgM2Day))
+                .toArray(), 0.10, 0.90);
+        double[] soilP = stats.percentiles(PlanetStats.BIOME_SOIL_MOISTURE, () -> tiles.stream()
+                .filter(t -> !isWaterLike(t.surfaceType))
+                .mapToDouble(t -> Double.isNaN(t.moisture) ? 0.0 : t.moisture)
+                .toArray(), 0.10, 0.90);
+        double peP10 = peP[0];
+        double peP90 = peP[1];
+        double soilP10 = soilP[0];
+        double soilP90 = soilP[1];
+
+        TileEnv env = new TileEnv(planet, hasLiquidWater, seed, hasLife, physicalMode, lifeMaxTempC, favor,
+                p70, p85, minElev, maxElev, peP10, peP90, soilP10, soilP90);
+        // Тайл читает только свои поля и соседей (высоты и водность); водные тайлы не трогаются,
+        // а суша не становится водой — порядок обхода на результат не влияет.
+        Tile[] byIndex = (only == null) ? tiles.toArray(new Tile[0]) : pick(tiles, only);
+        boolean parallel = biomeParallelEnabled();
+        forEachIndex(byIndex.length, parallel, i -> classifyTile(byIndex[i], env));
 
-            double tempAnnual = t.temperature;
-            double tempWarm = fallbackSeason(t.biomeTempWarm, fallbackSeason(t.tempWarm, tempAnnual));
-            double tempCold = fallbackSeason(t.biomeTempCold, fallbackSeason(t.tempCold, tempAnnual));
-            double tempInter = fallbackSeason(t.biomeTempInterseason, tempAnnual);
-            double precipPhys = Double.isNaN(t.precipKgM2Day) ? 0.0 : t.precipKgM2Day;
-            double evapPhys = Double.isNaN(t.evapKgM2Day) ? 0.0 : t.evapKgM2Day;
-            double precipWarm = fallbackSeason(t.biomePrecipWarm, fallbackSeason(t.precipWarm, precipPhys));
-            double precipCold = fallbackSeason(t.biomePrecipCold, fallbackSeason(t.precipCold, precipPhys));
-            double precipInter = fallbackSeason(t.biomePrecipInterseason, precipPhys);
-            double precipPhysWarm = fallbackSeason(t.precipKgM2DayWarm, fallbackSeason(t.precipKgM2DayInterseason, precipPhys));
-            double precipPhysCold = fallbackSeason(t.precipKgM2DayCold, fallbackSeason(t.precipKgM2DayInterseason, precipPhys));
-            double precipPhysInter = fallbackSeason(t.precipKgM2DayInterseason, precipPhys);
-            double evapWarm = fallbackSeason(t.biomeEvapWarm, fallbackSeason(t.evapWarm, evapPhys));
-            double evapCold = fallbackSeason(t.biomeEvapCold, fallbackSeason(t.evapCold, evapPhys));
-            double evapInter = fallbackSeason(t.biomeEvapInterseason, evapPhys);
-            double pePhys = precipPhys - evapPhys;
-            double aridity = (precipPhys + 0.2) / (evapPhys + 0.2); // <1 => суше
-            double aiWarm = aridityIndex(precipWarm, evapWarm);
-            double aiCold = aridityIndex(precipCold, evapCold);
-            double aiInter = aridityIndex(precipInter, evapInter);
-            double aiAnn = aridityIndex(precipPhys, evapPhys);
-            double monsoon = Math.abs(precipWarm - precipCold) / (precipWarm + precipCold + 1.0);
-            double tempRange = Math.max(0.0, tempWarm - tempCold);
-            double soilAnnual = Double.isNaN(t.moisture) ? 0.0 : t.moisture;
-            double soilWarm = fallbackSeason(t.biomeMoistureWarm, soilAnnual);
-            double soilCold = fallbackSeason(t.biomeMoistureCold, soilAnnual);
-            double soilInter = fallbackSeason(t.biomeMoistureInterseason, soilAnnual);
-            double lifeThermalLimit = lifeTemperatureLimitC(t, planet, lifeMaxTempC);
-            double thermalPeak = Math.max(tempWarm, Math.max(tempInter, Math.max(tempAnnual, tempCold)));
-
-            if (t.surfaceType == SurfaceType.ICE_SHEET || t.surfaceType == SurfaceType.GLACIER) {
-                continue;
-            }
+        // Enforce one-step greener biome on river tiles (land only).
+        forEachIndex(byIndex.length, parallel, i -> {
+            Tile t = byIndex[i];
+            if (!t.isRiver && t.riverDischargeTps <= 0.0) return;
+            if (isWaterLike(t.surfaceType)) return;
+            if (hasLife && tileExceedsLifeThermalLimit(t, planet, lifeMaxTempC)) return;
+            t.surfaceType = greenerByOneStep(t.surfaceType);
+        });
+    }
 
-            double slope = maxSlope(t);
-            boolean isMountain = t.surfaceType == SurfaceType.MOUNTAINS
-                    || t.surfaceType == SurfaceType.HIGH_MOUNTAINS
-                    || t.surfaceType == SurfaceType.MOUNTAINS_SNOW
-                    || (t.elevation >= p85 && slope >= 4.0);
-            boolean isHill = t.surfaceType == SurfaceType.HILLS
-                    || t.surfaceType == SurfaceType.HILLS_GRASS
-                    || t.surfaceType == SurfaceType.HILLS_FOREST
-                    || t.surfaceType == SurfaceType.HILLS_RAINFOREST
-                    || t.surfaceType == SurfaceType.HIGHLANDS
-                    || t.surfaceType == SurfaceType.PLATEAU
-                    || (!isMountain && t.elevation >= p70 && slope >= 2.0);
-
-            double elevNorm = (maxElev > minElev) ? (t.elevation - minElev) / (double) (maxElev - minElev) : 0.0;
-            SeasonChoice favored = pickMostFavorableSeason(
-                    tempWarm, tempCold, tempInter,
-                    precipWarm, precipCold, precipInter,
-                    evapWarm, evapCold, evapInter,
-                    soilWarm, soilCold, soilInter,
-                    favor
-            );
-            t.biomePreferredSeason = favored.id();
-
-            double tempAdj = favored.temp() - elevNorm * 12.0;
-            double tempWarmAdj = tempWarm - elevNorm * 10.0;
-            double tempColdAdj = tempCold - elevNorm * 10.0;
-            double tempInterAdj = tempInter - elevNorm * 10.0;
-            double peNorm;
-            double soilNorm;
-            double peFav = favored.precip() - favored.evap();
-            if (physicalMode) {
-                peNorm = normalizeToUnit(peFav, -1.0, 8.0);
-                soilNorm = normalizeToUnit(favored.moisture(), 0.0, 100.0);
-            } else {
-                peNorm = normalizeToUnit(peFav, peP10, peP90);
-                soilNorm = normalizeToUnit(favored.moisture(), soilP10, soilP90);
-            }
-            double hydro = peNorm * 0.45 + soilNorm * 0.55;
-            double moistAdj = (hydro - 0.45) * 32.0 - elevNorm * 6.0;
+    private static Tile[] pick(List<Tile> tiles, int[] ids) {
+        Tile[] out = new Tile[ids.length];
+        for (int i = 0; i < ids.length; i++) out[i] = tiles.get(ids[i]);
+        return out;
+    }
 
-            boolean coastalBuffered = hasWaterNeighbor(t);
-            if (coastalBuffered) {
-                moistAdj += 4.5;
-                t.biomeModifierMask = BiomeModifier.add(t.biomeModifierMask, BiomeModifier.COASTAL_BUFFERED);
-            }
+    private static void forEachIndex(int n, boolean parallel, IntConsumer action) {
+        if (parallel) {
+            IntStream.range(0, n).parallel().forEach(action);
+        } else {
+            for (int i = 0; i < n; i++) action.accept(i);
+        }
+    }
 
-            // River-fed floodplains and oases should be greener than background climate.
-            if (t.riverFlow > 0.03 || t.riverDischargeTps > 200.0) {
-                moistAdj += 5.0;
-                t.biomeModifierMask = BiomeModifier.add(t.biomeModifierMask, BiomeModifier.RIVER_FED);
-            }
+    private static boolean biomeParallelEnabled() {
+        return Boolean.parseBoolean(System.getProperty("planet.biome.parallel", "true"));
+    }
 
-            t.biomeTempRange = tempRange;
-            t.biomeAiAnn = aiAnn;
-            t.biomeAiWarm = aiWarm;
-            t.biomeAiCold = aiCold;
-            t.biomeMonsoon = monsoon;
-            t.biomeRegime = classifyRegime(tempWarmAdj, tempColdAdj, aiAnn, aiWarm, aiCold, monsoon);
+    private void classifyTile(Tile t, TileEnv env) {
+        t.biomeTempRange = Double.NaN;
+        t.biomeAiAnn = Double.NaN;
+        t.biomeAiWarm = Double.NaN;
+        t.biomeAiCold = Double.NaN;
+        t.biomeMonsoon = Double.NaN;
+        t.biomeRegime = BiomeRegime.UNKNOWN;
+        t.biomeModifierMask = 0;
+        t.biomeWarmFromPositiveTilt = -1;
+        t.biomePreferredSeason = -1;
 
-            if (tempRange >= 25.0) {
-                t.biomeModifierMask = BiomeModifier.add(t.biomeModifierMask, BiomeModifier.HIGH_SEASONALITY);
-            }
-            if (tempColdAdj <= -15.0) {
-                t.biomeModifierMask = BiomeModifier.add(t.biomeModifierMask, BiomeModifier.COLD_WINTER);
-            }
-            if (tempColdAdj <= -25.0) {
-                t.biomeModifierMask = BiomeModifier.add(t.biomeModifierMask, BiomeModifier.SEVERE_WINTER);
-            }
-            if (monsoon >= 0.45) {
-                t.biomeModifierMask = BiomeModifier.add(t.biomeModifierMask, BiomeModifier.MONSOONAL);
-            }
-            if (aiWarm > 1.1 && aiCold < 0.65) {
-                t.biomeModifierMask = BiomeModifier.add(t.biomeModifierMask, BiomeModifier.WET_SUMMER_DRY_WINTER);
-            }
-            if (aiWarm < 0.65 && aiCold > 1.1) {
-                t.biomeModifierMask = BiomeModifier.add(t.biomeModifierMask, BiomeModifier.DRY_SUMMER_WET_WINTER);
-            }
-            if (tempColdAdj < 0.0) {
-                t.biomeModifierMask = BiomeModifier.add(t.biomeModifierMask, BiomeModifier.FROST_RISK);
-            }
-            if (tempWarmAdj > 35.0) {
-                t.biomeModifierMask = BiomeModifier.add(t.biomeModifierMask, BiomeModifier.HEAT_STRESS);
-            }
-            // Дет. шум для неровности границ биомов
-            double noise = octaveNoise(seed, t.id); // -1..1
-            double tempJitter = noise * 1.2;
-            double moistJitter = noise * 2.0;
-            tempAdj += tempJitter;
-            tempInterAdj += tempJitter;
-            tempWarmAdj += tempJitter;
-            moistAdj += moistJitter;
-            if (!hasLiquidWater) {
-                // нет жидкой воды -> ограничиваем влажные биомы
-                moistAdj = Math.min(moistAdj, 35.0);
-            }
+        int st = t.surfaceType.ordinal();
+        if (EXCLUDED[st] || (!env.physicalMode() && EXCLUDED_WETLAND[st])) {
+            return;
+        }
 
-            // Аридный режим: если испарение заметно выше осадков, принудительно сушим
-            if (peFav < -0.2) {
-                if (favored.ai() < 0.50) {
-                    moistAdj -= 6.0;
-                } else if (favored.ai() < 0.70) {
-                    moistAdj -= 3.0;
-                }
-            }
+        double tempAnnual = t.temperature;
+        double tempWarm = fallbackSeason(t.biomeTempWarm, fallbackSeason(t.tempWarm, tempAnnual));
+        double tempCold = fallbackSeason(t.biomeTempCold, fallbackSeason(t.tempCold, tempAnnual));
+        double tempInter = fallbackSeason(t.biomeTempInterseason, tempAnnual);
+        double precipPhys = Double.isNaN(t.precipKgM2Day) ? 0.0 : t.precipKgM2Day;
+        double evapPhys = Double.isNaN(t.evapKgM2Day) ? 0.0 : t.evapKgM2Day;
+        double precipWarm = fallbackSeason(t.biomePrecipWarm, fallbackSeason(t.precipWarm, precipPhys));
+        double precipCold = fallbackSeason(t.biomePrecipCold, fallbackSeason(t.precipCold, precipPhys));
+        double precipInter = fallbackSeason(t.biomePrecipInterseason, precipPhys);
+        double precipPhysWarm = fallbackSeason(t.precipKgM2DayWarm, fallbackSeason(t.precipKgM2DayInterseason, precipPhys));
+        double precipPhysCold = fallbackSeason(t.precipKgM2DayCold, fallbackSeason(t.precipKgM2DayInterseason, precipPhys));
+        double precipPhysInter = fallbackSeason(t.precipKgM2DayInterseason, precipPhys);
+        double evapWarm = fallbackSeason(t.biomeEvapWarm, fallbackSeason(t.evapWarm, evapPhys));
+        double evapCold = fallbackSeason(t.biomeEvapCold, fallbackSeason(t.evapCold, evapPhys));
+        double evapInter = fallbackSeason(t.biomeEvapInterseason, evapPhys);
+        double pePhys = precipPhys - evapPhys;
+        double aridity = (precipPhys + 0.2) / (evapPhys + 0.2); // <1 => суше
+        double aiWarm = aridityIndex(precipWarm, evapWarm);
+        double aiCold = aridityIndex(precipCold, evapCold);
+        double aiInter = aridityIndex(precipInter, evapInter);
+        double aiAnn = aridityIndex(precipPhys, evapPhys);
+        double monsoon = Math.abs(precipWarm - precipCold) / (precipWarm + precipCold + 1.0);
+        double tempRange = Math.max(0.0, tempWarm - tempCold);
+        double soilAnnual = Double.isNaN(t.moisture) ? 0.0 : t.moisture;
+        double soilWarm = fallbackSeason(t.biomeMoistureWarm, soilAnnual);
+        double soilCold = fallbackSeason(t.biomeMoistureCold, soilAnnual);
+        double soilInter = fallbackSeason(t.biomeMoistureInterseason, soilAnnual);
+        double lifeThermalLimit = lifeTemperatureLimitC(t, env.planet(), env.lifeMaxTempC());
+        double thermalPeak = Math.max(tempWarm, Math.max(tempInter, Math.max(tempAnnual, tempCold)));
+
+        if (ICE_COVER[st]) {
+            return;
+        }
 
-            // Сильная сезонность: базируемся на теплом сезоне, но жесткая зима ограничивает "зеленость".
-            double winterPenalty = 0.0;
-            if (tempRange >= 30.0) winterPenalty += 2.0;
-            if (tempColdAdj <= -15.0) winterPenalty += 3.0;
-            if (tempColdAdj <= -25.0) winterPenalty += 3.0;
-            if (aiCold < 0.55) winterPenalty += 1.5;
-            tempAdj -= winterPenalty * 0.35;
-            moistAdj -= winterPenalty;
-            if (monsoon > 0.45 && aiWarm > 0.9) moistAdj += 2.0;
-            if (monsoon > 0.45 && aiCold < 0.5) moistAdj -= 1.5;
-
-            // Абсолютно перегретые зоны: принудительная пустыня только в жарко-сухом режиме.
-            // Для жарко-влажных тайлов (монсун/тропики) оставляем выбор по профилям.
-            double maxSeasonTempAdj = Math.max(tempWarmAdj, Math.max(tempInterAdj, tempAdj));
-            boolean hotAndDry = favored.ai() < 1.0 || favored.moisture() < 45.0 || peFav < 0.0;
-            if (maxSeasonTempAdj > 50.0 && hotAndDry) {
-                if (isMountain || isHill) {
-                    t.surfaceType = isHill ? SurfaceType.HILLS_DESERT : SurfaceType.MOUNTAINS_DESERT;
-                } else {
-                    t.surfaceType = SurfaceType.DESERT_ROCKY;
-                }
-                continue;
-            }
+        double slope = maxSlope(t);
+        boolean isMountain = MOUNTAIN_RELIEF[st] || (t.elevation >= env.p85() && slope >= 4.0);
+        boolean isHill = HILL_RELIEF[st] || (!isMountain && t.elevation >= env.p70() && slope >= 2.0);
+
+        double elevNorm = (env.maxElev() > env.minElev()) ? (t.elevation - env.minElev()) / (double) (env.maxElev() - env.minElev()) : 0.0;
+        SeasonChoice favored = pickMostFavorableSeason(
+                tempWarm, tempCold, tempInter,
+                precipWarm, precipCold, precipInter,
+                evapWarm, evapCold, evapInter,
+                soilWarm, soilCold, soilInter,
+                env.favor()
+        );
+        t.biomePreferredSeason = favored.id();
+
+        double tempAdj = favored.temp() - elevNorm * 12.0;
+        double tempWarmAdj = tempWarm - elevNorm * 10.0;
+        double tempColdAdj = tempCold - elevNorm * 10.0;
+        double tempInterAdj = tempInter - elevNorm * 10.0;
+        double peNorm;
+        double soilNorm;
+        double peFav = favored.precip() - favored.evap();
+        if (env.physicalMode()) {
+            peNorm = normalizeToUnit(peFav, -1.0, 8.0);
+            soilNorm = normalizeToUnit(favored.moisture(), 0.0, 100.0);
+        } else {
+            peNorm = normalizeToUnit(peFav, env.peP10(), env.peP90());
+            soilNorm = normalizeToUnit(favored.moisture(), env.soilP10(), env.soilP90());
+        }
+        double hydro = peNorm * 0.45 + soilNorm * 0.55;
+        double moistAdj = (hydro - 0.45) * 32.0 - elevNorm * 6.0;
 
-            // Hard dry gate: if all seasonal physical precipitation and soil moisture are near zero,
-            // force desert-like families to avoid grass/tundra artifacts at P~0 and E~0.
-            boolean hyperArid = isHyperArid(
-                    precipPhysWarm, precipPhysInter, precipPhysCold,
-                    soilWarm, soilInter, soilCold
-            );
-            if (hyperArid) {
-                if (isMountain || isHill) {
-                    t.surfaceType = isHill ? SurfaceType.HILLS_DESERT : SurfaceType.MOUNTAINS_DESERT;
-                } else {
-                    t.surfaceType = (tempAdj <= 10.0) ? SurfaceType.COLD_DESERT : pickLowlandDesert(seed, t);
-                }
-                continue;
-            }
+        boolean coastalBuffered = hasWaterNeighbor(t);
+        if (coastalBuffered) {
+            moistAdj += 4.5;
+            t.biomeModifierMask = BiomeModifier.add(t.biomeModifierMask, BiomeModifier.COASTAL_BUFFERED);
+        }
 
-            if (!hasLife) {
-                applyAbiotic(t, tempAdj, moistAdj, isMountain, isHill);
-                continue;
-            }
+        // River-fed floodplains and oases should be greener than background climate.
+        if (t.riverFlow > 0.03 || t.riverDischargeTps > 200.0) {
+            moistAdj += 5.0;
+            t.biomeModifierMask = BiomeModifier.add(t.biomeModifierMask, BiomeModifier.RIVER_FED);
+        }
+
+        t.biomeTempRange = tempRange;
+        t.biomeAiAnn = aiAnn;
+        t.biomeAiWarm = aiWarm;
+        t.biomeAiCold = aiCold;
+        t.biomeMonsoon = monsoon;
+        t.biomeRegime = classifyRegime(tempWarmAdj, tempColdAdj, aiAnn, aiWarm, aiCold, monsoon);
+
+        if (tempRange >= 25.0) {
+            t.biomeModifierMask = BiomeModifier.add(t.biomeModifierMask, BiomeModifier.HIGH_SEASONALITY);
+        }
+        if (tempColdAdj <= -15.0) {
+            t.biomeModifierMask = BiomeModifier.add(t.biomeModifierMask, BiomeModifier.COLD_WINTER);
+        }
+        if (tempColdAdj <= -25.0) {
+            t.biomeModifierMask = BiomeModifier.add(t.biomeModifierMask, BiomeModifier.SEVERE_WINTER);
+        }
+        if (monsoon >= 0.45) {
+            t.biomeModifierMask = BiomeModifier.add(t.biomeModifierMask, BiomeModifier.MONSOONAL);
+        }
+        if (aiWarm > 1.1 && aiCold < 0.65) {
+            t.biomeModifierMask = BiomeModifier.add(t.biomeModifierMask, BiomeModifier.WET_SUMMER_DRY_WINTER);
+        }
+        if (aiWarm < 0.65 && aiCold > 1.1) {
+            t.biomeModifierMask = BiomeModifier.add(t.biomeModifierMask, BiomeModifier.DRY_SUMMER_WET_WINTER);
+        }
+        if (tempColdAdj < 0.0) {
+            t.biomeModifierMask = BiomeModifier.add(t.biomeModifierMask, BiomeModifier.FROST_RISK);
+        }
+        if (tempWarmAdj > 35.0) {
+            t.biomeModifierMask = BiomeModifier.add(t.biomeModifierMask, BiomeModifier.HEAT_STRESS);
+        }
+        // Дет. шум для неровности границ биомов
+        double noise = octaveNoise(env.seed(), t.id); // -1..1
+        double tempJitter = noise * 1.2;
+        double moistJitter = noise * 2.0;
+        tempAdj += tempJitter;
+        tempInterAdj += tempJitter;
+        tempWarmAdj += tempJitter;
+        moistAdj += moistJitter;
+        if (!env.hasLiquidWater()) {
+            // нет жидкой воды -> ограничиваем влажные биомы
+            moistAdj = Math.min(moistAdj, 35.0);
+        }
 
-            // Life-bearing biomes are forbidden above species tolerance and above local boiling constraints.
-            if (thermalPeak > lifeThermalLimit) {
-                t.biomeModifierMask = BiomeModifier.add(t.biomeModifierMask, BiomeModifier.HEAT_STRESS);
-                applyAbiotic(t, tempAdj, moistAdj, isMountain, isHill);
-                continue;
+        // Аридный режим: если испарение заметно выше осадков, принудительно сушим
+        if (peFav < -0.2) {
+            if (favored.ai() < 0.50) {
+                moistAdj -= 6.0;
+            } else if (favored.ai() < 0.70) {
+                moistAdj -= 3.0;
             }
+        }
 
-            ReliefClass relief = isMountain ? ReliefClass.MOUNTAIN : (isHill ? ReliefClass.HILL : ReliefClass.LOWLAND);
-            BiomeFeatures features = new BiomeFeatures(
-                    tempAdj,
-                    favored.precip(),
-                    favored.evap(),
-                    favored.moisture(),
-                    favored.ai(),
-                    tempWarmAdj,
-                    tempColdAdj,
-                    monsoon,
-                    t.riverFlow > 0.03 || t.riverDischargeTps > 200.0,
-                    coastalBuffered
-            );
-            SurfaceType selected = selectBiomeByProfiles(seed, t, relief, features);
-            if (selected != null) {
-                t.surfaceType = selected;
-                continue;
+        // Сильная сезонность: базируемся на теплом сезоне, но жесткая зима ограничивает "зеленость".
+        double winterPenalty = 0.0;
+        if (tempRange >= 30.0) winterPenalty += 2.0;
+        if (tempColdAdj <= -15.0) winterPenalty += 3.0;
+        if (tempColdAdj <= -25.0) winterPenalty += 3.0;
+        if (aiCold < 0.55) winterPenalty += 1.5;
+        tempAdj -= winterPenalty * 0.35;
+        moistAdj -= winterPenalty;
+        if (monsoon > 0.45 && aiWarm > 0.9) moistAdj += 2.0;
+        if (monsoon > 0.45 && aiCold < 0.5) moistAdj -= 1.5;
+
+        // Абсолютно перегретые зоны: принудительная пустыня только в жарко-сухом режиме.
+        // Для жарко-влажных тайлов (монсун/тропики) оставляем выбор по профилям.
+        double maxSeasonTempAdj = Math.max(tempWarmAdj, Math.max(tempInterAdj, tempAdj));
+        boolean hotAndDry = favored.ai() < 1.0 || favored.moisture() < 45.0 || peFav < 0.0;
+        if (maxSeasonTempAdj > 50.0 && hotAndDry) {
+            if (isMountain || isHill) {
+                t.surfaceType = isHill ? SurfaceType.HILLS_DESERT : SurfaceType.MOUNTAINS_DESERT;
+            } else {
+                t.surfaceType = SurfaceType.DESERT_ROCKY;
             }
+            return;
+        }
 
-            // Fallback to legacy heuristics if profile table has no confident candidate.
-            if (isHill) {
-                t.surfaceType = pickHillBiome(tempAdj, moistAdj);
-            } else if (isMountain) {
-                t.surfaceType = pickMountainBiome(tempAdj, moistAdj);
+        // Hard dry gate: if all seasonal physical precipitation and soil moisture are near zero,
+        // force desert-like families to avoid grass/tundra artifacts at P~0 and E~0.
+        boolean hyperArid = isHyperArid(
+                precipPhysWarm, precipPhysInter, precipPhysCold,
+                soilWarm, soilInter, soilCold
+        );
+        if (hyperArid) {
+            if (isMountain || isHill) {
+                t.surfaceType = isHill ? SurfaceType.HILLS_DESERT : SurfaceType.MOUNTAINS_DESERT;
             } else {
-                if (tempAdj > 24) {
-                    if (moistAdj > 12) {
-                        t.surfaceType = SurfaceType.RAINFOREST;
-                    } else if (moistAdj > 5) {
-                        t.surfaceType = SurfaceType.SAVANNA;
-                    } else {
-                        t.surfaceType = SurfaceType.DRY_SAVANNA;
-                    }
-                } else if (tempAdj > 8) {
-                    t.surfaceType = SurfaceType.GRASSLAND;
-                } else {
-                    t.surfaceType = SurfaceType.PLAINS_GRASS;
-                }
+                t.surfaceType = (tempAdj <= 10.0) ? SurfaceType.COLD_DESERT : pickLowlandDesert(env.seed(), t);
             }
+            return;
         }
 
-        // Enforce one-step greener biome on river tiles (land only).
-        for (Tile t : tiles) {
-            if (!t.isRiver && t.riverDischargeTps <= 0.0) continue;
-            if (isWaterLike(t.surfaceType)) continue;
-            if (hasLife && tileExceedsLifeThermalLimit(t, planet, lifeMaxTempC)) continue;
-            t.surfaceType = greenerByOneStep(t.surfaceType);
+        if (!env.hasLife()) {
+            applyAbiotic(t, tempAdj, moistAdj, isMountain, isHill);
+            return;
+        }
+
+        // Life-bearing biomes are forbidden above species tolerance and above local boiling constraints.
+        if (thermalPeak > lifeThermalLimit) {
+            t.biomeModifierMask = BiomeModifier.add(t.biomeModifierMask, BiomeModifier.HEAT_STRESS);
+            applyAbiotic(t, tempAdj, moistAdj, isMountain, isHill);
+            return;
+        }
+
+        ReliefClass relief = isMountain ? ReliefClass.MOUNTAIN : (isHill ? ReliefClass.HILL : ReliefClass.LOWLAND);
+        BiomeFeatures features = new BiomeFeatures(
+                tempAdj,
+                favored.precip(),
+                favored.evap(),
+                favored.moisture(),
+                favored.ai(),
+                tempWarmAdj,
+                tempColdAdj,
+                monsoon,
+                t.riverFlow > 0.03 || t.riverDischargeTps > 200.0,
+                coastalBuffered
+        );
+        SurfaceType selected = selectBiomeByProfiles(env.seed(), t, relief, features);
+        if (selected != null) {
+            t.surfaceType = selected;
+            return;
+        }
+
+        // Fallback to legacy heuristics if profile table has no confident candidate.
+        if (isHill) {
+            t.surfaceType = pickHillBiome(tempAdj, moistAdj);
+        } else if (isMountain) {
+            t.surfaceType = pickMountainBiome(tempAdj, moistAdj);
+        } else {
+            if (tempAdj > 24) {
+                if (moistAdj > 12) {
+                    t.surfaceType = SurfaceType.RAINFOREST;
+                } else if (moistAdj > 5) {
+                    t.surfaceType = SurfaceType.SAVANNA;
+                } else {
+                    t.surfaceType = SurfaceType.DRY_SAVANNA;
+                }
+            } else if (tempAdj > 8) {
+                t.surfaceType = SurfaceType.GRASSLAND;
+            } else {
+                t.surfaceType = SurfaceType.PLAINS_GRASS;
+            }
         }
     }
 
@@ -484,6 +560,18 @@ public class BiomeGeneratorV2 {
             p(SurfaceType.MOUNTAINS_DESERT, ReliefClass.MOUNTAIN, 20, 12, 0.22, 0.22, 8, 8, 1, 3, 0.15, 0.45, -40, 55, -0.03, -0.03)
     );
 
+    /** Профили по ReliefClass.ordinal() в порядке BIOME_PROFILES (порядок решает ничьи по score). */
+    private static final BiomeProfile[][] PROFILES_BY_RELIEF = groupByRelief(BIOME_PROFILES);
+
+    private static BiomeProfile[][] groupByRelief(List<BiomeProfile> profiles) {
+        ReliefClass[] classes = ReliefClass.values();
+        BiomeProfile[][] out = new BiomeProfile[classes.length][];
+        for (ReliefClass rc : classes) {
+            out[rc.ordinal()] = profiles.stream().filter(p -> p.relief() == rc).toArray(BiomeProfile[]::new);
+        }
+        return out;
+    }
+
     private static BiomeProfile p(
             SurfaceType out,
             ReliefClass relief,
@@ -512,8 +600,7 @@ public class BiomeGeneratorV2 {
     private SurfaceType selectBiomeByProfiles(long seed, Tile tile, ReliefClass relief, BiomeFeatures f) {
         BiomeProfile best = null;
         double bestScore = -1e18;
-        for (BiomeProfile p : BIOME_PROFILES) {
-            if (p.relief() != relief) continue;
+        for (BiomeProfile p : PROFILES_BY_RELIEF[relief.ordinal()]) {
             double s = biomeScore(p, f);
             if (s > bestScore) {
                 bestScore = s;
@@ -591,44 +678,19 @@ public class BiomeGeneratorV2 {
         return BiomeRegime.TEMPERATE_BALANCED;
     }
 
-    private int percentile(int[] arr, double p) {
-        if (arr.length == 0) return 0;
-        int idx = (int) Math.round((arr.length - 1) * p);
-        if (idx < 0) idx = 0;
-        if (idx >= arr.length) idx = arr.length - 1;
-        return arr[idx];
-    }
-
-    private double percentile(double[] arr, double p) {
-        if (arr.length == 0) return 0.0;
-        double[] copy = arr.clone();
-        Arrays.sort(copy);
-        int idx = (int) Math.round((copy.length - 1) * p);
-        if (idx < 0) idx = 0;
-        if (idx >= copy.length) idx = copy.length - 1;
-        return copy[idx];
-    }
-
     private double normalizeToUnit(double v, double lo, double hi) {
         if (hi <= lo + 1e-9) return 0.5;
         return clamp((v - lo) / (hi - lo), 0.0, 1.0);
     }
 
     private boolean isWaterLike(SurfaceType st) {
-        return switch (st) {
-            case OCEAN, ICE_OCEAN, LAVA_OCEAN,
-                    OPEN_WATER_DEEP, OPEN_WATER_SHALLOW,
-                    LAKE_FRESH, LAKE_SALT, LAKE_BRINE, LAKE_ACID,
-                    SEA_ICE_SHALLOW, SEA_ICE_DEEP, STEAM_SEA,
-                    COAST_SANDY, COAST_ROCKY -> true;
-            default -> false;
-        };
+        return st.is(SurfaceTrait.WATER | SurfaceTrait.COAST);
     }
 
     private boolean hasWaterNeighbor(Tile t) {
         if (t.neighbors == null || t.neighbors.isEmpty()) return false;
         for (Tile nb : t.neighbors) {
-            if (nb != null && isWaterLike(nb.surfaceType)) return true;
+            if (nb != null && nb.surfaceType.is(SurfaceTrait.WATER | SurfaceTrait.COAST)) return true;
         }
         return false;
     }
@@ -0,0 +1,27 @@
+package org.planet.core.generation;
+
+/**
+ * Флаг кооперативной отмены генерации. Пайплайн проверяет его между стадиями,
+ * IterationControl — на итерациях длинных циклов (релаксация ветра, влагооборот, эрозия).
+ */
+public final class CancellationToken {
+
+    /** Никогда не отменяется: для прямых вызовов пайплайна. */
+    public static final CancellationToken NONE = new CancellationToken();
+
+    private volatile boolean cancelled;
+
+    public void cancel() {
+        if (this == NONE) return;
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /** Бросает GenerationCancelledException, если генерацию отменили. */
+    public void throwIfCancelled() {
+        if (cancelled) throw new GenerationCancelledException();
+    }
+}
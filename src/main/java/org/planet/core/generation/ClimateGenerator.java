@@ -45,13 +45,14 @@ public class ClimateGenerator {
 
         double baseK = baseTemperatureK(planet, true);
         double baseC = baseK - 273.15;
+        double pressureDamp = pressureDampFactor(planet);
+        int basePressure = (int) (planet.atmosphereDensity * 1000);
 
         for (Tile t : tiles) {
 
             double temp = baseC;
 
             // широтная зональность (усиливается при низком давлении)
-            double pressureDamp = pressureDampFactor(planet);
             double latSeason = t.lat - seasonalShiftLat;
             temp -= Math.abs(latSeason) * LATITUDE_TEMP_FACTOR * pressureDamp;
 
@@ -68,7 +69,6 @@ public class ClimateGenerator {
             //pressure = 1000  → 1 атмосфера
             //pressure = 0     → вакуум
             //pressure = 2000  → 2 атмосферы
-            int basePressure = (int) (planet.atmosphereDensity * 1000);
             int heightPenalty = (int) (meters * 0.12);
 
             t.pressure = Math.max(0, basePressure - heightPenalty);
@@ -84,6 +84,9 @@ public class ClimateGenerator {
         double baseK = baseTemperatureK(planet, true);
         double baseC = baseK - 273.15;
 
+        double pressureDamp = pressureDampFactor(planet);
+        int basePressure = (int) (planet.atmosphereDensity * 1000);
+
         // подсолнечная точка условно: lat=0, lon=0
         for (Tile t : tiles) {
 
@@ -95,7 +98,6 @@ public class ClimateGenerator {
             // cos(0)=1 (день), cos(180)=-1 (ночь)
             double sunFactor = Math.cos(Math.toRadians(angularDistance));
 
-            double pressureDamp = pressureDampFactor(planet);
             double temp =
                     baseC +
                             sunFactor * 60.0 * pressureDamp; // амплитуда нагрева
@@ -110,9 +112,6 @@ public class ClimateGenerator {
 
             t.temperature = (int) Math.round(temp);
 
-            // давление
-            int basePressure = (int) (planet.atmosphereDensity * 1000);
-
             // ночь → холод → плотный воздух
             int thermalEffect = (int) (-sunFactor * 120);
 
@@ -0,0 +1,112 @@
+package org.planet.core.generation;
+
+/**
+ * Поточечные климатические ядра над массивами по индексу тайла.
+ *
+ * Пока это только насыщающая удельная влажность (qsat): испарение и конденсация в цикле влаги
+ * ветвятся по типу поверхности тайла и остаются скалярными.
+ *
+ * Реализация выбирается один раз при загрузке класса:
+ * - скалярная (по умолчанию) — эталон, бит-в-бит как прежние формулы WindGenerator;
+ * - векторная (jdk.incubator.vector), если сборка с профилем vector (-Pvector), включено
+ *   -Dplanet.climate.vector=true и JVM запущена с --add-modules jdk.incubator.vector.
+ *
+ * Совпадение векторной версии со скалярной в пределах EQUIVALENCE_TOLERANCE проверяет
+ * ClimateKernelsTest; скорость — ClimateKernelsBenchmark (JMH, src/test).
+ */
+abstract class ClimateKernels {
+
+    /** Допуск сверки векторной реализации со скалярной (относительный). */
+    static final double EQUIVALENCE_TOLERANCE = 1e-9;
+
+    private static final ClimateKernels INSTANCE = select();
+
+    static ClimateKernels get() {
+        return INSTANCE;
+    }
+
+    abstract String name();
+
+    /**
+     * Насыщающая удельная влажность, г/кг, для диапазона [from, to).
+     * @param tempC температура, °C
+     * @param pKPa давление у поверхности, кПа
+     */
+    abstract void saturationSpecificHumidity(double[] tempC, double[] pKPa, double[] out, int from, int to);
+
+    // ---------------------------
+    // СКАЛЯРНЫЕ ФОРМУЛЫ (эталон)
+    // ---------------------------
+
+    static double saturationVaporPressure(double tempC) {
+        // kPa; piecewise fit keeps behavior stable from cryogenic to super-hot climates.
+        if (tempC <= 0.0) {
+            // Buck (ice), good around sub-zero temperatures.
+            return 0.61115 * Math.exp((23.036 - tempC / 333.7) * (tempC / (279.82 + tempC)));
+        }
+        if (tempC <= 99.0) {
+            // Antoine, 1..100 C
+            double log10mmHg = 8.07131 - (1730.63 / (233.426 + tempC));
+            return Math.pow(10.0, log10mmHg) * 0.133322;
+        }
+        if (tempC <= 374.0) {
+            // Antoine, 99..374 C
+            double log10mmHg = 8.14019 - (1810.94 / (244.485 + tempC));
+            return Math.pow(10.0, log10mmHg) * 0.133322;
+        }
+        // Above critical point: keep monotonic growth without singularity.
+        double tc = tempC - 374.0;
+        return 22064.0 * (1.0 + 0.0025 * tc);
+    }
+
+    static double saturationSpecificHumidity(double tempC, double pKPa) {
+        if (pKPa <= 1e-6) return 0.0;
+        double es = Math.max(0.0, saturationVaporPressure(tempC));
+        // Vapor partial pressure cannot exceed ambient pressure.
+        double esEff = Math.min(es, pKPa * 0.98);
+        double denom = Math.max(1e-6, pKPa - 0.378 * esEff);
+        double q = 0.622 * esEff / denom;
+        return Math.max(0.0, Math.min(999.0, q * 1000.0));
+    }
+
+    static final class Scalar extends ClimateKernels {
+        @Override
+        String name() {
+            return "scalar";
+        }
+
+        @Override
+        void saturationSpecificHumidity(double[] tempC, double[] pKPa, double[] out, int from, int to) {
+            for (int i = from; i < to; i++) {
+                out[i] = saturationSpecificHumidity(tempC[i], pKPa[i]);
+            }
+        }
+    }
+
+    private static ClimateKernels select() {
+        if (!Boolean.getBoolean("planet.climate.vector")) return new Scalar();
+        ClimateKernels vector = vector();
+        if (vector == null) {
+            System.out.println("[CLIMATE] planet.climate.vector: векторные ядра недоступны (сборка без -Pvector"
+                    + " или JVM без --add-modules jdk.incubator.vector), используем scalar");
+            return new Scalar();
+        }
+        System.out.println("[CLIMATE] kernels=" + vector.name());
+        return vector;
+    }
+
+    /**
+     * Векторная реализация или null: класс собирается только в профиле vector,
+     * а модуль jdk.incubator.vector нужен ещё и в рантайме.
+     */
+    static ClimateKernels vector() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return null;
+        try {
+            return (ClimateKernels) Class.forName("org.planet.core.generation.VectorClimateKernels")
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
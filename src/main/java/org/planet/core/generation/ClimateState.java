@@ -0,0 +1,47 @@
+package org.planet.core.generation;
+
+/**
+ * Равновесное состояние влагооборота после прогона WindGenerator (по индексу тайла).
+ *
+ * Используется как начальное условие (warm start) следующих прогонов:
+ * CLIMATE_RECALC, сезонные прогоны и пересчёт после рек стартуют не с нуля,
+ * а из годового равновесия, и спин-ап укорачивается по мере близости форсинга.
+ */
+public final class ClimateState {
+
+    /** Интегральный водяной пар столба, кг/м^2. */
+    public final double[] iwv;
+    /** Почвенная влага, индекс 0..100. */
+    public final double[] soil;
+    /** Форсинг: температура тайла на входе влагооборота (после адвекции тепла), °C. */
+    public final double[] forcingTemp;
+    /** Форсинг: ветер на входе влагооборота (единицы солвера). */
+    public final double[] forcingWindX;
+    public final double[] forcingWindY;
+    /** Диагностика температуры за последние сутки. */
+    public final double[] tempMean;
+    public final double[] tempMin;
+    public final double[] tempMax;
+
+    ClimateState(double[] iwv,
+                 double[] soil,
+                 double[] forcingTemp,
+                 double[] forcingWindX,
+                 double[] forcingWindY,
+                 double[] tempMean,
+                 double[] tempMin,
+                 double[] tempMax) {
+        this.iwv = iwv;
+        this.soil = soil;
+        this.forcingTemp = forcingTemp;
+        this.forcingWindX = forcingWindX;
+        this.forcingWindY = forcingWindY;
+        this.tempMean = tempMean;
+        this.tempMin = tempMin;
+        this.tempMax = tempMax;
+    }
+
+    public int size() {
+        return iwv.length;
+    }
+}
@@ -0,0 +1,282 @@
+package org.planet.core.generation;
+
+import org.planet.core.model.SurfaceTrait;
+import org.planet.core.model.SurfaceTraitColumn;
+import org.planet.core.model.SurfaceType;
+import org.planet.core.model.Tile;
+import org.planet.core.model.config.ClimateModelMode;
+import org.planet.core.topology.GridLevelMapping;
+import org.planet.core.topology.GridHierarchy;
+import org.planet.core.topology.TileGeometry;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Влагооборот на грубой сетке (StageProfile.withCoarseClimate): циркуляция между D3 и D5 почти
+ * не меняется, а влагооборот WindGenerator на D5 в разы дороже.
+ *
+ * 1) ветер считается на тонкой сетке (WindGenerator.Phase.WIND): релаксация дешёвая и локальная,
+ *    а на грубой она гасит ветер у рельефа и узких поясов (до −20% средней скорости на D4→D3);
+ * 2) рельеф, типы поверхности, форсинг и ветер тонких тайлов усредняются на грубую сетку
+ *    (родитель — ближайший грубый тайл, GridLevelMapping);
+ * 3) адвекция тепла и влагооборот идут на грубой сетке (Phase.MOISTURE) с шагом грубой
+ *    (setGridSpacing): перенос калиброван на ход тонкой, и без этого влага за шаг уходит вдвое
+ *    дальше, а влагооборот раздувается (осадки +30% на D4→D3);
+ * 4) поля возвращаются барицентрикой; температура — как поправка адвекции к своему тонкому
+ *    форсингу, чтобы не терять высотный градиент; орографический подъём осадков (ENHANCED)
+ *    поправляется по тонкому рельефу против интерполированного грубого;
+ * 5) осадки, испарение и сток перенормируются по грубым тайлам: среднее по детям равно значению
+ *    грубого тайла, так что перенос сохраняет влагооборот грубой сетки, а интерполяция и
+ *    орографическая поправка только перераспределяют его внутри тайла.
+ *
+ * Если тайлы не совпадают ни с одной сеткой GridHierarchy или грубого уровня нет — обычный прогон.
+ */
+public final class CoarseClimate {
+
+    private CoarseClimate() {
+    }
+
+    /** Грубая сетка и соответствие тонкой ей. */
+    private record Grid(int level, GridLevelMapping mapping) {
+    }
+
+    /**
+     * generateWind на сетке по ctx.climateCoarsening; вызывающий дальше читает
+     * wind.equilibriumState() (при грубом прогоне — состояние грубой сетки, warm start следующих
+     * грубых прогонов) и делает ClimateSampler.sample на тонкой.
+     */
+    public static void generateWind(WindGenerator wind, WorldContext ctx, double seasonalShiftLat) {
+        List<Tile> fine = ctx.tiles;
+        Grid grid = ctx.climateCoarsening > 0 ? grid(fine, ctx.climateCoarsening) : null;
+        if (grid == null) {
+            wind.setGeometry(ctx.geometry);
+            wind.setSurfaceTraits(ctx.surfaceTraits);
+            wind.setGridSpacing(1.0);
+            wind.generateWind(fine, ctx.planet, seasonalShiftLat, ctx.settings.seed, ctx.settings.climateModelMode);
+            return;
+        }
+
+        GridLevelMapping map = grid.mapping();
+        wind.setGeometry(ctx.geometry);
+        wind.setSurfaceTraits(ctx.surfaceTraits);
+        wind.setGridSpacing(1.0);
+        wind.setPhase(WindGenerator.Phase.WIND);
+        try {
+            wind.generateWind(fine, ctx.planet, seasonalShiftLat, ctx.settings.seed, ctx.settings.climateModelMode);
+
+            List<Tile> coarse = GridHierarchy.shared().newTiles(grid.level());
+            double[] tempIn = downsample(fine, coarse, grid);
+            TileGeometry coarseGeo = TileGeometry.build(coarse);
+            wind.setGeometry(coarseGeo);
+            wind.setSurfaceTraits(SurfaceTraitColumn.of(coarse));
+            // ход по ребру грубой сетки длиннее тонкого в √(тайлов тонкой / грубой) раз
+            wind.setGridSpacing(Math.sqrt((double) map.fineCount / map.coarseCount));
+            wind.setPhase(WindGenerator.Phase.MOISTURE);
+            wind.generateWind(coarse, ctx.planet, seasonalShiftLat, ctx.settings.seed, ctx.settings.climateModelMode);
+
+            upsample(fine, coarse, map, tempIn);
+            if (ctx.settings.climateModelMode != ClimateModelMode.PHYSICAL) {
+                correctOrography(fine, ctx.geometry, ctx.surfaceTraits, coarse, coarseGeo, map);
+            }
+            conserve(fine, coarse, map, t -> t.precipKgM2Day, (t, v) -> t.precipKgM2Day = v);
+            conserve(fine, coarse, map, t -> t.evapKgM2Day, (t, v) -> t.evapKgM2Day = v);
+            conserve(fine, coarse, map, t -> t.surfaceRunoffKgM2Day, (t, v) -> t.surfaceRunoffKgM2Day = v);
+            conserve(fine, coarse, map, t -> t.precipAvg, (t, v) -> t.precipAvg = Math.min(100.0, v));
+            conserve(fine, coarse, map, t -> t.evapAvg, (t, v) -> t.evapAvg = Math.min(100.0, v));
+        } finally {
+            wind.setPhase(WindGenerator.Phase.ALL);
+        }
+    }
+
+    private static Grid grid(List<Tile> fine, int coarsening) {
+        GridHierarchy grids = GridHierarchy.shared();
+        int level = grids.levelOf(fine);
+        if (level < 0) return null;
+        int coarseLevel = Math.max(GridHierarchy.MIN_LEVEL, level - coarsening);
+        while (coarseLevel < level && !grids.hasLevel(coarseLevel)) coarseLevel++;
+        if (coarseLevel >= level) return null;
+        return new Grid(coarseLevel, grids.mapping(level, coarseLevel));
+    }
+
+    /** @return температура грубых тайлов на входе (для поправки адвекции) */
+    private static double[] downsample(List<Tile> fine, List<Tile> coarse, Grid grid) {
+        GridLevelMapping map = grid.mapping();
+        int nf = fine.size();
+        int nc = coarse.size();
+        double[] f = new double[nf];
+        double[] c = new double[nc];
+
+        for (int i = 0; i < nf; i++) f[i] = fine.get(i).elevation;
+        map.average(f, c);
+        for (int k = 0; k < nc; k++) coarse.get(k).elevation = (int) Math.round(c[k]);
+
+        for (int i = 0; i < nf; i++) f[i] = fine.get(i).pressure;
+        map.average(f, c);
+        for (int k = 0; k < nc; k++) coarse.get(k).pressure = (int) Math.round(c[k]);
+
+        for (int i = 0; i < nf; i++) f[i] = fine.get(i).moisture;
+        map.average(f, c);
+        for (int k = 0; k < nc; k++) coarse.get(k).moisture = c[k];
+
+        // ветер тонкой сетки (м/с) — среднее вектора по детям
+        for (int i = 0; i < nf; i++) f[i] = fine.get(i).windX;
+        map.average(f, c);
+        for (int k = 0; k < nc; k++) coarse.get(k).windX = c[k];
+
+        for (int i = 0; i < nf; i++) f[i] = fine.get(i).windY;
+        map.average(f, c);
+        for (int k = 0; k < nc; k++) coarse.get(k).windY = c[k];
+
+        for (int i = 0; i < nf; i++) f[i] = fine.get(i).atmMoist;
+        map.average(f, c);
+        for (int k = 0; k < nc; k++) coarse.get(k).atmMoist = c[k];
+
+        for (int i = 0; i < nf; i++) f[i] = fine.get(i).temperature;
+        map.average(f, c);
+        double[] tempIn = new double[nc];
+        for (int k = 0; k < nc; k++) {
+            Tile t = coarse.get(k);
+            t.temperature = (int) Math.round(c[k]);
+            tempIn[k] = t.temperature;
+        }
+
+        // река у грубого тайла — если она есть у кого-то из детей
+        for (int k = 0; k < nc; k++) {
+            boolean river = false;
+            for (int j = map.childStart[k]; j < map.childStart[k + 1] && !river; j++) {
+                river = fine.get(map.childIds[j]).isRiver;
+            }
+            coarse.get(k).isRiver = river;
+        }
+
+        // тип поверхности — самый частый у детей (при равенстве — меньший ordinal)
+        SurfaceType[] types = SurfaceType.values();
+        int[] votes = new int[types.length];
+        for (int k = 0; k < nc; k++) {
+            int a = map.childStart[k];
+            int b = map.childStart[k + 1];
+            if (a == b) {
+                coarse.get(k).surfaceType = fine.get(map.nearestFine[k]).surfaceType;
+                continue;
+            }
+            Arrays.fill(votes, 0);
+            int best = -1;
+            for (int j = a; j < b; j++) {
+                int ord = fine.get(map.childIds[j]).surfaceType.ordinal();
+                votes[ord]++;
+                if (best < 0 || votes[ord] > votes[best] || (votes[ord] == votes[best] && ord < best)) best = ord;
+            }
+            coarse.get(k).surfaceType = types[best];
+        }
+        return tempIn;
+    }
+
+    private static void upsample(List<Tile> fine, List<Tile> coarse, GridLevelMapping map, double[] tempIn) {
+        int nc = coarse.size();
+        double[] dTemp = new double[nc];
+        double[] dMin = new double[nc];
+        double[] dMax = new double[nc];
+        for (int k = 0; k < nc; k++) {
+            Tile t = coarse.get(k);
+            dTemp[k] = t.temperature - tempIn[k];
+            dMin[k] = t.tempMin - t.temperature;
+            dMax[k] = t.tempMax - t.temperature;
+        }
+        double[] moisture = field(coarse, t -> t.moisture);
+        double[] atmMoist = field(coarse, t -> t.atmMoist);
+        double[] precipAvg = field(coarse, t -> t.precipAvg);
+        double[] evapAvg = field(coarse, t -> t.evapAvg);
+        double[] precipKg = field(coarse, t -> t.precipKgM2Day);
+        double[] evapKg = field(coarse, t -> t.evapKgM2Day);
+        double[] runoffKg = field(coarse, t -> t.surfaceRunoffKgM2Day);
+        double[] soilStart = field(coarse, t -> t.soilStartDiag);
+        double[] soilPrecip = field(coarse, t -> t.soilFromPrecipDiag);
+        double[] soilEvap = field(coarse, t -> t.soilFromEvapDiag);
+        double[] soilDiff = field(coarse, t -> t.soilFromDiffDiag);
+
+        for (int i = 0; i < fine.size(); i++) {
+            Tile t = fine.get(i);
+            t.temperature = (int) Math.round(t.temperature + map.interpolate(dTemp, i));
+            // NaN у любого угла (нет суточной диагностики) -> NaN, как у грубого тайла
+            t.tempMin = t.temperature + map.interpolate(dMin, i);
+            t.tempMax = t.temperature + map.interpolate(dMax, i);
+            t.moisture = map.interpolate(moisture, i);
+            t.atmMoist = map.interpolate(atmMoist, i);
+            t.precipAvg = map.interpolate(precipAvg, i);
+            t.evapAvg = map.interpolate(evapAvg, i);
+            t.precipKgM2Day = map.interpolate(precipKg, i);
+            t.evapKgM2Day = map.interpolate(evapKg, i);
+            t.surfaceRunoffKgM2Day = map.interpolate(runoffKg, i);
+            t.soilStartDiag = map.interpolate(soilStart, i);
+            t.soilEndDiag = t.moisture;
+            t.soilFromPrecipDiag = map.interpolate(soilPrecip, i);
+            t.soilFromEvapDiag = map.interpolate(soilEvap, i);
+            t.soilFromDiffDiag = map.interpolate(soilDiff, i);
+        }
+    }
+
+    /**
+     * Поправка на тонкий рельеф: осадки суши умножаются на 1 + 0.5·Δподъём (0.5 — примерная доля
+     * орографического члена в осадках влагооборота), множитель ограничен, воду не трогаем.
+     */
+    private static void correctOrography(List<Tile> fine, TileGeometry fineGeo, SurfaceTraitColumn fineTraits,
+                                         List<Tile> coarse, TileGeometry coarseGeo, GridLevelMapping map) {
+        double[] liftCoarse = lift(coarse, coarseGeo);
+        double[] liftFine = lift(fine, TileGeometry.ensure(fineGeo, fine));
+        for (int i = 0; i < fine.size(); i++) {
+            if (fineTraits.is(i, SurfaceTrait.WATER)) continue;
+            double k = clamp(1.0 + 0.5 * (liftFine[i] - map.interpolate(liftCoarse, i)), 0.5, 1.8);
+            Tile t = fine.get(i);
+            t.precipAvg = clamp(t.precipAvg * k, 0.0, 100.0);
+            t.precipKgM2Day *= k;
+            t.surfaceRunoffKgM2Day *= k;
+        }
+    }
+
+    /**
+     * Тонкие тайлы грубого тайла умножаются на общий множитель, чтобы их среднее совпало со
+     * значением грубого (тайлы одного уровня почти равной площади — среднее по детям и есть
+     * баланс площади). Если у детей нули, а у грубого нет — значение грубого поровну.
+     */
+    private static void conserve(List<Tile> fine, List<Tile> coarse, GridLevelMapping map,
+                                 ToDoubleFunction<Tile> get, ObjDoubleConsumer<Tile> set) {
+        for (int k = 0; k < coarse.size(); k++) {
+            int a = map.childStart[k];
+            int b = map.childStart[k + 1];
+            if (a == b) continue;
+            double target = get.applyAsDouble(coarse.get(k));
+            if (Double.isNaN(target)) continue;
+            double sum = 0.0;
+            for (int j = a; j < b; j++) sum += get.applyAsDouble(fine.get(map.childIds[j]));
+            double mean = sum / (b - a);
+            if (Double.isNaN(mean)) continue;
+            for (int j = a; j < b; j++) {
+                Tile t = fine.get(map.childIds[j]);
+                set.accept(t, mean > 1e-12 ? get.applyAsDouble(t) * (target / mean) : target);
+            }
+        }
+    }
+
+    /** Орографический подъём влагооборота (ENHANCED), ветер в м/с. */
+    private static double[] lift(List<Tile> tiles, TileGeometry geo) {
+        OrographicField oro = OrographicField.compute(tiles, geo, OrographicField.Params.WIND_MPS, false);
+        double[] out = new double[tiles.size()];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = clamp(oro.windward[i] * 0.75 + oro.leeward[i] * 0.25 - oro.shadow[i] * 0.20, 0.0, 1.2);
+        }
+        return out;
+    }
+
+    private static double[] field(List<Tile> tiles, ToDoubleFunction<Tile> get) {
+        double[] out = new double[tiles.size()];
+        for (int i = 0; i < out.length; i++) out[i] = get.applyAsDouble(tiles.get(i));
+        return out;
+    }
+
+    private static double clamp(double v, double min, double max) {
+        return Math.max(min, Math.min(max, v));
+    }
+}
@@ -1,5 +1,7 @@
 package org.planet.core.generation;
 
+import java.util.Locale;
+
 public class ConsoleStageListener implements StageListener {
 
     @Override
@@ -11,4 +13,12 @@ public class ConsoleStageListener implements StageListener {
     public void onStageEnd(StageId id, String name, long elapsedMs) {
         System.out.println("[STAGE END]   " + id + " - " + name + " (" + elapsedMs + " ms)");
     }
+
+    @Override
+    public void onIterationReport(StageId id, String loop, int iterations, int maxIterations,
+                                  double residualL2, double residualLinf) {
+        System.out.println("[STAGE ITER]  " + id + " - " + loop + " " + iterations + "/" + maxIterations
+                + " L2=" + String.format(Locale.US, "%.3e", residualL2)
+                + " Linf=" + String.format(Locale.US, "%.3e", residualLinf));
+    }
 }
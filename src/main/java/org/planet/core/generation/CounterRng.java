@@ -0,0 +1,62 @@
+package org.planet.core.generation;
+
+/**
+ * Счётчиковый RNG: случайное число — чистая функция от (seed, стадия, id, номер розыгрыша),
+ * без состояния между вызовами. Решение по тайлу не зависит от того, в каком порядке и каким
+ * потоком обходятся остальные тайлы, поэтому такие циклы можно параллелить без смены результата.
+ *
+ * Смешивание — финализатор SplitMix64 (как в noise01 генераторов), два раунда: сначала ключ
+ * стадии + id, затем номер розыгрыша. id — обычно id тайла; для розыгрышей не по тайлу
+ * (номер плиты, попытка) генераторы берут свои каналы, см. их константы.
+ */
+public final class CounterRng {
+
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+    private static final long DRAW_STEP = 0xD1B54A32D192ED03L;
+
+    private final long seed;
+
+    public CounterRng(long seed) {
+        this.seed = seed;
+    }
+
+    public long seed() {
+        return seed;
+    }
+
+    /** Поток стадии. Ключ — по имени стадии, чтобы перестановка StageId не меняла планеты. */
+    public Stream stream(StageId stage) {
+        return new Stream(mix64(seed ^ mix64(stage.name().hashCode() * GOLDEN + GOLDEN)));
+    }
+
+    /** Независимые розыгрыши одной стадии. Неизменяем и потокобезопасен. */
+    public static final class Stream {
+        private final long key;
+
+        private Stream(long key) {
+            this.key = key;
+        }
+
+        public long nextLong(long id, int draw) {
+            long h = mix64(key + id * GOLDEN);
+            return mix64(h + (draw + 1L) * DRAW_STEP);
+        }
+
+        /** Равномерно в [0, 1), 53 бита. */
+        public double nextDouble(long id, int draw) {
+            return (nextLong(id, draw) >>> 11) * 0x1.0p-53;
+        }
+
+        /** Равномерно в [0, bound); смещение умножения на 32 бита пренебрежимо для bound сетки. */
+        public int nextInt(long id, int draw, int bound) {
+            if (bound <= 0) throw new IllegalArgumentException("bound must be positive: " + bound);
+            return (int) (((nextLong(id, draw) >>> 32) * bound) >>> 32);
+        }
+    }
+
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,148 @@
+package org.planet.core.generation;
+
+import org.planet.core.model.SurfaceTrait;
+import org.planet.core.model.SurfaceType;
+import org.planet.core.model.Tile;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Область правки после генерации: какие тайлы и какие поля изменились.
+ *
+ * По полям GenerationPipeline.rerun() выбирает первую затронутую стадию, по тайлам — где её
+ * повторять. Закреплённые типы (pin) — правки пользователя: после каждой повторённой стадии
+ * они снова записываются в тайлы, чтобы классификаторы их не перетёрли.
+ */
+public final class DirtyRegion {
+
+    /** Что поменялось в тайлах области. */
+    public enum Field {
+        /** Тип поверхности суши (водная маска та же). */
+        SURFACE(StageId.BIOMES),
+        /** Вода/суша: меняет классификацию водоёмов и сток. */
+        WATER(StageId.WATER_CLASSIFY);
+
+        final StageId firstStage;
+
+        Field(StageId firstStage) {
+            this.firstStage = firstStage;
+        }
+    }
+
+    private final List<Tile> tiles;
+    private final boolean[] inRegion;
+    private int[] ids = new int[0];
+    private int size;
+    private final EnumSet<Field> fields = EnumSet.noneOf(Field.class);
+    private final Map<Integer, SurfaceType> pins = new LinkedHashMap<>();
+
+    private DirtyRegion(List<Tile> tiles) {
+        this.tiles = tiles;
+        this.inRegion = new boolean[tiles.size()];
+    }
+
+    public static DirtyRegion of(List<Tile> tiles) {
+        return new DirtyRegion(tiles);
+    }
+
+    /** Сколько колец соседей пересчитывать вокруг правки: биомы и рельеф смотрят на 1 кольцо. */
+    public static int defaultRings() {
+        return Integer.getInteger("planet.edit.rings", 1);
+    }
+
+    public DirtyRegion mark(Tile t, Field field) {
+        add(t.id);
+        fields.add(field);
+        return this;
+    }
+
+    /** Закрепить тип тайла без пересчёта водоёмов (SURFACE). */
+    public DirtyRegion pin(Tile t, SurfaceType st) {
+        pins.put(t.id, st);
+        return mark(t, Field.SURFACE);
+    }
+
+    /** Правка из UI: закрепить тип; если тайл сменил воду на сушу или наоборот — ещё и WATER. */
+    public DirtyRegion edit(Tile t, SurfaceType st) {
+        pin(t, st);
+        if (t.surfaceType.is(SurfaceTrait.WATER) != st.is(SurfaceTrait.WATER)) {
+            fields.add(Field.WATER);
+        }
+        return this;
+    }
+
+    /** Добавить k колец соседей вокруг отмеченных тайлов. */
+    public DirtyRegion expand(int rings) {
+        if (rings <= 0 || size == 0) return this;
+        int[] depth = new int[inRegion.length];
+        ArrayDeque<Integer> q = new ArrayDeque<>();
+        for (int i = 0; i < size; i++) q.add(ids[i]);
+        while (!q.isEmpty()) {
+            int cur = q.poll();
+            if (depth[cur] >= rings) continue;
+            Tile t = tiles.get(cur);
+            if (t.neighbors == null) continue;
+            for (Tile n : t.neighbors) {
+                if (n == null || inRegion[n.id]) continue;
+                add(n.id);
+                depth[n.id] = depth[cur] + 1;
+                q.add(n.id);
+            }
+        }
+        return this;
+    }
+
+    public boolean contains(int tileId) {
+        return inRegion[tileId];
+    }
+
+    /** id тайлов области в порядке добавления. */
+    public int[] ids() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public Set<Field> fields() {
+        return Collections.unmodifiableSet(fields);
+    }
+
+    /** Закреплённые типы по id тайла. */
+    public Map<Integer, SurfaceType> pins() {
+        return Collections.unmodifiableMap(pins);
+    }
+
+    /** Самая ранняя по порядку пайплайна стадия, которую задевают поля области (null — ничего). */
+    StageId firstStage(List<StageId> order) {
+        StageId first = null;
+        int firstIdx = Integer.MAX_VALUE;
+        for (Field f : fields) {
+            int idx = order.indexOf(f.firstStage);
+            if (idx >= 0 && idx < firstIdx) {
+                firstIdx = idx;
+                first = f.firstStage;
+            }
+        }
+        return first;
+    }
+
+    private void add(int id) {
+        if (inRegion[id]) return;
+        inRegion[id] = true;
+        if (size == ids.length) ids = Arrays.copyOf(ids, Math.max(8, size * 2));
+        ids[size++] = id;
+    }
+}
@@ -5,7 +5,10 @@ import org.planet.core.model.Tile;
 import org.planet.core.model.config.GeneratorSettings;
 import org.planet.core.model.config.PlanetConfig;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 /**
  * Эрозия (упрощённо-реалистичная):
@@ -23,6 +26,10 @@ public class ErosionGeneratorV2 {
     private static final int ELEV_MAX = 255;
 
     public void erode(List<Tile> tiles, PlanetConfig planet, GeneratorSettings settings) {
+        erode(tiles, planet, settings, IterationControl.FIXED);
+    }
+
+    public void erode(List<Tile> tiles, PlanetConfig planet, GeneratorSettings settings, IterationControl control) {
         final int n = tiles.size();
 
         // Буферы изменений (double для аккуратного накопления)
@@ -48,110 +55,226 @@ public class ErosionGeneratorV2 {
         // Чем выше g, тем "легче" осыпание (меньше допустимый уклон)
         double talus = settings.erosionTalusBase / Math.sqrt(g);
 
-        for (int iter = 0; iter < settings.erosionIterations; iter++) {
-            // обнуляем буфер
-            for (int i = 0; i < n; i++) dElev[i] = 0.0;
-
-            // 1) Thermal erosion + Water erosion + Wind erosion
-            for (int i = 0; i < n; i++) {
-                Tile t = tiles.get(i);
-
-                // Океан (sea level) мы не эродируем как сушу.
-                // Можно позже сделать отложение осадков на шельфе.
-                if (t.surfaceType == SurfaceType.OCEAN || t.surfaceType == SurfaceType.LAVA_OCEAN) {
-                    continue;
-                }
-
-                if (t.neighbors == null || t.neighbors.isEmpty()) continue;
-
-                // находим самого низкого соседа (куда стекает/осыпается)
-                Tile low = null;
-                int lowElev = Integer.MAX_VALUE;
-
-                for (Tile nb : t.neighbors) {
-                    if (nb.elevation < lowElev) {
-                        lowElev = nb.elevation;
-                        low = nb;
-                    }
-                }
-                if (low == null) continue;
-
-                int elev = t.elevation;
-                int delta = elev - lowElev;
-                if (delta <= 0) {
-                    // нет уклона вниз
-                    continue;
-                }
-
-                // Нормируем твёрдость: 0..1
-                double hardness = clamp01(t.rockHardness);
+        // Буферы одного прохода: сколько тайл теряет, сколько отдаёт вниз и кому (receiver).
+        double[] erodeOut = new double[n];
+        double[] depositOut = new double[n];
+        int[] receiver = new int[n];
+        boolean[] active = new boolean[n];
+        // Обратный индекс receiver -> donors (CSR), нужен только параллельному пути.
+        int[] donorStart = new int[n + 1];
+        int[] donors = new int[n];
+        boolean parallel = erosionParallelEnabled();
+        IterationControl.Tracker tracker = control.track("erosion", control.erosionTolerance, settings.erosionIterations);
 
-                // Чем мягче порода, тем сильнее процессы
-                double mobility = 1.0 - hardness; // 1 = мягко, 0 = твёрдо
-
-                // ---- Thermal: осыпание склонов ----
-                double thermalTransfer = 0.0;
-                if (delta > talus) {
-                    thermalTransfer = (delta - talus) * settings.erosionThermalK * mobility;
-                }
+        for (int iter = 0; iter < settings.erosionIterations; iter++) {
+            // 1) Thermal erosion + Water erosion + Wind erosion (gather: каждый тайл пишет только свои ячейки)
+            forEachIndex(n, parallel, i -> computeTransfer(
+                    tiles.get(i), i, n, settings, g, talus, erodeOut, depositOut, receiver, active));
 
-                // ---- Water: смыв водой ----
-                // waterPower ~ precip * slope
-                double precip = clamp(t.precipAvg, 0.0, 100.0);
-                double slope = delta; // в единицах elevation
-                double waterPower = (precip / 100.0) * slope;
-
-                // При большей g уменьшим размыв чуть-чуть (упрощённо)
-                double waterErode = settings.erosionWaterK * waterPower * (1.0 / g) * mobility;
-
-                // ---- Wind: в сухих ветреных местах ----
-                double windMag = Math.sqrt(t.windX * t.windX + t.windY * t.windY);
-                double dryness = 1.0 - (precip / 100.0); // 1 = сухо
-                double windErode = settings.erosionWindK * windMag * dryness * mobility;
-
-                // Суммарно "снимаем" материал с t
-                double totalErode = thermalTransfer + waterErode + windErode;
-                if (totalErode <= 0) continue;
-
-                // ограничим, чтобы за итерацию не снести слишком много
-                // (важно для устойчивости)
-                double maxPerStep = Math.max(1.0, elev * 0.10); // не больше 10% высоты за шаг
-                totalErode = Math.min(totalErode, maxPerStep);
-
-                // Сколько отложим вниз (часть снятого оседает в низине)
-                double deposit = (thermalTransfer + waterErode) * settings.erosionDepositionK;
-                // ветер считаем "уносит" (не депонируем)
-                deposit = Math.min(deposit, totalErode);
-
-                // Применяем в буфер:
-                dElev[i] -= totalErode;
-                // депозит соседу
-                int j = low.id; // ВАЖНО: предполагаем id == index. Если нет — см. примечание ниже.
-                if (j >= 0 && j < n) {
-                    dElev[j] += deposit;
-                } else {
-                    // Если id не совпадает с индексом, мы не депонируем, чтобы не ломать.
-                    // Лучше потом сделать "id->index map".
-                }
+            if (parallel) {
+                buildDonorIndex(n, receiver, active, donorStart, donors);
+                forEachIndex(n, true, j -> dElev[j] = gatherDelta(j, erodeOut, depositOut, active, donorStart, donors));
+            } else {
+                scatterDeltas(n, erodeOut, depositOut, receiver, active, dElev);
             }
 
             // 2) Применяем изменения и клампим 0..255
-            for (int i = 0; i < n; i++) {
+            forEachIndex(n, parallel, i -> {
                 Tile t = tiles.get(i);
                 int newElev = (int) Math.round(t.elevation + dElev[i]);
                 t.elevation = clampInt(newElev, ELEV_MIN, ELEV_MAX);
-            }
+            });
 
             // 3) Каждые несколько итераций обновим SurfaceType по высоте
             if ((iter + 1) % 5 == 0) {
                 updateReliefTypes(tiles, settings);
             }
+
+            // 4) Невязка: RMS и максимум изменения высоты за итерацию
+            double sumSq = 0.0;
+            double maxAbs = 0.0;
+            for (int i = 0; i < n; i++) {
+                sumSq += dElev[i] * dElev[i];
+                maxAbs = Math.max(maxAbs, Math.abs(dElev[i]));
+            }
+            if (tracker.update(Math.sqrt(sumSq / Math.max(1, n)), maxAbs)) break;
         }
+        tracker.finish();
 
         // Финальное обновление типов
         updateReliefTypes(tiles, settings);
     }
 
+    /**
+     * Считает исходящий перенос тайла i по текущим высотам.
+     * Пишет только в ячейки i, поэтому безопасно для параллельного прохода.
+     */
+    private void computeTransfer(Tile t,
+                                 int i,
+                                 int n,
+                                 GeneratorSettings settings,
+                                 double g,
+                                 double talus,
+                                 double[] erodeOut,
+                                 double[] depositOut,
+                                 int[] receiver,
+                                 boolean[] active) {
+        active[i] = false;
+        receiver[i] = -1;
+        erodeOut[i] = 0.0;
+        depositOut[i] = 0.0;
+
+        // Океан (sea level) мы не эродируем как сушу.
+        // Можно позже сделать отложение осадков на шельфе.
+        if (t.surfaceType == SurfaceType.OCEAN || t.surfaceType == SurfaceType.LAVA_OCEAN) {
+            return;
+        }
+
+        if (t.neighbors == null || t.neighbors.isEmpty()) return;
+
+        // находим самого низкого соседа (куда стекает/осыпается)
+        Tile low = null;
+        int lowElev = Integer.MAX_VALUE;
+
+        for (Tile nb : t.neighbors) {
+            if (nb.elevation < lowElev) {
+                lowElev = nb.elevation;
+                low = nb;
+            }
+        }
+        if (low == null) return;
+
+        int elev = t.elevation;
+        int delta = elev - lowElev;
+        if (delta <= 0) {
+            // нет уклона вниз
+            return;
+        }
+
+        // Нормируем твёрдость: 0..1
+        double hardness = clamp01(t.rockHardness);
+
+        // Чем мягче порода, тем сильнее процессы
+        double mobility = 1.0 - hardness; // 1 = мягко, 0 = твёрдо
+
+        // ---- Thermal: осыпание склонов ----
+        double thermalTransfer = 0.0;
+        if (delta > talus) {
+            thermalTransfer = (delta - talus) * settings.erosionThermalK * mobility;
+        }
+
+        // ---- Water: смыв водой ----
+        // waterPower ~ precip * slope
+        double precip = clamp(t.precipAvg, 0.0, 100.0);
+        double slope = delta; // в единицах elevation
+        double waterPower = (precip / 100.0) * slope;
+
+        // При большей g уменьшим размыв чуть-чуть (упрощённо)
+        double waterErode = settings.erosionWaterK * waterPower * (1.0 / g) * mobility;
+
+        // ---- Wind: в сухих ветреных местах ----
+        double windMag = Math.sqrt(t.windX * t.windX + t.windY * t.windY);
+        double dryness = 1.0 - (precip / 100.0); // 1 = сухо
+        double windErode = settings.erosionWindK * windMag * dryness * mobility;
+
+        // Суммарно "снимаем" материал с t
+        double totalErode = thermalTransfer + waterErode + windErode;
+        if (totalErode <= 0) return;
+
+        // ограничим, чтобы за итерацию не снести слишком много
+        // (важно для устойчивости)
+        double maxPerStep = Math.max(1.0, elev * 0.10); // не больше 10% высоты за шаг
+        totalErode = Math.min(totalErode, maxPerStep);
+
+        // Сколько отложим вниз (часть снятого оседает в низине)
+        double deposit = (thermalTransfer + waterErode) * settings.erosionDepositionK;
+        // ветер считаем "уносит" (не депонируем)
+        deposit = Math.min(deposit, totalErode);
+
+        active[i] = true;
+        erodeOut[i] = totalErode;
+        depositOut[i] = deposit;
+        // ВАЖНО: предполагаем id == index. Если id не совпадает с индексом, не депонируем, чтобы не ломать.
+        int j = low.id;
+        if (j >= 0 && j < n) {
+            receiver[i] = j;
+        }
+    }
+
+    /** Последовательный scatter: исходный порядок накопления в dElev. */
+    private void scatterDeltas(int n,
+                               double[] erodeOut,
+                               double[] depositOut,
+                               int[] receiver,
+                               boolean[] active,
+                               double[] dElev) {
+        for (int i = 0; i < n; i++) dElev[i] = 0.0;
+        for (int i = 0; i < n; i++) {
+            if (!active[i]) continue;
+            dElev[i] -= erodeOut[i];
+            int j = receiver[i];
+            if (j >= 0) {
+                dElev[j] += depositOut[i];
+            }
+        }
+    }
+
+    /**
+     * Обратный индекс receiver -> donors (counting sort).
+     * Доноры внутри диапазона идут по возрастанию индекса — как в последовательном scatter.
+     */
+    private void buildDonorIndex(int n, int[] receiver, boolean[] active, int[] donorStart, int[] donors) {
+        Arrays.fill(donorStart, 0);
+        for (int i = 0; i < n; i++) {
+            if (active[i] && receiver[i] >= 0) donorStart[receiver[i] + 1]++;
+        }
+        for (int j = 0; j < n; j++) {
+            donorStart[j + 1] += donorStart[j];
+        }
+        int[] cursor = Arrays.copyOf(donorStart, n);
+        for (int i = 0; i < n; i++) {
+            if (active[i] && receiver[i] >= 0) donors[cursor[receiver[i]]++] = i;
+        }
+    }
+
+    /**
+     * Изменение высоты тайла j без общих записей.
+     * Складываем в том же порядке, что и scatter (доноры < j, свой съём, доноры > j),
+     * поэтому результат совпадает с последовательным путём бит-в-бит.
+     */
+    private double gatherDelta(int j,
+                               double[] erodeOut,
+                               double[] depositOut,
+                               boolean[] active,
+                               int[] donorStart,
+                               int[] donors) {
+        double acc = 0.0;
+        int k = donorStart[j];
+        int end = donorStart[j + 1];
+        while (k < end && donors[k] < j) {
+            acc += depositOut[donors[k++]];
+        }
+        if (active[j]) {
+            acc -= erodeOut[j];
+        }
+        while (k < end) {
+            acc += depositOut[donors[k++]];
+        }
+        return acc;
+    }
+
+    private static void forEachIndex(int n, boolean parallel, IntConsumer action) {
+        if (parallel) {
+            IntStream.range(0, n).parallel().forEach(action);
+        } else {
+            for (int i = 0; i < n; i++) action.accept(i);
+        }
+    }
+
+    private static boolean erosionParallelEnabled() {
+        return Boolean.parseBoolean(System.getProperty("planet.erosion.parallel", "true"));
+    }
+
     private void updateReliefTypes(List<Tile> tiles, GeneratorSettings settings) {
         for (Tile t : tiles) {
             if (t.surfaceType == SurfaceType.OCEAN || t.surfaceType == SurfaceType.LAVA_OCEAN) continue;
@@ -0,0 +1,9 @@
+package org.planet.core.generation;
+
+/** Генерация остановлена по CancellationToken; тайлы при этом в промежуточном состоянии. */
+public class GenerationCancelledException extends RuntimeException {
+
+    public GenerationCancelledException() {
+        super("Generation cancelled");
+    }
+}
@@ -1,6 +1,7 @@
 package org.planet.core.generation;
 
 import org.planet.core.generation.stages.*;
+import org.planet.core.model.SurfaceType;
 import org.planet.core.model.Tile;
 import org.planet.core.model.config.GeneratorSettings;
 import org.planet.core.model.config.PlanetConfig;
@@ -8,6 +9,7 @@ import org.planet.core.generation.stages.ErosionStage;
 
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class GenerationPipeline {
@@ -71,10 +73,39 @@ public class GenerationPipeline {
                 StageProfile.upToWind(), true, new ConsoleStageListener());
     }
 
-    public void run(List<Tile> tiles, PlanetConfig planet, GeneratorSettings settings, int plateCount) {
+    /** @return контекст завершённой генерации (колонки ресурсов, геометрия сетки, состояние климата) */
+    public WorldContext run(List<Tile> tiles, PlanetConfig planet, GeneratorSettings settings, int plateCount) {
+        return run(tiles, planet, settings, plateCount, CancellationToken.NONE);
+    }
+
+    /**
+     * То же с кооперативной отменой: токен проверяется перед каждой стадией и на итерациях длинных
+     * циклов; при отмене летит GenerationCancelledException, тайлы остаются недогенерированными.
+     */
+    public WorldContext run(List<Tile> tiles, PlanetConfig planet, GeneratorSettings settings, int plateCount,
+                            CancellationToken cancellation) {
+        return run(tiles, planet, settings, plateCount, cancellation, null);
+    }
+
+    /**
+     * Полная генерация с правками пользователя (ordinal типа по id тайла, -1 — без правки).
+     * Закреплённые типы ставятся после каждой стадии, так что вода, климат и реки считаются уже
+     * с ними — так UI пересобирает планету после правки вода/суша, которую не повторить на области.
+     */
+    public WorldContext run(List<Tile> tiles, PlanetConfig planet, GeneratorSettings settings, int plateCount,
+                            CancellationToken cancellation, int[] surfaceOverride) {
         WorldContext ctx = new WorldContext(tiles, planet, settings, plateCount);
+        ctx.listener = listener;
+        ctx.cancellation = (cancellation != null) ? cancellation : CancellationToken.NONE;
+        ctx.climateCoarsening = profile.climateCoarsening();
+        int[] pinned = null;
+        if (surfaceOverride != null) {
+            ctx.surfaceOverride = surfaceOverride.clone();
+            pinned = pinnedIds(ctx.surfaceOverride);
+        }
 
         for (GenerationStage stage : stages) {
+            ctx.cancellation.throwIfCancelled();
             if (!profile.isEnabled(stage.id())) {
                 System.out.println("[STAGE SKIP]  " + stage.id() + " - " + stage.name());
                 continue;
@@ -84,12 +115,21 @@ public class GenerationPipeline {
             listener.onStageStart(stage.id(), stage.name());
 
             try {
+                // стадии меняют тайлы: перцентили предыдущей стадии больше не валидны
+                ctx.stats.invalidate();
+                ctx.surfaceTraits.refresh(ctx.tiles);
+                if (stage instanceof RegionStage) {
+                    ctx.surfaceBefore.put(stage.id(), surfaceOrdinals(ctx.tiles));
+                }
                 stage.apply(ctx);
+                if (pinned != null) applyOverrides(ctx, pinned);
 
                 if (enableValidation) {
                     runValidation(stage.id(), ctx);
                 }
 
+            } catch (GenerationCancelledException e) {
+                throw e;
             } catch (RuntimeException e) {
                 throw new RuntimeException("Generation failed at stage: " + stage.id() + " - " + stage.name(), e);
             } finally {
@@ -100,6 +140,107 @@ public class GenerationPipeline {
 
         WorldStats stats = WorldStats.compute(ctx.tiles);
         WorldStatsReport.print(stats);
+        return ctx;
+    }
+
+    /**
+     * Повторить стадии после правки тайлов (UI) на готовом контексте.
+     *
+     * Начинаем с первой стадии, которую задевают поля области. RegionStage повторяются только на
+     * тайлах области (вход восстанавливается из ctx.surfaceBefore), стадии с isRepeatable() —
+     * целиком. Если в цепочке есть глобальная стадия, которую нельзя повторить на готовых тайлах
+     * (реки, климат), ничего не трогаем и возвращаем false: нужна полная генерация.
+     * Закреплённые типы области запоминаются в ctx.surfaceOverride.
+     */
+    public boolean rerun(WorldContext ctx, DirtyRegion region) {
+        List<StageId> order = new ArrayList<>(stages.size());
+        for (GenerationStage stage : stages) order.add(stage.id());
+        StageId first = region.firstStage(order);
+        if (first == null || region.isEmpty()) return true;
+
+        List<GenerationStage> chain = new ArrayList<>();
+        for (int i = order.indexOf(first); i < stages.size(); i++) {
+            GenerationStage stage = stages.get(i);
+            if (!profile.isEnabled(stage.id())) continue;
+            boolean local = stage instanceof RegionStage && ctx.surfaceBefore.containsKey(stage.id());
+            if (!local && !stage.isRepeatable()) {
+                System.out.println("[STAGE RERUN] " + stage.id() + " is global - full regeneration required");
+                return false;
+            }
+            chain.add(stage);
+        }
+
+        if (ctx.surfaceOverride == null) {
+            ctx.surfaceOverride = new int[ctx.tiles.size()];
+            Arrays.fill(ctx.surfaceOverride, -1);
+        }
+        for (var pin : region.pins().entrySet()) {
+            ctx.surfaceOverride[pin.getKey()] = pin.getValue().ordinal();
+        }
+
+        int[] ids = region.ids();
+        boolean restore = true;
+        for (GenerationStage stage : chain) {
+            ctx.cancellation.throwIfCancelled();
+            long start = System.currentTimeMillis();
+            listener.onStageStart(stage.id(), stage.name());
+            try {
+                ctx.stats.invalidate();
+                if (stage instanceof RegionStage local) {
+                    int[] before = ctx.surfaceBefore.get(stage.id());
+                    SurfaceType[] types = SurfaceType.values();
+                    for (int id : ids) {
+                        Tile t = ctx.tiles.get(id);
+                        if (restore) t.surfaceType = types[before[id]];
+                        if (ctx.surfaceOverride[id] >= 0) t.surfaceType = types[ctx.surfaceOverride[id]];
+                        before[id] = t.surfaceType.ordinal();
+                    }
+                    ctx.surfaceTraits.refresh(ctx.tiles);
+                    local.applyRegion(ctx, region);
+                } else {
+                    ctx.surfaceTraits.refresh(ctx.tiles);
+                    stage.apply(ctx);
+                }
+                applyOverrides(ctx, ids);
+                restore = false;
+            } catch (GenerationCancelledException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Incremental rerun failed at stage: " + stage.id() + " - " + stage.name(), e);
+            } finally {
+                long elapsed = System.currentTimeMillis() - start;
+                listener.onStageEnd(stage.id(), stage.name(), elapsed);
+            }
+        }
+        ctx.surfaceTraits.refresh(ctx.tiles);
+        return true;
+    }
+
+    private static void applyOverrides(WorldContext ctx, int[] ids) {
+        SurfaceType[] types = SurfaceType.values();
+        for (int id : ids) {
+            int ord = ctx.surfaceOverride[id];
+            if (ord >= 0) ctx.surfaceTraits.set(ctx.tiles.get(id), types[ord]);
+        }
+    }
+
+    private static int[] pinnedIds(int[] surfaceOverride) {
+        int n = 0;
+        for (int ord : surfaceOverride) if (ord >= 0) n++;
+        int[] out = new int[n];
+        n = 0;
+        for (int id = 0; id < surfaceOverride.length; id++) {
+            if (surfaceOverride[id] >= 0) out[n++] = id;
+        }
+        return out;
+    }
+
+    private static int[] surfaceOrdinals(List<Tile> tiles) {
+        int[] out = new int[tiles.size()];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = tiles.get(i).surfaceType.ordinal();
+        }
+        return out;
     }
 
     private void runValidation(StageId id, WorldContext ctx) {
@@ -116,22 +257,14 @@ public class GenerationPipeline {
             case WATER_REBALANCE -> {
                 // no validation yet
             }
-            case WATER_CLASSIFY -> {
-                // no validation yet
-            }
+            case WATER_CLASSIFY -> Validation.surfaceTraitsInSync(id, ctx);
             case EROSION -> Validation.afterErosion(ctx);
             case CLIMATE_RECALC -> {
                 // no validation yet
             }
-            case IMPACTS -> {
-                // no validation yet
-            }
-            case ICE -> {
-                // no validation yet
-            }
-            case LAVA -> {
-                // no validation yet
-            }
+            case IMPACTS -> Validation.surfaceTraitsInSync(id, ctx);
+            case ICE -> Validation.surfaceTraitsInSync(id, ctx);
+            case LAVA -> Validation.surfaceTraitsInSync(id, ctx);
             case RIVERS -> {
                 // no validation yet
             }
@@ -4,4 +4,12 @@ public interface GenerationStage {
     StageId id();
     String name();
     void apply(WorldContext ctx);
+
+    /**
+     * Можно ли повторить стадию целиком на уже сгенерированных тайлах: результат зависит
+     * только от текущих полей и не накапливается (повтор = первый прогон).
+     */
+    default boolean isRepeatable() {
+        return false;
+    }
 }
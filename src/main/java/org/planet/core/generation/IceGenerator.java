@@ -1,5 +1,6 @@
 package org.planet.core.generation;
 
+import org.planet.core.model.SurfaceTraitColumn;
 import org.planet.core.model.SurfaceType;
 import org.planet.core.model.Tile;
 import org.planet.core.model.config.PlanetConfig;
@@ -8,6 +9,13 @@ import java.util.List;
 
 public class IceGenerator {
 
+    private SurfaceTraitColumn surfaceTraits;
+
+    /** Колонка признаков поверхности (обычно WorldContext.surfaceTraits): типы пишутся через неё. */
+    public void setSurfaceTraits(SurfaceTraitColumn surfaceTraits) {
+        this.surfaceTraits = surfaceTraits;
+    }
+
     public void apply(List<Tile> tiles, PlanetConfig planet) {
         for (Tile t : tiles) {
             double warm = Double.isNaN(t.tempMax) ? t.temperature : t.tempMax;
@@ -17,21 +25,21 @@ public class IceGenerator {
 
             if (t.surfaceType == SurfaceType.OCEAN) {
                 if (warm < 0.0) {
-                    t.surfaceType = SurfaceType.ICE_OCEAN;
+                    setType(t, SurfaceType.ICE_OCEAN);
                 }
                 continue;
             }
 
             if (frozen) {
                 if (cold < -20.0) {
-                    t.surfaceType = SurfaceType.ICE_SHEET;
+                    setType(t, SurfaceType.ICE_SHEET);
                 } else if (cold < -5.0) {
-                    t.surfaceType = SurfaceType.GLACIER;
+                    setType(t, SurfaceType.GLACIER);
                 } else {
-                    t.surfaceType = SurfaceType.TUNDRA;
+                    setType(t, SurfaceType.TUNDRA);
                 }
             } else if (cold < 0.0) {
-                t.surfaceType = SurfaceType.PERMAFROST;
+                setType(t, SurfaceType.PERMAFROST);
             }
         }
 
@@ -58,13 +66,18 @@ public class IceGenerator {
                 if (cold > -20) continue;
 
                 if (planet.methaneIceFrac > planet.ammoniaIceFrac && cold < -30) {
-                    t.surfaceType = SurfaceType.METHANE_ICE;
+                    setType(t, SurfaceType.METHANE_ICE);
                 } else if (planet.ammoniaIceFrac >= planet.methaneIceFrac && cold < -25) {
-                    t.surfaceType = SurfaceType.AMMONIA_ICE;
+                    setType(t, SurfaceType.AMMONIA_ICE);
                 } else if (cold < -40) {
-                    t.surfaceType = SurfaceType.CO2_ICE;
+                    setType(t, SurfaceType.CO2_ICE);
                 }
             }
         }
     }
+
+    private void setType(Tile t, SurfaceType st) {
+        if (surfaceTraits != null) surfaceTraits.set(t, st);
+        else t.surfaceType = st;
+    }
 }
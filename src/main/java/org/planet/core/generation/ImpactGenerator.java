@@ -1,14 +1,29 @@
 package org.planet.core.generation;
 
+import org.planet.core.model.SurfaceTraitColumn;
 import org.planet.core.model.SurfaceType;
 import org.planet.core.model.Tile;
 import org.planet.core.model.config.PlanetConfig;
+import org.planet.core.topology.TileGeometry;
 
 import java.util.*;
 
 public class ImpactGenerator {
 
+    private TileGeometry geometry;
+    private SurfaceTraitColumn surfaceTraits;
+
+    /** Колонка признаков поверхности (обычно WorldContext.surfaceTraits): типы пишутся через неё. */
+    public void setSurfaceTraits(SurfaceTraitColumn surfaceTraits) {
+        this.surfaceTraits = surfaceTraits;
+    }
+
     public void apply(List<Tile> tiles, PlanetConfig planet, long seed) {
+        apply(tiles, planet, seed, null);
+    }
+
+    public void apply(List<Tile> tiles, PlanetConfig planet, long seed, TileGeometry geometry) {
+        this.geometry = TileGeometry.ensure(geometry, tiles);
         Random rnd = new Random(seed + 4242);
         int n = tiles.size();
 
@@ -41,11 +56,11 @@ public class ImpactGenerator {
                     int d = Math.max(1, (int) Math.round(depth * (1.0 - norm)));
                     t.elevation = Math.max(0, t.elevation - d);
                     if (t.surfaceType != SurfaceType.OCEAN && t.surfaceType != SurfaceType.LAVA_OCEAN) {
-                        t.surfaceType = SurfaceType.CRATERED_SURFACE;
+                        setType(t, SurfaceType.CRATERED_SURFACE);
                     }
                 } else if (distKm <= rimKm) {
                     if (airless && t.surfaceType != SurfaceType.OCEAN && t.surfaceType != SurfaceType.LAVA_OCEAN) {
-                        t.surfaceType = SurfaceType.REGOLITH;
+                        setType(t, SurfaceType.REGOLITH);
                     }
                 }
             }
@@ -87,15 +102,7 @@ public class ImpactGenerator {
     }
 
     private double angularDistanceKm(Tile a, Tile b) {
-        double dLat = Math.toRadians(b.lat - a.lat);
-        double dLon = Math.toRadians(b.lon - a.lon);
-        double s =
-                Math.sin(dLat / 2) * Math.sin(dLat / 2) +
-                        Math.cos(Math.toRadians(a.lat)) *
-                                Math.cos(Math.toRadians(b.lat)) *
-                                Math.sin(dLon / 2) * Math.sin(dLon / 2);
-        double c = 2 * Math.atan2(Math.sqrt(s), Math.sqrt(1 - s));
-        return 6371.0 * c;
+        return 6371.0 * geometry.arcRad(a.id, b.id);
     }
 
     private double noise01(long seed, int id) {
@@ -108,4 +115,9 @@ public class ImpactGenerator {
         long v = x & 0xFFFFFFFFL;
         return v / (double) 0xFFFFFFFFL;
     }
+
+    private void setType(Tile t, SurfaceType st) {
+        if (surfaceTraits != null) surfaceTraits.set(t, st);
+        else t.surfaceType = st;
+    }
 }
@@ -0,0 +1,122 @@
+package org.planet.core.generation;
+
+import org.planet.core.model.config.GeneratorSettings;
+
+/**
+ * Контроль итерационных циклов (релаксация ветра, спин-ап влаги, эрозия).
+ *
+ * Всегда считает невязку (L2/L∞ изменения поля за итерацию) и отдаёт её в StageListener.
+ * В адаптивном режиме цикл останавливается, когда невязка держится ниже допуска
+ * {@code patience} итераций подряд. В фиксированном режиме число итераций не меняется.
+ * Каждая итерация заодно проверяет отмену генерации (CancellationToken контекста).
+ */
+public final class IterationControl {
+
+    /** Фиксированные лимиты, без отчётов: поведение по умолчанию для прямых вызовов генераторов. */
+    public static final IterationControl FIXED = new IterationControl(new GeneratorSettings(0L), false, null, null, CancellationToken.NONE);
+
+    public final boolean adaptive;
+    public final double windRelaxTolerance;
+    public final double moistureSpinupTolerance;
+    public final double erosionTolerance;
+    public final int patience;
+
+    private final StageListener listener;
+    private final StageId stageId;
+    private final CancellationToken cancellation;
+
+    private IterationControl(GeneratorSettings settings, boolean adaptive, StageListener listener, StageId stageId,
+                             CancellationToken cancellation) {
+        this.adaptive = adaptive;
+        this.windRelaxTolerance = settings.windRelaxTolerance;
+        this.moistureSpinupTolerance = settings.moistureSpinupTolerance;
+        this.erosionTolerance = settings.erosionTolerance;
+        this.patience = Math.max(1, settings.convergencePatience);
+        this.listener = listener;
+        this.stageId = stageId;
+        this.cancellation = cancellation;
+    }
+
+    public static IterationControl of(WorldContext ctx, StageId stageId) {
+        return new IterationControl(ctx.settings, ctx.settings.adaptiveIterations, ctx.listener, stageId, ctx.cancellation);
+    }
+
+    /** Точка отмены для циклов без трекера (бросает GenerationCancelledException). */
+    public void checkCancelled() {
+        cancellation.throwIfCancelled();
+    }
+
+    /** Сводный отчёт цикла, который считает итерации сам (например, V-циклы MultigridDiffusion за прогон). */
+    public void report(String loop, int iterations, int maxIterations, double residualL2, double residualLinf) {
+        if (listener != null) {
+            listener.onIterationReport(stageId, loop, iterations, maxIterations, residualL2, residualLinf);
+        }
+    }
+
+    public Tracker track(String loop, double tolerance, int maxIterations) {
+        return new Tracker(loop, tolerance, maxIterations);
+    }
+
+    /** Невязка одного цикла. */
+    public final class Tracker {
+        private final String loop;
+        private final double tolerance;
+        private final int maxIterations;
+        private int iterations;
+        private int belowCount;
+        private double lastL2 = Double.NaN;
+        private double lastLinf = Double.NaN;
+
+        private Tracker(String loop, double tolerance, int maxIterations) {
+            this.loop = loop;
+            this.tolerance = tolerance;
+            this.maxIterations = maxIterations;
+        }
+
+        /**
+         * Записывает невязку очередной итерации.
+         * @return true, если цикл можно остановить (только в адаптивном режиме)
+         */
+        public boolean update(double residualL2, double residualLinf) {
+            cancellation.throwIfCancelled();
+            iterations++;
+            lastL2 = residualL2;
+            lastLinf = residualLinf;
+            if (residualL2 <= tolerance) {
+                belowCount++;
+            } else {
+                belowCount = 0;
+            }
+            return adaptive && belowCount >= patience;
+        }
+
+        public void finish() {
+            if (listener != null) {
+                listener.onIterationReport(stageId, loop, iterations, maxIterations, lastL2, lastLinf);
+            }
+        }
+    }
+
+    /** Относительная L2-невязка: ||now - prev|| / ||now||. */
+    public static double relativeL2(double[] now, double[] prev) {
+        double num = 0.0;
+        double den = 0.0;
+        for (int i = 0; i < now.length; i++) {
+            double d = now[i] - prev[i];
+            num += d * d;
+            den += now[i] * now[i];
+        }
+        return (den <= 1e-18) ? Math.sqrt(num) : Math.sqrt(num / den);
+    }
+
+    /** Относительная L∞-невязка: max|now - prev| / max|now|. */
+    public static double relativeLinf(double[] now, double[] prev) {
+        double num = 0.0;
+        double den = 0.0;
+        for (int i = 0; i < now.length; i++) {
+            num = Math.max(num, Math.abs(now[i] - prev[i]));
+            den = Math.max(den, Math.abs(now[i]));
+        }
+        return (den <= 1e-18) ? num : num / den;
+    }
+}
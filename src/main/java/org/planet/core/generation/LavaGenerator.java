@@ -1,5 +1,6 @@
 package org.planet.core.generation;
 
+import org.planet.core.model.SurfaceTraitColumn;
 import org.planet.core.model.SurfaceType;
 import org.planet.core.model.Tile;
 
@@ -8,37 +9,47 @@ import java.util.Random;
 
 public class LavaGenerator {
 
+    private SurfaceTraitColumn surfaceTraits;
+
+    /** Колонка признаков поверхности (обычно WorldContext.surfaceTraits): типы пишутся через неё. */
+    public void setSurfaceTraits(SurfaceTraitColumn surfaceTraits) {
+        this.surfaceTraits = surfaceTraits;
+    }
+
     public void apply(List<Tile> tiles, long seed) {
+        apply(tiles, seed, null);
+    }
+
+    /** @param boundaries границы плит (null — построить по тайлам) */
+    public void apply(List<Tile> tiles, long seed, PlateBoundaryIndex boundaries) {
+        PlateBoundaryIndex idx = PlateBoundaryIndex.ensure(boundaries, tiles, null);
         Random rnd = new Random(seed + 2025);
 
         // базово вся поверхность в лавовом океане
         for (Tile t : tiles) {
-            t.surfaceType = SurfaceType.LAVA_OCEAN;
+            setType(t, SurfaceType.LAVA_OCEAN);
         }
 
         for (Tile t : tiles) {
-            boolean boundary = isPlateBoundary(t);
+            boolean boundary = idx.isBoundary(t.id);
             double v = t.volcanism / 100.0;
             double stress = t.tectonicStress / 100.0;
             double score = v * 0.6 + stress * 0.4 + (boundary ? 0.2 : 0.0);
 
             if (score > 0.7 && rnd.nextDouble() < 0.6) {
-                t.surfaceType = SurfaceType.VOLCANO;
+                setType(t, SurfaceType.VOLCANO);
             } else if (score > 0.5 && rnd.nextDouble() < 0.6) {
-                t.surfaceType = SurfaceType.VOLCANIC_FIELD;
+                setType(t, SurfaceType.VOLCANIC_FIELD);
             } else if (score > 0.3 && rnd.nextDouble() < 0.5) {
-                t.surfaceType = SurfaceType.LAVA_PLAINS;
+                setType(t, SurfaceType.LAVA_PLAINS);
             } else if (rnd.nextDouble() < 0.05) {
-                t.surfaceType = SurfaceType.LAVA_ISLANDS;
+                setType(t, SurfaceType.LAVA_ISLANDS);
             }
         }
     }
 
-    private boolean isPlateBoundary(Tile t) {
-        if (t.neighbors == null) return false;
-        for (Tile n : t.neighbors) {
-            if (n.plateId != t.plateId) return true;
-        }
-        return false;
+    private void setType(Tile t, SurfaceType st) {
+        if (surfaceTraits != null) surfaceTraits.set(t, st);
+        else t.surfaceType = st;
     }
 }
@@ -4,50 +4,70 @@ import org.planet.core.model.Tile;
 import org.planet.core.model.SurfaceType;
 
 import java.util.*;
+import java.util.stream.IntStream;
 
 public class MountainGenerator {
 
     private final Random random;
+    private final CounterRng.Stream stream;
 
     public MountainGenerator(long seed) {
+        this(seed, null);
+    }
+
+    /** @param stream поток CounterRng (null — последовательный Random(seed), как раньше) */
+    public MountainGenerator(long seed, CounterRng.Stream stream) {
         this.random = new Random(seed);
+        this.stream = stream;
     }
 
     public void generateMountains(List<Tile> tiles, double gravity) {
         double g = Math.max(0.25, gravity);
+        if (stream != null) {
+            // высота тайла — розыгрыш 0 по его id, тайл пишет только себя
+            IntStream.range(0, tiles.size()).parallel().forEach(id -> raise(tiles.get(id), g));
+            return;
+        }
         for (Tile t : tiles) {
+            raise(t, g);
+        }
+    }
 
-            boolean plateBoundary = false;
-            for (Tile n : t.neighbors) {
-                if (n.plateId != t.plateId) {
-                    plateBoundary = true;
-                    break;
-                }
+    private void raise(Tile t, double g) {
+        boolean plateBoundary = false;
+        for (Tile n : t.neighbors) {
+            if (n.plateId != t.plateId) {
+                plateBoundary = true;
+                break;
             }
+        }
 
-            if (!plateBoundary) continue;
-
-            // При 1g допускаем пики 70+ (7+ км), ниже g -> выше рельеф.
-            double gravityScale = Math.pow(1.0 / g, 0.70);
-            int localCap = clampInt((int) Math.round(95.0 * gravityScale), 35, 180);
-            int stressBoost = Math.max(0, t.tectonicStress - 30) / 2;
-            int candidateHeight = random.nextInt(localCap + 1) + stressBoost;
-            int height = Math.min(220, candidateHeight);
-
-            if (height > 0 && t.surfaceType != SurfaceType.OCEAN) {
-                // Не затираем орогенез, а наращиваем существующий рельеф.
-                int newElevation = Math.max(t.elevation, height);
-                t.elevation = clampInt(newElevation, 0, 255);
-
-                if (height >= Math.max(45, (int) Math.round(localCap * 0.65))) {
-                    t.surfaceType = SurfaceType.MOUNTAINS;
-                } else {
-                    t.surfaceType = SurfaceType.HILLS;
-                }
+        if (!plateBoundary) return;
+
+        // При 1g допускаем пики 70+ (7+ км), ниже g -> выше рельеф.
+        double gravityScale = Math.pow(1.0 / g, 0.70);
+        int localCap = clampInt((int) Math.round(95.0 * gravityScale), 35, 180);
+        int stressBoost = Math.max(0, t.tectonicStress - 30) / 2;
+        int candidateHeight = nextInt(t.id, localCap + 1) + stressBoost;
+        int height = Math.min(220, candidateHeight);
+
+        if (height > 0 && t.surfaceType != SurfaceType.OCEAN) {
+            // Не затираем орогенез, а наращиваем существующий рельеф.
+            int newElevation = Math.max(t.elevation, height);
+            t.elevation = clampInt(newElevation, 0, 255);
+
+            if (height >= Math.max(45, (int) Math.round(localCap * 0.65))) {
+                t.surfaceType = SurfaceType.MOUNTAINS;
+            } else {
+                t.surfaceType = SurfaceType.HILLS;
             }
         }
     }
 
+    private int nextInt(int tileId, int bound) {
+        return stream != null ? stream.nextInt(tileId, 0, bound) : random.nextInt(bound);
+    }
+
     private int clampInt(int v, int min, int max) {
         return Math.max(min, Math.min(max, v));
     }
@@ -0,0 +1,317 @@
+package org.planet.core.generation;
+
+import org.planet.core.model.Tile;
+import org.planet.core.topology.GridHierarchy;
+import org.planet.core.topology.GridLevelMapping;
+import org.planet.core.topology.TileGeometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Неявная диффузия на икосаэдрической сетке: решает (I + L) u = rhs, где
+ * {@code (L u)_i = Σ_e w[e] · (u_i − u_target(e))} по рёбрам TileGeometry тайла i.
+ *
+ * Геометрический многосеточный V-цикл по уровням GridHierarchy (тонкий -> ... -> D2):
+ * - продолжение P — барицентрика GridLevelMapping (грубый -> тонкий);
+ * - сужение невязки — P^T, грубые операторы — Галёркин P^T A P, так что коэффициенты рёбер
+ *   (водные маски, вихревая сила и т.п.) на грубые сетки переносить не нужно;
+ * - сглаживатель на каждом уровне — взвешенный Якоби, на самом грубом — Якоби до упора.
+ *
+ * Число V-циклов до допуска почти не зависит от уровня сетки; явным проходам при том же
+ * радиусе сглаживания в км нужно вчетверо больше итераций на каждый уровень.
+ *
+ * Слабо связанные системы (сумма весов рёбер строки Σw не больше 1/2 — обычный шаг
+ * перемешивания) решаются простым Якоби на самой сетке: диагональ строки 1 + Σw, так что
+ * внедиагональная доля Σw / (1 + Σw) не больше 1/3 (JACOBI_ONLY_RATIO) и Якоби сходится за
+ * несколько проходов, а сборка грубых операторов стоила бы дороже.
+ */
+public final class MultigridDiffusion {
+
+    public static final double DEFAULT_TOLERANCE = 1e-6;
+    public static final int MAX_CYCLES = 20;
+
+    private static final double OMEGA = 0.8;
+    private static final int PRE_SWEEPS = 2;
+    private static final int POST_SWEEPS = 2;
+    private static final int COARSEST_SWEEPS = 40;
+    /** Сумма весов рёбер строки, до которой хватает Якоби на самой сетке. */
+    private static final double JACOBI_ONLY_EDGE_WEIGHT = 0.5;
+    /** То же как доля внедиагональной суммы строки в диагонали 1 + Σw (сжатие не хуже 1/3 за проход). */
+    private static final double JACOBI_ONLY_RATIO = JACOBI_ONLY_EDGE_WEIGHT / (1.0 + JACOBI_ONLY_EDGE_WEIGHT);
+    public static final int MAX_JACOBI_SWEEPS = 60;
+
+    private static final Map<Integer, MultigridDiffusion> CACHE = new HashMap<>();
+
+    /**
+     * Итог решения: V-циклы (0 — решено Якоби на самой сетке), проходы Якоби на тонкой сетке вне
+     * V-циклов и относительная L2-невязка ||rhs − A u|| / ||rhs||.
+     */
+    public record Result(int cycles, int sweeps, double residual) {
+    }
+
+    /** Оператор уровня: диагональ и внедиагональные элементы по строкам (CSR). */
+    private record Operator(double[] diag, int[] start, int[] col, double[] val) {
+        int size() {
+            return diag.length;
+        }
+    }
+
+    /** P уровня k+1 -> k и его транспонированная структура (тонкие тайлы с весом у грубого). */
+    private record Transfer(GridLevelMapping map, int[] tStart, int[] tFine, double[] tWeight) {
+    }
+
+    private final int level;
+    private final Transfer[] transfers;
+
+    private MultigridDiffusion(int level, Transfer[] transfers) {
+        this.level = level;
+        this.transfers = transfers;
+    }
+
+    /** Решатель для сетки тайлов (общий на уровень) или null, если тайлы не совпадают с сеткой GridHierarchy. */
+    public static MultigridDiffusion forTiles(List<Tile> tiles) {
+        GridHierarchy grids = GridHierarchy.shared();
+        int level = grids.levelOf(tiles);
+        if (level < 0) return null;
+        synchronized (CACHE) {
+            return CACHE.computeIfAbsent(level, l -> build(grids, l));
+        }
+    }
+
+    private static MultigridDiffusion build(GridHierarchy grids, int level) {
+        List<Transfer> list = new ArrayList<>();
+        int fine = level;
+        for (int coarse = level - 1; coarse >= GridHierarchy.MIN_LEVEL; coarse--) {
+            if (!grids.hasLevel(coarse)) continue;
+            list.add(transpose(grids.mapping(fine, coarse)));
+            fine = coarse;
+        }
+        return new MultigridDiffusion(level, list.toArray(new Transfer[0]));
+    }
+
+    public int level() {
+        return level;
+    }
+
+    /** Сколько сеток в V-цикле (1 — только Якоби на самой сетке). */
+    public int depth() {
+        return transfers.length + 1;
+    }
+
+    /**
+     * @param edgeWeight w[e] по рёбрам geo (неотрицательные; несимметричные допустимы)
+     * @param u          на входе — начальное приближение, на выходе — решение
+     */
+    public Result solve(TileGeometry geo, double[] edgeWeight, double[] rhs, double[] u, double tolerance) {
+        Operator fine = fineOperator(geo, edgeWeight);
+        double norm = Math.sqrt(dot(rhs, rhs));
+        if (norm <= 1e-300) {
+            Arrays.fill(u, 0.0);
+            return new Result(0, 0, 0.0);
+        }
+
+        double[] r0 = new double[fine.size()];
+        double res = residualNorm(fine, u, rhs, r0) / norm;
+        if (transfers.length == 0 || offDiagonalRatio(fine) <= JACOBI_ONLY_RATIO) {
+            int sweeps = 0;
+            while (res > tolerance && sweeps < MAX_JACOBI_SWEEPS) {
+                // r0 — невязка текущего u: x += r / diag (ω = 1)
+                for (int i = 0; i < u.length; i++) u[i] += r0[i] / fine.diag[i];
+                sweeps++;
+                res = residualNorm(fine, u, rhs, r0) / norm;
+            }
+            return new Result(0, sweeps, res);
+        }
+
+        Operator[] ops = new Operator[depth()];
+        ops[0] = fine;
+        for (int k = 0; k < transfers.length; k++) ops[k + 1] = galerkin(ops[k], transfers[k]);
+
+        double[][] x = new double[ops.length][];
+        double[][] b = new double[ops.length][];
+        double[][] r = new double[ops.length][];
+        for (int k = 0; k < ops.length; k++) {
+            int n = ops[k].size();
+            x[k] = k == 0 ? u : new double[n];
+            b[k] = k == 0 ? rhs : new double[n];
+            r[k] = k == 0 ? r0 : new double[n];
+        }
+
+        int cycles = 0;
+        while (res > tolerance && cycles < MAX_CYCLES) {
+            vcycle(0, ops, x, b, r);
+            cycles++;
+            res = residualNorm(ops[0], u, rhs, r[0]) / norm;
+        }
+        return new Result(cycles, 0, res);
+    }
+
+    private void vcycle(int k, Operator[] ops, double[][] x, double[][] b, double[][] r) {
+        Operator a = ops[k];
+        if (k == ops.length - 1) {
+            for (int s = 0; s < COARSEST_SWEEPS; s++) jacobi(a, x[k], b[k], r[k]);
+            return;
+        }
+        for (int s = 0; s < PRE_SWEEPS; s++) jacobi(a, x[k], b[k], r[k]);
+        residual(a, x[k], b[k], r[k]);
+
+        Transfer p = transfers[k];
+        double[] bc = b[k + 1];
+        for (int c = 0; c < bc.length; c++) {
+            double sum = 0.0;
+            for (int t = p.tStart[c]; t < p.tStart[c + 1]; t++) sum += p.tWeight[t] * r[k][p.tFine[t]];
+            bc[c] = sum;
+        }
+        Arrays.fill(x[k + 1], 0.0);
+        vcycle(k + 1, ops, x, b, r);
+
+        double[] xf = x[k];
+        double[] xc = x[k + 1];
+        for (int i = 0; i < xf.length; i++) xf[i] += p.map.interpolate(xc, i);
+        for (int s = 0; s < POST_SWEEPS; s++) jacobi(a, x[k], b[k], r[k]);
+    }
+
+    /** Взвешенный Якоби: x += ω (b − A x) / diag. */
+    private static void jacobi(Operator a, double[] x, double[] b, double[] r) {
+        residual(a, x, b, r);
+        for (int i = 0; i < x.length; i++) x[i] += OMEGA * r[i] / a.diag[i];
+    }
+
+    private static void residual(Operator a, double[] x, double[] b, double[] r) {
+        for (int i = 0; i < x.length; i++) {
+            double ax = a.diag[i] * x[i];
+            for (int e = a.start[i]; e < a.start[i + 1]; e++) ax += a.val[e] * x[a.col[e]];
+            r[i] = b[i] - ax;
+        }
+    }
+
+    /** max по строкам (сумма |внедиагональных|) / диагональ. */
+    private static double offDiagonalRatio(Operator a) {
+        double max = 0.0;
+        for (int i = 0; i < a.size(); i++) {
+            double off = 0.0;
+            for (int e = a.start[i]; e < a.start[i + 1]; e++) off += Math.abs(a.val[e]);
+            max = Math.max(max, off / a.diag[i]);
+        }
+        return max;
+    }
+
+    private static double residualNorm(Operator a, double[] x, double[] b, double[] r) {
+        residual(a, x, b, r);
+        return Math.sqrt(dot(r, r));
+    }
+
+    private static Operator fineOperator(TileGeometry geo, double[] w) {
+        int n = geo.size();
+        double[] diag = new double[n];
+        double[] val = new double[geo.target.length];
+        int[] col = geo.target;
+        for (int i = 0; i < n; i++) {
+            double d = 1.0;
+            for (int e = geo.offset[i]; e < geo.offset[i + 1]; e++) {
+                if (geo.target[e] < 0) {
+                    // ребро без соседа: петля с нулевым весом
+                    if (col == geo.target) col = geo.target.clone();
+                    col[e] = i;
+                    continue;
+                }
+                d += w[e];
+                val[e] = -w[e];
+            }
+            diag[i] = d;
+        }
+        return new Operator(diag, geo.offset, col, val);
+    }
+
+    /** A_c = P^T A P построчно: строка грубого тайла c собирается из тонких тайлов с весом у c. */
+    private static Operator galerkin(Operator a, Transfer p) {
+        GridLevelMapping m = p.map;
+        int nc = m.coarseCount;
+        double[] diag = new double[nc];
+        int[] start = new int[nc + 1];
+        int[] col = new int[nc * 16];
+        double[] val = new double[nc * 16];
+
+        double[] acc = new double[nc];
+        int[] mark = new int[nc];
+        Arrays.fill(mark, -1);
+        int[] touched = new int[nc];
+        int size = 0;
+        for (int c = 0; c < nc; c++) {
+            int cnt = 0;
+            for (int t = p.tStart[c]; t < p.tStart[c + 1]; t++) {
+                int i = p.tFine[t];
+                double pic = p.tWeight[t];
+                cnt = scatter(m, i, pic * a.diag[i], c, acc, mark, touched, cnt);
+                for (int e = a.start[i]; e < a.start[i + 1]; e++) {
+                    cnt = scatter(m, a.col[e], pic * a.val[e], c, acc, mark, touched, cnt);
+                }
+            }
+            if (size + cnt > col.length) {
+                int cap = Math.max(col.length * 2, size + cnt);
+                col = Arrays.copyOf(col, cap);
+                val = Arrays.copyOf(val, cap);
+            }
+            for (int q = 0; q < cnt; q++) {
+                int j = touched[q];
+                if (j == c) {
+                    diag[c] = acc[j];
+                } else {
+                    col[size] = j;
+                    val[size++] = acc[j];
+                }
+            }
+            start[c + 1] = size;
+        }
+        // у грубого тайла без тонких в окрестности строка пустая: тождество, поправка 0
+        for (int c = 0; c < nc; c++) {
+            if (diag[c] <= 0.0) diag[c] = 1.0;
+        }
+        return new Operator(diag, start, Arrays.copyOf(col, size), Arrays.copyOf(val, size));
+    }
+
+    /** acc[c'] += s · P[j][c'] по углам треугольника тонкого тайла j. */
+    private static int scatter(GridLevelMapping m, int j, double s, int row,
+                               double[] acc, int[] mark, int[] touched, int cnt) {
+        for (int k = j * 3; k < j * 3 + 3; k++) {
+            double w = m.weight[k];
+            if (w == 0.0) continue;
+            int c = m.corner[k];
+            if (mark[c] != row) {
+                mark[c] = row;
+                acc[c] = 0.0;
+                touched[cnt++] = c;
+            }
+            acc[c] += s * w;
+        }
+        return cnt;
+    }
+
+    private static Transfer transpose(GridLevelMapping m) {
+        int[] tStart = new int[m.coarseCount + 1];
+        for (int k = 0; k < m.fineCount * 3; k++) {
+            if (m.weight[k] != 0.0) tStart[m.corner[k] + 1]++;
+        }
+        for (int c = 0; c < m.coarseCount; c++) tStart[c + 1] += tStart[c];
+        int[] tFine = new int[tStart[m.coarseCount]];
+        double[] tWeight = new double[tFine.length];
+        int[] fill = Arrays.copyOf(tStart, m.coarseCount);
+        for (int k = 0; k < m.fineCount * 3; k++) {
+            if (m.weight[k] == 0.0) continue;
+            int at = fill[m.corner[k]]++;
+            tFine[at] = k / 3;
+            tWeight[at] = m.weight[k];
+        }
+        return new Transfer(m, tStart, tFine, tWeight);
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double s = 0.0;
+        for (int i = 0; i < a.length; i++) s += a[i] * b[i];
+        return s;
+    }
+}
@@ -0,0 +1,159 @@
+package org.planet.core.generation;
+
+import org.planet.core.model.Tile;
+import org.planet.core.topology.TileGeometry;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Орографические множители тайлов при неизменных ветре и рельефе: наветренный подъём,
+ * подветренный склон и дождевая тень выше по потоку.
+ *
+ * Тень — максимум по тайлам выше по ветру (ходы по рёбрам с dot(ветер, ребро) ≤ -0.2, до maxDepth
+ * ходов) превышения над тайлом, ослабленного 1/(1 + decay·(ход-1)). Вклад тайла зависит только
+ * от тайла и номера хода и убывает с ходом, поэтому прежний перебор всех путей (до 6 уровней,
+ * экспоненциально) заменён обходом в ширину: каждый тайл берётся один раз на минимальном ходе,
+ * максимум получается тот же до бита.
+ */
+final class OrographicField {
+
+    /** Константы WindGenerator и ClimateSampler исторически разные — у каждого свой набор. */
+    record Params(double windScale,
+                  double depth4Above,
+                  double depth5Above,
+                  double depth6Above,
+                  double chainDecay,
+                  double cap,
+                  boolean skipZeroLengthEdges) {
+
+        /** Влагооборот WindGenerator: ветер в единицах солвера (0.5 м/с). */
+        static final Params WIND = new Params(0.50, 16.0, 35.0, 65.0, 0.55, 1.6, false);
+        /** Влагооборот WindGenerator по ветру, уже переведённому в м/с (поправка CoarseClimate). */
+        static final Params WIND_MPS = new Params(1.0, 16.0, 35.0, 65.0, 0.55, 1.6, false);
+        /** ClimateSampler: ветер уже в м/с. */
+        static final Params SAMPLER = new Params(1.0, 15.0, 35.0, 60.0, 0.5, 1.5, true);
+    }
+
+    final double[] windward;
+    final double[] leeward;
+    final double[] shadow;
+
+    private OrographicField(int n) {
+        windward = new double[n];
+        leeward = new double[n];
+        shadow = new double[n];
+    }
+
+    private static final class Scratch {
+        final int[] stamp;
+        final int[] queue;
+        final int[] hop;
+        int mark;
+
+        Scratch(int n) {
+            stamp = new int[n];
+            queue = new int[n];
+            hop = new int[n];
+        }
+    }
+
+    static OrographicField compute(List<Tile> tiles, TileGeometry geo, Params p, boolean parallel) {
+        int n = tiles.size();
+        OrographicField f = new OrographicField(n);
+        int[] elev = new int[n];
+        for (int i = 0; i < n; i++) elev[i] = tiles.get(i).elevation;
+        if (parallel) {
+            ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(() -> new Scratch(n));
+            IntStream.range(0, n).parallel().forEach(i -> f.fill(tiles.get(i), elev, geo, p, scratch.get()));
+        } else {
+            Scratch s = new Scratch(n);
+            for (int i = 0; i < n; i++) f.fill(tiles.get(i), elev, geo, p, s);
+        }
+        return f;
+    }
+
+    private void fill(Tile t, int[] elev, TileGeometry geo, Params p, Scratch s) {
+        if (t.neighbors == null || t.neighbors.isEmpty()) return;
+        double mag = Math.sqrt(t.windX * t.windX + t.windY * t.windY);
+        if (mag < 1e-6) return;
+
+        double wx = t.windX / mag;
+        double wy = t.windY / mag;
+        double ww = 0.0;
+        double lw = 0.0;
+        int e0 = geo.first(t.id);
+        int e1 = geo.offset[t.id + 1];
+        for (int e = e0; e < e1; e++) {
+            if (p.skipZeroLengthEdges && geo.planarKm[e] < 1e-6) continue;
+            int nb = geo.target[e];
+            if (nb < 0) continue;
+            double dot = wx * geo.dirEast[e] + wy * geo.dirNorth[e];
+            int diff = elev[nb] - t.elevation;
+            if (diff <= 0) continue;
+            if (dot > 0.2) ww = Math.max(ww, diff / 10.0);
+            if (dot < -0.2) lw = Math.max(lw, diff / 10.0);
+        }
+
+        windward[t.id] = clamp(ww, 0.0, p.cap);
+        leeward[t.id] = clamp(lw, 0.0, p.cap);
+        shadow[t.id] = clamp(upwindShadow(t, wx, wy, mag * p.windScale, elev, geo, p, s), 0.0, p.cap);
+    }
+
+    private static double upwindShadow(Tile t, double wx, double wy, double windMag,
+                                       int[] elev, TileGeometry geo, Params p, Scratch s) {
+        int maxDepth = 3;
+        if (windMag > p.depth4Above) maxDepth = 4;
+        if (windMag > p.depth5Above) maxDepth = 5;
+        if (windMag > p.depth6Above) maxDepth = 6;
+
+        int base = t.elevation;
+        int mark = ++s.mark;
+        int head = 0;
+        int tail = 0;
+        double best = 0.0;
+
+        // ход 1: только соседи выше тайла, без ослабления
+        for (int e = geo.first(t.id); e < geo.offset[t.id + 1]; e++) {
+            int nb = geo.target[e];
+            if (nb < 0) continue;
+            double dot = wx * geo.dirEast[e] + wy * geo.dirNorth[e];
+            if (dot > -0.2) continue;
+            int diff = elev[nb] - base;
+            if (diff <= 0) continue;
+            best = Math.max(best, diff / 10.0);
+            if (s.stamp[nb] != mark) {
+                s.stamp[nb] = mark;
+                s.hop[nb] = 1;
+                s.queue[tail++] = nb;
+            }
+        }
+
+        // ходы 2..maxDepth: любой тайл выше по ветру, вклад с ослаблением
+        while (head < tail) {
+            int u = s.queue[head++];
+            int h = s.hop[u];
+            double decay = 1.0 / (1.0 + p.chainDecay * h);
+            for (int e = geo.first(u); e < geo.offset[u + 1]; e++) {
+                int v = geo.target[e];
+                if (v < 0 || s.stamp[v] == mark) continue;
+                double dot = wx * geo.dirEast[e] + wy * geo.dirNorth[e];
+                if (dot > -0.2) continue;
+                s.stamp[v] = mark;
+                int diff = elev[v] - base;
+                if (diff > 0) {
+                    best = Math.max(best, (diff / 10.0) * decay);
+                }
+                if (h + 1 < maxDepth) {
+                    s.hop[v] = h + 1;
+                    s.queue[tail++] = v;
+                }
+            }
+        }
+        return best;
+    }
+
+    private static double clamp(double v, double min, double max) {
+        return Math.max(min, Math.min(max, v));
+    }
+}
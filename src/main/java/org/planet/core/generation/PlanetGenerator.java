@@ -11,16 +11,41 @@ public class PlanetGenerator {
 
     private final Random random;
     private final GeneratorSettings settings;
+    private final CounterRng.Stream stream;
+
+    /**
+     * Каналы CounterRng для розыгрышей не по тайлу. Рост бассейна/острова идёт по id его сида
+     * (розыгрыш 0 — размер, 1 + k — k-й шаг фронта): форма одного водоёма не зависит от того,
+     * сколько чисел съели предыдущие.
+     */
+    private static final long CH_OCEAN_TARGET = -1;
+    private static final long CH_BASIN_COUNT = -2;
+    private static final long CH_OCEAN_ISLANDS = -3;
+    private static final long CH_PICK = -4;
+    private int picks;
+
+    /** Распределения выбора сидов (вода / суша): планета в пределах одного вызова не меняется. */
+    private WeightedPicker waterPicker;
+    private WeightedPicker landPicker;
 
     public PlanetGenerator(GeneratorSettings settings) {
+        this(settings, null);
+    }
+
+    /** @param stream поток CounterRng (null — последовательный Random(seed), как раньше) */
+    public PlanetGenerator(GeneratorSettings settings, CounterRng.Stream stream) {
         this.settings = settings;
         this.random = new Random(settings.seed);
+        this.stream = stream;
     }
 
     /**
      * Основной вход
      */
     public void generateBaseSurface(List<Tile> tiles, PlanetConfig planet) {
+        waterPicker = null;
+        landPicker = null;
+        picks = 0;
         int oceanTarget = targetWaterTiles(tiles.size());
 
         switch (planet.waterCoverageOrdinal) {
@@ -50,7 +75,7 @@ public class PlanetGenerator {
 
     private void generateSeas(List<Tile> tiles, PlanetConfig planet, int oceanTarget) {
         for (Tile t : tiles) t.surfaceType = SurfaceType.PLAINS;
-        int basins = clamp(2 + random.nextInt(2), 2, 3);
+        int basins = clamp(2 + nextInt(CH_BASIN_COUNT, 0, 2), 2, 3);
         growWaterBasins(tiles, planet, oceanTarget, basins, 0);
     }
 
@@ -74,7 +99,7 @@ public class PlanetGenerator {
     private void generateOceanPlanet(List<Tile> tiles, PlanetConfig planet) {
         for (Tile t : tiles) t.surfaceType = SurfaceType.OCEAN;
         // редкие пики суши
-        if (random.nextInt(100) < 40) {
+        if (nextInt(CH_OCEAN_ISLANDS, 0, 100) < 40) {
             int landTiles = Math.max(1, tiles.size() / 200);
             placeIslands(tiles, planet, landTiles, 2, 10.0);
         }
@@ -86,18 +111,18 @@ public class PlanetGenerator {
                             int maxLakeSize,
                             double minSeedDistDeg) {
         if (waterTiles <= 0) return;
-        Set<Tile> water = new HashSet<>();
-        List<Tile> seeds = new ArrayList<>();
+        TileMark water = new TileMark(tiles.size());
+        SeedGrid seeds = new SeedGrid(minSeedDistDeg);
 
         int attempts = 0;
-        while (water.size() < waterTiles && attempts < tiles.size() * 5) {
+        while (water.size < waterTiles && attempts < tiles.size() * 5) {
             Tile seed = pickWeighted(tiles, planet, true);
             attempts++;
             if (seed == null) break;
             if (!isFarEnough(seed, seeds, minSeedDistDeg)) continue;
 
             seeds.add(seed);
-            int lakeSize = 1 + random.nextInt(maxLakeSize);
+            int lakeSize = 1 + nextInt(seed.id, 0, maxLakeSize);
             growFromSeed(seed, lakeSize, water, SurfaceType.OCEAN);
         }
     }
@@ -108,18 +133,18 @@ public class PlanetGenerator {
                               int maxIslandSize,
                               double minSeedDistDeg) {
         if (landTiles <= 0) return;
-        Set<Tile> land = new HashSet<>();
-        List<Tile> seeds = new ArrayList<>();
+        TileMark land = new TileMark(tiles.size());
+        SeedGrid seeds = new SeedGrid(minSeedDistDeg);
 
         int attempts = 0;
-        while (land.size() < landTiles && attempts < tiles.size() * 5) {
+        while (land.size < landTiles && attempts < tiles.size() * 5) {
             Tile seed = pickWeighted(tiles, planet, false);
             attempts++;
             if (seed == null) break;
             if (!isFarEnough(seed, seeds, minSeedDistDeg)) continue;
 
             seeds.add(seed);
-            int islandSize = 1 + random.nextInt(maxIslandSize);
+            int islandSize = 1 + nextInt(seed.id, 0, maxIslandSize);
             growFromSeed(seed, islandSize, land, SurfaceType.PLAINS);
         }
     }
@@ -130,8 +155,8 @@ public class PlanetGenerator {
                                  int basins,
                                  int maxBasinSize) {
         if (waterTiles <= 0) return;
-        Set<Tile> water = new HashSet<>();
-        List<Tile> seeds = new ArrayList<>();
+        TileMark water = new TileMark(tiles.size());
+        SeedGrid seeds = new SeedGrid(8.0);
 
         int remaining = waterTiles;
         for (int b = 0; b < basins && remaining > 0; b++) {
@@ -152,23 +177,24 @@ public class PlanetGenerator {
 
     private int growFromSeed(Tile seed,
                              int target,
-                             Set<Tile> visited,
+                             TileMark visited,
                              SurfaceType type) {
-        if (visited.contains(seed)) return 0;
+        if (visited.contains(seed.id)) return 0;
         int added = 0;
-        List<Tile> frontier = new ArrayList<>();
+        Frontier frontier = new Frontier();
         frontier.add(seed);
+        int step = 0;
 
         while (!frontier.isEmpty() && added < target) {
-            Tile cur = frontier.remove(random.nextInt(frontier.size()));
-            if (visited.contains(cur)) continue;
-            visited.add(cur);
+            Tile cur = frontier.removeAt(nextInt(seed.id, 1 + step++, frontier.size()));
+            if (visited.contains(cur.id)) continue;
+            visited.add(cur.id);
             cur.surfaceType = type;
             added++;
 
             if (cur.neighbors == null) continue;
             for (Tile n : cur.neighbors) {
-                if (!visited.contains(n)) {
+                if (!visited.contains(n.id)) {
                     frontier.add(n);
                 }
             }
@@ -177,26 +203,19 @@ public class PlanetGenerator {
     }
 
     private Tile pickWeighted(List<Tile> tiles, PlanetConfig planet, boolean forWater) {
-        double total = 0.0;
-        double[] weights = new double[tiles.size()];
-
-        for (int i = 0; i < tiles.size(); i++) {
-            Tile t = tiles.get(i);
-            double w = climateWeight(t, planet, forWater);
-            weights[i] = w;
-            total += w;
-        }
-
-        if (total <= 0.0) {
-            return tiles.get(random.nextInt(tiles.size()));
+        WeightedPicker picker = forWater ? waterPicker : landPicker;
+        if (picker == null) {
+            picker = new WeightedPicker(tiles, planet, forWater);
+            if (forWater) waterPicker = picker;
+            else landPicker = picker;
         }
 
-        double r = random.nextDouble() * total;
-        for (int i = 0; i < tiles.size(); i++) {
-            r -= weights[i];
-            if (r <= 0) return tiles.get(i);
+        int draw = picks++;
+        if (picker.total <= 0.0) {
+            return tiles.get(nextInt(CH_PICK, draw, tiles.size()));
         }
-        return tiles.get(tiles.size() - 1);
+        double r = nextDouble(CH_PICK, draw) * picker.total;
+        return tiles.get(picker.indexOf(r));
     }
 
     private double climateWeight(Tile t, PlanetConfig planet, boolean forWater) {
@@ -225,8 +244,8 @@ public class PlanetGenerator {
         return w;
     }
 
-    private boolean isFarEnough(Tile seed, List<Tile> others, double minDistDeg) {
-        for (Tile o : others) {
+    private boolean isFarEnough(Tile seed, SeedGrid others, double minDistDeg) {
+        for (Tile o : others.near(seed)) {
             if (angularDistanceDeg(seed.lat, seed.lon, o.lat, o.lon) < minDistDeg) {
                 return false;
             }
@@ -242,7 +261,7 @@ public class PlanetGenerator {
         int maxOcean = Math.min(100, ocean + halfStep);
         int oceanTarget = (minOcean == maxOcean)
                 ? ocean
-                : minOcean + random.nextInt(maxOcean - minOcean + 1);
+                : minOcean + nextInt(CH_OCEAN_TARGET, 0, maxOcean - minOcean + 1);
         return (int) Math.round(total * (oceanTarget / 100.0));
     }
 
@@ -263,8 +282,174 @@ public class PlanetGenerator {
         return Math.toDegrees(c);
     }
 
+    /** id/draw адресуют число в CounterRng; в последовательном режиме просто следующее число Random. */
+    private int nextInt(long id, int draw, int bound) {
+        return stream != null ? stream.nextInt(id, draw, bound) : random.nextInt(bound);
+    }
+
+    private double nextDouble(long id, int draw) {
+        return stream != null ? stream.nextDouble(id, draw) : random.nextDouble();
+    }
+
     private int clamp(int v, int min, int max) {
         return Math.max(min, Math.min(max, v));
     }
 
+    /**
+     * Кумулятивные веса climateWeight: выбор за O(log n) бинарным поиском вместо O(n) прохода.
+     * Тот же один nextDouble() на выбор и тот же тайл, что у прежнего линейного вычитания.
+     */
+    private final class WeightedPicker {
+        final double[] cumulative;
+        final double total;
+
+        WeightedPicker(List<Tile> tiles, PlanetConfig planet, boolean forWater) {
+            cumulative = new double[tiles.size()];
+            double sum = 0.0;
+            for (int i = 0; i < tiles.size(); i++) {
+                sum += climateWeight(tiles.get(i), planet, forWater);
+                cumulative[i] = sum;
+            }
+            total = sum;
+        }
+
+        /** Первый индекс с cumulative >= r (последний, если r вылез за сумму из-за округления). */
+        int indexOf(double r) {
+            int lo = 0;
+            int hi = cumulative.length - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (cumulative[mid] >= r) hi = mid;
+                else lo = mid + 1;
+            }
+            return lo;
+        }
+    }
+
+    /** Отметки тайлов по id + счётчик отмеченных (вместо HashSet<Tile>). */
+    private static final class TileMark {
+        final boolean[] marked;
+        int size;
+
+        TileMark(int n) {
+            marked = new boolean[n];
+        }
+
+        boolean contains(int id) {
+            return marked[id];
+        }
+
+        void add(int id) {
+            if (!marked[id]) {
+                marked[id] = true;
+                size++;
+            }
+        }
+    }
+
+    /**
+     * Фронт роста бассейна: массив в порядке добавления + дерево Фенвика по живым слотам.
+     * removeAt(k) снимает k-й живой элемент за O(log n) и сохраняет порядок остальных,
+     * поэтому при тех же случайных индексах рост идёт ровно как с ArrayList.remove(k).
+     */
+    private static final class Frontier {
+        private Tile[] items = new Tile[64];
+        private int[] tree = new int[65];
+        private int count;
+        private int alive;
+
+        boolean isEmpty() {
+            return alive == 0;
+        }
+
+        int size() {
+            return alive;
+        }
+
+        void add(Tile t) {
+            if (count == items.length) grow();
+            items[count++] = t;
+            alive++;
+            for (int i = count; i < tree.length; i += i & -i) tree[i]++;
+        }
+
+        Tile removeAt(int k) {
+            // Спуск по дереву: ищем слот с (k + 1)-м живым элементом.
+            int pos = 0;
+            int rest = k + 1;
+            for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+                int next = pos + step;
+                if (next < tree.length && tree[next] < rest) {
+                    pos = next;
+                    rest -= tree[next];
+                }
+            }
+            Tile t = items[pos];
+            items[pos] = null;
+            alive--;
+            for (int i = pos + 1; i < tree.length; i += i & -i) tree[i]--;
+            return t;
+        }
+
+        private void grow() {
+            items = Arrays.copyOf(items, items.length * 2);
+            tree = new int[items.length + 1];
+            // Линейная сборка дерева по живым слотам.
+            for (int i = 1; i < tree.length; i++) {
+                if (i <= count && items[i - 1] != null) tree[i]++;
+                int parent = i + (i & -i);
+                if (parent < tree.length) tree[parent] += tree[i];
+            }
+        }
+    }
+
+    /**
+     * Сетка ячеек на единичной сфере для проверки расстояния между сидами.
+     * Ячейка не меньше хорды minDistDeg, поэтому все сиды ближе minDistDeg лежат в 27 соседних ячейках;
+     * точная проверка остаётся в isFarEnough.
+     */
+    private static final class SeedGrid {
+        private final double cell;
+        private final Map<Long, List<Tile>> cells = new HashMap<>();
+
+        SeedGrid(double minDistDeg) {
+            double chord = 2.0 * Math.sin(Math.toRadians(Math.min(180.0, Math.max(0.0, minDistDeg))) / 2.0);
+            // запас на округление, чтобы близкие точки не разъехались на две ячейки
+            this.cell = Math.max(1e-6, chord * 1.001);
+        }
+
+        void add(Tile t) {
+            int[] c = cellOf(t);
+            cells.computeIfAbsent(key(c[0], c[1], c[2]), k -> new ArrayList<>()).add(t);
+        }
+
+        List<Tile> near(Tile t) {
+            if (cells.isEmpty()) return List.of();
+            int[] c = cellOf(t);
+            List<Tile> out = new ArrayList<>();
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dz = -1; dz <= 1; dz++) {
+                        List<Tile> bucket = cells.get(key(c[0] + dx, c[1] + dy, c[2] + dz));
+                        if (bucket != null) out.addAll(bucket);
+                    }
+                }
+            }
+            return out;
+        }
+
+        private int[] cellOf(Tile t) {
+            double lat = Math.toRadians(t.lat);
+            double lon = Math.toRadians(t.lon);
+            double x = Math.cos(lat) * Math.cos(lon);
+            double y = Math.cos(lat) * Math.sin(lon);
+            double z = Math.sin(lat);
+            return new int[]{(int) Math.floor(x / cell), (int) Math.floor(y / cell), (int) Math.floor(z / cell)};
+        }
+
+        private static long key(int x, int y, int z) {
+            return ((long) (x & 0x1FFFFF) << 42) | ((long) (y & 0x1FFFFF) << 21) | (z & 0x1FFFFF);
+        }
+    }
+
 }
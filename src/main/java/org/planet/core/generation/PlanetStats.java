@@ -0,0 +1,196 @@
+package org.planet.core.generation;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Перцентили по планете без полной сортировки.
+ *
+ * Статические методы — quickselect (O(n) в среднем, с откатом на сортировку подотрезка
+ * при плохих опорных) и выбор нескольких рангов за один проход по разбиению.
+ * Экземпляр живёт в WorldContext и кэширует выборки по имени поля: повторные запросы
+ * того же поля внутри стадии не собирают массив заново. GenerationPipeline сбрасывает кэш
+ * на границе стадий, потому что стадии меняют тайлы.
+ */
+public final class PlanetStats {
+
+    /** Высоты суши для биомов (без OCEAN / ICE_OCEAN / LAVA_OCEAN). */
+    public static final String BIOME_LAND_ELEVATION = "biome.landElevation";
+    /** Баланс осадки - испарение (кг/м²/сут) по неводным тайлам. */
+    public static final String BIOME_PRECIP_MINUS_EVAP = "biome.precipMinusEvap";
+    /** Почвенная влага по неводным тайлам. */
+    public static final String BIOME_SOIL_MOISTURE = "biome.soilMoisture";
+    /** Высоты тайлов, участвующих в классификации рельефа. */
+    public static final String RELIEF_ELEVATION = "relief.elevation";
+
+    private final Map<String, Field> fields = new HashMap<>();
+
+    private static final class Field {
+        final double[] values;
+        final Map<Double, Double> byPercentile = new HashMap<>();
+
+        Field(double[] values) {
+            this.values = values;
+        }
+    }
+
+    /** Сбросить все поля (вызывается на границе стадий). */
+    public void invalidate() {
+        fields.clear();
+    }
+
+    /** Число значений в поле (0, если поле пустое). */
+    public int size(String field, Supplier<double[]> values) {
+        return field(field, values).values.length;
+    }
+
+    /** Перцентиль по ближайшему рангу round((n-1)·p); 0 для пустого поля. */
+    public double percentile(String field, Supplier<double[]> values, double p) {
+        return percentiles(field, values, p)[0];
+    }
+
+    /** Несколько перцентилей одного поля; не посчитанные ранее выбираются за один проход. */
+    public double[] percentiles(String field, Supplier<double[]> values, double... ps) {
+        Field f = field(field, values);
+        double[] out = new double[ps.length];
+        if (f.values.length == 0) return out;
+
+        int missing = 0;
+        for (double p : ps) {
+            if (!f.byPercentile.containsKey(p)) missing++;
+        }
+        if (missing > 0) {
+            double[] todo = new double[missing];
+            int k = 0;
+            for (double p : ps) {
+                if (!f.byPercentile.containsKey(p)) todo[k++] = p;
+            }
+            double[] got = nearestRanks(f.values, todo);
+            for (int i = 0; i < todo.length; i++) {
+                f.byPercentile.put(todo[i], got[i]);
+            }
+        }
+        for (int i = 0; i < ps.length; i++) {
+            out[i] = f.byPercentile.get(ps[i]);
+        }
+        return out;
+    }
+
+    private Field field(String name, Supplier<double[]> values) {
+        Field f = fields.get(name);
+        if (f == null) {
+            f = new Field(values.get());
+            fields.put(name, f);
+        }
+        return f;
+    }
+
+    // ---------------------------
+    // ВЫБОР ПО РАНГУ
+    // ---------------------------
+
+    /** Индекс ближайшего ранга round((n-1)·p), зажатый в [0, n-1]. */
+    public static int rankIndex(int n, double p) {
+        int idx = (int) Math.round((n - 1) * p);
+        if (idx < 0) idx = 0;
+        if (idx >= n) idx = n - 1;
+        return idx;
+    }
+
+    /**
+     * Значения ближайших рангов для нескольких p. Массив переупорядочивается на месте
+     * (после вызова он частично упорядочен, повторные выборки по нему дешевле).
+     */
+    public static double[] nearestRanks(double[] a, double... ps) {
+        double[] out = new double[ps.length];
+        if (a.length == 0) return out;
+        int[] ranks = new int[ps.length];
+        for (int i = 0; i < ps.length; i++) ranks[i] = rankIndex(a.length, ps[i]);
+        selectRanks(a, ranks);
+        for (int i = 0; i < ps.length; i++) out[i] = a[ranks[i]];
+        return out;
+    }
+
+    /** Перцентиль с линейной интерполяцией между соседними рангами (на месте). */
+    public static double interpolated(double[] a, double p) {
+        if (a.length == 0) return 0.0;
+        if (a.length == 1) return a[0];
+        double idx = p * (a.length - 1);
+        int lo = (int) Math.floor(idx);
+        int hi = (int) Math.ceil(idx);
+        select(a, lo);
+        if (lo == hi) return a[lo];
+        // после select(lo) всё справа >= a[lo]: следующий ранг — минимум правой части
+        double next = a[hi];
+        for (int i = hi + 1; i < a.length; i++) {
+            if (a[i] < next) next = a[i];
+        }
+        double t = idx - lo;
+        return a[lo] * (1.0 - t) + next * t;
+    }
+
+    /** k-я порядковая статистика (0-based); массив переупорядочивается на месте. */
+    public static double select(double[] a, int k) {
+        select(a, 0, a.length, k);
+        return a[k];
+    }
+
+    /** Ставит на места все ранги из списка: каждый следующий выбирается в правой части предыдущего. */
+    private static void selectRanks(double[] a, int[] ranks) {
+        int[] sorted = ranks.clone();
+        Arrays.sort(sorted);
+        int from = 0;
+        for (int k : sorted) {
+            if (k < from) continue;
+            select(a, from, a.length, k);
+            from = k + 1;
+        }
+    }
+
+    private static void select(double[] a, int from, int to, int k) {
+        int lo = from;
+        int hi = to - 1;
+        // Бюджет разбиений ~2·log2(n); дальше — сортировка подотрезка (защита от квадратичного случая).
+        int budget = 2 * (32 - Integer.numberOfLeadingZeros(Math.max(1, to - from)));
+        while (hi > lo) {
+            if (budget-- <= 0 || hi - lo < 16) {
+                Arrays.sort(a, lo, hi + 1);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            // медиана трёх в a[mid]
+            if (a[mid] < a[lo]) swap(a, mid, lo);
+            if (a[hi] < a[lo]) swap(a, hi, lo);
+            if (a[hi] < a[mid]) swap(a, hi, mid);
+            double pivot = a[mid];
+
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (a[i] < pivot) i++;
+                while (a[j] > pivot) j--;
+                if (i <= j) {
+                    swap(a, i, j);
+                    i++;
+                    j--;
+                }
+            }
+            // [lo..j] <= pivot, [i..hi] >= pivot, (j, i) == pivot
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static void swap(double[] a, int i, int j) {
+        double t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+}
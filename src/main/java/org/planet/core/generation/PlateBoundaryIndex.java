@@ -0,0 +1,166 @@
+package org.planet.core.generation;
+
+import org.planet.core.model.TectonicPlate;
+import org.planet.core.model.Tile;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Границы плит по текущему plateId тайлов: строится один раз после PLATES (плиты дальше
+ * не меняются) и лежит в WorldContext.plateBoundaries.
+ *
+ * Граничные рёбра хранятся по тайлам подряд (CSR, как в TileGeometry): рёбра тайла {@code id} —
+ * {@code edgeStart[id]..edgeStart[id + 1]}, только к соседям с другой плитой, в порядке
+ * tile.neighbors. Сближение ребра — скалярное произведение векторов движения двух плит
+ * (&lt; 0 — столкновение, &gt; 0 — расхождение). Индекс, построенный без списка плит
+ * (потребителям, которым нужна только геометрия границ), хранит NaN — hasConvergence() == false;
+ * plateId вне списка плит — ошибка, как и в прежнем расчёте напряжений.
+ *
+ * Индекс помнит plateId тайлов, по которым построен: ensure() не отдаст его тайлам другой планеты
+ * с той же сеткой.
+ */
+public final class PlateBoundaryIndex {
+
+    /** Расстояние до границы для тайла без пути к ней (одна плита на всю связную область). */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final int tileCount;
+    private final int[] plateOf;
+    private final boolean hasConvergence;
+    private final BitSet boundary;
+    private final double[] score;
+    private final int[] distance;
+
+    public final int[] edgeStart;
+    public final int[] edgeTo;
+    public final double[] edgeConvergence;
+
+    private PlateBoundaryIndex(int tileCount, int edgeCount, boolean hasConvergence) {
+        this.tileCount = tileCount;
+        this.plateOf = new int[tileCount];
+        this.hasConvergence = hasConvergence;
+        this.boundary = new BitSet(tileCount);
+        this.score = new double[tileCount];
+        this.distance = new int[tileCount];
+        this.edgeStart = new int[tileCount + 1];
+        this.edgeTo = new int[edgeCount];
+        this.edgeConvergence = new double[edgeCount];
+    }
+
+    /**
+     * @param plates плиты с векторами движения (null — без сближения)
+     */
+    public static PlateBoundaryIndex build(List<Tile> tiles, List<TectonicPlate> plates) {
+        int n = tiles.size();
+        int edges = 0;
+        for (Tile t : tiles) {
+            if (t.neighbors == null) continue;
+            for (Tile nb : t.neighbors) {
+                if (nb != null && nb.plateId != t.plateId) edges++;
+            }
+        }
+
+        PlateBoundaryIndex idx = new PlateBoundaryIndex(n, edges, plates != null);
+        int e = 0;
+        for (int id = 0; id < n; id++) {
+            Tile t = tiles.get(id);
+            idx.plateOf[id] = t.plateId;
+            idx.edgeStart[id] = e;
+            if (t.neighbors == null || t.neighbors.isEmpty()) continue;
+            for (Tile nb : t.neighbors) {
+                if (nb == null || nb.plateId == t.plateId) continue;
+                idx.edgeTo[e] = nb.id;
+                idx.edgeConvergence[e] = convergence(plates, t.plateId, nb.plateId);
+                e++;
+            }
+            int foreign = e - idx.edgeStart[id];
+            if (foreign > 0) {
+                idx.boundary.set(id);
+                idx.score[id] = Math.min(1.0, foreign / (double) t.neighbors.size());
+            }
+        }
+        idx.edgeStart[n] = e;
+        idx.fillDistance(tiles);
+        return idx;
+    }
+
+    /**
+     * Индекс для этих тайлов: готовый, если он построен по тем же plateId (и со сближением, если
+     * переданы плиты), иначе построить на месте.
+     */
+    public static PlateBoundaryIndex ensure(PlateBoundaryIndex idx, List<Tile> tiles, List<TectonicPlate> plates) {
+        boolean reuse = idx != null && idx.matches(tiles) && (plates == null || idx.hasConvergence);
+        return reuse ? idx : build(tiles, plates);
+    }
+
+    /** Построен по тем же тайлам: то же число и те же plateId по id. */
+    public boolean matches(List<Tile> tiles) {
+        if (tiles.size() != tileCount) return false;
+        for (int id = 0; id < tileCount; id++) {
+            if (tiles.get(id).plateId != plateOf[id]) return false;
+        }
+        return true;
+    }
+
+    /** Сближение рёбер посчитано (индекс строился со списком плит). */
+    public boolean hasConvergence() {
+        return hasConvergence;
+    }
+
+    public int tileCount() {
+        return tileCount;
+    }
+
+    /** Есть сосед с другой плитой. */
+    public boolean isBoundary(int tileId) {
+        return boundary.get(tileId);
+    }
+
+    /** Доля соседей с другой плитой, 0..1. */
+    public double boundaryScore(int tileId) {
+        return score[tileId];
+    }
+
+    /** Шагов по соседям до ближайшего граничного тайла (0 — сам на границе) или UNREACHABLE. */
+    public int distanceToBoundary(int tileId) {
+        return distance[tileId];
+    }
+
+    public int boundaryTileCount() {
+        return boundary.cardinality();
+    }
+
+    /** Многоисточниковый BFS от всех граничных тайлов. */
+    private void fillDistance(List<Tile> tiles) {
+        Arrays.fill(distance, UNREACHABLE);
+        int[] queue = new int[tileCount];
+        int head = 0;
+        int tail = 0;
+        for (int id = boundary.nextSetBit(0); id >= 0; id = boundary.nextSetBit(id + 1)) {
+            distance[id] = 0;
+            queue[tail++] = id;
+        }
+        while (head < tail) {
+            int u = queue[head++];
+            Tile t = tiles.get(u);
+            if (t.neighbors == null) continue;
+            for (Tile nb : t.neighbors) {
+                if (nb == null || distance[nb.id] != UNREACHABLE) continue;
+                distance[nb.id] = distance[u] + 1;
+                queue[tail++] = nb.id;
+            }
+        }
+    }
+
+    private static double convergence(List<TectonicPlate> plates, int a, int b) {
+        if (plates == null) return Double.NaN;
+        if (a < 0 || b < 0 || a >= plates.size() || b >= plates.size()) {
+            throw new IllegalArgumentException("plateId out of range: " + a + "/" + b + " plates=" + plates.size());
+        }
+        TectonicPlate p1 = plates.get(a);
+        TectonicPlate p2 = plates.get(b);
+        return p1.dx * p2.dx + p1.dy * p2.dy;
+    }
+}
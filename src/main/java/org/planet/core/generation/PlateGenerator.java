@@ -3,94 +3,275 @@ package org.planet.core.generation;
 import org.planet.core.model.*;
 import java.util.*;
 import org.planet.core.model.config.PlanetConfig;
+import org.planet.core.model.config.PlateGrowthMode;
 
 public class PlateGenerator {
 
     private final Random random;
+    private final CounterRng.Stream stream;
 
     public PlateGenerator(long seed) {
+        this(seed, null);
+    }
+
+    /**
+     * @param stream поток CounterRng (null — последовательный Random(seed), как раньше).
+     *               Розыгрыши плиты i идут по id -1 - i (0..2 — тип и вектор, 3 — скорость роста),
+     *               тайла — по его id (0 — ключ выбора сидов, 1 — аварийная плита).
+     */
+    public PlateGenerator(long seed, CounterRng.Stream stream) {
         this.random = new Random(seed);
+        this.stream = stream;
     }
 
     public List<TectonicPlate> generatePlates(
             List<Tile> tiles,
             PlanetConfig planet,
             int plateCount
+    ) {
+        return generatePlates(tiles, planet, plateCount, PlateGrowthMode.SWEEP, 0.0);
+    }
+
+    /**
+     * @param growthSpread только для WEIGHTED: скорости роста плит 1 ± spread
+     */
+    public List<TectonicPlate> generatePlates(
+            List<Tile> tiles,
+            PlanetConfig planet,
+            int plateCount,
+            PlateGrowthMode mode,
+            double growthSpread
     ) {
         List<TectonicPlate> plates = new ArrayList<>();
 
         for (int i = 0; i < plateCount; i++) {
             TectonicPlate p = new TectonicPlate();
             p.id = i;
-            p.continental = random.nextDouble() < 0.4;
-            p.dx = random.nextDouble() * 2 - 1;
-            p.dy = random.nextDouble() * 2 - 1;
+            p.continental = plateDouble(i, 0) < 0.4;
+            p.dx = plateDouble(i, 1) * 2 - 1;
+            p.dy = plateDouble(i, 2) * 2 - 1;
             plates.add(p);
         }
 
+        int n = tiles.size();
+        int[] plateOf = new int[n];
+        Arrays.fill(plateOf, -1);
 
+        // 1️⃣ сиды
+        int[] seeds = stream != null ? counterSeeds(n, plateCount) : shuffledSeeds(tiles, plateCount);
+        for (int i = 0; i < plateCount; i++) {
+            plateOf[seeds[i]] = i;
+        }
 
-        Map<Tile, TectonicPlate> assignment = new HashMap<>();
+        // 2️⃣ рост плит
+        switch (mode == null ? PlateGrowthMode.SWEEP : mode) {
+            case SWEEP -> growSweep(tiles, plateOf);
+            case BFS -> growBfs(tiles, plateOf, seeds);
+            case WEIGHTED -> growWeighted(tiles, plateOf, seeds, growthRates(plateCount, growthSpread));
+        }
 
-        // 1️⃣ сиды
+        // 3️⃣ запись в тайлы
+        for (Tile t : tiles) {
+            int p = plateOf[t.id];
+
+            if (p < 0) {
+                // аварийный fallback: тайл вне связной сетки
+                p = stream != null ? stream.nextInt(t.id, 1, plates.size()) : random.nextInt(plates.size());
+            }
+
+            TectonicPlate plate = plates.get(p);
+            t.plateId = plate.id;
+            t.plateType = plate.continental ? 1 : 0;
+        }
+
+        return plates;
+    }
+
+    private double plateDouble(int plate, int draw) {
+        return stream != null ? stream.nextDouble(-1L - plate, draw) : random.nextDouble();
+    }
+
+    private int[] shuffledSeeds(List<Tile> tiles, int plateCount) {
         List<Tile> shuffled = new ArrayList<>(tiles);
         Collections.shuffle(shuffled, random);
+        int[] seeds = new int[plateCount];
+        for (int i = 0; i < plateCount; i++) seeds[i] = shuffled.get(i).id;
+        return seeds;
+    }
 
-        for (int i = 0; i < plateCount; i++) {
-            assignment.put(shuffled.get(i), plates.get(i));
+    /**
+     * Сиды — plateCount тайлов с наименьшим ключом nextLong(id, 0), по возрастанию ключа:
+     * выбор тайла зависит только от его id, не от порядка списка. Куча на plateCount вместо
+     * перемешивания всех тайлов.
+     */
+    private int[] counterSeeds(int n, int plateCount) {
+        long[] key = new long[n];
+        for (int id = 0; id < n; id++) key[id] = stream.nextLong(id, 0);
+        Comparator<Integer> byKey = (a, b) -> {
+            int c = Long.compareUnsigned(key[a], key[b]);
+            return c != 0 ? c : Integer.compare(a, b);
+        };
+        PriorityQueue<Integer> top = new PriorityQueue<>(plateCount + 1, byKey.reversed());
+        for (int id = 0; id < n; id++) {
+            if (top.size() < plateCount) {
+                top.add(id);
+            } else if (byKey.compare(id, top.peek()) < 0) {
+                top.poll();
+                top.add(id);
+            }
         }
+        int[] seeds = new int[plateCount];
+        for (int i = plateCount - 1; i >= 0; i--) seeds[i] = top.poll();
+        return seeds;
+    }
 
-        // 2️⃣ flood-fill
-        boolean changed = true;
-        while (changed) {
-            changed = false;
-
-            for (Tile t : tiles) {
-                if (assignment.containsKey(t)) continue;
+    /**
+     * Тот же результат, что у прежнего flood-fill "проходами по списку, пока что-то меняется",
+     * за линейное время.
+     *
+     * В проходе s тайл видит соседа с плитой, если тот получил плиту в проходе раньше s
+     * или в этом же проходе, но раньше по id (сиды — до первого прохода). Значит, номер прохода
+     * тайла — кратчайший путь с весами 0/1: ребро сосед -> тайл весит 0, если id соседа меньше
+     * (и сосед не сид), иначе 1. Номера считаются 0-1 BFS, затем тайлы обходятся в порядке
+     * прохода (проход, id) и берут плиту первого по списку соседа, видимого в своём проходе.
+     */
+    private static void growSweep(List<Tile> tiles, int[] plateOf) {
+        int n = tiles.size();
+        boolean[] seed = new boolean[n];
+        int[] pass = new int[n];
+        Arrays.fill(pass, Integer.MAX_VALUE);
+        int edges = 0;
+        for (Tile t : tiles) {
+            if (t.neighbors != null) edges += t.neighbors.size();
+        }
 
-                for (Tile n : t.neighbors) {
-                    TectonicPlate p = assignment.get(n);
-                    if (p != null) {
-                        assignment.put(t, p);
-                        changed = true;
-                        break;
-                    }
+        // дек на кольцевом буфере: каждое ребро релаксируется не больше одного раза
+        int cap = edges + n + 1;
+        int[] deque = new int[cap];
+        int head = 0;
+        int size = 0;
+        for (int id = 0; id < n; id++) {
+            if (plateOf[id] < 0) continue;
+            seed[id] = true;
+            pass[id] = 0;
+            deque[(head + size++) % cap] = id;
+        }
+        boolean[] done = new boolean[n];
+        while (size > 0) {
+            int u = deque[head];
+            head = (head + 1) % cap;
+            size--;
+            if (done[u]) continue;
+            done[u] = true;
+            Tile tu = tiles.get(u);
+            if (tu.neighbors == null) continue;
+            for (Tile nb : tu.neighbors) {
+                int v = nb.id;
+                if (seed[v]) continue;
+                int w = (!seed[u] && u < v) ? 0 : 1;
+                if (pass[u] + w >= pass[v]) continue;
+                pass[v] = pass[u] + w;
+                if (w == 0) {
+                    head = (head - 1 + cap) % cap;
+                    deque[head] = v;
+                } else {
+                    deque[(head + size) % cap] = v;
                 }
+                size++;
             }
         }
 
-        // 3️⃣ ДОБОР осиротевших тайлов (КЛЮЧ!)
-        boolean orphanFound = true;
-        while (orphanFound) {
-            orphanFound = false;
-
-            for (Tile t : tiles) {
-                if (assignment.containsKey(t)) continue;
+        // порядок прежних проходов: по номеру прохода, внутри — по id (сортировка подсчётом)
+        int maxPass = 0;
+        for (int id = 0; id < n; id++) {
+            if (!seed[id] && pass[id] != Integer.MAX_VALUE) maxPass = Math.max(maxPass, pass[id]);
+        }
+        int[] start = new int[maxPass + 2];
+        for (int id = 0; id < n; id++) {
+            if (!seed[id] && pass[id] != Integer.MAX_VALUE) start[pass[id] + 1]++;
+        }
+        for (int s = 0; s <= maxPass; s++) start[s + 1] += start[s];
+        int[] order = new int[start[maxPass + 1]];
+        int[] fill = Arrays.copyOf(start, maxPass + 1);
+        for (int id = 0; id < n; id++) {
+            if (!seed[id] && pass[id] != Integer.MAX_VALUE) order[fill[pass[id]]++] = id;
+        }
 
-                for (Tile n : t.neighbors) {
-                    TectonicPlate p = assignment.get(n);
-                    if (p != null) {
-                        assignment.put(t, p);
-                        orphanFound = true;
-                        break;
-                    }
+        for (int id : order) {
+            int s = pass[id];
+            for (Tile nb : tiles.get(id).neighbors) {
+                int v = nb.id;
+                int visibleFrom = seed[v] ? 1 : (v < id ? pass[v] : pass[v] + 1);
+                if (visibleFrom <= s && plateOf[v] >= 0) {
+                    plateOf[id] = plateOf[v];
+                    break;
                 }
             }
         }
+    }
 
-        // 4️⃣ запись в тайлы (теперь 100% safe)
-        for (Tile t : tiles) {
-            TectonicPlate p = assignment.get(t);
-
-            if (p == null) {
-                // аварийный fallback (не должен сработать)
-                p = plates.get(random.nextInt(plates.size()));
+    /** Волна от всех сидов: тайл получает плиту соседа, от которого до него дошла волна. */
+    private static void growBfs(List<Tile> tiles, int[] plateOf, int[] seeds) {
+        int[] queue = new int[tiles.size()];
+        int head = 0;
+        int tail = 0;
+        for (int s : seeds) queue[tail++] = s;
+        while (head < tail) {
+            int u = queue[head++];
+            Tile tu = tiles.get(u);
+            if (tu.neighbors == null) continue;
+            for (Tile nb : tu.neighbors) {
+                if (plateOf[nb.id] >= 0) continue;
+                plateOf[nb.id] = plateOf[u];
+                queue[tail++] = nb.id;
             }
+        }
+    }
 
-            t.plateId = p.id;
-            t.plateType = p.continental ? 1 : 0;
+    private double[] growthRates(int plateCount, double spread) {
+        double sp = Math.max(0.0, Math.min(0.9, spread));
+        double[] rate = new double[plateCount];
+        for (int i = 0; i < plateCount; i++) {
+            rate[i] = 1.0 + sp * (plateDouble(i, 3) * 2 - 1);
         }
+        return rate;
+    }
 
-        return plates;
+    private record Front(double cost, int tile, int plate) implements Comparable<Front> {
+        @Override
+        public int compareTo(Front o) {
+            int c = Double.compare(cost, o.cost);
+            return c != 0 ? c : Integer.compare(tile, o.tile);
+        }
+    }
+
+    /** Вороной по шагам сетки: шаг плиты стоит 1/rate, тайл достаётся плите с меньшей ценой. */
+    private static void growWeighted(List<Tile> tiles, int[] plateOf, int[] seeds, double[] rate) {
+        int n = tiles.size();
+        double[] cost = new double[n];
+        Arrays.fill(cost, Double.POSITIVE_INFINITY);
+        boolean[] done = new boolean[n];
+        PriorityQueue<Front> pq = new PriorityQueue<>();
+        for (int p = 0; p < seeds.length; p++) {
+            cost[seeds[p]] = 0.0;
+            pq.add(new Front(0.0, seeds[p], p));
+        }
+        while (!pq.isEmpty()) {
+            Front f = pq.poll();
+            if (done[f.tile]) continue;
+            done[f.tile] = true;
+            plateOf[f.tile] = f.plate;
+            Tile t = tiles.get(f.tile);
+            if (t.neighbors == null) continue;
+            double step = 1.0 / rate[f.plate];
+            for (Tile nb : t.neighbors) {
+                if (done[nb.id]) continue;
+                double c = f.cost + step;
+                if (c < cost[nb.id]) {
+                    cost[nb.id] = c;
+                    pq.add(new Front(c, nb.id, f.plate));
+                }
+            }
+        }
     }
 }
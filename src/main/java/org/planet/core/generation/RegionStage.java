@@ -0,0 +1,9 @@
+package org.planet.core.generation;
+
+/**
+ * Стадия, которую можно повторить только на тайлах области правки (см. GenerationPipeline.rerun).
+ * Вход стадии для области пайплайн восстанавливает сам из ctx.surfaceBefore.
+ */
+public interface RegionStage extends GenerationStage {
+    void applyRegion(WorldContext ctx, DirtyRegion region);
+}
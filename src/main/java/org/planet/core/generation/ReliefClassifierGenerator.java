@@ -6,21 +6,38 @@ import org.planet.core.model.RiverBaseType;
 import org.planet.core.model.config.GeneratorSettings;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 public class ReliefClassifierGenerator {
 
     public void apply(List<Tile> tiles, GeneratorSettings settings) {
-        int[] elev = tiles.stream()
-                .filter(t -> !isExcluded(t.surfaceType))
-                .mapToInt(t -> t.elevation)
-                .sorted()
+        apply(tiles, settings, new PlanetStats());
+    }
+
+    public void apply(List<Tile> tiles, GeneratorSettings settings, PlanetStats stats) {
+        apply(tiles, settings, stats, null, null);
+    }
+
+    /**
+     * Классификация только тайлов из only (id; null — все). Перцентили высот берутся по типам на входе
+     * стадии typesBefore (ordinal по id; null — текущие типы): после прогона гребни и бассейны сами
+     * выпадают из выборки, и по текущим типам пороги бы сдвинулись.
+     */
+    public void apply(List<Tile> tiles, GeneratorSettings settings, PlanetStats stats, int[] typesBefore, int[] only) {
+        SurfaceType[] types = SurfaceType.values();
+        Supplier<double[]> elev = () -> tiles.stream()
+                .filter(t -> !isExcluded(typesBefore == null ? t.surfaceType : types[typesBefore[t.id]]))
+                .mapToDouble(t -> t.elevation)
                 .toArray();
-        if (elev.length == 0) return;
+        if (stats.size(PlanetStats.RELIEF_ELEVATION, elev) == 0) return;
 
-        int p10 = percentile(elev, 0.10);
-        int p85 = percentile(elev, 0.85);
+        double[] p = stats.percentiles(PlanetStats.RELIEF_ELEVATION, elev, 0.10, 0.85);
+        int p10 = (int) p[0];
+        int p85 = (int) p[1];
 
-        for (Tile t : tiles) {
+        int n = (only == null) ? tiles.size() : only.length;
+        for (int i = 0; i < n; i++) {
+            Tile t = tiles.get(only == null ? i : only[i]);
             if (isExcluded(t.surfaceType)) continue;
 
             // Каньоны: только по рекам и глубине
@@ -153,12 +170,4 @@ public class ReliefClassifierGenerator {
         double avg = sum / t.neighbors.size();
         return (avg - t.elevation) >= 1.0;
     }
-
-    private int percentile(int[] arr, double p) {
-        if (arr.length == 0) return 0;
-        int idx = (int) Math.round((arr.length - 1) * p);
-        if (idx < 0) idx = 0;
-        if (idx >= arr.length) idx = arr.length - 1;
-        return arr[idx];
-    }
 }
@@ -1,10 +1,12 @@
 package org.planet.core.generation;
 
+import org.planet.core.model.SurfaceTrait;
 import org.planet.core.model.SurfaceType;
 import org.planet.core.model.Tile;
 import org.planet.core.model.RiverBaseType;
 import org.planet.core.model.config.GeneratorSettings;
 import org.planet.core.model.config.PlanetConfig;
+import org.planet.core.topology.TileGeometry;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -21,15 +23,32 @@ public class ResourceGenerator {
     private static final double EARTH_MOON_MASS_EARTH = 0.0123000371;
     private static final double EARTH_MOON_AXIS_AU = 0.00256955529;
 
+    private TileGeometry geometry;
+    private PlateBoundaryIndex boundaries;
+    private ResourceStore store;
+
     public void generate(List<Tile> tiles, PlanetConfig planet, GeneratorSettings settings) {
+        generate(tiles, planet, settings, null);
+    }
+
+    public void generate(List<Tile> tiles, PlanetConfig planet, GeneratorSettings settings, TileGeometry geometry) {
+        generate(tiles, planet, settings, geometry, null);
+    }
+
+    /** @param boundaries границы плит (null — построить по тайлам) */
+    public void generate(List<Tile> tiles, PlanetConfig planet, GeneratorSettings settings,
+                         TileGeometry geometry, PlateBoundaryIndex boundaries) {
+        this.geometry = TileGeometry.ensure(geometry, tiles);
+        this.boundaries = PlateBoundaryIndex.ensure(boundaries, tiles, null);
+        this.store = new ResourceStore(tiles.size());
         WorldType worldType = WorldClassifier.classify(planet);
         double tileAreaM2 = estimateTileAreaM2(tiles, planet);
         computeTidalPotential(tiles, planet, tileAreaM2);
         for (Tile t : tiles) {
-            t.resources.clear();
+            store.clearTile(t.id);
             Random rnd = new Random(settings.seed + t.id * 31L);
 
-            boolean ocean = isOpenWater(t.surfaceType);
+            boolean ocean = t.surfaceType.is(SurfaceTrait.OPEN_WATER);
             boolean nearWater = hasNeighborLiquidWater(t);
             double boundaryScore = plateBoundaryScore(t);
             double temp = weightedTemp(t);
@@ -55,7 +74,7 @@ public class ResourceGenerator {
             } else if (nearWater && !ocean && soilMoist > 40 && t.elevation > 5) {
                 addIfScore(t, rnd, ResourceType.HYDRO_PWR, ResourceLayer.SURFACE, clamp01(soilMoist / 100.0), planet, worldType, tiles);
             }
-            boolean tidalEligible = isLiquidWater(t.surfaceType) || (!isLiquidWater(t.surfaceType) && hasNeighborLiquidWater(t));
+            boolean tidalEligible = t.surfaceType.is(SurfaceTrait.LIQUID) || (!t.surfaceType.is(SurfaceTrait.LIQUID) && hasNeighborLiquidWater(t));
             if (tidalEligible && !Double.isNaN(t.tidalRangeM) && t.tidalRangeM > 0.02) {
                 addTidalByPhysicalMetrics(t, planet);
             }
@@ -206,7 +225,7 @@ public class ResourceGenerator {
                 }
 
                 // Строительные биоматериалы (лесные тайлы)
-                if (isForestSurface(t.surfaceType)) {
+                if (t.surfaceType.is(SurfaceTrait.FOREST)) {
                     double availability = clamp01(ap.naturalScore);
                     int amount = clampInt((int) Math.round(availability * 100.0), 1, 100);
                     addBiomaterial(t, rnd, amount);
@@ -371,7 +390,16 @@ public class ResourceGenerator {
                 }
             }
         }
-        ResourceStatsReport.printToStdout(tiles);
+        store.finish();
+        if (settings.materializeResources) {
+            store.materialize(tiles);
+        }
+        ResourceStatsReport.printToStdout(store);
+    }
+
+    /** Ресурсы последнего прогона generate (после finish). */
+    public ResourceStore store() {
+        return store;
     }
 
     private void addPick(Tile t, Random rnd, ResourceLayer layer, double score, PlanetConfig planet, WorldType worldType, List<Tile> tiles, ResourceType... types) {
@@ -396,28 +424,16 @@ public class ResourceGenerator {
     }
 
     private void addFixed(Tile t, ResourceType type, ResourceLayer layer, int quality, int saturation, int amount) {
-        t.resources.add(new ResourcePresence(type, layer, quality, saturation, amount));
+        store.add(t.id, type, layer, quality, saturation, amount);
     }
 
     private void addBiomaterial(Tile t, Random rnd, int availability) {
         int quality = clampInt(55 + (int) Math.round(availability * 0.35), 1, 100);
         int saturation = clampInt(availability, 1, 100);
         int amount = clampInt(availability, 1, 100);
-        ResourcePresence rp = new ResourcePresence(ResourceType.BIO_MAT, ResourceLayer.SURFACE, quality, saturation, amount);
-
         double tonnes = BIO_MATERIAL_BASE_TONNES * (availability / 100.0);
-        rp.logTonnes = tonnes > 0 ? Math.log10(tonnes) : 0.0;
-        rp.tonnes = tonnes;
-        mergeOrAddResource(t, rp);
-    }
-
-    private boolean isForestSurface(SurfaceType st) {
-        return switch (st) {
-            case PLAINS_FOREST, FOREST, RAINFOREST,
-                    HILLS_FOREST, HILLS_RAINFOREST, MOUNTAINS_FOREST, MOUNTAINS_RAINFOREST,
-                    RIDGE_FOREST, CANYON_FOREST, BASIN_FOREST -> true;
-            default -> false;
-        };
+        double logTonnes = tonnes > 0 ? Math.log10(tonnes) : 0.0;
+        mergeOrAddResource(t, ResourceType.BIO_MAT, ResourceLayer.SURFACE, quality, saturation, amount, logTonnes, tonnes);
     }
 
     private void addWithScore(Tile t, Random rnd, ResourceType type, ResourceLayer layer, double score, PlanetConfig planet, WorldType worldType, List<Tile> tiles) {
@@ -463,7 +479,7 @@ public class ResourceGenerator {
     private boolean hasNeighborWater(Tile t) {
         if (t.neighbors == null) return false;
         for (Tile n : t.neighbors) {
-            if (isWater(n.surfaceType)) return true;
+            if (n.surfaceType.is(SurfaceTrait.WATER)) return true;
         }
         return false;
     }
@@ -471,7 +487,7 @@ public class ResourceGenerator {
     private boolean hasNeighborLiquidWater(Tile t) {
         if (t.neighbors == null) return false;
         for (Tile n : t.neighbors) {
-            if (isLiquidWater(n.surfaceType)) return true;
+            if (n.surfaceType.is(SurfaceTrait.LIQUID)) return true;
         }
         return false;
     }
@@ -479,7 +495,7 @@ public class ResourceGenerator {
     private boolean hasNeighborLand(Tile t) {
         if (t.neighbors == null) return false;
         for (Tile n : t.neighbors) {
-            if (!isWater(n.surfaceType)) return true;
+            if (!n.surfaceType.is(SurfaceTrait.WATER)) return true;
         }
         return false;
     }
@@ -497,36 +513,6 @@ public class ResourceGenerator {
         return clamp01(0.4 * flowScore + 0.4 * dropScore + 0.2 * orderScore);
     }
 
-    private boolean isWater(SurfaceType st) {
-        return switch (st) {
-            case OCEAN, ICE_OCEAN, LAVA_OCEAN,
-                    OPEN_WATER_SHALLOW, OPEN_WATER_DEEP,
-                    LAKE_FRESH, LAKE_SALT, LAKE_BRINE, LAKE_ACID,
-                    SEA_ICE_SHALLOW, SEA_ICE_DEEP,
-                    STEAM_SEA -> true;
-            default -> false;
-        };
-    }
-
-    private boolean isLiquidWater(SurfaceType st) {
-        return switch (st) {
-            case OCEAN, ICE_OCEAN, LAVA_OCEAN,
-                    OPEN_WATER_SHALLOW, OPEN_WATER_DEEP,
-                    LAKE_FRESH, LAKE_SALT, LAKE_BRINE, LAKE_ACID,
-                    SEA_ICE_SHALLOW, SEA_ICE_DEEP -> true;
-            default -> false;
-        };
-    }
-
-    private boolean isOpenWater(SurfaceType st) {
-        return switch (st) {
-            case OCEAN, ICE_OCEAN, LAVA_OCEAN,
-                    OPEN_WATER_SHALLOW, OPEN_WATER_DEEP,
-                    SEA_ICE_SHALLOW, SEA_ICE_DEEP -> true;
-            default -> false;
-        };
-    }
-
     private AgriProfile agriProfile(Tile t) {
         double moist = weightedSoilMoisture(t);
         double temp = weightedTemp(t);
@@ -623,22 +609,11 @@ public class ResourceGenerator {
     }
 
     private double plateBoundaryScore(Tile t) {
-        if (t.neighbors == null) return 0.0;
-        int diff = 0;
-        for (Tile n : t.neighbors) {
-            if (n.plateId != t.plateId) diff++;
-        }
-        if (diff == 0) return 0.0;
-        double score = diff / (double) t.neighbors.size();
-        return clamp01(score);
+        return boundaries.boundaryScore(t.id);
     }
 
     private boolean isPlateBoundary(Tile t) {
-        if (t.neighbors == null) return false;
-        for (Tile n : t.neighbors) {
-            if (n.plateId != t.plateId) return true;
-        }
-        return false;
+        return boundaries.isBoundary(t.id);
     }
 
     private double layerMultiplier(ResourceLayer layer) {
@@ -733,11 +708,11 @@ public class ResourceGenerator {
         double gravity = (planet == null) ? 1.0 : Math.max(0.05, planet.gravity);
         double gravityWaveFactor = clamp(Math.sqrt(1.0 / gravity), 0.55, 3.2);
         for (Tile t : tiles) {
-            boolean waterTile = isLiquidWater(t.surfaceType);
+            boolean waterTile = t.surfaceType.is(SurfaceTrait.LIQUID);
             boolean coastalLand = !waterTile && hasNeighborLiquidWater(t);
             if (!waterTile && !coastalLand) continue;
-            double latRad = Math.toRadians(clamp(t.lat, -90.0, 90.0));
-            double latFactor = 0.35 + 0.65 * Math.cos(latRad) * Math.cos(latRad);
+            double cosLat = geometry.cosLat[t.id];
+            double latFactor = 0.35 + 0.65 * cosLat * cosLat;
             TidalGeometry tg = tidalGeometry(t, tileSpanKm, waterTile, coastalLand, meanOrbitInclDeg);
             double localRangeM = openOceanRangeM * latFactor * tg.amplification * gravityWaveFactor;
 
@@ -767,7 +742,7 @@ public class ResourceGenerator {
         }
         int waterNb = 0;
         for (Tile n : t.neighbors) {
-            if (isLiquidWater(n.surfaceType)) waterNb++;
+            if (n.surfaceType.is(SurfaceTrait.LIQUID)) waterNb++;
         }
         double openFrac = waterNb / (double) nCount;
         double landFrac = 1.0 - openFrac;
@@ -787,16 +762,19 @@ public class ResourceGenerator {
 
     private double directionalFetchKm(Tile source, double tileSpanKm, int maxDepth, double meanOrbitInclDeg) {
         if (source == null || source.neighbors == null || source.neighbors.isEmpty()) return 0;
+        double cosFrom = Math.abs(source.lat) <= 89.0
+                ? geometry.cosLat[source.id]
+                : Math.cos(Math.toRadians(clamp(source.lat, -89.0, 89.0)));
         Set<Integer> seen = new HashSet<>();
         List<Tile> frontier = new ArrayList<>();
         List<Integer> depthFront = new ArrayList<>();
         for (Tile n : source.neighbors) {
-            if (isLiquidWater(n.surfaceType) && seen.add(n.id)) {
+            if (n.surfaceType.is(SurfaceTrait.LIQUID) && seen.add(n.id)) {
                 frontier.add(n);
                 depthFront.add(1);
             }
         }
-        if (isLiquidWater(source.surfaceType) && seen.add(source.id)) {
+        if (source.surfaceType.is(SurfaceTrait.LIQUID) && seen.add(source.id)) {
             frontier.add(source);
             depthFront.add(0);
         }
@@ -804,7 +782,7 @@ public class ResourceGenerator {
         for (int i = 0; i < frontier.size(); i++) {
             Tile cur = frontier.get(i);
             int d = depthFront.get(i);
-            effKm += tileSpanKm * orientationByInclination(source, cur, meanOrbitInclDeg) / (1.0 + d * 0.18);
+            effKm += tileSpanKm * orientationByInclination(source, cosFrom, cur, meanOrbitInclDeg) / (1.0 + d * 0.18);
         }
 
         for (int depth = 0; depth < maxDepth && !frontier.isEmpty(); depth++) {
@@ -815,11 +793,11 @@ public class ResourceGenerator {
                 int curDepth = depthFront.get(i);
                 if (cur.neighbors == null) continue;
                 for (Tile nn : cur.neighbors) {
-                    if (!isLiquidWater(nn.surfaceType)) continue;
+                    if (!nn.surfaceType.is(SurfaceTrait.LIQUID)) continue;
                     if (!seen.add(nn.id)) continue;
                     next.add(nn);
                     nextDepth.add(curDepth + 1);
-                    effKm += tileSpanKm * orientationByInclination(source, nn, meanOrbitInclDeg) / (1.0 + (curDepth + 1) * 0.18);
+                    effKm += tileSpanKm * orientationByInclination(source, cosFrom, nn, meanOrbitInclDeg) / (1.0 + (curDepth + 1) * 0.18);
                 }
             }
             frontier = next;
@@ -829,10 +807,10 @@ public class ResourceGenerator {
         return Math.max(tileSpanKm, effKm);
     }
 
-    private double orientationByInclination(Tile from, Tile to, double orbitInclDeg) {
+    private double orientationByInclination(Tile from, double cosFrom, Tile to, double orbitInclDeg) {
         if (from == null || to == null) return 0.5;
         double dLat = Math.abs(to.lat - from.lat);
-        double dLon = Math.abs(deltaLonDeg(to.lon - from.lon)) * Math.cos(Math.toRadians(clamp(from.lat, -89.0, 89.0)));
+        double dLon = Math.abs(deltaLonDeg(to.lon - from.lon)) * cosFrom;
         if (dLon < 1e-6 && dLat < 1e-6) return 0.5;
         double ew = dLon / (dLon + dLat + 1e-6);
         double ns = dLat / (dLon + dLat + 1e-6);
@@ -850,7 +828,7 @@ public class ResourceGenerator {
 
     private void addTidalByPhysicalMetrics(Tile t, PlanetConfig planet) {
         if (t == null) return;
-        t.resources.removeIf(r -> r != null && r.type == ResourceType.TIDAL_PWR);
+        store.removeType(t.id, ResourceType.TIDAL_PWR);
 
         double rangeM = Math.max(0.0, Double.isNaN(t.tidalRangeM) ? 0.0 : t.tidalRangeM);
         double cycles = Math.max(0.0, Double.isNaN(t.tidalCyclesPerDay) ? 0.0 : t.tidalCyclesPerDay);
@@ -862,12 +840,10 @@ public class ResourceGenerator {
         int saturation = clampInt((int) Math.round(cycles * 20.0), 1, 100);  // cycles/day scaled
         int amount = clampInt((int) Math.round(fetchKm / 20.0), 1, 100);     // directional fetch scale
 
-        ResourcePresence rp = new ResourcePresence(ResourceType.TIDAL_PWR, ResourceLayer.SURFACE, quality, saturation, amount);
+        int row = store.add(t.id, ResourceType.TIDAL_PWR, ResourceLayer.SURFACE, quality, saturation, amount);
         // For tidal resource, persist physical metrics in floating fields:
         // logTonnes -> tidal range (m), tonnes -> tidal cycles/day.
-        rp.logTonnes = rangeM;
-        rp.tonnes = cycles;
-        t.resources.add(rp);
+        store.setTonnage(row, rangeM, cycles);
     }
 
     private static final class TidalGeometry {
@@ -1182,14 +1158,13 @@ public class ResourceGenerator {
         int saturation = clampInt((int) Math.round(sat), 1, 100);
         int amount = clampInt((int) Math.round(saturation * layerMultiplier(layer)), 1, 100);
         int adjustedAmount = applyAmountJitter(amount, rnd);
-        ResourcePresence rp = new ResourcePresence(type, layer, quality, saturation, adjustedAmount);
-        rp.logTonnes = computeLogTonnes(type, layer, adjustedAmount, quality, saturation, rnd);
+        double logTonnes = computeLogTonnes(type, layer, adjustedAmount, quality, saturation, rnd);
         double tonnageMult = tonnageMultiplier(type);
-        if (tonnageMult > 1.0 && rp.logTonnes > 0.0) {
-            rp.logTonnes += Math.log10(tonnageMult);
+        if (tonnageMult > 1.0 && logTonnes > 0.0) {
+            logTonnes += Math.log10(tonnageMult);
         }
-        rp.tonnes = computeTonnes(type, rp.logTonnes);
-        mergeOrAddResource(t, rp);
+        double tonnes = computeTonnes(type, logTonnes);
+        mergeOrAddResource(t, type, layer, quality, saturation, adjustedAmount, logTonnes, tonnes);
     }
 
     private double chanceMultiplier(ResourceType type) {
@@ -1636,31 +1611,30 @@ public class ResourceGenerator {
         return Math.pow(10.0, logTonnes);
     }
 
-    private void mergeOrAddResource(Tile t, ResourcePresence incoming) {
-        if (t.resources == null) {
-            t.resources = new java.util.ArrayList<>();
+    private void mergeOrAddResource(Tile t, ResourceType type, ResourceLayer layer,
+                                    int quality, int saturation, int amount, double logTonnes, double tonnes) {
+        int row = store.find(t.id, type, layer);
+        if (row < 0) {
+            row = store.add(t.id, type, layer, quality, saturation, amount);
+            store.setTonnage(row, logTonnes, tonnes);
+            return;
         }
-        for (ResourcePresence existing : t.resources) {
-            if (existing.type == incoming.type && existing.layer == incoming.layer) {
-                // merge: keep best quality/saturation/amount, sum tonnes in underlying units
-                existing.quality = Math.max(existing.quality, incoming.quality);
-                existing.saturation = Math.max(existing.saturation, incoming.saturation);
-                existing.amount = Math.max(existing.amount, incoming.amount);
-
-                double unitExisting = unitAmountFromLog(existing.type, existing.logTonnes);
-                double unitIncoming = unitAmountFromLog(incoming.type, incoming.logTonnes);
-                double unitSum = unitExisting + unitIncoming;
-                if (unitSum > 0) {
-                    existing.logTonnes = Math.log10(unitSum);
-                    existing.tonnes = computeTonnes(existing.type, existing.logTonnes);
-                } else {
-                    existing.logTonnes = Math.max(existing.logTonnes, incoming.logTonnes);
-                    existing.tonnes = Math.max(existing.tonnes, incoming.tonnes);
-                }
-                return;
-            }
+        // merge: keep best quality/saturation/amount, sum tonnes in underlying units
+        store.setGrades(row,
+                Math.max(store.quality(row), quality),
+                Math.max(store.saturation(row), saturation),
+                Math.max(store.amount(row), amount));
+
+        double existingLog = store.logTonnes(row);
+        double unitExisting = unitAmountFromLog(type, existingLog);
+        double unitIncoming = unitAmountFromLog(type, logTonnes);
+        double unitSum = unitExisting + unitIncoming;
+        if (unitSum > 0) {
+            double mergedLog = Math.log10(unitSum);
+            store.setTonnage(row, mergedLog, computeTonnes(type, mergedLog));
+        } else {
+            store.setTonnage(row, Math.max(existingLog, logTonnes), Math.max(store.tonnes(row), tonnes));
         }
-        t.resources.add(incoming);
     }
 
     private double unitAmountFromLog(ResourceType type, double logTonnes) {
@@ -3,11 +3,9 @@ package org.planet.core.generation;
 import org.planet.core.model.Tile;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 
 public final class ResourceStatsReport {
     private ResourceStatsReport() {
@@ -15,13 +13,32 @@ public final class ResourceStatsReport {
 
     private static final class Acc {
         int entries = 0;
-        final HashSet<Integer> tileIds = new HashSet<>();
-        final ArrayList<Double> tonnes = new ArrayList<>();
+        int tiles = 0;
+        int lastTile = -1;
+        double[] tonnes = new double[16];
         double sumTonnes = 0.0;
+
+        /** Строки одного тайла идут подряд, поэтому число тайлов считается без множества id. */
+        void add(int tileId, double t) {
+            if (entries == tonnes.length) tonnes = Arrays.copyOf(tonnes, entries * 2);
+            tonnes[entries++] = t;
+            if (tileId != lastTile) {
+                tiles++;
+                lastTile = tileId;
+            }
+            sumTonnes += t;
+        }
     }
 
     public static void printToStdout(List<Tile> tiles) {
-        List<String> lines = buildDumpHeaderLines(tiles);
+        print(buildDumpHeaderLines(tiles));
+    }
+
+    public static void printToStdout(ResourceStore store) {
+        print(buildDumpHeaderLines(store));
+    }
+
+    private static void print(List<String> lines) {
         System.out.println("[RESOURCE ABS] begin");
         for (String line : lines) {
             if (!line.startsWith("# resourceStat")) continue;
@@ -31,31 +48,51 @@ public final class ResourceStatsReport {
     }
 
     public static List<String> buildDumpHeaderLines(List<Tile> tiles) {
-        Map<ResourceType, Acc> byType = new HashMap<>();
+        Acc[] byType = new Acc[ResourceType.values().length];
         for (Tile t : tiles) {
             if (t.resources == null) continue;
             for (ResourcePresence rp : t.resources) {
                 if (rp == null || rp.type == null) continue;
-                double tonnes = rp.tonnes;
-                if (!(tonnes > 0.0) || Double.isNaN(tonnes) || Double.isInfinite(tonnes)) continue;
-                Acc a = byType.computeIfAbsent(rp.type, k -> new Acc());
-                a.entries++;
-                a.tileIds.add(t.id);
-                a.tonnes.add(tonnes);
-                a.sumTonnes += tonnes;
+                accumulate(byType, t.id, rp.type, rp.tonnes);
             }
         }
+        return format(byType);
+    }
 
+    /** То же по колонкам хранилища (после finish), без объектов ResourcePresence. */
+    public static List<String> buildDumpHeaderLines(ResourceStore store) {
+        Acc[] byType = new Acc[ResourceType.values().length];
+        for (int row = 0; row < store.rowCount(); row++) {
+            accumulate(byType, store.tileOf(row), store.type(row), store.tonnes(row));
+        }
+        return format(byType);
+    }
+
+    private static void accumulate(Acc[] byType, int tileId, ResourceType type, double tonnes) {
+        if (!(tonnes > 0.0) || Double.isNaN(tonnes) || Double.isInfinite(tonnes)) return;
+        Acc a = byType[type.ordinal()];
+        if (a == null) {
+            a = new Acc();
+            byType[type.ordinal()] = a;
+        }
+        a.add(tileId, tonnes);
+    }
+
+    private static List<String> format(Acc[] byType) {
         List<String> out = new ArrayList<>();
         out.add("# resourceStats.tonnes=absolute values by resource; ref range from generator log10 bounds");
         for (ResourceType type : ResourceType.values()) {
-            Acc a = byType.get(type);
+            Acc a = byType[type.ordinal()];
             if (a == null || a.entries == 0) continue;
-            a.tonnes.sort(Double::compareTo);
-            double min = a.tonnes.get(0);
-            double max = a.tonnes.get(a.tonnes.size() - 1);
-            double median = percentile(a.tonnes, 0.50);
-            double p95 = percentile(a.tonnes, 0.95);
+            double[] tonnes = Arrays.copyOf(a.tonnes, a.entries);
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (double v : tonnes) {
+                min = Math.min(min, v);
+                max = Math.max(max, v);
+            }
+            double median = PlanetStats.interpolated(tonnes, 0.50);
+            double p95 = PlanetStats.interpolated(tonnes, 0.95);
 
             double[] ref = ResourceGenerator.referenceLogRange(type);
             String refMin = "na";
@@ -67,19 +104,20 @@ public final class ResourceStatsReport {
                 double refMaxT = Math.pow(10.0, ref[1]);
                 int belowCnt = 0;
                 int aboveCnt = 0;
-                for (double v : a.tonnes) {
+                for (int i = 0; i < a.entries; i++) {
+                    double v = a.tonnes[i];
                     if (v < refMinT) belowCnt++;
                     if (v > refMaxT) aboveCnt++;
                 }
                 refMin = sci(refMinT);
                 refMax = sci(refMaxT);
-                below = pct(belowCnt, a.tonnes.size());
-                above = pct(aboveCnt, a.tonnes.size());
+                below = pct(belowCnt, a.entries);
+                above = pct(aboveCnt, a.entries);
             }
 
             out.add("# resourceStat\tcode=" + type.code
                     + "\tentries=" + a.entries
-                    + "\ttiles=" + a.tileIds.size()
+                    + "\ttiles=" + a.tiles
                     + "\tsum_t=" + sci(a.sumTonnes)
                     + "\tmin_t=" + sci(min)
                     + "\tp50_t=" + sci(median)
@@ -93,17 +131,6 @@ public final class ResourceStatsReport {
         return out;
     }
 
-    private static double percentile(List<Double> sorted, double p) {
-        if (sorted.isEmpty()) return 0.0;
-        if (sorted.size() == 1) return sorted.get(0);
-        double idx = p * (sorted.size() - 1);
-        int lo = (int) Math.floor(idx);
-        int hi = (int) Math.ceil(idx);
-        if (lo == hi) return sorted.get(lo);
-        double t = idx - lo;
-        return sorted.get(lo) * (1.0 - t) + sorted.get(hi) * t;
-    }
-
     private static String pct(int part, int total) {
         if (total <= 0) return "na";
         double v = 100.0 * part / (double) total;
@@ -0,0 +1,361 @@
+package org.planet.core.generation;
+
+import org.planet.core.model.Tile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ресурсы планеты в колонках: одна строка = одно залегание (тайл, тип, слой, качество, ...).
+ *
+ * Жизненный цикл:
+ * 1) генерация — строки дописываются в конец, слияние по ключу (тайл, тип, слой) через
+ *    хэш-индекс с открытой адресацией вместо линейного поиска по списку тайла;
+ * 2) finish() — живые строки переупорядочиваются по тайлам (внутри тайла — в порядке добавления,
+ *    как в прежнем List&lt;ResourcePresence&gt;), дальше хранилище только читается:
+ *    строки тайла — [rowStart(id), rowEnd(id)).
+ *
+ * Номера строк после finish() меняются. Удалённые строки (clearTile/removeType) не переживают finish().
+ */
+public final class ResourceStore {
+
+    private static final ResourceType[] TYPES = ResourceType.values();
+    private static final ResourceLayer[] LAYERS = ResourceLayer.values();
+
+    private final int tileCount;
+
+    private int size;
+    private int[] tile;
+    private short[] type;
+    private byte[] layer;
+    private int[] quality;
+    private int[] saturation;
+    private int[] amount;
+    private double[] logTonnes;
+    private double[] tonnes;
+    private boolean[] dead;
+
+    // Строки тайла в порядке добавления (до finish): head/tail по тайлу, next по строке.
+    private int[] head;
+    private int[] tail;
+    private int[] next;
+
+    // Индекс ключ -> первая строка с этим ключом (линейное пробирование; мёртвая строка = ключа нет).
+    private long[] slotKey;
+    private int[] slotRow;
+    private int slotsUsed;
+
+    private boolean finished;
+    private int[] tileOffset;
+
+    public ResourceStore(int tileCount) {
+        this.tileCount = tileCount;
+        int cap = Math.max(16, tileCount * 2);
+        tile = new int[cap];
+        type = new short[cap];
+        layer = new byte[cap];
+        quality = new int[cap];
+        saturation = new int[cap];
+        amount = new int[cap];
+        logTonnes = new double[cap];
+        tonnes = new double[cap];
+        dead = new boolean[cap];
+        next = new int[cap];
+        head = new int[tileCount];
+        tail = new int[tileCount];
+        Arrays.fill(head, -1);
+        Arrays.fill(tail, -1);
+        int slots = Integer.highestOneBit(Math.max(16, cap * 2) - 1) << 1;
+        slotKey = new long[slots];
+        slotRow = new int[slots];
+        Arrays.fill(slotRow, -1);
+    }
+
+    /** Колонки из списков тайлов (для планет, загруженных без хранилища). */
+    public static ResourceStore fromTiles(List<Tile> tiles) {
+        ResourceStore s = new ResourceStore(tiles.size());
+        for (Tile t : tiles) {
+            if (t.resources == null) continue;
+            for (ResourcePresence rp : t.resources) {
+                if (rp == null || rp.type == null || rp.layer == null) continue;
+                int row = s.add(t.id, rp.type, rp.layer, rp.quality, rp.saturation, rp.amount);
+                s.setTonnage(row, rp.logTonnes, rp.tonnes);
+            }
+        }
+        s.finish();
+        return s;
+    }
+
+    public int tileCount() {
+        return tileCount;
+    }
+
+    /** Число строк (до finish — включая удалённые). */
+    public int rowCount() {
+        return size;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    // ---------------------------
+    // ЗАПИСЬ (до finish)
+    // ---------------------------
+
+    /** Первая живая строка с ключом (тайл, тип, слой) или -1. */
+    public int find(int tileId, ResourceType t, ResourceLayer l) {
+        ensureWritable();
+        long key = key(tileId, t, l);
+        int mask = slotRow.length - 1;
+        for (int s = slot(key, mask); slotRow[s] >= 0; s = (s + 1) & mask) {
+            if (slotKey[s] == key) {
+                int row = slotRow[s];
+                return dead[row] ? -1 : row;
+            }
+        }
+        return -1;
+    }
+
+    /** Новая строка в конец списка тайла (без слияния); logTonnes/tonnes = 0. */
+    public int add(int tileId, ResourceType t, ResourceLayer l, int q, int sat, int amt) {
+        ensureWritable();
+        if (size == tile.length) grow();
+        int row = size++;
+        tile[row] = tileId;
+        type[row] = (short) t.ordinal();
+        layer[row] = (byte) l.ordinal();
+        quality[row] = q;
+        saturation[row] = sat;
+        amount[row] = amt;
+        next[row] = -1;
+        if (tail[tileId] < 0) {
+            head[tileId] = row;
+        } else {
+            next[tail[tileId]] = row;
+        }
+        tail[tileId] = row;
+        index(key(tileId, t, l), row);
+        return row;
+    }
+
+    public void setTonnage(int row, double logT, double t) {
+        logTonnes[row] = logT;
+        tonnes[row] = t;
+    }
+
+    public void setGrades(int row, int q, int sat, int amt) {
+        quality[row] = q;
+        saturation[row] = sat;
+        amount[row] = amt;
+    }
+
+    /** Удалить все строки тайла. */
+    public void clearTile(int tileId) {
+        ensureWritable();
+        for (int r = head[tileId]; r >= 0; r = next[r]) {
+            dead[r] = true;
+        }
+    }
+
+    /** Удалить строки тайла данного типа (во всех слоях). */
+    public void removeType(int tileId, ResourceType t) {
+        ensureWritable();
+        int ord = t.ordinal();
+        for (int r = head[tileId]; r >= 0; r = next[r]) {
+            if (type[r] == ord) dead[r] = true;
+        }
+    }
+
+    /**
+     * Сжать живые строки в порядок по тайлам. После вызова хранилище только для чтения;
+     * повторный вызов ничего не делает.
+     */
+    public void finish() {
+        if (finished) return;
+        int alive = 0;
+        for (int r = 0; r < size; r++) {
+            if (!dead[r]) alive++;
+        }
+        int[] nTile = new int[alive];
+        short[] nType = new short[alive];
+        byte[] nLayer = new byte[alive];
+        int[] nQuality = new int[alive];
+        int[] nSaturation = new int[alive];
+        int[] nAmount = new int[alive];
+        double[] nLog = new double[alive];
+        double[] nTonnes = new double[alive];
+        tileOffset = new int[tileCount + 1];
+
+        int k = 0;
+        for (int id = 0; id < tileCount; id++) {
+            tileOffset[id] = k;
+            for (int r = head[id]; r >= 0; r = next[r]) {
+                if (dead[r]) continue;
+                nTile[k] = id;
+                nType[k] = type[r];
+                nLayer[k] = layer[r];
+                nQuality[k] = quality[r];
+                nSaturation[k] = saturation[r];
+                nAmount[k] = amount[r];
+                nLog[k] = logTonnes[r];
+                nTonnes[k] = tonnes[r];
+                k++;
+            }
+        }
+        tileOffset[tileCount] = k;
+
+        tile = nTile;
+        type = nType;
+        layer = nLayer;
+        quality = nQuality;
+        saturation = nSaturation;
+        amount = nAmount;
+        logTonnes = nLog;
+        tonnes = nTonnes;
+        size = alive;
+        dead = null;
+        head = null;
+        tail = null;
+        next = null;
+        slotKey = null;
+        slotRow = null;
+        finished = true;
+    }
+
+    // ---------------------------
+    // ЧТЕНИЕ
+    // ---------------------------
+
+    /** Первая строка тайла (после finish). */
+    public int rowStart(int tileId) {
+        ensureFinished();
+        return tileOffset[tileId];
+    }
+
+    /** Конец строк тайла, не включая (после finish). */
+    public int rowEnd(int tileId) {
+        ensureFinished();
+        return tileOffset[tileId + 1];
+    }
+
+    public int tileOf(int row) {
+        return tile[row];
+    }
+
+    public ResourceType type(int row) {
+        return TYPES[type[row]];
+    }
+
+    public ResourceLayer layer(int row) {
+        return LAYERS[layer[row]];
+    }
+
+    public int quality(int row) {
+        return quality[row];
+    }
+
+    public int saturation(int row) {
+        return saturation[row];
+    }
+
+    public int amount(int row) {
+        return amount[row];
+    }
+
+    public double logTonnes(int row) {
+        return logTonnes[row];
+    }
+
+    public double tonnes(int row) {
+        return tonnes[row];
+    }
+
+    /** Заполнить tile.resources объектами (для UI и кода, который работает со списками). */
+    public void materialize(List<Tile> tiles) {
+        ensureFinished();
+        for (Tile t : tiles) {
+            int from = tileOffset[t.id];
+            int to = tileOffset[t.id + 1];
+            if (t.resources == null) {
+                t.resources = new ArrayList<>(to - from);
+            } else {
+                t.resources.clear();
+            }
+            for (int r = from; r < to; r++) {
+                ResourcePresence rp = new ResourcePresence(type(r), layer(r), quality[r], saturation[r], amount[r]);
+                rp.logTonnes = logTonnes[r];
+                rp.tonnes = tonnes[r];
+                t.resources.add(rp);
+            }
+        }
+    }
+
+    // ---------------------------
+    // ВНУТРЕННЕЕ
+    // ---------------------------
+
+    private static long key(int tileId, ResourceType t, ResourceLayer l) {
+        return ((long) tileId * TYPES.length + t.ordinal()) * LAYERS.length + l.ordinal();
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & mask;
+    }
+
+    /** Запомнить строку для ключа, если у ключа нет живой строки. */
+    private void index(long key, int row) {
+        int mask = slotRow.length - 1;
+        int s = slot(key, mask);
+        while (slotRow[s] >= 0) {
+            if (slotKey[s] == key) {
+                if (dead[slotRow[s]]) slotRow[s] = row;
+                return;
+            }
+            s = (s + 1) & mask;
+        }
+        slotKey[s] = key;
+        slotRow[s] = row;
+        if (++slotsUsed * 2 > slotRow.length) rehash();
+    }
+
+    private void rehash() {
+        long[] oldKey = slotKey;
+        int[] oldRow = slotRow;
+        slotKey = new long[oldKey.length * 2];
+        slotRow = new int[oldRow.length * 2];
+        Arrays.fill(slotRow, -1);
+        int mask = slotRow.length - 1;
+        for (int i = 0; i < oldRow.length; i++) {
+            if (oldRow[i] < 0) continue;
+            int s = slot(oldKey[i], mask);
+            while (slotRow[s] >= 0) s = (s + 1) & mask;
+            slotKey[s] = oldKey[i];
+            slotRow[s] = oldRow[i];
+        }
+    }
+
+    private void grow() {
+        int cap = tile.length * 2;
+        tile = Arrays.copyOf(tile, cap);
+        type = Arrays.copyOf(type, cap);
+        layer = Arrays.copyOf(layer, cap);
+        quality = Arrays.copyOf(quality, cap);
+        saturation = Arrays.copyOf(saturation, cap);
+        amount = Arrays.copyOf(amount, cap);
+        logTonnes = Arrays.copyOf(logTonnes, cap);
+        tonnes = Arrays.copyOf(tonnes, cap);
+        dead = Arrays.copyOf(dead, cap);
+        next = Arrays.copyOf(next, cap);
+    }
+
+    private void ensureWritable() {
+        if (finished) throw new IllegalStateException("ResourceStore уже завершён (finish)");
+    }
+
+    private void ensureFinished() {
+        if (!finished) throw new IllegalStateException("ResourceStore не завершён: вызовите finish()");
+    }
+}
@@ -1,5 +1,6 @@
 package org.planet.core.generation;
 
+import org.planet.core.model.SurfaceTrait;
 import org.planet.core.model.SurfaceType;
 import org.planet.core.model.Tile;
 import org.planet.core.model.RiverBaseType;
@@ -49,8 +50,8 @@ public class RiverGenerator {
             Tile t = tiles.get(i);
             double w = wetnessIndex(t);
             wetness[i] = w;
-            thermalBlock[i] = !isWater(t.surfaceType) && !isFrozenLand(t.surfaceType) && !canSustainLiquidRiver(t, planet);
-            if (isSeaOrOcean(t.surfaceType) || isFrozenLand(t.surfaceType)) {
+            thermalBlock[i] = !t.surfaceType.is(SurfaceTrait.WATER | SurfaceTrait.FROZEN) && !canSustainLiquidRiver(t, planet);
+            if (t.surfaceType.is(SurfaceTrait.SEA | SurfaceTrait.FROZEN)) {
                 baseFlowKgS[i] = 0.0;
                 runoffFlowKgS[i] = 0.0;
                 t.riverPotentialKgS = 0.0;
@@ -75,7 +76,7 @@ public class RiverGenerator {
         double flowCutoff = computePotentialFlowTopCutoff(tiles, SOURCE_TOP_POTENTIAL_FLOW_FRACTION, SOURCE_MIN_ELEVATION);
         for (int i = 0; i < n; i++) {
             Tile t = tiles.get(i);
-            if (isWater(t.surfaceType) || isFrozenLand(t.surfaceType) || thermalBlock[i]) continue;
+            if (t.surfaceType.is(SurfaceTrait.WATER | SurfaceTrait.FROZEN) || thermalBlock[i]) continue;
             if (t.elevation >= SOURCE_MIN_ELEVATION && baseFlowKgS[i] >= flowCutoff) {
                 candidate[i] = true;
             }
@@ -221,7 +222,7 @@ public class RiverGenerator {
 
         double maxLandQ = 0.0;
         for (int i = 0; i < n; i++) {
-            if (channel[i] && !isWater(tiles.get(i).surfaceType) && !isFrozenLand(tiles.get(i).surfaceType)) {
+            if (channel[i] && !tiles.get(i).surfaceType.is(SurfaceTrait.WATER | SurfaceTrait.FROZEN)) {
                 maxLandQ = Math.max(maxLandQ, discharge[i]);
             }
         }
@@ -264,7 +265,7 @@ public class RiverGenerator {
         // Wet closed basins without clear outlet become swamps.
         for (int i = 0; i < n; i++) {
             Tile t = tiles.get(i);
-            if (isWater(t.surfaceType) || isFrozenLand(t.surfaceType) || t.isRiver) continue;
+            if (t.surfaceType.is(SurfaceTrait.WATER | SurfaceTrait.FROZEN) || t.isRiver) continue;
             boolean hasOutlet = downstream[i] >= 0 && waterDist[i] < FAR_DIST;
             boolean nearRiver = hasRiverNeighbor(t);
             if (wetness[i] > 0.78 && (!hasOutlet || !nearRiver) && !thermalBlock[i]) {
@@ -312,11 +313,11 @@ public class RiverGenerator {
             guard++;
             int cur = path.get(path.size() - 1);
             Tile t = tiles.get(cur);
-            if (isWater(t.surfaceType)) {
+            if (t.surfaceType.is(SurfaceTrait.WATER)) {
                 reached = true;
                 break;
             }
-            if (isFrozenLand(t.surfaceType)) {
+            if (t.surfaceType.is(SurfaceTrait.FROZEN)) {
                 return false;
             }
             if (channel[cur] && cur != sourceId) {
@@ -333,7 +334,7 @@ public class RiverGenerator {
             }
             triedNext[cur].add(next);
 
-            if (!isWater(tiles.get(next).surfaceType) && channel[next] && next != sourceId) {
+            if (!tiles.get(next).surfaceType.is(SurfaceTrait.WATER) && channel[next] && next != sourceId) {
                 path.add(next);
                 reached = true;
                 break;
@@ -359,7 +360,7 @@ public class RiverGenerator {
             if (tt.elevation > tf.elevation) {
                 canyonInc[from] += 1;
             }
-            if (isWater(tt.surfaceType)) {
+            if (tt.surfaceType.is(SurfaceTrait.WATER)) {
                 break;
             }
             if (channel[to] && to != sourceId) {
@@ -387,9 +388,9 @@ public class RiverGenerator {
             int j = nb.id;
             if (j < 0 || j >= waterDist.length) continue;
             if (tried.contains(j)) continue;
-            if (!isWater(nb.surfaceType) && noJoin[j] && j != sourceId) continue;
-            if (!isWater(nb.surfaceType) && thermalBlock[j]) continue;
-            if (!isWater(nb.surfaceType) && isFrozenLand(nb.surfaceType)) continue;
+            if (!nb.surfaceType.is(SurfaceTrait.WATER) && noJoin[j] && j != sourceId) continue;
+            if (!nb.surfaceType.is(SurfaceTrait.WATER) && thermalBlock[j]) continue;
+            if (!nb.surfaceType.is(SurfaceTrait.WATER) && nb.surfaceType.is(SurfaceTrait.FROZEN)) continue;
             if (onPath[j]) continue;
             if (current.elevation > nb.elevation) {
                 lower.add(nb);
@@ -469,7 +470,7 @@ public class RiverGenerator {
     }
 
     private double localMoistureExchangeKgS(Tile t, double qInKgS, double baseFlowKgS) {
-        if (isWater(t.surfaceType) || isFrozenLand(t.surfaceType)) return 0.0;
+        if (t.surfaceType.is(SurfaceTrait.WATER | SurfaceTrait.FROZEN)) return 0.0;
 
         double soil = clamp(Double.isNaN(t.moisture) ? 35.0 : t.moisture, 0.0, 100.0);
         double surplus = clamp((soil - 55.0) / 45.0, 0.0, 1.0);
@@ -494,7 +495,7 @@ public class RiverGenerator {
     }
 
     private void applyExchangeToSoilMoisture(Tile t, double exchangeKgS, double tileAreaM2) {
-        if (isWater(t.surfaceType) || isFrozenLand(t.surfaceType) || tileAreaM2 <= 1e-9) return;
+        if (t.surfaceType.is(SurfaceTrait.WATER | SurfaceTrait.FROZEN) || tileAreaM2 <= 1e-9) return;
         // exchange < 0: river loses water to tile => soil moisture should increase.
         // exchange > 0: tile feeds river => soil moisture should decrease.
         double exchangeKgM2Day = exchangeKgS * DAY_SECONDS / tileAreaM2;
@@ -511,20 +512,19 @@ public class RiverGenerator {
     private double computePotentialFlowTopCutoff(List<Tile> tiles, double topFraction, int minElevation) {
         int cnt = 0;
         for (Tile t : tiles) {
-            if (!isWater(t.surfaceType) && !isFrozenLand(t.surfaceType) && t.elevation >= minElevation) cnt++;
+            if (!t.surfaceType.is(SurfaceTrait.WATER | SurfaceTrait.FROZEN) && t.elevation >= minElevation) cnt++;
         }
         if (cnt == 0) return Double.POSITIVE_INFINITY;
 
         double[] values = new double[cnt];
         int k = 0;
         for (Tile t : tiles) {
-            if (isWater(t.surfaceType) || isFrozenLand(t.surfaceType) || t.elevation < minElevation) continue;
+            if (t.surfaceType.is(SurfaceTrait.WATER | SurfaceTrait.FROZEN) || t.elevation < minElevation) continue;
             values[k++] = Math.max(0.0, t.riverPotentialKgS);
         }
-        Arrays.sort(values);
         int startTop = (int) Math.floor((1.0 - clamp(topFraction, 0.0, 1.0)) * (cnt - 1));
         startTop = Math.max(0, Math.min(cnt - 1, startTop));
-        return values[startTop];
+        return PlanetStats.select(values, startTop);
     }
 
     private int[] buildWaterDistance(List<Tile> tiles) {
@@ -534,7 +534,7 @@ public class RiverGenerator {
 
         ArrayDeque<Integer> q = new ArrayDeque<>();
         for (int i = 0; i < n; i++) {
-            if (isWater(tiles.get(i).surfaceType)) {
+            if (tiles.get(i).surfaceType.is(SurfaceTrait.WATER)) {
                 dist[i] = 0;
                 q.add(i);
             }
@@ -599,7 +599,7 @@ public class RiverGenerator {
         boolean big = t.riverOrder >= 3;
         if (downstreamId >= 0 && downstreamId < tiles.size()) {
             SurfaceType dnType = tiles.get(downstreamId).surfaceType;
-            if (isSeaOrOcean(dnType) && qKgS >= 2_500_000.0) {
+            if (dnType.is(SurfaceTrait.SEA) && qKgS >= 2_500_000.0) {
                 return RiverBaseType.DELTA;
             }
         }
@@ -682,7 +682,7 @@ public class RiverGenerator {
         double atm = clamp(nan0(t.atmMoist) / 28.0, 0.0, 1.0);
         double slopePenalty = clamp(maxSlope(t) / 25.0, 0.0, 0.45);
         double wet = 0.16 + moist * 0.56 + precipNorm * 0.20 + atm * 0.10 - slopePenalty * 0.12;
-        if (isLakeLike(t.surfaceType)) wet += 0.10;
+        if (t.surfaceType.is(SurfaceTrait.LAKE)) wet += 0.10;
         return clamp(wet, 0.05, 1.15);
     }
 
@@ -694,13 +694,6 @@ public class RiverGenerator {
         return FALLBACK_TILE_AREA_M2;
     }
 
-    private boolean isLakeLike(SurfaceType st) {
-        return switch (st) {
-            case LAKE_FRESH, LAKE_SALT, LAKE_BRINE, LAKE_ACID -> true;
-            default -> false;
-        };
-    }
-
     private boolean hasRiverNeighbor(Tile t) {
         if (t.neighbors == null || t.neighbors.isEmpty()) return false;
         for (Tile nb : t.neighbors) {
@@ -709,34 +702,6 @@ public class RiverGenerator {
         return false;
     }
 
-    private boolean isWater(SurfaceType st) {
-        return switch (st) {
-            case OCEAN, ICE_OCEAN, LAVA_OCEAN,
-                    SHALLOW_SEA,
-                    OPEN_WATER_SHALLOW, OPEN_WATER_DEEP,
-                    LAKE_FRESH, LAKE_SALT, LAKE_BRINE, LAKE_ACID,
-                    SEA_ICE_SHALLOW, SEA_ICE_DEEP, STEAM_SEA -> true;
-            default -> false;
-        };
-    }
-
-    private boolean isSeaOrOcean(SurfaceType st) {
-        return switch (st) {
-            case OCEAN, ICE_OCEAN, LAVA_OCEAN,
-                    SHALLOW_SEA,
-                    OPEN_WATER_SHALLOW, OPEN_WATER_DEEP,
-                    SEA_ICE_SHALLOW, SEA_ICE_DEEP, STEAM_SEA -> true;
-            default -> false;
-        };
-    }
-
-    private boolean isFrozenLand(SurfaceType st) {
-        return switch (st) {
-            case ICE, ICE_SHEET, GLACIER -> true;
-            default -> false;
-        };
-    }
-
     private double maxSlope(Tile t) {
         if (t.neighbors == null || t.neighbors.isEmpty()) return 0.0;
         int e = t.elevation;
@@ -762,7 +727,7 @@ public class RiverGenerator {
 
     private boolean hasAnyLiquidWater(List<Tile> tiles) {
         for (Tile t : tiles) {
-            if (isWater(t.surfaceType)) return true;
+            if (t.surfaceType.is(SurfaceTrait.WATER)) return true;
         }
         return false;
     }
@@ -3,4 +3,9 @@ package org.planet.core.generation;
 public interface StageListener {
     void onStageStart(StageId id, String name);
     void onStageEnd(StageId id, String name, long elapsedMs);
+
+    /** Итог итерационного цикла внутри стадии: сколько итераций сделано и последняя невязка. */
+    default void onIterationReport(StageId id, String loop, int iterations, int maxIterations,
+                                   double residualL2, double residualLinf) {
+    }
 }
@@ -5,15 +5,35 @@ import java.util.Set;
 
 public class StageProfile {
     private final Set<StageId> enabled;
+    /** На сколько уровней сетки грубее решается влагооборот WIND / CLIMATE_RECALC / SEASONAL_CLIMATE. */
+    private final int climateCoarsening;
 
     private StageProfile(Set<StageId> enabled) {
+        this(enabled, 0);
+    }
+
+    private StageProfile(Set<StageId> enabled, int climateCoarsening) {
         this.enabled = enabled;
+        this.climateCoarsening = climateCoarsening;
     }
 
     public boolean isEnabled(StageId id) {
         return enabled.contains(id);
     }
 
+    public int climateCoarsening() {
+        return climateCoarsening;
+    }
+
+    /**
+     * Тот же профиль с влагооборотом на грубой сетке: levels = 1 — D5 считается на D4, 2 — на D3
+     * (см. CoarseClimate, ветер всегда на полной). 0 — полное разрешение. Быстрее в разы; осадки
+     * сезона при levels = 1 коррелируют с полным прогоном около 0.8, при 2 — около 0.6.
+     */
+    public StageProfile withCoarseClimate(int levels) {
+        return new StageProfile(enabled, Math.max(0, levels));
+    }
+
     public static StageProfile upToWind() {
         return new StageProfile(EnumSet.of(
                 StageId.NEIGHBORS,
@@ -9,40 +9,39 @@ public class TectonicStressGenerator {
             List<Tile> tiles,
             List<TectonicPlate> plates
     ) {
+        generateStress(tiles, plates, null);
+    }
 
+    /** @param boundaries границы плит (null — построить по тайлам) */
+    public void generateStress(
+            List<Tile> tiles,
+            List<TectonicPlate> plates,
+            PlateBoundaryIndex boundaries
+    ) {
+        if (plates == null) throw new IllegalArgumentException("plates required for stress");
+        PlateBoundaryIndex idx = PlateBoundaryIndex.ensure(boundaries, tiles, plates);
 
         for (Tile t : tiles) {
             t.tectonicStress = 0;
 
-            List<Tile> neigh = t.neighbors;
-            if (neigh == null) continue;
-
-            for (Tile n : neigh) {
-                if (n.plateId != t.plateId) {
+            for (int e = idx.edgeStart[t.id]; e < idx.edgeStart[t.id + 1]; e++) {
+                double dot = idx.edgeConvergence[e];
 
-                    TectonicPlate p1 = plates.get(t.plateId);
-                    TectonicPlate p2 = plates.get(n.plateId);
+                int stress;
 
-                    double dot =
-                            p1.dx * p2.dx +
-                                    p1.dy * p2.dy;
-
-                    int stress;
-
-                    if (dot < -0.3) {
-                        // столкновение плит
-                        stress = 80;
-                    } else if (dot > 0.3) {
-                        // растяжение
-                        stress = 40;
-                    } else {
-                        // сдвиг
-                        stress = 60;
-                    }
-
-                    t.tectonicStress =
-                            Math.max(t.tectonicStress, stress);
+                if (dot < -0.3) {
+                    // столкновение плит
+                    stress = 80;
+                } else if (dot > 0.3) {
+                    // растяжение
+                    stress = 40;
+                } else {
+                    // сдвиг
+                    stress = 60;
                 }
+
+                t.tectonicStress =
+                        Math.max(t.tectonicStress, stress);
             }
         }
     }
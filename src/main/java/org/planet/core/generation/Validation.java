@@ -168,4 +168,13 @@ public final class Validation {
         }
     }
 
+    /** Стадия пишет типы через ctx.surfaceTraits.set(): колонка обязана совпадать с тайлами. */
+    public static void surfaceTraitsInSync(StageId id, WorldContext ctx) {
+        int bad = ctx.surfaceTraits.firstMismatch(ctx.tiles);
+        if (bad >= 0) {
+            throw new IllegalStateException("surfaceTraits out of sync after " + id + " for tile id=" + bad
+                    + " surfaceType=" + ctx.tiles.get(bad).surfaceType + " (write bypassed SurfaceTraitColumn.set)");
+        }
+    }
+
 }
@@ -4,31 +4,45 @@ import org.planet.core.model.Tile;
 import org.planet.core.model.SurfaceType;
 
 import java.util.*;
+import java.util.stream.IntStream;
 
 public class VolcanoGenerator {
 
     private final Random random;
+    private final CounterRng.Stream stream;
     int count = 0;
 
     public VolcanoGenerator(long seed) {
+        this(seed, null);
+    }
+
+    /** @param stream поток CounterRng (null — последовательный Random(seed), как раньше) */
+    public VolcanoGenerator(long seed, CounterRng.Stream stream) {
         this.random = new Random(seed);
+        this.stream = stream;
     }
 
     public void generateVolcanism(List<Tile> tiles, int volcanism) {
+        generateVolcanism(tiles, volcanism, null);
+    }
 
-
+    /** @param boundaries границы плит (null — построить по тайлам) */
+    public void generateVolcanism(List<Tile> tiles, int volcanism, PlateBoundaryIndex boundaries) {
+        PlateBoundaryIndex idx = PlateBoundaryIndex.ensure(boundaries, tiles, null);
+
+        if (stream != null) {
+            // розыгрыши 0..3 тайла — те же четыре броска, что ниже; тайлы независимы
+            count += IntStream.range(0, tiles.size()).parallel()
+                    .filter(idx::isBoundary)
+                    .map(id -> eruptCounter(tiles.get(id), volcanism / 2))
+                    .sum();
+            System.out.println("Volcano tiles: " + count);
+            return;
+        }
 
         for (Tile t : tiles) {
 
-            boolean plateBoundary = false;
-            for (Tile n : t.neighbors) {
-                if (n.plateId != t.plateId) {
-                    plateBoundary = true;
-                    break;
-                }
-            }
-
-            if (!plateBoundary) continue;
+            if (!idx.isBoundary(t.id)) continue;
 
             int chance = volcanism / 2;
 
@@ -49,4 +63,21 @@ public class VolcanoGenerator {
         System.out.println("Volcano tiles: " + count);
     }
 
+    /** @return 1, если тайл стал вулканом во втором броске (счётчик Volcano tiles) */
+    private int eruptCounter(Tile t, int chance) {
+        int id = t.id;
+        int erupted = 0;
+        if (stream.nextInt(id, 0, 100) < chance) {
+            t.volcanism = stream.nextInt(id, 1, 100);
+            if (t.volcanism > 70) {
+                t.surfaceType = SurfaceType.VOLCANIC;
+            }
+        }
+        if (stream.nextInt(id, 2, 100) < chance) {
+            t.volcanism = stream.nextInt(id, 3, 100);
+            t.surfaceType = SurfaceType.VOLCANIC;
+            erupted = 1;
+        }
+        return erupted;
+    }
 }
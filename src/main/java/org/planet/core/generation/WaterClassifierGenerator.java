@@ -1,5 +1,7 @@
 package org.planet.core.generation;
 
+import org.planet.core.model.SurfaceTrait;
+import org.planet.core.model.SurfaceTraitColumn;
 import org.planet.core.model.SurfaceType;
 import org.planet.core.model.Tile;
 import org.planet.core.model.config.PlanetConfig;
@@ -15,12 +17,25 @@ import java.util.Set;
 public class WaterClassifierGenerator {
 
     private final long seed;
+    private PlateBoundaryIndex boundaries;
+    private SurfaceTraitColumn surfaceTraits;
 
     public WaterClassifierGenerator(long seed) {
         this.seed = seed;
     }
 
+    /** Колонка признаков поверхности (обычно WorldContext.surfaceTraits): типы пишутся через неё. */
+    public void setSurfaceTraits(SurfaceTraitColumn surfaceTraits) {
+        this.surfaceTraits = surfaceTraits;
+    }
+
     public void apply(List<Tile> tiles, PlanetConfig planet, int[] baseSurfaceType) {
+        apply(tiles, planet, baseSurfaceType, null);
+    }
+
+    /** @param boundaries границы плит (null — построить по тайлам) */
+    public void apply(List<Tile> tiles, PlanetConfig planet, int[] baseSurfaceType, PlateBoundaryIndex boundaries) {
+        this.boundaries = PlateBoundaryIndex.ensure(boundaries, tiles, null);
         // collect water tiles (legacy ocean)
         boolean[] isWater = new boolean[tiles.size()];
         List<Integer> waterIds = new ArrayList<>();
@@ -36,11 +51,11 @@ public class WaterClassifierGenerator {
         if (!planet.hasAtmosphere) {
             for (Tile t : tiles) {
                 if (t == null) continue;
-                if (!isWaterSurface(t.surfaceType) && !isBaseWater(t, baseSurfaceType)) continue;
+                if (!t.surfaceType.is(SurfaceTrait.WATER) && !isBaseWater(t, baseSurfaceType)) continue;
                 if (t.temperature <= 0) {
-                    t.surfaceType = SurfaceType.ICE;
+                    setType(t, SurfaceType.ICE);
                 } else {
-                    t.surfaceType = fallbackLand(t, baseSurfaceType);
+                    setType(t, fallbackLand(t, baseSurfaceType));
                 }
             }
             return;
@@ -94,52 +109,52 @@ public class WaterClassifierGenerator {
 
             if (t.temperature <= 0.0) {
                 if (isOcean || t.surfaceType == SurfaceType.ICE_OCEAN) {
-                    t.surfaceType = shallow ? SurfaceType.SEA_ICE_SHALLOW : SurfaceType.SEA_ICE_DEEP;
+                    setType(t, shallow ? SurfaceType.SEA_ICE_SHALLOW : SurfaceType.SEA_ICE_DEEP);
                 } else {
                     // Пока без подлёдных тёплых озёр: внутренние воды ниже нуля считаем заледеневшими.
-                    t.surfaceType = (t.temperature < -12.0) ? SurfaceType.ICE_SHEET : SurfaceType.GLACIER;
+                    setType(t, (t.temperature < -12.0) ? SurfaceType.ICE_SHEET : SurfaceType.GLACIER);
                 }
                 continue;
             }
 
             if (t.surfaceType == SurfaceType.ICE_OCEAN) {
-                t.surfaceType = shallow ? SurfaceType.SEA_ICE_SHALLOW : SurfaceType.SEA_ICE_DEEP;
+                setType(t, shallow ? SurfaceType.SEA_ICE_SHALLOW : SurfaceType.SEA_ICE_DEEP);
                 continue;
             }
             double boil = boilingPointC(planet.atmosphereDensity);
             if (planet.tidalLocked && !isInTerminatorBand(t)) {
-                t.surfaceType = fallbackLand(t, baseSurfaceType);
+                setType(t, fallbackLand(t, baseSurfaceType));
                 continue;
             }
             if (t.temperature > boil + 1.5) {
-                t.surfaceType = fallbackLand(t, baseSurfaceType);
+                setType(t, fallbackLand(t, baseSurfaceType));
                 continue;
             }
             if (t.temperature >= boil - 5.0) {
-                t.surfaceType = SurfaceType.STEAM_SEA;
+                setType(t, SurfaceType.STEAM_SEA);
                 continue;
             }
             if (isOcean) {
-                t.surfaceType = shallow ? SurfaceType.OPEN_WATER_SHALLOW : SurfaceType.OPEN_WATER_DEEP;
+                setType(t, shallow ? SurfaceType.OPEN_WATER_SHALLOW : SurfaceType.OPEN_WATER_DEEP);
             } else {
                 boolean salt = isSaltLake(t, planet);
                 if (salt) {
                     if (isAcidLake(t, planet)) {
-                        t.surfaceType = SurfaceType.LAKE_ACID;
+                        setType(t, SurfaceType.LAKE_ACID);
                     } else if (isBrineLake(t, planet)) {
-                        t.surfaceType = SurfaceType.LAKE_BRINE;
+                        setType(t, SurfaceType.LAKE_BRINE);
                     } else {
-                        t.surfaceType = SurfaceType.LAKE_SALT;
+                        setType(t, SurfaceType.LAKE_SALT);
                     }
                 } else {
-                    t.surfaceType = SurfaceType.LAKE_FRESH;
+                    setType(t, SurfaceType.LAKE_FRESH);
                 }
             }
         }
 
         // classify coasts on land adjacent to water
         for (Tile t : tiles) {
-            if (isWaterSurface(t.surfaceType)) continue;
+            if (t.surfaceType.is(SurfaceTrait.WATER)) continue;
             if (!hasWaterNeighbor(t)) continue;
             if (isNonCoastOverride(t.surfaceType)) continue;
             Random rnd = new Random(seed + t.id * 131L);
@@ -153,7 +168,7 @@ public class WaterClassifierGenerator {
             if (slope <= 2) coastChance *= 1.3;
             if (rnd.nextDouble() > coastChance) continue;
             boolean sandy = t.rockHardness < 0.45 && slope <= 4;
-            t.surfaceType = sandy ? SurfaceType.COAST_SANDY : SurfaceType.COAST_ROCKY;
+            setType(t, sandy ? SurfaceType.COAST_SANDY : SurfaceType.COAST_ROCKY);
         }
 
         // Preserve underwater relief separately and normalize current surface elevation for water tiles.
@@ -166,7 +181,7 @@ public class WaterClassifierGenerator {
         // After converting a tile to water with surface elevation forced to 0, remove that cooling bias.
         final double lapsePerElevation = 0.65;
         for (Tile t : tiles) {
-            if (isWaterSurface(t.surfaceType)) {
+            if (t.surfaceType.is(SurfaceTrait.WATER)) {
                 if (t.elevation != 0) {
                     int oldElevation = t.elevation;
                     t.underwaterElevation = oldElevation;
@@ -191,7 +206,7 @@ public class WaterClassifierGenerator {
             }
         }
         Random rnd = new Random(seed + t.id * 131L);
-        boolean boundary = isPlateBoundary(t);
+        boolean boundary = boundaries.isBoundary(t.id);
         if (boundary && rnd.nextDouble() < 0.35) return true;
         if (landFrac < 0.02) {
             // океан-планета: мелководье редкое
@@ -237,32 +252,11 @@ public class WaterClassifierGenerator {
         return dist >= 65.0 && dist <= 115.0;
     }
 
-    private boolean isWaterSurface(SurfaceType st) {
-        return switch (st) {
-            case OCEAN, ICE_OCEAN, LAVA_OCEAN,
-                    OPEN_WATER_SHALLOW, OPEN_WATER_DEEP,
-                    LAKE_FRESH, LAKE_SALT, LAKE_BRINE, LAKE_ACID,
-                    SEA_ICE_SHALLOW, SEA_ICE_DEEP,
-                    STEAM_SEA -> true;
-            default -> false;
-        };
-    }
-
-    private boolean isLiquidWaterSurface(SurfaceType st) {
-        return switch (st) {
-            case OCEAN, ICE_OCEAN, LAVA_OCEAN,
-                    OPEN_WATER_SHALLOW, OPEN_WATER_DEEP,
-                    LAKE_FRESH, LAKE_SALT, LAKE_BRINE, LAKE_ACID,
-                    SEA_ICE_SHALLOW, SEA_ICE_DEEP -> true;
-            default -> false;
-        };
-    }
-
     private boolean hasWaterNeighbor(Tile t) {
         if (t.neighbors == null) return false;
         for (Tile n : t.neighbors) {
             if (n == null) continue;
-            if (isLiquidWaterSurface(n.surfaceType)) return true;
+            if (n.surfaceType.is(SurfaceTrait.LIQUID)) return true;
         }
         return false;
     }
@@ -272,7 +266,7 @@ public class WaterClassifierGenerator {
         int count = 0;
         for (Tile n : t.neighbors) {
             if (n == null) continue;
-            if (isLiquidWaterSurface(n.surfaceType)) count++;
+            if (n.surfaceType.is(SurfaceTrait.LIQUID)) count++;
         }
         return count;
     }
@@ -281,20 +275,11 @@ public class WaterClassifierGenerator {
         if (t.neighbors == null) return false;
         for (Tile n : t.neighbors) {
             if (n == null) continue;
-            if (isOceanSurface(n.surfaceType)) return true;
+            if (n.surfaceType.is(SurfaceTrait.OPEN_WATER)) return true;
         }
         return false;
     }
 
-    private boolean isOceanSurface(SurfaceType st) {
-        return switch (st) {
-            case OCEAN, ICE_OCEAN, LAVA_OCEAN,
-                    OPEN_WATER_SHALLOW, OPEN_WATER_DEEP,
-                    SEA_ICE_SHALLOW, SEA_ICE_DEEP -> true;
-            default -> false;
-        };
-    }
-
     private boolean isNonCoastOverride(SurfaceType st) {
         return switch (st) {
             case VOLCANIC, VOLCANIC_FIELD, VOLCANO, ACTIVE_VOLCANO, LAVA_PLAINS, LAVA_ISLANDS, LAVA,
@@ -310,7 +295,7 @@ public class WaterClassifierGenerator {
         }
         int ord = baseSurfaceType[t.id];
         SurfaceType base = SurfaceType.values()[Math.max(0, Math.min(SurfaceType.values().length - 1, ord))];
-        if (!isWaterSurface(base)) return base;
+        if (!base.is(SurfaceTrait.WATER)) return base;
 
         if (t.neighbors == null || t.neighbors.isEmpty()) {
             return SurfaceType.PLAINS;
@@ -321,7 +306,7 @@ public class WaterClassifierGenerator {
             if (n.id < 0 || n.id >= baseSurfaceType.length) continue;
             int nOrd = baseSurfaceType[n.id];
             SurfaceType nb = SurfaceType.values()[Math.max(0, Math.min(SurfaceType.values().length - 1, nOrd))];
-            if (isWaterSurface(nb)) continue;
+            if (nb.is(SurfaceTrait.WATER)) continue;
             counts[nb.ordinal()]++;
         }
         int best = -1;
@@ -339,14 +324,6 @@ public class WaterClassifierGenerator {
         return SurfaceType.PLAINS;
     }
 
-    private boolean isPlateBoundary(Tile t) {
-        if (t.neighbors == null) return false;
-        for (Tile n : t.neighbors) {
-            if (n != null && n.plateId != t.plateId) return true;
-        }
-        return false;
-    }
-
     private boolean isBaseWater(Tile t, int[] baseSurfaceType) {
         if (baseSurfaceType == null || t.id < 0 || t.id >= baseSurfaceType.length) {
             return t.surfaceType == SurfaceType.OCEAN || t.surfaceType == SurfaceType.ICE_OCEAN;
@@ -389,4 +366,9 @@ public class WaterClassifierGenerator {
         double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
         return Math.toDegrees(c);
     }
+
+    private void setType(Tile t, SurfaceType st) {
+        if (surfaceTraits != null) surfaceTraits.set(t, st);
+        else t.surfaceType = st;
+    }
 }
@@ -1,10 +1,16 @@
 package org.planet.core.generation;
 
+import org.planet.core.model.SurfaceTraitColumn;
+import org.planet.core.model.SurfaceTrait;
 import org.planet.core.model.SurfaceType;
 import org.planet.core.model.Tile;
+import org.planet.core.model.config.AdvectionStepping;
 import org.planet.core.model.config.ClimateModelMode;
+import org.planet.core.model.config.DiffusionSolver;
 import org.planet.core.model.config.PlanetConfig;
+import org.planet.core.topology.TileGeometry;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.IntConsumer;
 import java.util.stream.IntStream;
@@ -19,8 +25,36 @@ public class WindGenerator {
     private double ferrelEdge = 60.0;
     private double itczShift = 0.0;
 
+    private IterationControl control = IterationControl.FIXED;
+    private ClimateState warmStart;
+    private ClimateState equilibrium;
+    private TileGeometry geometry;
+    /** max|Δelev| к соседям на калибровочный ход (setGridSpacing): рельеф внутри generateWind не меняется, считаем один раз. */
+    private double[] slopeByTile;
+    /** Признаки поверхности по id тайла: типы внутри generateWind не меняются. */
+    private SurfaceTraitColumn surfaceTraits;
+    private DiffusionSolver diffusionSolver = DiffusionSolver.EXPLICIT;
+    private AdvectionStepping advectionStepping = AdvectionStepping.FIXED;
+    private int diffusionRefLevel = 4;
+    /** MULTIGRID на известной сетке: решатель и множитель κ к уровню сетки (null — явные проходы). */
+    private MultigridDiffusion multigrid;
+    private double diffusionScale = 1.0;
+    /** Длина хода по ребру в калибровочных ходах (TILE_DIST_M): 1 — сетка калибровки, 2 — вдвое грубее. */
+    private double hopScale = 1.0;
+    private Phase phase = Phase.ALL;
+    private int mgSolves;
+    private int mgCycles;
+    private int mgSweeps;
+    private double mgMaxResidual;
+
     private static final int WIND_RELAX_ITERS = 28;
     private static final int TEMP_ADVECT_ITERS = 6;
+    private static final int MOISTURE_SPINUP_DAYS = 20;
+    // Warm start: минимальный спин-ап и масштаб сдвига температурного форсинга (RMS, °C) до полного спин-апа.
+    private static final int WARM_START_MIN_SPINUP_DAYS = 4;
+    private static final double WARM_START_TEMP_SCALE_C = 40.0;
+    // Ветер содержит турбулентный шум релаксации (~0.15..0.25 отн. L2 даже при том же форсинге), поэтому вес меньше.
+    private static final double WARM_START_WIND_WEIGHT = 0.5;
 
     // Calibration from solver units to climate-layer m/s (not surface wind resource layer).
     private static final double WIND_UNIT_TO_MPS = 0.50;
@@ -28,6 +62,13 @@ public class WindGenerator {
     private static final double MAX_WIND = 55.0;
     private static final double TILE_DIST_M = 100_000.0;
     private static final int DEFAULT_CLIMATE_STEP_HOURS = 6;
+    // CFL: доля предела advFrac схемы, до которой доводится число Куранта подшага; потолок подшагов.
+    private static final double ADVECTION_CFL_SAFETY = 0.9;
+    private static final int MAX_ADVECTION_SUBSTEPS = 64;
+    // CFL: доля тайлов, которым разрешено дробить подшаг локально, вместо роста глобального числа подшагов.
+    private static final double ADVECTION_LOCAL_FRACTION = 0.01;
+    /** Размер куска для массивных климатических ядер (ClimateKernels) при параллельном обходе. */
+    private static final int KERNEL_CHUNK = 1024;
 
     private static final int TEMP_MIN = -220;
     private static final int TEMP_MAX = 900;
@@ -38,6 +79,70 @@ public class WindGenerator {
         this.gamma = gamma;
     }
 
+    /** Невязки/адаптивный останов циклов релаксации и спин-апа (по умолчанию фиксированные лимиты). */
+    public void setIterationControl(IterationControl control) {
+        this.control = (control == null) ? IterationControl.FIXED : control;
+    }
+
+    /**
+     * Начальное условие влагооборота из предыдущего равновесия (null = холодный старт от moisture/atmMoist).
+     * Состояние другого размера игнорируется.
+     */
+    public void setWarmStart(ClimateState state) {
+        this.warmStart = state;
+    }
+
+    /** Геометрия рёбер сетки (null или от другой сетки = построить на месте). */
+    public void setGeometry(TileGeometry geometry) {
+        this.geometry = geometry;
+    }
+
+    /**
+     * Шаги generateWind: ALL — весь прогон; WIND — только поле ветра (начальное поле и релаксация);
+     * MOISTURE — адвекция тепла и влагооборот по ветру, уже записанному в тайлы (м/с, как на выходе).
+     */
+    enum Phase {
+        ALL, WIND, MOISTURE
+    }
+
+    /** Шаги следующих прогонов generateWind (null — ALL). */
+    void setPhase(Phase phase) {
+        this.phase = (phase == null) ? Phase.ALL : phase;
+    }
+
+    /**
+     * Шаг сетки относительно калибровочного: перенос и уклоны рельефа заданы на ход в TILE_DIST_M,
+     * на сетке с ходом вдвое длиннее (scale = 2) перенос за шаг вдвое короче в ходах, а перепад
+     * высот за ход делится на 2. По умолчанию 1.
+     */
+    public void setGridSpacing(double scale) {
+        this.hopScale = (scale > 0.0) ? scale : 1.0;
+    }
+
+    /**
+     * Сглаживание и перемешивание полей: EXPLICIT — проход на шаг (по умолчанию), MULTIGRID — неявный
+     * шаг V-циклом, κ задан для сетки refLevel и умножается на 4^(уровень − refLevel).
+     */
+    public void setDiffusionSolver(DiffusionSolver solver, int refLevel) {
+        this.diffusionSolver = (solver == null) ? DiffusionSolver.EXPLICIT : solver;
+        this.diffusionRefLevel = refLevel;
+    }
+
+    /** Подшаги переноса IWV: FIXED — round(stepHours) по 1 ч (по умолчанию), CFL — по числу Куранта ветра. */
+    public void setAdvectionStepping(AdvectionStepping stepping) {
+        this.advectionStepping = (stepping == null) ? AdvectionStepping.FIXED : stepping;
+    }
+
+    /** Колонка признаков поверхности (обычно WorldContext.surfaceTraits); перечитывается в начале generateWind. */
+    public void setSurfaceTraits(SurfaceTraitColumn surfaceTraits) {
+        this.surfaceTraits = surfaceTraits;
+    }
+
+    /** Равновесие влагооборота последнего прогона generateWind (null до первого прогона). */
+    public ClimateState equilibriumState() {
+        return equilibrium;
+    }
+
     private static void forEachIndex(int n, IntConsumer action) {
         if (climateParallelEnabled()) {
             IntStream.range(0, n).parallel().forEach(action);
@@ -90,37 +195,63 @@ public class WindGenerator {
         this.itczShift = clamp(seasonalShiftLat, -90.0, 90.0);
         this.hadleyEdge = 30.0 + Math.min(10.0, tiltAbs * 0.2);
         this.ferrelEdge = 60.0 + Math.min(8.0, tiltAbs * 0.15);
+        this.geometry = TileGeometry.ensure(geometry, tiles);
+        this.slopeByTile = new double[tiles.size()];
+        if (surfaceTraits == null) surfaceTraits = SurfaceTraitColumn.of(tiles);
+        else surfaceTraits.refresh(tiles);
+        forEachIndex(tiles.size(), i -> slopeByTile[i] = maxSlope(tiles.get(i)) / hopScale);
+        this.multigrid = (diffusionSolver == DiffusionSolver.MULTIGRID) ? MultigridDiffusion.forTiles(tiles) : null;
+        this.diffusionScale = (multigrid == null) ? 1.0 : Math.pow(4.0, multigrid.level() - diffusionRefLevel);
+        mgSolves = 0;
+        mgCycles = 0;
+        mgSweeps = 0;
+        mgMaxResidual = 0.0;
+
+        if (phase == Phase.MOISTURE) {
+            // ветер задан в м/с: обратно в единицы солвера (деление на степень двойки точное)
+            for (Tile t : tiles) {
+                t.windX /= WIND_UNIT_TO_MPS;
+                t.windY /= WIND_UNIT_TO_MPS;
+            }
+        } else {
+            // 1) Initial physically-guided field (zonal cells + tidal scenario).
+            for (Tile t : tiles) {
+                double[] v = planet.tidalLocked
+                        ? tidalBaseWind(t, rotFactor, atmBaseScale)
+                        : beltBaseWind(t, rotFactor, zonalBias, meridDamp, prograde, windSeed, atmBaseScale);
 
-        // 1) Initial physically-guided field (zonal cells + tidal scenario).
-        for (Tile t : tiles) {
-            double[] v = planet.tidalLocked
-                    ? tidalBaseWind(t, rotFactor, atmBaseScale)
-                    : beltBaseWind(t, rotFactor, zonalBias, meridDamp, prograde, windSeed, atmBaseScale);
-
-            // First-order forcing from local pressure/thermal gradients.
-            double[] gradP = pressureGradientVector(t);
-            double[] gradT = thermalGradientVector(t);
-            v[0] += gradP[0] * alpha * 3.0 + gradT[0] * beta * 1.2;
-            v[1] += gradP[1] * alpha * 3.0 + gradT[1] * beta * 1.2;
-
-            // Orographic damping before iterative relaxation.
-            double slope = maxSlope(t);
-            double relief = 1.0 / (1.0 + 0.04 * slope + 0.006 * Math.max(0, t.elevation));
-            v[0] *= relief;
-            v[1] *= relief;
-
-            double[] clamped = limitVector(v[0], v[1], MAX_WIND);
-            t.windX = clamped[0];
-            t.windY = clamped[1];
-        }
+                // First-order forcing from local pressure/thermal gradients.
+                double[] gradP = pressureGradientVector(t);
+                double[] gradT = thermalGradientVector(t);
+                v[0] += gradP[0] * alpha * 3.0 + gradT[0] * beta * 1.2;
+                v[1] += gradP[1] * alpha * 3.0 + gradT[1] * beta * 1.2;
+
+                // Orographic damping before iterative relaxation.
+                double slope = slopeByTile[t.id];
+                double relief = 1.0 / (1.0 + 0.04 * slope + 0.006 * Math.max(0, t.elevation));
+                v[0] *= relief;
+                v[1] *= relief;
+
+                double[] clamped = limitVector(v[0], v[1], MAX_WIND);
+                t.windX = clamped[0];
+                t.windY = clamped[1];
+            }
 
-        // 2) Relaxation: pressure + Coriolis + terrain channeling + neighbor coupling.
-        relaxWindField(tiles, planet, prograde, rotFactor, angularSpeed, windSeed);
+            // 2) Relaxation: pressure + Coriolis + terrain channeling + neighbor coupling.
+            relaxWindField(tiles, planet, prograde, rotFactor, angularSpeed, windSeed);
+        }
 
-        // 3) Moisture init + heat transport + moisture cycle.
-        initializeMoistureIfNeeded(tiles, planet);
-        advectTemperature(tiles);
-        simulateMoistureCycle(tiles, planet, modelMode);
+        if (phase != Phase.WIND) {
+            // 3) Moisture init + heat transport + moisture cycle.
+            initializeMoistureIfNeeded(tiles, planet);
+            advectTemperature(tiles);
+            simulateMoistureCycle(tiles, planet, modelMode);
+            if (multigrid != null) {
+                // V-циклы жёстких систем и проходы Якоби слабо связанных — отдельными строками отчёта
+                control.report("diffusion.vcycles", mgCycles, mgSolves * MultigridDiffusion.MAX_CYCLES, mgMaxResidual, mgMaxResidual);
+                control.report("diffusion.jacobi", mgSweeps, mgSolves * MultigridDiffusion.MAX_JACOBI_SWEEPS, mgMaxResidual, mgMaxResidual);
+            }
+        }
 
         // 4) Final output in physical display units (m/s).
         convertWindsToMetersPerSecond(tiles);
@@ -244,6 +375,7 @@ public class WindGenerator {
         double forceT = 0.022 * atmThermalScale;
         double channelK = 0.13;
 
+        IterationControl.Tracker tracker = control.track("wind.relax", control.windRelaxTolerance, WIND_RELAX_ITERS);
         for (int iter = 0; iter < WIND_RELAX_ITERS; iter++) {
             final int iterF = iter;
             forEachIndex(n, i -> {
@@ -274,14 +406,14 @@ public class WindGenerator {
                 double cy = 0.0;
                 if (!planet.tidalLocked) {
                     // Coriolis acceleration (scaled for stability on coarse grid).
-                    double f = 2.0 * angularSpeed * Math.sin(Math.toRadians(t.lat)) * prograde;
+                    double f = 2.0 * angularSpeed * geometry.sinLat[i] * prograde;
                     double cScale = 220.0;
                     cx = -f * vy * cScale;
                     cy = f * vx * cScale;
                 }
 
                 double rough = surfaceDrag(t.surfaceType);
-                double slope = maxSlope(t);
+                double slope = slopeByTile[i];
                 double reliefDrag = clamp((rough + 0.008 * slope + 0.0008 * Math.max(0, t.elevation)) * atmDragScale, 0.05, 0.58);
 
                 double turbA = (noise01(seed + 7919L * (iterF + 1), t.id) * 2.0 - 1.0);
@@ -320,12 +452,37 @@ public class WindGenerator {
                 nextY[i] = limited[1];
             });
 
+            double[] residual = windResidual(tiles, nextX, nextY);
             forEachIndex(n, i -> {
                 Tile t = tiles.get(i);
                 t.windX = nextX[i];
                 t.windY = nextY[i];
             });
+            if (tracker.update(residual[0], residual[1])) break;
+        }
+        tracker.finish();
+    }
+
+    /** Относительные L2/L∞ изменения векторного поля ветра за итерацию (до записи next в тайлы). */
+    private double[] windResidual(List<Tile> tiles, double[] nextX, double[] nextY) {
+        double num = 0.0;
+        double den = 0.0;
+        double maxD = 0.0;
+        double maxV = 0.0;
+        for (int i = 0; i < nextX.length; i++) {
+            Tile t = tiles.get(i);
+            double dx = nextX[i] - t.windX;
+            double dy = nextY[i] - t.windY;
+            double d2 = dx * dx + dy * dy;
+            double v2 = nextX[i] * nextX[i] + nextY[i] * nextY[i];
+            num += d2;
+            den += v2;
+            maxD = Math.max(maxD, d2);
+            maxV = Math.max(maxV, v2);
         }
+        double l2 = (den <= 1e-18) ? Math.sqrt(num) : Math.sqrt(num / den);
+        double linf = (maxV <= 1e-18) ? Math.sqrt(maxD) : Math.sqrt(maxD / maxV);
+        return new double[]{l2, linf};
     }
 
     private void initializeMoistureIfNeeded(List<Tile> tiles, PlanetConfig planet) {
@@ -355,7 +512,7 @@ public class WindGenerator {
             }
             if (Double.isNaN(t.atmMoist)) {
                 double rh;
-                if (isWaterSurface(t.surfaceType)) {
+                if (surfaceTraits.is(t.id, SurfaceTrait.WATER)) {
                     rh = 0.86;
                 } else if (t.surfaceType == SurfaceType.ICE || t.surfaceType == SurfaceType.GLACIER) {
                     rh = 0.24;
@@ -396,7 +553,7 @@ public class WindGenerator {
                 if (speedInternal < 1e-6) return;
                 double speedMps = speedInternal * WIND_UNIT_TO_MPS;
 
-                double adv = clamp((speedMps * 1800.0) / TILE_DIST_M, 0.0, 0.36);
+                double adv = clamp((speedMps * 1800.0) / (TILE_DIST_M * hopScale), 0.0, 0.36);
                 if (adv <= 1e-6) return;
 
                 double wx = t.windX / (speedInternal + 1e-9);
@@ -404,9 +561,10 @@ public class WindGenerator {
 
                 double inTemp = 0.0;
                 double wSum = 0.0;
-                for (Tile nb : t.neighbors) {
-                    double[] dir = direction(nb, t);
-                    double dot = wx * dir[0] + wy * dir[1];
+                int e0 = geometry.first(i);
+                for (int k = 0; k < t.neighbors.size(); k++) {
+                    Tile nb = t.neighbors.get(k);
+                    double dot = wx * geometry.inEast[e0 + k] + wy * geometry.inNorth[e0 + k];
                     if (dot <= 0.02) continue;
                     double w = dot;
                     inTemp += tempNow[nb.id] * w;
@@ -442,6 +600,25 @@ public class WindGenerator {
         final double atm = clamp(planet.atmosphereDensity, 0.05, 8.0);
         final double atmEvapScale = clamp(0.80 + 0.25 * Math.sqrt(atm), 0.55, 1.90);
         final boolean enhancedMode = mode == ClimateModelMode.ENHANCED;
+        final ClimateKernels kernels = ClimateKernels.get();
+        final int kernelChunks = (n + KERNEL_CHUNK - 1) / KERNEL_CHUNK;
+        final double[] pressureKPaByTile = new double[n];
+        forEachIndex(n, i -> pressureKPaByTile[i] = pressureKPa(tiles.get(i).pressure));
+        // Ветер, рельеф и типы поверхности за цикл не меняются: орография и наветренный приток
+        // (для ENHANCED) считаются один раз, а не на каждом шаге.
+        final OrographicField oro = enhancedMode
+                ? OrographicField.compute(tiles, geometry, OrographicField.Params.WIND, climateParallelEnabled())
+                : null;
+        final double[] onshoreByTile = new double[n];
+        final double[] fetchByTile = new double[n];
+        if (enhancedMode) {
+            forEachIndex(n, i -> {
+                Tile t = tiles.get(i);
+                if (surfaceTraits.is(t.id, SurfaceTrait.WATER)) return;
+                onshoreByTile[i] = onshoreMoistureIndex(t);
+                fetchByTile[i] = upwindOceanFetchIndex(t);
+            });
+        }
 
         double[] iwv = new double[n];
         double[] soil = new double[n];
@@ -457,25 +634,57 @@ public class WindGenerator {
         double[] tempDiagSum = new double[n];
         int[] tempDiagCnt = new int[n];
 
+        double[] forcingTemp = new double[n];
+        double[] forcingWindX = new double[n];
+        double[] forcingWindY = new double[n];
+
+        final ClimateState warm = (warmStart != null && warmStart.size() == n) ? warmStart : null;
         final double[] soilInit = soil;
         final double[] iwvInit = iwv;
         forEachIndex(n, i -> {
             Tile t = tiles.get(i);
-            soilInit[i] = Double.isNaN(t.moisture) ? 40.0 : t.moisture;
+            if (warm != null) {
+                soilInit[i] = warm.soil[i];
+                iwvInit[i] = warm.iwv[i];
+            } else {
+                soilInit[i] = Double.isNaN(t.moisture) ? 40.0 : t.moisture;
+                iwvInit[i] = iwvFromAtmMoist(t, g);
+            }
             soilStart[i] = soilInit[i];
-            iwvInit[i] = iwvFromAtmMoist(t, g);
+            forcingTemp[i] = t.temperature;
+            forcingWindX[i] = t.windX;
+            forcingWindY[i] = t.windY;
             tempDiagMin[i] = Double.POSITIVE_INFINITY;
             tempDiagMax[i] = Double.NEGATIVE_INFINITY;
         });
 
         int hoursPerDay = 24;
         int stepsPerDay = Math.max(1, hoursPerDay / stepHours);
-        int spinupDays = 20;
+        int spinupDays = (warm == null) ? MOISTURE_SPINUP_DAYS : warmStartSpinupDays(forcingTemp, forcingWindX, forcingWindY, warm);
         int iters = stepsPerDay * (spinupDays + 1);
+        // Нормировка precipAvg/evapAvg откалибрована под полный спин-ап, не зависит от его фактической длины.
+        int normIters = stepsPerDay * (MOISTURE_SPINUP_DAYS + 1);
         int sampleStartIter = iters - stepsPerDay;
-        int advSubSteps = Math.max(1, (int) Math.round(stepHours / 1.0));
+        // Ветер за цикл не меняется: число Куранта и подшаги переноса считаются один раз.
+        AdvectionPlan advection = planAdvection(tiles, mode, dt, Math.max(1, (int) Math.round(stepHours / 1.0)));
+        int advSubSteps = advection.subSteps();
+        // В отчёте: подшаги на шаг / потолок, макс. число Куранта за полный шаг и за (микро)подшаг;
+        // для CFL ещё тайлы с локальным дроблением / все тайлы, макс. число их микрошагов.
+        control.report("moisture.advection", advSubSteps, MAX_ADVECTION_SUBSTEPS,
+                advection.maxCourant(), advection.maxSubCourant());
+        if (advection.microSteps() != null) {
+            control.report("moisture.advection.local", advection.localTiles(), n, advection.maxMicroSteps(), advection.maxMicroSteps());
+        }
+        // Невязка спин-апа считается по суткам (одна и та же фаза суточного хода).
+        // При адаптивном останове пропускаем оставшиеся сутки спин-апа целиком, поэтому фаза не сдвигается,
+        // а нормировка precipAvg/evapAvg остаётся по номинальному iters.
+        IterationControl.Tracker spinup = control.track("moisture.spinup", control.moistureSpinupTolerance, spinupDays);
+        double[] iwvDayPrev = iwv.clone();
+        double[] soilDayPrev = soil.clone();
         for (int iter = 0; iter < iters; iter++) {
+            control.checkCancelled();
             double[] tempPhase = new double[n];
+            double[] qsatPhase = new double[n];
             final int iterF = iter;
             final double[] soilNowForTemp = soil;
             forEachIndex(n, i -> {
@@ -489,19 +698,24 @@ public class WindGenerator {
                     tempDiagCnt[i]++;
                 }
             });
+            // qsat(tempPhase) нужен испарению, конденсации, океану и капу: считаем один раз за шаг.
+            forEachIndex(kernelChunks, c -> {
+                int from = c * KERNEL_CHUNK;
+                kernels.saturationSpecificHumidity(tempPhase, pressureKPaByTile, qsatPhase, from, Math.min(n, from + KERNEL_CHUNK));
+            });
 
             // 1) Evaporation source.
             final double[] iwvNowEvap = iwv;
             final double[] soilNowEvap = soil;
             forEachIndex(n, i -> {
                 Tile t = tiles.get(i);
-                boolean water = isWaterSurface(t.surfaceType);
-                boolean wetland = isWetlandSurface(t.surfaceType);
+                boolean water = surfaceTraits.is(t.id, SurfaceTrait.WATER);
+                boolean wetland = surfaceTraits.is(t.id, SurfaceTrait.WETLAND);
                 double windMag = Math.sqrt(t.windX * t.windX + t.windY * t.windY) * WIND_UNIT_TO_MPS;
                 double dpPa = moistureLayerPressurePa(t);
                 if (dpPa <= 1e-6) return;
 
-                double qsat = saturationSpecificHumidity(tempPhase[i], t.pressure);
+                double qsat = qsatPhase[i];
                 double q = (iwvNowEvap[i] * g / dpPa) * 1000.0;
                 double deficit = Math.max(0.0, qsat - q);
                 double deficitN = clamp((qsat > 1e-6) ? (deficit / qsat) : 0.0, 0.0, 1.0);
@@ -511,7 +725,7 @@ public class WindGenerator {
                 double windFactor = clamp(0.45 + windMag / 14.0, 0.35, 2.2);
                 double evapPot = deficitN * tempFactor * windFactor * atmEvapScale * 2.2;
                 if (water) {
-                    if (t.surfaceType == SurfaceType.SEA_ICE_SHALLOW || t.surfaceType == SurfaceType.SEA_ICE_DEEP || t.surfaceType == SurfaceType.ICE_OCEAN) {
+                    if (surfaceTraits.is(t.id, SurfaceTrait.SEA_ICE)) {
                         evapPot *= 0.14;
                     } else if (t.surfaceType == SurfaceType.STEAM_SEA) {
                         evapPot *= 1.30;
@@ -521,7 +735,7 @@ public class WindGenerator {
                 } else if (enhancedMode) {
                     if (wetland) {
                         evapPot *= 1.18;
-                    } else if (isForestSurface(t.surfaceType)) {
+                    } else if (surfaceTraits.is(t.id, SurfaceTrait.FOREST)) {
                         evapPot *= 1.12;
                     }
                 }
@@ -561,11 +775,11 @@ public class WindGenerator {
                 }
             });
 
-            // 2) Conservative advection in two sub-steps to reduce directional artifacts.
+            // 2) Conservative advection in sub-steps to reduce directional artifacts.
             double[] iwvBeforeAdvection = iwv.clone();
             double dtSub = dt / advSubSteps;
             for (int sub = 0; sub < advSubSteps; sub++) {
-                    iwv = advectIwvConservative(tiles, iwv, dtSub, mode);
+                    iwv = advectIwvConservative(tiles, iwv, dtSub, mode, advection);
                 }
             double[] convRaw = new double[n];
             final double[] iwvNowConv = iwv;
@@ -588,20 +802,19 @@ public class WindGenerator {
                     return;
                 }
 
-                double qsat = saturationSpecificHumidity(tempPhase[i], t.pressure);
+                double qsat = qsatPhase[i];
                 double q = (iwvNowPrecipPot[i] * g / dpPa) * 1000.0;
                 double rel = (qsat > 1e-6) ? (q / qsat) : 0.0;
 
                 double iwvSat = (qsat / 1000.0) * dpPa / g;
                 double iwvExcess = Math.max(0.0, iwvNowPrecipPot[i] - iwvSat);
-                boolean waterSurface = isWaterSurface(t.surfaceType);
+                boolean waterSurface = surfaceTraits.is(t.id, SurfaceTrait.WATER);
 
                 double precip;
                 if (enhancedMode) {
                     double convTerm = clamp(Math.max(0.0, conv[i]) / 7.0, 0.0, 1.1);
-                    double[] oro = orographicFactors(t);
                     double instability = clamp((tempPhase[i] + 8.0) / 48.0, 0.0, 1.1);
-                    double orogLift = clamp(oro[0] * 0.75 + oro[1] * 0.25 - oro[2] * 0.20, 0.0, 1.2);
+                    double orogLift = clamp(oro.windward[i] * 0.75 + oro.leeward[i] * 0.25 - oro.shadow[i] * 0.20, 0.0, 1.2);
                     double largeScale = clamp((rel - 0.82) / 0.30, 0.0, 1.4);
 
                     // No baseline drizzle: precipitation should emerge from actual moisture dynamics only.
@@ -640,8 +853,8 @@ public class WindGenerator {
                 } else {
                     double capFrac = 0.16;
                     if (enhancedMode) {
-                        double onshore = onshoreMoistureIndex(t);
-                        double fetch = upwindOceanFetchIndex(t);
+                        double onshore = onshoreByTile[i];
+                        double fetch = fetchByTile[i];
                         double tropicalEdge = Math.max(1e-6, tropicalFadeLat());
                         double tropical = clamp((tropicalEdge - Math.abs(t.lat)) / tropicalEdge, 0.0, 1.0);
                         double latEffAbs = Math.abs(t.lat - itczShift);
@@ -673,7 +886,7 @@ public class WindGenerator {
                 if (iterF >= sampleStartIter) {
                     precipTotal[i] += precip;
                 }
-                double infil = clamp(0.45 + 0.004 * soilNowPrecipApply[i] - 0.02 * maxSlope(t), 0.10, 0.80);
+                double infil = clamp(0.45 + 0.004 * soilNowPrecipApply[i] - 0.02 * slopeByTile[i], 0.10, 0.80);
                 double runoff = precip * (1.0 - infil);
                 if (iterF >= sampleStartIter) {
                     runoffTotal[i] += runoff;
@@ -700,10 +913,10 @@ public class WindGenerator {
             final double[] iwvNowOcean = iwv;
             forEachIndex(n, i -> {
                 Tile t = tiles.get(i);
-                if (!isWaterSurface(t.surfaceType)) return;
+                if (!surfaceTraits.is(t.id, SurfaceTrait.WATER)) return;
                 double dpPa = moistureLayerPressurePa(t);
                 if (dpPa <= 1e-6) return;
-                double qsat = saturationSpecificHumidity(tempPhase[i], t.pressure);
+                double qsat = qsatPhase[i];
                 double iwvSat = (qsat / 1000.0) * dpPa / g;
                 if (iwvSat <= 1e-9) return;
 
@@ -725,7 +938,7 @@ public class WindGenerator {
                     iwvCap[i] = 0.0;
                     return;
                 }
-                double qsat = saturationSpecificHumidity(tempPhase[i], t.pressure);
+                double qsat = qsatPhase[i];
                 double qCap = Math.min(999.0, qsat * 1.03);
                 double iwvMax = (qCap / 1000.0) * dpPa / g;
                 double excess = Math.max(0.0, iwvNowCap[i] - iwvMax);
@@ -746,7 +959,18 @@ public class WindGenerator {
             double frontKappa = scaleFractionByDt(baseFrontKappa, stepHours, 6.0);
             iwv = mixScalarConservative(tiles, iwvCap, mixKappa);
             iwv = frontEddyMixConservative(tiles, iwv, frontKappa, true);
+
+            if ((iter + 1) % stepsPerDay == 0 && iter < sampleStartIter) {
+                double l2 = Math.max(IterationControl.relativeL2(iwv, iwvDayPrev), IterationControl.relativeL2(soil, soilDayPrev));
+                double linf = Math.max(IterationControl.relativeLinf(iwv, iwvDayPrev), IterationControl.relativeLinf(soil, soilDayPrev));
+                iwvDayPrev = iwv.clone();
+                soilDayPrev = soil.clone();
+                if (spinup.update(l2, linf)) {
+                    iter = sampleStartIter - 1;
+                }
+            }
         }
+        spinup.finish();
 
         final double[] iwvFinal = iwv;
         final double[] soilFinal = soil;
@@ -756,8 +980,8 @@ public class WindGenerator {
             t.precipKgM2Day = precipTotal[i];
             t.evapKgM2Day = evapTotal[i];
             t.surfaceRunoffKgM2Day = runoffTotal[i];
-            t.precipAvg = clamp((precipTotal[i] / iters) * 2.6, 0.0, 100.0);
-            t.evapAvg = clamp((evapTotal[i] / iters) * 2.8, 0.0, 100.0);
+            t.precipAvg = clamp((precipTotal[i] / normIters) * 2.6, 0.0, 100.0);
+            t.evapAvg = clamp((evapTotal[i] / normIters) * 2.8, 0.0, 100.0);
             t.atmMoist = atmMoistFromIwv(t, iwvFinal[i], g);
             t.moisture = clamp(soilFinal[i], 0.0, 100.0);
             t.soilStartDiag = soilStart[i];
@@ -772,9 +996,44 @@ public class WindGenerator {
                 t.tempMax = tempDiagMax[i];
             }
         });
+
+        double[] tempMean = new double[n];
+        for (int i = 0; i < n; i++) {
+            tempMean[i] = (tempDiagCnt[i] > 0) ? tempDiagSum[i] / tempDiagCnt[i] : forcingTemp[i];
+        }
+        equilibrium = new ClimateState(iwvFinal.clone(), soilFinal.clone(), forcingTemp, forcingWindX, forcingWindY,
+                tempMean, tempDiagMin, tempDiagMax);
+    }
+
+    /**
+     * Длина спин-апа при warm start: от WARM_START_MIN_SPINUP_DAYS (форсинг не изменился)
+     * до полного MOISTURE_SPINUP_DAYS (RMS сдвиг температуры >= WARM_START_TEMP_SCALE_C
+     * или ветер полностью сменился). Сезонный сдвиг ~14°C даёт ~12 суток вместо 20.
+     */
+    private int warmStartSpinupDays(double[] forcingTemp, double[] forcingWindX, double[] forcingWindY, ClimateState warm) {
+        int n = forcingTemp.length;
+        double sumT = 0.0;
+        double num = 0.0;
+        double den = 0.0;
+        for (int i = 0; i < n; i++) {
+            double dT = forcingTemp[i] - warm.forcingTemp[i];
+            sumT += dT * dT;
+            double dx = forcingWindX[i] - warm.forcingWindX[i];
+            double dy = forcingWindY[i] - warm.forcingWindY[i];
+            num += dx * dx + dy * dy;
+            den += forcingWindX[i] * forcingWindX[i] + forcingWindY[i] * forcingWindY[i];
+        }
+        double tempShift = Math.sqrt(sumT / Math.max(1, n)) / WARM_START_TEMP_SCALE_C;
+        double windShift = (den <= 1e-18) ? 0.0 : Math.sqrt(num / den);
+        double dist = clamp(tempShift + WARM_START_WIND_WEIGHT * windShift, 0.0, 1.0);
+        int days = (int) Math.ceil(WARM_START_MIN_SPINUP_DAYS + (MOISTURE_SPINUP_DAYS - WARM_START_MIN_SPINUP_DAYS) * dist);
+        return (int) clamp(days, WARM_START_MIN_SPINUP_DAYS, MOISTURE_SPINUP_DAYS);
     }
 
-    private double[] advectIwvConservative(List<Tile> tiles, double[] src, double dt, ClimateModelMode mode) {
+    /**
+     * @param plan длины переноса и локальные микрошаги тайлов (в режиме FIXED их нет: TILE_DIST_M · шаг сетки, 1 шаг)
+     */
+    private double[] advectIwvConservative(List<Tile> tiles, double[] src, double dt, ClimateModelMode mode, AdvectionPlan plan) {
         int n = tiles.size();
         double[] out = new double[n];
         double[] in = new double[n];
@@ -791,30 +1050,20 @@ public class WindGenerator {
             double speedMps = speedInternal * WIND_UNIT_TO_MPS;
             double transportSpeedMps = speedMps * moistureTransportWindBoost(t, mode);
 
-            double advFrac = clamp((transportSpeedMps * dt) / TILE_DIST_M, 0.0, enhancedMode ? 0.34 : 0.24);
+            double length = (plan.lengthM() == null) ? TILE_DIST_M * hopScale : plan.lengthM()[i];
+            int micro = (plan.microSteps() == null) ? 1 : plan.microSteps()[i];
+            double advFrac = clamp((transportSpeedMps * dt) / (length * micro), 0.0, advectionFracLimit(mode));
+            if (micro > 1) {
+                // локальное дробление: micro шагов оттока без притока, доля ушедшего за подшаг
+                advFrac = 1.0 - Math.pow(1.0 - advFrac, micro);
+            }
             if (advFrac <= 1e-7) continue;
 
             double wx = advV[0] / (speedInternal + 1e-9);
             double wy = advV[1] / (speedInternal + 1e-9);
 
             double[] weights = new double[t.neighbors.size()];
-            double wSum = 0.0;
-            for (int k = 0; k < t.neighbors.size(); k++) {
-                Tile nb = t.neighbors.get(k);
-                double[] dir = direction(t, nb);
-                double dot = wx * dir[0] + wy * dir[1];
-                if (dot <= -0.30) {
-                    weights[k] = 0.0;
-                    continue;
-                }
-
-                int uphill = Math.max(0, nb.elevation - t.elevation);
-                double pass = 1.0 / (1.0 + 0.15 * uphill);
-                double directional = dot > 0.0 ? dot : 0.10 * ((dot + 0.30) / 0.30);
-                double w = directional * pass;
-                weights[k] = w;
-                wSum += w;
-            }
+            double wSum = advectionWeights(t, wx, wy, weights);
             if (wSum <= 1e-9) continue;
 
             double moved = src[i] * advFrac;
@@ -842,6 +1091,116 @@ public class WindGenerator {
         return frontEddyMixConservative(tiles, mixed, frontKappa, true);
     }
 
+    /** Доли потока по соседям тайла вдоль направления (wx, wy): вперёд по ветру, в гору меньше. */
+    private double advectionWeights(Tile t, double wx, double wy, double[] weights) {
+        double wSum = 0.0;
+        int e0 = geometry.first(t.id);
+        for (int k = 0; k < t.neighbors.size(); k++) {
+            Tile nb = t.neighbors.get(k);
+            double dot = wx * geometry.dirEast[e0 + k] + wy * geometry.dirNorth[e0 + k];
+            if (dot <= -0.30) {
+                weights[k] = 0.0;
+                continue;
+            }
+
+            int uphill = Math.max(0, nb.elevation - t.elevation);
+            double pass = 1.0 / (1.0 + 0.15 * uphill);
+            double directional = dot > 0.0 ? dot : 0.10 * ((dot + 0.30) / 0.30);
+            double w = directional * pass;
+            weights[k] = w;
+            wSum += w;
+        }
+        return wSum;
+    }
+
+    /** Предел доли IWV, уходящей из тайла за подшаг (устойчивость явного переноса). */
+    private static double advectionFracLimit(ClimateModelMode mode) {
+        return mode == ClimateModelMode.ENHANCED ? 0.34 : 0.24;
+    }
+
+    /**
+     * Подшаги переноса за климатический шаг и параметры тайлов.
+     * @param maxCourant    max по тайлам скорость·dt/длина за полный климатический шаг
+     * @param maxSubCourant то же за подшаг (с учётом локальных микрошагов)
+     * @param lengthM       длина переноса тайла, м (null в режиме FIXED — TILE_DIST_M · шаг сетки)
+     * @param microSteps    локальные микрошаги тайла внутри подшага (null в режиме FIXED — 1)
+     */
+    private record AdvectionPlan(int subSteps, double maxCourant, double maxSubCourant, double[] lengthM,
+                                 int[] microSteps, int localTiles, int maxMicroSteps) {
+    }
+
+    /**
+     * FIXED: fixedSubSteps, длина TILE_DIST_M · шаг сетки (число Куранта только для отчёта).
+     * CFL: длина тайла — TILE_DIST_M, умноженная на отношение средней (по долям потока) длины его рёбер
+     * к средней длине ребра сетки, так что калибровка схемы сохраняется, а короткие рёбра у пятиугольников
+     * и швов сетки (до 0.3 средней на D5) получают свою длину. Глобальных подшагов — минимум, при котором
+     * Курант подшага не выше ADVECTION_CFL_SAFETY · advectionFracLimit у всех тайлов, кроме
+     * ADVECTION_LOCAL_FRACTION самых быстрых; те дробят подшаг на свои микрошаги (локальный шаг по времени),
+     * иначе несколько тайлов с короткими рёбрами удваивали бы работу на всей сетке.
+     */
+    private AdvectionPlan planAdvection(List<Tile> tiles, ClimateModelMode mode, double dt, int fixedSubSteps) {
+        int n = tiles.size();
+        boolean cfl = advectionStepping == AdvectionStepping.CFL;
+        double meanArc = 0.0;
+        int edges = 0;
+        if (cfl) {
+            for (int e = 0; e < geometry.target.length; e++) {
+                if (geometry.target[e] < 0) continue;
+                meanArc += geometry.arcRad[e];
+                edges++;
+            }
+            meanArc = edges > 0 ? meanArc / edges : 0.0;
+        }
+        final double meanArcF = meanArc;
+        double[] lengthM = cfl ? new double[n] : null;
+        double[] courant = new double[n];
+        forEachIndex(n, i -> {
+            Tile t = tiles.get(i);
+            if (lengthM != null) lengthM[i] = TILE_DIST_M * hopScale;
+            if (t.neighbors == null || t.neighbors.isEmpty()) return;
+            double[] advV = moistureAdvectionVector(t, mode);
+            double speedInternal = Math.sqrt(advV[0] * advV[0] + advV[1] * advV[1]);
+            if (speedInternal < 1e-6) return;
+            double transportSpeedMps = speedInternal * WIND_UNIT_TO_MPS * moistureTransportWindBoost(t, mode);
+            double length = TILE_DIST_M * hopScale;
+            if (lengthM != null && meanArcF > 0.0) {
+                double[] weights = new double[t.neighbors.size()];
+                double wSum = advectionWeights(t, advV[0] / (speedInternal + 1e-9), advV[1] / (speedInternal + 1e-9), weights);
+                if (wSum > 1e-9) {
+                    double arc = 0.0;
+                    int e0 = geometry.first(i);
+                    for (int k = 0; k < weights.length; k++) arc += weights[k] * geometry.arcRad[e0 + k];
+                    length = TILE_DIST_M * hopScale * (arc / wSum) / meanArcF;
+                }
+                lengthM[i] = length;
+            }
+            courant[i] = transportSpeedMps * dt / length;
+        });
+
+        double maxCourant = 0.0;
+        for (double c : courant) maxCourant = Math.max(maxCourant, c);
+        if (!cfl) return new AdvectionPlan(fixedSubSteps, maxCourant, maxCourant / fixedSubSteps, null, null, 0, 1);
+
+        double target = ADVECTION_CFL_SAFETY * advectionFracLimit(mode);
+        double[] sorted = courant.clone();
+        Arrays.sort(sorted);
+        int bulk = Math.max(0, Math.min(n - 1, (int) Math.ceil(n * (1.0 - ADVECTION_LOCAL_FRACTION)) - 1));
+        double bulkCourant = n == 0 ? 0.0 : sorted[bulk];
+        int subSteps = (int) clamp(Math.ceil(bulkCourant / target), 1, MAX_ADVECTION_SUBSTEPS);
+        int[] microSteps = new int[n];
+        int localTiles = 0;
+        int maxMicro = 1;
+        double maxSub = 0.0;
+        for (int i = 0; i < n; i++) {
+            int m = (int) clamp(Math.ceil(courant[i] / subSteps / target), 1, MAX_ADVECTION_SUBSTEPS);
+            microSteps[i] = m;
+            if (m > 1) localTiles++;
+            maxMicro = Math.max(maxMicro, m);
+            maxSub = Math.max(maxSub, courant[i] / subSteps / m);
+        }
+        return new AdvectionPlan(subSteps, maxCourant, maxSub, lengthM, microSteps, localTiles, maxMicro);
+    }
+
     private double[] moistureAdvectionVector(Tile t, ClimateModelMode mode) {
         double vx = t.windX;
         double vy = t.windY;
@@ -867,6 +1226,16 @@ public class WindGenerator {
 
     private double[] smoothScalar(List<Tile> tiles, double[] src, double kappa) {
         int n = tiles.size();
+        if (multigrid != null) {
+            double[] w = new double[geometry.target.length];
+            for (int i = 0; i < n; i++) {
+                Tile t = tiles.get(i);
+                if (t.neighbors == null || t.neighbors.isEmpty()) continue;
+                double wi = diffusionScale * kappa / t.neighbors.size();
+                for (int e = geometry.offset[i]; e < geometry.offset[i + 1]; e++) w[e] = wi;
+            }
+            return diffuseImplicit(src, w);
+        }
         double[] out = new double[n];
         forEachIndex(n, i -> {
             Tile t = tiles.get(i);
@@ -888,8 +1257,10 @@ public class WindGenerator {
 
     private double[] mixScalarConservative(List<Tile> tiles, double[] src, double kappa) {
         int n = tiles.size();
-        double[] out = src.clone();
-        for (int i = 0; i < n; i++) {
+        double[] out = (multigrid != null)
+                ? diffuseImplicit(src, conservativeWeights(tiles, (i, j) -> kappa))
+                : src.clone();
+        for (int i = 0; i < n && multigrid == null; i++) {
             Tile ti = tiles.get(i);
             if (ti.neighbors == null || ti.neighbors.isEmpty()) continue;
             int degI = ti.neighbors.size();
@@ -912,8 +1283,16 @@ public class WindGenerator {
 
     private double[] frontEddyMixConservative(List<Tile> tiles, double[] src, double kappaBase, boolean floorZero) {
         int n = tiles.size();
-        double[] out = src.clone();
-        for (int i = 0; i < n; i++) {
+        double[] out;
+        if (multigrid != null) {
+            double[] eddy = new double[n];
+            forEachIndex(n, i -> eddy[i] = frontEddyStrength(tiles.get(i)));
+            out = diffuseImplicit(src, conservativeWeights(tiles,
+                    (i, j) -> kappaBase * (0.35 + 0.65 * Math.max(eddy[i], eddy[j]))));
+        } else {
+            out = src.clone();
+        }
+        for (int i = 0; i < n && multigrid == null; i++) {
             Tile ti = tiles.get(i);
             if (ti.neighbors == null || ti.neighbors.isEmpty()) continue;
             int degI = ti.neighbors.size();
@@ -943,25 +1322,23 @@ public class WindGenerator {
 
     private double[] diffuseSoilMoistureConservative(List<Tile> tiles, double[] src, double kappaBase) {
         int n = tiles.size();
-        double[] out = src.clone();
-        for (int i = 0; i < n; i++) {
+        double[] out = (multigrid != null)
+                ? diffuseImplicit(src, conservativeWeights(tiles, (i, j) -> soilEdgeKappa(tiles.get(i), tiles.get(j), kappaBase)))
+                : src.clone();
+        for (int i = 0; i < n && multigrid == null; i++) {
             Tile ti = tiles.get(i);
             if (ti.neighbors == null || ti.neighbors.isEmpty()) continue;
-            if (isWaterSurface(ti.surfaceType)) continue;
+            if (surfaceTraits.is(ti.id, SurfaceTrait.WATER)) continue;
             int degI = ti.neighbors.size();
             for (Tile nb : ti.neighbors) {
                 int j = nb.id;
                 if (j <= i || j < 0 || j >= n) continue;
                 Tile tj = tiles.get(j);
-                if (isWaterSurface(tj.surfaceType)) continue;
+                if (surfaceTraits.is(tj.id, SurfaceTrait.WATER)) continue;
 
                 int degJ = (tj.neighbors == null) ? 0 : tj.neighbors.size();
                 int deg = Math.max(1, Math.max(degI, degJ));
-                double slope = Math.abs(ti.elevation - tj.elevation);
-                double kappa = kappaBase / (1.0 + 0.20 * slope);
-                if (isWetlandSurface(ti.surfaceType) || isWetlandSurface(tj.surfaceType) || ti.isRiver || tj.isRiver) {
-                    kappa *= 0.60;
-                }
+                double kappa = soilEdgeKappa(ti, tj, kappaBase);
                 double flux = (src[i] - src[j]) * (kappa / deg);
                 out[i] -= flux;
                 out[j] += flux;
@@ -973,6 +1350,56 @@ public class WindGenerator {
         return out;
     }
 
+    /** κ ребра почвенной диффузии между двумя сухопутными тайлами (склон тормозит, болота/реки держат влагу). */
+    private double soilEdgeKappa(Tile ti, Tile tj, double kappaBase) {
+        if (surfaceTraits.is(ti.id, SurfaceTrait.WATER) || surfaceTraits.is(tj.id, SurfaceTrait.WATER)) return 0.0;
+        double slope = Math.abs(ti.elevation - tj.elevation);
+        double kappa = kappaBase / (1.0 + 0.20 * slope);
+        if (surfaceTraits.is(ti.id, SurfaceTrait.WETLAND) || surfaceTraits.is(tj.id, SurfaceTrait.WETLAND) || ti.isRiver || tj.isRiver) {
+            kappa *= 0.60;
+        }
+        return kappa;
+    }
+
+    /** κ ребра (i, j) для консервативного перемешивания; симметричная функция пары. */
+    private interface EdgeKappa {
+        double kappa(int i, int j);
+    }
+
+    /** Веса рёбер geometry как у явных консервативных проходов: κ / max(deg_i, deg_j), с diffusionScale. */
+    private double[] conservativeWeights(List<Tile> tiles, EdgeKappa edgeKappa) {
+        int n = tiles.size();
+        double[] w = new double[geometry.target.length];
+        forEachIndex(n, i -> {
+            Tile ti = tiles.get(i);
+            if (ti.neighbors == null || ti.neighbors.isEmpty()) return;
+            int degI = ti.neighbors.size();
+            for (int e = geometry.offset[i]; e < geometry.offset[i + 1]; e++) {
+                int j = geometry.target[e];
+                if (j < 0 || j >= n || j == i) continue;
+                Tile tj = tiles.get(j);
+                int degJ = (tj.neighbors == null) ? 0 : tj.neighbors.size();
+                int deg = Math.max(1, Math.max(degI, degJ));
+                w[e] = diffusionScale * edgeKappa.kappa(i, j) / deg;
+            }
+        });
+        return w;
+    }
+
+    /**
+     * MULTIGRID: неявный шаг (I + L)u = src. При симметричных весах сумма сохраняется с точностью
+     * допуска решателя, как у явных консервативных проходов.
+     */
+    private double[] diffuseImplicit(double[] src, double[] w) {
+        double[] out = src.clone();
+        MultigridDiffusion.Result r = multigrid.solve(geometry, w, src, out, MultigridDiffusion.DEFAULT_TOLERANCE);
+        mgSolves++;
+        mgCycles += r.cycles();
+        mgSweeps += r.sweeps();
+        mgMaxResidual = Math.max(mgMaxResidual, r.residual());
+        return out;
+    }
+
     private double moistureTransportWindBoost(Tile t, ClimateModelMode mode) {
         if (mode == ClimateModelMode.PHYSICAL) {
             // Slightly stronger long-range moisture export around subtropical/ferrel transition.
@@ -1052,13 +1479,14 @@ public class WindGenerator {
         if (t.neighbors == null || t.neighbors.isEmpty()) return new double[]{0.0, 0.0};
         double gx = 0.0;
         double gy = 0.0;
-        for (Tile nb : t.neighbors) {
-            double[] dir = direction(t, nb);
+        int e0 = geometry.first(t.id);
+        for (int k = 0; k < t.neighbors.size(); k++) {
+            Tile nb = t.neighbors.get(k);
+            int e = e0 + k;
             double dp = t.pressure - nb.pressure; // >0 => acceleration towards neighbor
-            double dist = planarDistanceKm(t, nb);
-            double w = 1.0 / Math.max(30.0, dist);
-            gx += dir[0] * dp * w;
-            gy += dir[1] * dp * w;
+            double w = 1.0 / Math.max(30.0, geometry.planarKm[e]);
+            gx += geometry.dirEast[e] * dp * w;
+            gy += geometry.dirNorth[e] * dp * w;
         }
         return new double[]{gx / t.neighbors.size(), gy / t.neighbors.size()};
     }
@@ -1067,11 +1495,12 @@ public class WindGenerator {
         if (t.neighbors == null || t.neighbors.isEmpty()) return new double[]{0.0, 0.0};
         double gx = 0.0;
         double gy = 0.0;
-        for (Tile nb : t.neighbors) {
-            double[] dir = direction(t, nb);
+        int e0 = geometry.first(t.id);
+        for (int k = 0; k < t.neighbors.size(); k++) {
+            Tile nb = t.neighbors.get(k);
             double dT = t.temperature - nb.temperature;
-            gx += dir[0] * dT;
-            gy += dir[1] * dT;
+            gx += geometry.dirEast[e0 + k] * dT;
+            gy += geometry.dirNorth[e0 + k] * dT;
         }
         return new double[]{gx / t.neighbors.size(), gy / t.neighbors.size()};
     }
@@ -1086,9 +1515,12 @@ public class WindGenerator {
         double tx = 0.0;
         double ty = 0.0;
         double wSum = 0.0;
-        for (Tile nb : t.neighbors) {
-            double[] dir = direction(t, nb);
-            double along = (mag > 1e-6) ? Math.max(0.0, ux * dir[0] + uy * dir[1]) : 1.0;
+        int e0 = geometry.first(t.id);
+        for (int k = 0; k < t.neighbors.size(); k++) {
+            Tile nb = t.neighbors.get(k);
+            double dirE = geometry.dirEast[e0 + k];
+            double dirN = geometry.dirNorth[e0 + k];
+            double along = (mag > 1e-6) ? Math.max(0.0, ux * dirE + uy * dirN) : 1.0;
             int uphill = Math.max(0, nb.elevation - t.elevation);
             int downhill = Math.max(0, t.elevation - nb.elevation);
 
@@ -1097,8 +1529,8 @@ public class WindGenerator {
             double valleyBoost = 1.0 + 0.05 * Math.min(8, downhill);
             double w = (0.2 + along) * pass * valleyBoost;
 
-            tx += dir[0] * w;
-            ty += dir[1] * w;
+            tx += dirE * w;
+            ty += dirN * w;
             wSum += w;
         }
         if (wSum <= 1e-9) return new double[]{0.0, 0.0};
@@ -1122,9 +1554,9 @@ public class WindGenerator {
         if (tile.neighbors == null || tile.neighbors.isEmpty()) return 0.0;
         double div = 0.0;
         int n = 0;
-        for (Tile nb : tile.neighbors) {
-            double[] dir = direction(tile, nb);
-            double vdot = tile.windX * dir[0] + tile.windY * dir[1];
+        int e0 = geometry.first(tile.id);
+        for (int k = 0; k < tile.neighbors.size(); k++) {
+            double vdot = tile.windX * geometry.dirEast[e0 + k] + tile.windY * geometry.dirNorth[e0 + k];
             div += vdot;
             n++;
         }
@@ -1186,47 +1618,8 @@ public class WindGenerator {
         return clamp(q, 0.0, qMax);
     }
 
-    private double saturationVaporPressure(double tempC) {
-        // kPa; piecewise fit keeps behavior stable from cryogenic to super-hot climates.
-        if (tempC <= 0.0) {
-            // Buck (ice), good around sub-zero temperatures.
-            return 0.61115 * Math.exp((23.036 - tempC / 333.7) * (tempC / (279.82 + tempC)));
-        }
-        if (tempC <= 99.0) {
-            // Antoine, 1..100 C
-            double log10mmHg = 8.07131 - (1730.63 / (233.426 + tempC));
-            return Math.pow(10.0, log10mmHg) * 0.133322;
-        }
-        if (tempC <= 374.0) {
-            // Antoine, 99..374 C
-            double log10mmHg = 8.14019 - (1810.94 / (244.485 + tempC));
-            return Math.pow(10.0, log10mmHg) * 0.133322;
-        }
-        // Above critical point: keep monotonic growth without singularity.
-        double tc = tempC - 374.0;
-        return 22064.0 * (1.0 + 0.0025 * tc);
-    }
-
     private double saturationSpecificHumidity(Tile t) {
-        double p = pressureKPa(t.pressure);
-        if (p <= 1e-6) return 0.0;
-
-        double es = Math.max(0.0, saturationVaporPressure(t.temperature));
-        // Vapor partial pressure cannot exceed ambient pressure.
-        double esEff = Math.min(es, p * 0.98);
-        double denom = Math.max(1e-6, p - 0.378 * esEff);
-        double q = 0.622 * esEff / denom;
-        return clamp(q * 1000.0, 0.0, 999.0);
-    }
-
-    private double saturationSpecificHumidity(double tempC, int pressureUnits) {
-        double p = pressureKPa(pressureUnits);
-        if (p <= 1e-6) return 0.0;
-        double es = Math.max(0.0, saturationVaporPressure(tempC));
-        double esEff = Math.min(es, p * 0.98);
-        double denom = Math.max(1e-6, p - 0.378 * esEff);
-        double q = 0.622 * esEff / denom;
-        return clamp(q * 1000.0, 0.0, 999.0);
+        return ClimateKernels.saturationSpecificHumidity(t.temperature, pressureKPa(t.pressure));
     }
 
     private double pressureKPa(int pressureUnits) {
@@ -1243,9 +1636,8 @@ public class WindGenerator {
         double localStartHour = (iter * (double) stepHours) + t.lon / 15.0;
         // Mean diurnal phase over the whole integration window [t, t + stepHours].
         double phase = meanDiurnalCos(localStartHour, stepHours, 14.0);
-        boolean water = isWaterSurface(t.surfaceType);
-        double latAbs = Math.abs(t.lat);
-        double latFactor = clamp(0.25 + 0.75 * Math.cos(Math.toRadians(latAbs)), 0.20, 1.0);
+        boolean water = surfaceTraits.is(t.id, SurfaceTrait.WATER);
+        double latFactor = clamp(0.25 + 0.75 * geometry.cosLat[t.id], 0.20, 1.0);
         double atmDamp = clamp(1.0 / (1.0 + 0.55 * atmDensity), 0.22, 0.95);
         double ampBase = water ? 2.2 : 8.0;
         double amp = ampBase * latFactor * atmDamp;
@@ -1270,71 +1662,6 @@ public class WindGenerator {
         return (Math.sin(b) - Math.sin(a)) / denom;
     }
 
-    private double[] orographicFactors(Tile t) {
-        if (t.neighbors == null || t.neighbors.isEmpty()) return new double[]{0.0, 0.0, 0.0};
-        double mag = Math.sqrt(t.windX * t.windX + t.windY * t.windY);
-        if (mag < 1e-6) return new double[]{0.0, 0.0, 0.0};
-
-        double wx = t.windX / mag;
-        double wy = t.windY / mag;
-        double windward = 0.0;
-        double leeward = 0.0;
-        for (Tile nb : t.neighbors) {
-            double[] dir = direction(t, nb);
-            double dot = wx * dir[0] + wy * dir[1];
-            int diff = nb.elevation - t.elevation;
-            if (diff <= 0) continue;
-            if (dot > 0.2) windward = Math.max(windward, diff / 10.0);
-            if (dot < -0.2) leeward = Math.max(leeward, diff / 10.0);
-        }
-
-        double shadow = upwindShadow(t, wx, wy);
-        windward = clamp(windward, 0.0, 1.6);
-        leeward = clamp(leeward, 0.0, 1.6);
-        shadow = clamp(shadow, 0.0, 1.6);
-        return new double[]{windward, leeward, shadow};
-    }
-
-    private double upwindShadow(Tile t, double wx, double wy) {
-        if (t.neighbors == null || t.neighbors.isEmpty()) return 0.0;
-        double best = 0.0;
-        double windMag = Math.sqrt(t.windX * t.windX + t.windY * t.windY) * WIND_UNIT_TO_MPS;
-
-        int maxDepth = 3;
-        if (windMag > 16.0) maxDepth = 4;
-        if (windMag > 35.0) maxDepth = 5;
-        if (windMag > 65.0) maxDepth = 6;
-
-        for (Tile nb : t.neighbors) {
-            double[] dir = direction(t, nb);
-            double dot = wx * dir[0] + wy * dir[1];
-            if (dot > -0.2) continue;
-            int diff = nb.elevation - t.elevation;
-            if (diff <= 0) continue;
-            best = Math.max(best, diff / 10.0);
-            best = Math.max(best, upwindChain(nb, wx, wy, t.elevation, maxDepth - 1, 1));
-        }
-        return best;
-    }
-
-    private double upwindChain(Tile start, double wx, double wy, int baseElev, int depthLeft, int step) {
-        if (start.neighbors == null || depthLeft <= 0) return 0.0;
-        double best = 0.0;
-        double decay = 1.0 / (1.0 + 0.55 * step);
-
-        for (Tile nb : start.neighbors) {
-            double[] dir = direction(start, nb);
-            double dot = wx * dir[0] + wy * dir[1];
-            if (dot > -0.2) continue;
-            int diff = nb.elevation - baseElev;
-            if (diff > 0) {
-                best = Math.max(best, (diff / 10.0) * decay);
-            }
-            best = Math.max(best, upwindChain(nb, wx, wy, baseElev, depthLeft - 1, step + 1));
-        }
-        return best;
-    }
-
     private double onshoreMoistureIndex(Tile t) {
         if (t.neighbors == null || t.neighbors.isEmpty()) return 0.0;
         double mag = Math.sqrt(t.windX * t.windX + t.windY * t.windY);
@@ -1344,13 +1671,15 @@ public class WindGenerator {
         double wy = t.windY / (mag + 1e-9);
         double sum = 0.0;
         double wsum = 0.0;
-        for (Tile nb : t.neighbors) {
-            double[] dir = direction(nb, t); // upwind inflow direction
-            double inflow = wx * dir[0] + wy * dir[1];
+        int e0 = geometry.first(t.id);
+        for (int k = 0; k < t.neighbors.size(); k++) {
+            Tile nb = t.neighbors.get(k);
+            // upwind inflow direction
+            double inflow = wx * geometry.inEast[e0 + k] + wy * geometry.inNorth[e0 + k];
             if (inflow <= 0.05) continue;
             double w = clamp(inflow, 0.0, 1.0);
             wsum += w;
-            if (isWaterSurface(nb.surfaceType)) {
+            if (surfaceTraits.is(nb.id, SurfaceTrait.WATER)) {
                 sum += w;
             }
         }
@@ -1373,9 +1702,11 @@ public class WindGenerator {
             if (cur.neighbors == null || cur.neighbors.isEmpty()) break;
             Tile best = null;
             double bestInflow = 0.0;
-            for (Tile nb : cur.neighbors) {
-                double[] dir = direction(nb, cur); // inflow direction into current point
-                double inflow = wx * dir[0] + wy * dir[1];
+            int e0 = geometry.first(cur.id);
+            for (int k = 0; k < cur.neighbors.size(); k++) {
+                Tile nb = cur.neighbors.get(k);
+                // inflow direction into current point
+                double inflow = wx * geometry.inEast[e0 + k] + wy * geometry.inNorth[e0 + k];
                 if (inflow > bestInflow) {
                     bestInflow = inflow;
                     best = nb;
@@ -1385,7 +1716,7 @@ public class WindGenerator {
 
             double w = Math.pow(0.74, step - 1) * clamp(bestInflow, 0.0, 1.0);
             wsum += w;
-            if (isWaterSurface(best.surfaceType)) {
+            if (surfaceTraits.is(best.id, SurfaceTrait.WATER)) {
                 score += w;
             }
             cur = best;
@@ -1395,59 +1726,15 @@ public class WindGenerator {
         return clamp(score / wsum, 0.0, 1.0);
     }
 
-    private boolean isForestSurface(SurfaceType st) {
-        return switch (st) {
-            case PLAINS_FOREST, FOREST, RAINFOREST,
-                    HILLS_FOREST, HILLS_RAINFOREST, MOUNTAINS_FOREST, MOUNTAINS_RAINFOREST,
-                    RIDGE_FOREST, CANYON_FOREST, BASIN_FOREST -> true;
-            default -> false;
-        };
-    }
-
-    private boolean isWaterSurface(SurfaceType st) {
-        return switch (st) {
-            case OCEAN, ICE_OCEAN, LAVA_OCEAN,
-                    SHALLOW_SEA,
-                    OPEN_WATER_SHALLOW, OPEN_WATER_DEEP,
-                    LAKE_FRESH, LAKE_SALT, LAKE_BRINE, LAKE_ACID,
-                    SEA_ICE_SHALLOW, SEA_ICE_DEEP,
-                    STEAM_SEA -> true;
-            default -> false;
-        };
-    }
-
-    private boolean isWetlandSurface(SurfaceType st) {
-        return switch (st) {
-            case SWAMP, MUD_SWAMP, BASIN_SWAMP -> true;
-            default -> false;
-        };
-    }
-
     private boolean hasWaterNeighbor(Tile t) {
         if (t.neighbors == null || t.neighbors.isEmpty()) return false;
         for (Tile nb : t.neighbors) {
             if (nb == null) continue;
-            if (isWaterSurface(nb.surfaceType)) return true;
+            if (surfaceTraits.is(nb.id, SurfaceTrait.WATER)) return true;
         }
         return false;
     }
 
-    private double[] direction(Tile from, Tile to) {
-        double dLon = lonDeltaDeg(from.lon, to.lon);
-        double dx = dLon * 111.0 * Math.cos(Math.toRadians(from.lat));
-        double dy = (to.lat - from.lat) * 111.0;
-        double len = Math.sqrt(dx * dx + dy * dy);
-        if (len < 1e-6) return new double[]{0.0, 0.0};
-        return new double[]{dx / len, dy / len};
-    }
-
-    private double planarDistanceKm(Tile a, Tile b) {
-        double dLon = lonDeltaDeg(a.lon, b.lon);
-        double dx = dLon * 111.0 * Math.cos(Math.toRadians(a.lat));
-        double dy = (b.lat - a.lat) * 111.0;
-        return Math.sqrt(dx * dx + dy * dy);
-    }
-
     private double lonDeltaDeg(double fromLon, double toLon) {
         double d = toLon - fromLon;
         if (d > 180.0) d -= 360.0;
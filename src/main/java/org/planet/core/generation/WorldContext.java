@@ -1,12 +1,16 @@
 package org.planet.core.generation;
 
+import org.planet.core.model.SurfaceTraitColumn;
 import org.planet.core.model.Tile;
 import org.planet.core.model.TectonicPlate;
 import org.planet.core.model.config.GeneratorSettings;
 import org.planet.core.model.config.PlanetConfig;
+import org.planet.core.model.config.RngMode;
+import org.planet.core.topology.TileGeometry;
 
+import java.util.EnumMap;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
 
 /**
  * Контекст одной генерации планеты (один запуск = один контекст).
@@ -18,15 +22,58 @@ public class WorldContext {
     public final PlanetConfig planet;
     public final GeneratorSettings settings;
 
-    /** Стабильный RNG для генерации (один на запуск). */
-    public final Random rng;
+    /**
+     * Счётчиковый RNG запуска: стадии берут свой поток rng.stream(StageId), розыгрыши адресуются
+     * id тайла, поэтому не зависят от порядка обхода.
+     */
+    public final CounterRng rng;
 
     /** Базовый тип поверхности до водной классификации (по id тайла). */
     public int[] baseSurfaceType;
 
+    /** Геометрия рёбер сетки (направления, длины, cos/sin широты). Появляется после NEIGHBORS. */
+    public TileGeometry geometry;
+
     /** Список плит появляется после PlateStage. До этого может быть null. */
     public List<TectonicPlate> plates;
 
+    /** Границы плит (после PLATES): граничные тайлы, рёбра со сближением, расстояние до границы. */
+    public PlateBoundaryIndex plateBoundaries;
+
+    /** Слушатель стадий (для отчётов изнутри генераторов). Проставляет GenerationPipeline. */
+    public StageListener listener;
+
+    /** Отмена генерации (проверяется между стадиями и в длинных циклах). Проставляет GenerationPipeline. */
+    public CancellationToken cancellation = CancellationToken.NONE;
+
+    /** Годовое равновесие влагооборота (после WIND / CLIMATE_RECALC / RIVERS): кэш для warm start. */
+    public ClimateState climateState;
+
+    /** Грубление сетки влагооборота (StageProfile.climateCoarsening). Проставляет GenerationPipeline. */
+    public int climateCoarsening;
+
+    /** Кэш перцентилей по планете; GenerationPipeline сбрасывает его перед каждой стадией. */
+    public final PlanetStats stats = new PlanetStats();
+
+    /**
+     * Признаки surfaceType по id тайла. GenerationPipeline перечитывает колонку перед каждой стадией;
+     * стадии воды, льда, лавы и импактов пишут типы через surfaceTraits.set(), и после них
+     * (при включённых валидациях) колонка сверяется с тайлами.
+     */
+    public final SurfaceTraitColumn surfaceTraits;
+
+    /** Ресурсы по колонкам (после RESOURCES); tile.resources — их материализованная копия. */
+    public ResourceStore resources;
+
+    /**
+     * Типы поверхности (ordinal по id тайла) на входе стадий RegionStage — чтобы повторить стадию
+     * на области правки с того же входа. Заполняет GenerationPipeline.
+     */
+    public final Map<StageId, int[]> surfaceBefore = new EnumMap<>(StageId.class);
+
+    /** Правки пользователя: ordinal типа по id тайла, -1 — без правки. null до первой правки. */
+    public int[] surfaceOverride;
+
     /** Сколько плит генерим. */
     public final int plateCount;
 
@@ -35,9 +82,15 @@ public class WorldContext {
         this.planet = planet;
         this.settings = settings;
         this.plateCount = plateCount;
+        this.surfaceTraits = SurfaceTraitColumn.of(tiles);
 
         // Берём сид из settings (если он у тебя гарантированно проставляется)
         // Если settings.seed может быть 0/не задан — поставь тут запасной.
-        this.rng = new Random(settings.seed);
+        this.rng = new CounterRng(settings.seed);
+    }
+
+    /** Поток стадии при rngMode == COUNTER, иначе null (генератор берёт свой последовательный Random). */
+    public CounterRng.Stream rngStream(StageId stage) {
+        return settings.rngMode == RngMode.COUNTER ? rng.stream(stage) : null;
     }
 }
@@ -1,5 +1,6 @@
 package org.planet.core.generation;
 
+import org.planet.core.model.SurfaceTrait;
 import org.planet.core.model.SurfaceType;
 import org.planet.core.model.Tile;
 
@@ -198,7 +199,7 @@ public class WorldStats {
         for (int i = 0; i < n; i++) dist[i] = -1;
         ArrayDeque<Tile> q = new ArrayDeque<>();
         for (Tile t : tiles) {
-            if (isWaterSurface(t.surfaceType)) {
+            if (t.surfaceType.is(SurfaceTrait.WATER)) {
                 dist[t.id] = 0;
                 q.add(t);
             }
@@ -220,14 +221,4 @@ public class WorldStats {
         return dist;
     }
 
-    private static boolean isWaterSurface(SurfaceType st) {
-        return switch (st) {
-            case OCEAN, ICE_OCEAN, LAVA_OCEAN,
-                    OPEN_WATER_SHALLOW, OPEN_WATER_DEEP,
-                    LAKE_FRESH, LAKE_SALT, LAKE_BRINE, LAKE_ACID,
-                    SEA_ICE_SHALLOW, SEA_ICE_DEEP,
-                    STEAM_SEA -> true;
-            default -> false;
-        };
-    }
 }
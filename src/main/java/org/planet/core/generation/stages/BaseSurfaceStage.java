@@ -15,7 +15,7 @@ public class BaseSurfaceStage implements GenerationStage {
 
     @Override
     public void apply(WorldContext ctx) {
-        new PlanetGenerator(ctx.settings).generateBaseSurface(ctx.tiles, ctx.planet);
+        new PlanetGenerator(ctx.settings, ctx.rngStream(StageId.BASE_SURFACE)).generateBaseSurface(ctx.tiles, ctx.planet);
         // snapshot base surface types before later water classification overwrites them
         ctx.baseSurfaceType = new int[ctx.tiles.size()];
         for (int i = 0; i < ctx.tiles.size(); i++) {
@@ -1,11 +1,14 @@
 package org.planet.core.generation.stages;
 
 import org.planet.core.generation.BiomeGeneratorV2;
-import org.planet.core.generation.GenerationStage;
+import org.planet.core.generation.DirtyRegion;
+import org.planet.core.generation.RegionStage;
 import org.planet.core.generation.StageId;
 import org.planet.core.generation.WorldContext;
+import org.planet.core.model.SurfaceType;
+import org.planet.core.model.Tile;
 
-public class BiomeStage implements GenerationStage {
+public class BiomeStage implements RegionStage {
 
     @Override
     public StageId id() {
@@ -19,21 +22,40 @@ public class BiomeStage implements GenerationStage {
 
     @Override
     public void apply(WorldContext ctx) {
-        boolean hasLiquidWater = ctx.tiles.stream().anyMatch(t -> switch (t.surfaceType) {
+        boolean hasLiquidWater = hasLiquidWater(ctx);
+        if (!hasLiquidWater) {
+            for (var t : ctx.tiles) {
+                dropSwamp(t);
+            }
+        }
+        new BiomeGeneratorV2().apply(ctx.tiles, ctx.planet, hasLiquidWater, ctx.settings.seed, ctx.settings.climateModelMode, ctx.stats);
+    }
+
+    @Override
+    public void applyRegion(WorldContext ctx, DirtyRegion region) {
+        boolean hasLiquidWater = hasLiquidWater(ctx);
+        int[] ids = region.ids();
+        if (!hasLiquidWater) {
+            for (int id : ids) {
+                dropSwamp(ctx.tiles.get(id));
+            }
+        }
+        new BiomeGeneratorV2().apply(ctx.tiles, ctx.planet, hasLiquidWater, ctx.settings.seed, ctx.settings.climateModelMode, ctx.stats, ids);
+    }
+
+    private static boolean hasLiquidWater(WorldContext ctx) {
+        return ctx.tiles.stream().anyMatch(t -> switch (t.surfaceType) {
             case OCEAN, ICE_OCEAN, LAVA_OCEAN,
                     OPEN_WATER_SHALLOW, OPEN_WATER_DEEP,
                     LAKE_FRESH, LAKE_SALT, LAKE_BRINE, LAKE_ACID,
                     SEA_ICE_SHALLOW, SEA_ICE_DEEP -> true;
             default -> false;
         });
-        if (!hasLiquidWater) {
-            for (var t : ctx.tiles) {
-                if (t.surfaceType == org.planet.core.model.SurfaceType.SWAMP
-                        || t.surfaceType == org.planet.core.model.SurfaceType.MUD_SWAMP) {
-                    t.surfaceType = org.planet.core.model.SurfaceType.BASIN_DRY;
-                }
-            }
+    }
+
+    private static void dropSwamp(Tile t) {
+        if (t.surfaceType == SurfaceType.SWAMP || t.surfaceType == SurfaceType.MUD_SWAMP) {
+            t.surfaceType = SurfaceType.BASIN_DRY;
         }
-        new BiomeGeneratorV2().apply(ctx.tiles, ctx.planet, hasLiquidWater, ctx.settings.seed, ctx.settings.climateModelMode);
     }
 }
@@ -2,7 +2,9 @@ package org.planet.core.generation.stages;
 
 import org.planet.core.generation.GenerationStage;
 import org.planet.core.generation.WorldContext;
+import org.planet.core.topology.GridHierarchy;
 import org.planet.core.topology.IcosaNeighborsBuilder;
+import org.planet.core.topology.TileGeometry;
 import org.planet.core.generation.StageId;
 
 
@@ -24,7 +26,17 @@ public class BuildNeighborsStage implements GenerationStage {
 
     @Override
     public void apply(WorldContext ctx) {
-        new IcosaNeighborsBuilder().build(ctx.tiles);
+        // Стандартные сетки D2..D6 берут соседей из кэша топологии (тот же результат без O(n^2) поиска)
+        // и общую на все планеты уровня геометрию
+        GridHierarchy grids = GridHierarchy.shared();
+        int level = grids.levelOf(ctx.tiles);
+        if (level > 0) {
+            grids.applyNeighbors(level, ctx.tiles);
+            ctx.geometry = grids.geometry(level);
+        } else {
+            new IcosaNeighborsBuilder().build(ctx.tiles);
+            ctx.geometry = TileGeometry.build(ctx.tiles);
+        }
     }
 
     @Override
@@ -1,7 +1,9 @@
 package org.planet.core.generation.stages;
 
 import org.planet.core.generation.ClimateGenerator;
+import org.planet.core.generation.CoarseClimate;
 import org.planet.core.generation.GenerationStage;
+import org.planet.core.generation.IterationControl;
 import org.planet.core.generation.StageId;
 import org.planet.core.generation.WorldContext;
 import org.planet.core.generation.WindGenerator;
@@ -32,7 +34,16 @@ public class ClimateRecalcStage implements GenerationStage {
     @Override
     public void apply(WorldContext ctx) {
         new ClimateGenerator().generate(ctx.tiles, ctx.planet);
-        new WindGenerator(alpha, beta, gamma).generateWind(ctx.tiles, ctx.planet, 0.0, ctx.settings.seed, ctx.settings.climateModelMode);
-        ClimateSampler.sample(ctx.tiles, ctx.planet);
+        WindGenerator wind = new WindGenerator(alpha, beta, gamma);
+        wind.setIterationControl(IterationControl.of(ctx, id()));
+        wind.setDiffusionSolver(ctx.settings.diffusionSolver, ctx.settings.diffusionRefLevel);
+        wind.setAdvectionStepping(ctx.settings.advectionStepping);
+        if (ctx.settings.climateWarmStart) {
+            // После эрозии/ребаланса форсинг меняется мало: стартуем из равновесия WIND.
+            wind.setWarmStart(ctx.climateState);
+        }
+        CoarseClimate.generateWind(wind, ctx, 0.0);
+        ctx.climateState = wind.equilibriumState();
+        ClimateSampler.sample(ctx.tiles, ctx.planet, ctx.geometry);
     }
 }
@@ -2,6 +2,7 @@ package org.planet.core.generation.stages;
 
 import org.planet.core.generation.ErosionGeneratorV2;
 import org.planet.core.generation.GenerationStage;
+import org.planet.core.generation.IterationControl;
 import org.planet.core.generation.StageId;
 import org.planet.core.generation.WorldContext;
 
@@ -19,6 +20,6 @@ public class ErosionStage implements GenerationStage {
 
     @Override
     public void apply(WorldContext ctx) {
-        new ErosionGeneratorV2().erode(ctx.tiles, ctx.planet, ctx.settings);
+        new ErosionGeneratorV2().erode(ctx.tiles, ctx.planet, ctx.settings, IterationControl.of(ctx, id()));
     }
 }
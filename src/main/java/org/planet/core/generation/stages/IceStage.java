@@ -19,6 +19,8 @@ public class IceStage implements GenerationStage {
 
     @Override
     public void apply(WorldContext ctx) {
-        new IceGenerator().apply(ctx.tiles, ctx.planet);
+        IceGenerator gen = new IceGenerator();
+        gen.setSurfaceTraits(ctx.surfaceTraits);
+        gen.apply(ctx.tiles, ctx.planet);
     }
 }
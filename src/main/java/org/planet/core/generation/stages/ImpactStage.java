@@ -19,6 +19,8 @@ public class ImpactStage implements GenerationStage {
 
     @Override
     public void apply(WorldContext ctx) {
-        new ImpactGenerator().apply(ctx.tiles, ctx.planet, ctx.settings.seed);
+        ImpactGenerator gen = new ImpactGenerator();
+        gen.setSurfaceTraits(ctx.surfaceTraits);
+        gen.apply(ctx.tiles, ctx.planet, ctx.settings.seed, ctx.geometry);
     }
 }
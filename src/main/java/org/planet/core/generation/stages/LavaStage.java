@@ -19,6 +19,8 @@ public class LavaStage implements GenerationStage {
 
     @Override
     public void apply(WorldContext ctx) {
-        new LavaGenerator().apply(ctx.tiles, ctx.settings.seed);
+        LavaGenerator gen = new LavaGenerator();
+        gen.setSurfaceTraits(ctx.surfaceTraits);
+        gen.apply(ctx.tiles, ctx.settings.seed, ctx.plateBoundaries);
     }
 }
@@ -15,7 +15,7 @@ public class MountainsStage implements GenerationStage {
 
     @Override
     public void apply(WorldContext ctx) {
-        MountainGenerator gen = new MountainGenerator(ctx.settings.seed);
+        MountainGenerator gen = new MountainGenerator(ctx.settings.seed, ctx.rngStream(StageId.MOUNTAINS));
         double gravity = (ctx.planet == null) ? 1.0 : ctx.planet.gravity;
         gen.generateMountains(ctx.tiles, gravity);
     }
@@ -1,6 +1,7 @@
 package org.planet.core.generation.stages;
 
 import org.planet.core.generation.GenerationStage;
+import org.planet.core.generation.PlateBoundaryIndex;
 import org.planet.core.generation.PlateGenerator;
 import org.planet.core.generation.WorldContext;
 import org.planet.core.generation.StageId;
@@ -16,8 +17,10 @@ public class PlatesStage implements GenerationStage {
     @Override
     public void apply(WorldContext ctx) {
         // Важно: PlateGenerator в твоём проекте принимает seed.
-        PlateGenerator gen = new PlateGenerator(ctx.settings.seed);
-        ctx.plates = gen.generatePlates(ctx.tiles, ctx.planet, ctx.plateCount);
+        PlateGenerator gen = new PlateGenerator(ctx.settings.seed, ctx.rngStream(StageId.PLATES));
+        ctx.plates = gen.generatePlates(ctx.tiles, ctx.planet, ctx.plateCount,
+                ctx.settings.plateGrowthMode, ctx.settings.plateGrowthSpread);
+        ctx.plateBoundaries = PlateBoundaryIndex.build(ctx.tiles, ctx.plates);
     }
 
     @Override
@@ -1,11 +1,14 @@
 package org.planet.core.generation.stages;
 
-import org.planet.core.generation.GenerationStage;
+import org.planet.core.generation.DirtyRegion;
+import org.planet.core.generation.RegionStage;
 import org.planet.core.generation.ReliefClassifierGenerator;
 import org.planet.core.generation.StageId;
 import org.planet.core.generation.WorldContext;
+import org.planet.core.model.SurfaceType;
+import org.planet.core.model.Tile;
 
-public class ReliefStage implements GenerationStage {
+public class ReliefStage implements RegionStage {
 
     @Override
     public StageId id() {
@@ -19,20 +22,38 @@ public class ReliefStage implements GenerationStage {
 
     @Override
     public void apply(WorldContext ctx) {
-        boolean hasLiquidWater = ctx.tiles.stream().anyMatch(t -> switch (t.surfaceType) {
+        if (!hasLiquidWater(ctx)) {
+            for (var t : ctx.tiles) {
+                dropSwamp(t);
+            }
+        }
+        new ReliefClassifierGenerator().apply(ctx.tiles, ctx.settings, ctx.stats);
+    }
+
+    @Override
+    public void applyRegion(WorldContext ctx, DirtyRegion region) {
+        int[] ids = region.ids();
+        if (!hasLiquidWater(ctx)) {
+            for (int id : ids) {
+                dropSwamp(ctx.tiles.get(id));
+            }
+        }
+        new ReliefClassifierGenerator().apply(ctx.tiles, ctx.settings, ctx.stats, ctx.surfaceBefore.get(id()), ids);
+    }
+
+    private static boolean hasLiquidWater(WorldContext ctx) {
+        return ctx.tiles.stream().anyMatch(t -> switch (t.surfaceType) {
             case OCEAN, ICE_OCEAN, LAVA_OCEAN,
                     OPEN_WATER_SHALLOW, OPEN_WATER_DEEP,
                     LAKE_FRESH, LAKE_SALT, LAKE_BRINE, LAKE_ACID,
                     SEA_ICE_SHALLOW, SEA_ICE_DEEP -> true;
             default -> false;
         });
-        if (!hasLiquidWater) {
-            for (var t : ctx.tiles) {
-                if (t.surfaceType == org.planet.core.model.SurfaceType.BASIN_SWAMP) {
-                    t.surfaceType = org.planet.core.model.SurfaceType.BASIN_DRY;
-                }
-            }
+    }
+
+    private static void dropSwamp(Tile t) {
+        if (t.surfaceType == SurfaceType.BASIN_SWAMP) {
+            t.surfaceType = SurfaceType.BASIN_DRY;
         }
-        new ReliefClassifierGenerator().apply(ctx.tiles, ctx.settings);
     }
 }
@@ -19,6 +19,14 @@ public class ResourceStage implements GenerationStage {
 
     @Override
     public void apply(WorldContext ctx) {
-        new ResourceGenerator().generate(ctx.tiles, ctx.planet, ctx.settings);
+        ResourceGenerator generator = new ResourceGenerator();
+        generator.generate(ctx.tiles, ctx.planet, ctx.settings, ctx.geometry, ctx.plateBoundaries);
+        ctx.resources = generator.store();
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        // хранилище собирается заново, поля тайлов (приливы, инсоляция) перезаписываются
+        return true;
     }
 }
@@ -2,6 +2,7 @@ package org.planet.core.generation.stages;
 
 import org.planet.core.generation.ClimateSampler;
 import org.planet.core.generation.GenerationStage;
+import org.planet.core.generation.IterationControl;
 import org.planet.core.generation.RiverGenerator;
 import org.planet.core.generation.StageId;
 import org.planet.core.generation.WindGenerator;
@@ -33,7 +34,17 @@ public class RiverStage implements GenerationStage {
     public void apply(WorldContext ctx) {
         new RiverGenerator().generate(ctx.tiles, ctx.planet, ctx.settings.seed);
         // Recompute hydro-climate after rivers: updated surface moisture should affect evap/precip before biomes.
-        new WindGenerator(alpha, beta, gamma).generateWind(ctx.tiles, ctx.planet, 0.0, ctx.settings.seed, ctx.settings.climateModelMode);
-        ClimateSampler.sample(ctx.tiles, ctx.planet);
+        WindGenerator wind = new WindGenerator(alpha, beta, gamma);
+        wind.setIterationControl(IterationControl.of(ctx, id()));
+        wind.setDiffusionSolver(ctx.settings.diffusionSolver, ctx.settings.diffusionRefLevel);
+        wind.setAdvectionStepping(ctx.settings.advectionStepping);
+        wind.setGeometry(ctx.geometry);
+        wind.setSurfaceTraits(ctx.surfaceTraits);
+        if (ctx.settings.climateWarmStart) {
+            wind.setWarmStart(ctx.climateState);
+        }
+        wind.generateWind(ctx.tiles, ctx.planet, 0.0, ctx.settings.seed, ctx.settings.climateModelMode);
+        ctx.climateState = wind.equilibriumState();
+        ClimateSampler.sample(ctx.tiles, ctx.planet, ctx.geometry);
     }
 }
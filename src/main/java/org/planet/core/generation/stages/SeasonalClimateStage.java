@@ -2,7 +2,9 @@ package org.planet.core.generation.stages;
 
 import org.planet.core.generation.ClimateGenerator;
 import org.planet.core.generation.ClimateSampler;
+import org.planet.core.generation.CoarseClimate;
 import org.planet.core.generation.GenerationStage;
+import org.planet.core.generation.IterationControl;
 import org.planet.core.generation.StageId;
 import org.planet.core.generation.WorldContext;
 import org.planet.core.generation.WindGenerator;
@@ -85,6 +87,13 @@ public class SeasonalClimateStage implements GenerationStage {
 
         ClimateGenerator climate = new ClimateGenerator();
         WindGenerator wind = new WindGenerator(alpha, beta, gamma);
+        wind.setIterationControl(IterationControl.of(ctx, id()));
+        wind.setDiffusionSolver(ctx.settings.diffusionSolver, ctx.settings.diffusionRefLevel);
+        wind.setAdvectionStepping(ctx.settings.advectionStepping);
+        if (ctx.settings.climateWarmStart) {
+            // Оба сезона стартуют из годового равновесия (кэш не перезаписываем сезонными состояниями).
+            wind.setWarmStart(ctx.climateState);
+        }
 
         double tilt = ctx.planet.axialTilt;
         if (Double.isNaN(tilt)) tilt = 0.0;
@@ -94,8 +103,8 @@ public class SeasonalClimateStage implements GenerationStage {
         // Season A (+tilt)
         clearSeasonTempRange(tiles);
         climate.generateSeason(tiles, ctx.planet, tilt);
-        wind.generateWind(tiles, ctx.planet, tilt, ctx.settings.seed, ctx.settings.climateModelMode);
-        ClimateSampler.sample(tiles, ctx.planet);
+        CoarseClimate.generateWind(wind, ctx, tilt);
+        ClimateSampler.sample(tiles, ctx.planet, ctx.geometry);
         SeasonSnapshot seasonA = SeasonSnapshot.capture(tiles);
 
         // Season B must start from annual baseline, not from season-A mutated moisture/wind state.
@@ -104,8 +113,8 @@ public class SeasonalClimateStage implements GenerationStage {
         // Season B (-tilt)
         clearSeasonTempRange(tiles);
         climate.generateSeason(tiles, ctx.planet, -tilt);
-        wind.generateWind(tiles, ctx.planet, -tilt, ctx.settings.seed, ctx.settings.climateModelMode);
-        ClimateSampler.sample(tiles, ctx.planet);
+        CoarseClimate.generateWind(wind, ctx, -tilt);
+        ClimateSampler.sample(tiles, ctx.planet, ctx.geometry);
         SeasonSnapshot seasonB = SeasonSnapshot.capture(tiles);
 
         // Global seasonal snapshots for UI/dumps:
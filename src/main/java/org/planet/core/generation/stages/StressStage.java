@@ -18,7 +18,7 @@ public class StressStage implements GenerationStage {
         if (ctx.plates == null) {
             throw new IllegalStateException("Plates not generated yet (ctx.plates is null)");
         }
-        new TectonicStressGenerator().generateStress(ctx.tiles, ctx.plates);
+        new TectonicStressGenerator().generateStress(ctx.tiles, ctx.plates, ctx.plateBoundaries);
     }
 
     @Override
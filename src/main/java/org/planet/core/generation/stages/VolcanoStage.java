@@ -15,8 +15,8 @@ public class VolcanoStage implements GenerationStage {
 
     @Override
     public void apply(WorldContext ctx) {
-        VolcanoGenerator gen = new VolcanoGenerator(ctx.settings.seed);
-        gen.generateVolcanism(ctx.tiles, ctx.planet.volcanism);
+        VolcanoGenerator gen = new VolcanoGenerator(ctx.settings.seed, ctx.rngStream(StageId.VOLCANISM));
+        gen.generateVolcanism(ctx.tiles, ctx.planet.volcanism, ctx.plateBoundaries);
     }
     @Override
     public StageId id() {
@@ -19,6 +19,8 @@ public class WaterClassifyStage implements GenerationStage {
 
     @Override
     public void apply(WorldContext ctx) {
-        new WaterClassifierGenerator(ctx.settings.seed).apply(ctx.tiles, ctx.planet, ctx.baseSurfaceType);
+        WaterClassifierGenerator gen = new WaterClassifierGenerator(ctx.settings.seed);
+        gen.setSurfaceTraits(ctx.surfaceTraits);
+        gen.apply(ctx.tiles, ctx.planet, ctx.baseSurfaceType, ctx.plateBoundaries);
     }
 }
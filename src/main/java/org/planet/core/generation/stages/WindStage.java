@@ -1,6 +1,8 @@
 package org.planet.core.generation.stages;
 
+import org.planet.core.generation.CoarseClimate;
 import org.planet.core.generation.GenerationStage;
+import org.planet.core.generation.IterationControl;
 import org.planet.core.generation.WindGenerator;
 import org.planet.core.generation.WorldContext;
 import org.planet.core.generation.StageId;
@@ -26,9 +28,13 @@ public class WindStage implements GenerationStage {
     @Override
     public void apply(WorldContext ctx) {
         WindGenerator wind = new WindGenerator(alpha, beta, gamma);
-        wind.generateWind(ctx.tiles, ctx.planet, 0.0, ctx.settings.seed, ctx.settings.climateModelMode);
+        wind.setIterationControl(IterationControl.of(ctx, id()));
+        wind.setDiffusionSolver(ctx.settings.diffusionSolver, ctx.settings.diffusionRefLevel);
+        wind.setAdvectionStepping(ctx.settings.advectionStepping);
+        CoarseClimate.generateWind(wind, ctx, 0.0);
+        ctx.climateState = wind.equilibriumState();
         // Снимаем слепок климата сразу после ветра
-        org.planet.core.generation.ClimateSampler.sample(ctx.tiles, ctx.planet);
+        org.planet.core.generation.ClimateSampler.sample(ctx.tiles, ctx.planet, ctx.geometry);
     }
 
     @Override
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.planet.core.generation.ResourcePresence;
+import org.planet.core.generation.ResourceStore;
 import org.planet.core.model.BiomeRegime;
 import org.planet.core.model.Tile;
 import org.planet.core.model.config.PlanetConfig;
@@ -34,6 +35,16 @@ public class PlanetSurfaceSerializer {
     private static final ObjectMapper MAPPER = new ObjectMapper();
 
     public static String toJson(List<Tile> tiles, PlanetConfig planet) throws Exception {
+        return toJson(tiles, planet, null);
+    }
+
+    /**
+     * @param resources колонки ресурсов этой же генерации (после finish); null или хранилище
+     *                  другой сетки = брать tile.resources
+     */
+    public static String toJson(List<Tile> tiles, PlanetConfig planet, ResourceStore resources) throws Exception {
+        ResourceStore store = (resources != null && resources.isFinished() && resources.tileCount() == tiles.size())
+                ? resources : null;
         ObjectNode root = MAPPER.createObjectNode();
         root.put("sv", 2);
         root.put("gv", "2026-02-17");
@@ -64,7 +75,7 @@ public class PlanetSurfaceSerializer {
             hex.add(toTripleIntStr(pickSunnyWarm(t), pickSunnyInter(t), pickSunnyCold(t)));
 
             hex.add(buildRiverBlock(t));
-            hex.add(buildResourcesBlock(t));
+            hex.add(store != null ? buildResourcesBlock(t, store) : buildResourcesBlock(t));
             hex.add(buildTideBlock(t));
             hex.add(buildSolarBlock(t));
 
@@ -94,7 +105,34 @@ public class PlanetSurfaceSerializer {
                 r.add(round2(rp.tonnes));
                 res.add(r);
             }
-        } else if (t.resourceType != 0 || t.resSurface > 0 || t.resMid > 0 || t.resDeep > 0) {
+        } else {
+            addLegacyResource(res, t);
+        }
+        return res;
+    }
+
+    private static ArrayNode buildResourcesBlock(Tile t, ResourceStore store) {
+        ArrayNode res = MAPPER.createArrayNode();
+        int from = store.rowStart(t.id);
+        int to = store.rowEnd(t.id);
+        if (from < to) {
+            for (int row = from; row < to; row++) {
+                ArrayNode r = MAPPER.createArrayNode();
+                r.add(store.type(row).id);
+                r.add(store.layer(row).ordinal());
+                r.add(store.quality(row));
+                r.add(store.saturation(row));
+                r.add(round2(store.tonnes(row)));
+                res.add(r);
+            }
+        } else {
+            addLegacyResource(res, t);
+        }
+        return res;
+    }
+
+    private static void addLegacyResource(ArrayNode res, Tile t) {
+        if (t.resourceType != 0 || t.resSurface > 0 || t.resMid > 0 || t.resDeep > 0) {
             ArrayNode r = MAPPER.createArrayNode();
             r.add(t.resourceType);
             r.add(0);
@@ -103,7 +141,6 @@ public class PlanetSurfaceSerializer {
             r.add(round2(t.resSurface));
             res.add(r);
         }
-        return res;
     }
 
     private static ArrayNode buildRiverBlock(Tile t) {
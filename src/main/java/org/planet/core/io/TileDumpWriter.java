@@ -0,0 +1,557 @@
+package org.planet.core.io;
+
+import org.planet.core.db.dto.StarSystemObjectRow;
+import org.planet.core.generation.ResourcePresence;
+import org.planet.core.generation.ResourceStatsReport;
+import org.planet.core.generation.ResourceStore;
+import org.planet.core.generation.ResourceType;
+import org.planet.core.model.BiomeModifier;
+import org.planet.core.model.Tile;
+import org.planet.core.model.config.PlanetConfig;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Отладочный дамп тайлов планеты (общий для Main и BatchMain).
+ *
+ * Файл = комментарии "# ..." с параметрами объекта/планеты и статистикой ресурсов, затем строки
+ * по фиксированной схеме COLUMNS. Строки идут потоком через буферизованный writer, одна строка
+ * собирается в переиспользуемом StringBuilder; числа "%.4f" форматируются без String.format
+ * (тот же текст, что у String.format(Locale.US, "%.4f", v)).
+ *
+ * Формат — planet.dump.format:
+ *  tsv (по умолчанию) — прежний текстовый файл, байт в байт;
+ *  tsv.gz             — он же через gzip;
+ *  bin / bin.gz       — колонки подряд (см. writeBinary), без форматирования чисел.
+ */
+public final class TileDumpWriter {
+
+    public enum Format {
+        TSV(".tsv", false, false),
+        TSV_GZ(".tsv.gz", true, false),
+        BIN(".bin", false, true),
+        BIN_GZ(".bin.gz", true, true);
+
+        public final String extension;
+        final boolean gzip;
+        final boolean binary;
+
+        Format(String extension, boolean gzip, boolean binary) {
+            this.extension = extension;
+            this.gzip = gzip;
+            this.binary = binary;
+        }
+
+        /** Формат из planet.dump.format (tsv | tsv.gz | bin | bin.gz). */
+        public static Format fromProperty() {
+            String v = System.getProperty("planet.dump.format", "tsv").trim().toLowerCase(Locale.ROOT);
+            for (Format f : values()) {
+                if (f.extension.substring(1).equals(v)) return f;
+            }
+            throw new IllegalArgumentException("planet.dump.format: ожидается tsv, tsv.gz, bin или bin.gz, получено " + v);
+        }
+    }
+
+    private static final int BUFFER = 1 << 16;
+    private static final int BIN_MAGIC = 0x50534744; // "PSGD"
+    private static final short BIN_VERSION = 1;
+
+    private TileDumpWriter() {
+    }
+
+    public static Path dump(Path outDir, StarSystemObjectRow row, long seed, PlanetConfig planet, List<Tile> tiles) throws IOException {
+        return dump(outDir, row, seed, planet, tiles, null, Format.fromProperty());
+    }
+
+    /** resources — ресурсы по колонкам (WorldContext.resources); null — брать tile.resources. */
+    public static Path dump(Path outDir, StarSystemObjectRow row, long seed, PlanetConfig planet,
+                            List<Tile> tiles, ResourceStore resources) throws IOException {
+        return dump(outDir, row, seed, planet, tiles, resources, Format.fromProperty());
+    }
+
+    /**
+     * Записать дамп в outDir (имя — по системе и объекту); предыдущие два дампа того же объекта
+     * сдвигаются в _prev1/_prev2.
+     */
+    public static Path dump(Path outDir, StarSystemObjectRow row, long seed, PlanetConfig planet,
+                            List<Tile> tiles, Format format) throws IOException {
+        return dump(outDir, row, seed, planet, tiles, null, format);
+    }
+
+    public static Path dump(Path outDir, StarSystemObjectRow row, long seed, PlanetConfig planet,
+                            List<Tile> tiles, ResourceStore resources, Format format) throws IOException {
+        String fileName = "debug_tiles_StarSystem_" + row.starSysIdx + "_" + sanitizeFilePart(row.objectName)
+                + "_obj" + row.objectInternalId + format.extension;
+        Path out = outDir.resolve(fileName);
+        List<String> header = headerLines(row, seed, planet, tiles, resources);
+
+        rotateDumpHistory(out, format.extension);
+        try (OutputStream os = open(out, format.gzip)) {
+            if (format.binary) {
+                writeBinary(os, header, tiles, resources);
+            } else {
+                writeTsv(os, header, tiles, resources);
+            }
+        }
+        return out;
+    }
+
+    // ---------------------------
+    // СХЕМА
+    // ---------------------------
+
+    private enum Kind {
+        /** целое как есть */
+        INT,
+        /** %.4f */
+        F4,
+        /** %.4f, NaN -> 0 */
+        F4N,
+        /** строка */
+        TEXT
+    }
+
+    @FunctionalInterface
+    private interface TextColumn {
+        void append(Tile t, ResourceStore resources, StringBuilder sb);
+    }
+
+    @FunctionalInterface
+    private interface TileText {
+        void append(Tile t, StringBuilder sb);
+    }
+
+    private record Column(String name, Kind kind, ToIntFunction<Tile> i, ToDoubleFunction<Tile> d, TextColumn s) {
+    }
+
+    private static Column i(String name, ToIntFunction<Tile> f) {
+        return new Column(name, Kind.INT, f, null, null);
+    }
+
+    private static Column f(String name, ToDoubleFunction<Tile> f) {
+        return new Column(name, Kind.F4, null, f, null);
+    }
+
+    private static Column fn(String name, ToDoubleFunction<Tile> f) {
+        return new Column(name, Kind.F4N, null, f, null);
+    }
+
+    private static Column s(String name, TileText f) {
+        return new Column(name, Kind.TEXT, null, null, (t, resources, sb) -> f.append(t, sb));
+    }
+
+    /** Текстовая колонка, которой нужно хранилище ресурсов (null — его нет). */
+    private static Column sr(String name, TextColumn f) {
+        return new Column(name, Kind.TEXT, null, null, f);
+    }
+
+    private static final Column[] COLUMNS = {
+            i("id", t -> t.id),
+            f("lat", t -> t.lat),
+            f("lon", t -> t.lon),
+            s("surface", (t, sb) -> sb.append(t.surfaceType != null ? t.surfaceType.name() : "UNKNOWN")),
+            i("elev", t -> t.elevation),
+            i("underwater_elev", t -> t.underwaterElevation),
+            i("tempC", t -> t.temperature),
+            fn("tempMin", t -> t.tempMin),
+            fn("tempMax", t -> t.tempMax),
+            i("pressure", t -> t.pressure),
+            f("windX_mps", t -> t.windX),
+            f("windY_mps", t -> t.windY),
+            fn("windAvg_mps", t -> t.windAvg),
+            fn("windMax_mps", t -> t.windMax),
+            fn("precip", t -> t.precipAvg),
+            fn("evap", t -> t.evapAvg),
+            fn("precip_kgm2day", t -> t.precipKgM2Day),
+            fn("evap_kgm2day", t -> t.evapKgM2Day),
+            fn("soilMoist", t -> t.moisture),
+            fn("soilStart", t -> t.soilStartDiag),
+            fn("soilEnd", t -> t.soilEndDiag),
+            fn("soilFromPrecip", t -> t.soilFromPrecipDiag),
+            fn("soilFromEvap", t -> t.soilFromEvapDiag),
+            fn("soilFromDiff", t -> t.soilFromDiffDiag),
+            fn("atmMoist", t -> t.atmMoist),
+            i("riverType", t -> t.riverType),
+            s("riverBase", (t, sb) -> sb.append(t.riverBaseType == null ? "NONE" : t.riverBaseType.name())),
+            s("riverTag", (t, sb) -> sb.append(t.riverTag == null ? "" : t.riverTag)),
+            i("riverTo", t -> t.riverTo),
+            i("riverOrder", t -> t.riverOrder),
+            f("riverFlow", t -> t.riverFlow),
+            f("river_kgs", t -> t.riverDischargeKgS),
+            f("river_tps", t -> t.riverDischargeTps),
+            fn("tempWarm", t -> t.tempWarm),
+            fn("tempCold", t -> t.tempCold),
+            fn("tempMinInter", t -> t.tempMinInterseason),
+            fn("tempMaxInter", t -> t.tempMaxInterseason),
+            fn("tempMinWarm", t -> t.tempMinWarm),
+            fn("tempMaxWarm", t -> t.tempMaxWarm),
+            fn("tempMinCold", t -> t.tempMinCold),
+            fn("tempMaxCold", t -> t.tempMaxCold),
+            fn("windXWarm_mps", t -> t.windXWarm),
+            fn("windYWarm_mps", t -> t.windYWarm),
+            fn("windXCold_mps", t -> t.windXCold),
+            fn("windYCold_mps", t -> t.windYCold),
+            fn("windWarm_mps", t -> t.windWarm),
+            fn("windCold_mps", t -> t.windCold),
+            fn("windMaxWarm_mps", t -> t.windMaxWarm),
+            fn("windMaxCold_mps", t -> t.windMaxCold),
+            fn("precipWarm", t -> t.precipWarm),
+            fn("precipCold", t -> t.precipCold),
+            fn("precipPhysInter_kgm2day", t -> t.precipKgM2DayInterseason),
+            fn("precipPhysWarm_kgm2day", t -> t.precipKgM2DayWarm),
+            fn("precipPhysCold_kgm2day", t -> t.precipKgM2DayCold),
+            fn("evapPhysInter_kgm2day", t -> t.evapKgM2DayInterseason),
+            fn("evapPhysWarm_kgm2day", t -> t.evapKgM2DayWarm),
+            fn("evapPhysCold_kgm2day", t -> t.evapKgM2DayCold),
+            fn("runoffPhysInter_kgm2day", t -> t.surfaceRunoffKgM2DayInterseason),
+            fn("runoffPhysWarm_kgm2day", t -> t.surfaceRunoffKgM2DayWarm),
+            fn("runoffPhysCold_kgm2day", t -> t.surfaceRunoffKgM2DayCold),
+            fn("solarKwhDayInter", t -> t.solarKwhDayInter),
+            fn("solarKwhDayWarm", t -> t.solarKwhDayWarm),
+            fn("solarKwhDayCold", t -> t.solarKwhDayCold),
+            fn("tidalRangeM", t -> t.tidalRangeM),
+            fn("tidalPeriodH", t -> t.tidalPeriodHours),
+            fn("tidalCyclesPerDay", t -> t.tidalCyclesPerDay),
+            fn("tidalCoastAmpl", t -> t.tidalCoastAmplification),
+            fn("tidalWaterBodyKm", t -> t.tidalWaterBodyScaleKm),
+            fn("biomeTempInter", t -> t.biomeTempInterseason),
+            fn("biomeTempWarm", t -> t.biomeTempWarm),
+            fn("biomeTempCold", t -> t.biomeTempCold),
+            fn("biomePrecipInter", t -> t.biomePrecipInterseason),
+            fn("biomePrecipWarm", t -> t.biomePrecipWarm),
+            fn("biomePrecipCold", t -> t.biomePrecipCold),
+            fn("biomeEvapInter", t -> t.biomeEvapInterseason),
+            fn("biomeEvapWarm", t -> t.biomeEvapWarm),
+            fn("biomeEvapCold", t -> t.biomeEvapCold),
+            fn("biomeMoistInter", t -> t.biomeMoistureInterseason),
+            fn("biomeMoistWarm", t -> t.biomeMoistureWarm),
+            fn("biomeMoistCold", t -> t.biomeMoistureCold),
+            i("biomePreferredSeason", t -> t.biomePreferredSeason),
+            s("biomePreferredSeasonName", (t, sb) -> sb.append(biomePreferredSeasonName(t.biomePreferredSeason))),
+            i("biomeWarmFromPosTilt", t -> t.biomeWarmFromPositiveTilt),
+            s("biomeRegime", (t, sb) -> sb.append(t.biomeRegime == null ? "UNKNOWN" : t.biomeRegime.name())),
+            s("biomeMods", (t, sb) -> sb.append(BiomeModifier.toCsv(t.biomeModifierMask))),
+            i("biomeModMask", t -> t.biomeModifierMask),
+            fn("biomeTempRange", t -> t.biomeTempRange),
+            fn("biomeAiAnn", t -> t.biomeAiAnn),
+            fn("biomeAiWarm", t -> t.biomeAiWarm),
+            fn("biomeAiCold", t -> t.biomeAiCold),
+            fn("biomeMonsoon", t -> t.biomeMonsoon),
+            s("neighbors", TileDumpWriter::appendNeighbors),
+            s("riverFrom", TileDumpWriter::appendRiverFrom),
+            sr("resources", TileDumpWriter::appendResources)
+    };
+
+    // ---------------------------
+    // ЗАПИСЬ
+    // ---------------------------
+
+    private static OutputStream open(Path out, boolean gzip) throws IOException {
+        OutputStream os = Files.newOutputStream(out);
+        return gzip ? new GZIPOutputStream(os, BUFFER) : new BufferedOutputStream(os, BUFFER);
+    }
+
+    private static void writeTsv(OutputStream os, List<String> header, List<Tile> tiles,
+                                 ResourceStore resources) throws IOException {
+        String nl = System.lineSeparator();
+        Writer w = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8), BUFFER);
+        for (String line : header) {
+            w.write(line);
+            w.write(nl);
+        }
+        StringBuilder sb = new StringBuilder(1024);
+        for (int c = 0; c < COLUMNS.length; c++) {
+            if (c > 0) sb.append('\t');
+            sb.append(COLUMNS[c].name);
+        }
+        sb.append(nl);
+        w.append(sb);
+
+        for (Tile t : tiles) {
+            sb.setLength(0);
+            for (int c = 0; c < COLUMNS.length; c++) {
+                if (c > 0) sb.append('\t');
+                Column col = COLUMNS[c];
+                switch (col.kind) {
+                    case INT -> sb.append(col.i.applyAsInt(t));
+                    case F4 -> appendFixed4(sb, col.d.applyAsDouble(t));
+                    case F4N -> appendFixed4(sb, nan0(col.d.applyAsDouble(t)));
+                    case TEXT -> col.s.append(t, resources, sb);
+                }
+            }
+            sb.append(nl);
+            w.append(sb);
+        }
+        w.flush();
+    }
+
+    /**
+     * Колоночный дамп (DataOutputStream, big-endian):
+     * int magic "PSGD", short version, int число строк заголовка, строки (writeUTF),
+     * int tileCount, int columnCount, по колонке: writeUTF(name), byte kind (ordinal Kind);
+     * затем колонки целиком: INT — int[tileCount], F4/F4N — double[tileCount] (полная точность,
+     * F4N уже с NaN -> 0, как в TSV), TEXT — по тайлу int длина + байты UTF-8.
+     */
+    private static void writeBinary(OutputStream os, List<String> header, List<Tile> tiles,
+                                    ResourceStore resources) throws IOException {
+        DataOutputStream out = new DataOutputStream(os);
+        out.writeInt(BIN_MAGIC);
+        out.writeShort(BIN_VERSION);
+        out.writeInt(header.size());
+        for (String line : header) out.writeUTF(line);
+        out.writeInt(tiles.size());
+        out.writeInt(COLUMNS.length);
+        for (Column c : COLUMNS) {
+            out.writeUTF(c.name);
+            out.writeByte(c.kind.ordinal());
+        }
+        StringBuilder sb = new StringBuilder(256);
+        for (Column c : COLUMNS) {
+            for (Tile t : tiles) {
+                switch (c.kind) {
+                    case INT -> out.writeInt(c.i.applyAsInt(t));
+                    case F4 -> out.writeDouble(c.d.applyAsDouble(t));
+                    case F4N -> out.writeDouble(nan0(c.d.applyAsDouble(t)));
+                    case TEXT -> {
+                        sb.setLength(0);
+                        c.s.append(t, resources, sb);
+                        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+                        out.writeInt(bytes.length);
+                        out.write(bytes);
+                    }
+                }
+            }
+        }
+        out.flush();
+    }
+
+    private static List<String> headerLines(StarSystemObjectRow row, long seed, PlanetConfig planet, List<Tile> tiles,
+                                            ResourceStore resources) {
+        List<String> lines = new ArrayList<>(64);
+        lines.add("# Planet debug dump");
+        lines.add("# generatedAtUtc=" + Instant.now());
+        lines.add("# row.starSysIdx=" + row.starSysIdx);
+        lines.add("# row.objectInternalId=" + row.objectInternalId);
+        lines.add("# row.objectPlanetType=" + row.objectPlanetType);
+        lines.add("# row.objectName=" + row.objectName);
+        lines.add("# row.orbitMeanMotionPerDay=" + fmt(row.orbitMeanMotionPerDay));
+        lines.add("# row.axialTiltDeg=" + fmt(row.axialTiltDeg));
+        lines.add("# row.rotationPeriodHours=" + fmt(row.rotationPeriodHours));
+        lines.add("# row.rotationSpeed=" + fmt(row.rotationSpeed));
+        lines.add("# row.rotationPrograde=" + row.rotationPrograde);
+        lines.add("# row.objectType=" + row.objectType);
+        lines.add("# row.objectOrbitHost=" + row.objectOrbitHost);
+        lines.add("# row.orbitSemimajorAxisAU=" + fmt(row.orbitSemimajorAxisAU));
+        lines.add("# seed=" + seed);
+        lines.add("#");
+        lines.add("# planet.tidalLocked=" + planet.tidalLocked);
+        lines.add("# planet.hasAtmosphere=" + planet.hasAtmosphere);
+        lines.add("# planet.atmosphereDensity=" + fmt(planet.atmosphereDensity));
+        lines.add("# planet.gravity=" + fmt(planet.gravity));
+        lines.add("# planet.radiusKm=" + fmt(planet.radiusKm));
+        lines.add("# planet.axialTilt=" + fmt(planet.axialTilt));
+        lines.add("# planet.rotationPeriodHours=" + fmt(planet.rotationPeriodHours));
+        lines.add("# planet.rotationSpeed=" + fmt(planet.rotationSpeed));
+        lines.add("# planet.rotationPrograde=" + planet.rotationPrograde);
+        lines.add("# planet.meanTemperature=" + fmt(planet.meanTemperature));
+        lines.add("# planet.meanTemperatureK=" + fmt(planet.meanTemperatureK));
+        lines.add("# planet.minTemperatureK=" + fmt(planet.minTemperatureK));
+        lines.add("# planet.maxTemperatureK=" + fmt(planet.maxTemperatureK));
+        lines.add("# planet.equilibriumTemperatureK=" + fmt(planet.equilibriumTemperatureK));
+        lines.add("# planet.greenhouseDeltaK=" + fmt(planet.greenhouseDeltaK));
+        lines.add("# planet.waterCoverageOrdinal=" + planet.waterCoverageOrdinal);
+        lines.add("# planet.waterGelKm=" + fmt(planet.waterGelKm));
+        lines.add("# planet.fracIron=" + fmt(planet.fracIron));
+        lines.add("# planet.fracRock=" + fmt(planet.fracRock));
+        lines.add("# planet.fracIce=" + fmt(planet.fracIce));
+        lines.add("# planet.o2Pct=" + fmt(planet.o2Pct));
+        lines.add("# planet.hasLife=" + planet.hasLife);
+        lines.add("# planet.lavaWorld=" + planet.lavaWorld);
+        lines.add("# planet.volcanism=" + planet.volcanism);
+        lines.add("# planet.methaneIceFrac=" + fmt(planet.methaneIceFrac));
+        lines.add("# planet.ammoniaIceFrac=" + fmt(planet.ammoniaIceFrac));
+        lines.add("# planet.organicsFrac=" + fmt(planet.organicsFrac));
+        lines.add("# planet.heavyHydrocarbons=" + planet.heavyHydrocarbons);
+        lines.add("# planet.lightHydrocarbons=" + planet.lightHydrocarbons);
+        lines.add("# planet.moonCount=" + (planet.moonTideSources == null ? 0 : planet.moonTideSources.size()));
+        lines.add("# planet.tidalOpenOceanRangeM=" + fmt(planet.tidalOpenOceanRangeM));
+        lines.add("# planet.tidalCyclesPerDay=" + fmt(planet.tidalCyclesPerDay));
+        lines.add("# planet.tidalDominantPeriodHours=" + fmt(planet.tidalDominantPeriodHours));
+        if (planet.moonTideSources != null) {
+            for (int i = 0; i < planet.moonTideSources.size(); i++) {
+                PlanetConfig.MoonTideSource m = planet.moonTideSources.get(i);
+                lines.add("# moon[" + i + "].id=" + m.objectInternalId
+                        + " name=" + (m.objectName == null ? "" : m.objectName)
+                        + " massEarth=" + fmt(m.massEarth)
+                        + " axisAU=" + fmt(m.orbitSemimajorAxisAU)
+                        + " inclDeg=" + fmt(m.orbitInclinationDeg)
+                        + " meanMotionDegDay=" + fmt(m.meanMotionPerDay)
+                        + " forcingRelEarthMoon=" + fmt(m.forcingRelativeEarthMoon));
+            }
+        }
+        lines.addAll(resources != null
+                ? ResourceStatsReport.buildDumpHeaderLines(resources)
+                : ResourceStatsReport.buildDumpHeaderLines(tiles));
+        lines.add("#");
+        return lines;
+    }
+
+    /** Сдвинуть прежние дампы: current -> _prev1 -> _prev2 (переименованием, без копирования). */
+    private static void rotateDumpHistory(Path current, String ext) throws IOException {
+        String name = current.getFileName().toString();
+        String base = name.substring(0, name.length() - ext.length());
+
+        Path prev1 = current.resolveSibling(base + "_prev1" + ext);
+        Path prev2 = current.resolveSibling(base + "_prev2" + ext);
+
+        Files.deleteIfExists(prev2);
+        if (Files.exists(prev1)) {
+            Files.move(prev1, prev2, StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (Files.exists(current)) {
+            Files.move(current, prev1, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // ---------------------------
+    // ТЕКСТОВЫЕ КОЛОНКИ
+    // ---------------------------
+
+    private static void appendNeighbors(Tile t, StringBuilder sb) {
+        List<Tile> list = t.neighbors;
+        if (list == null) return;
+        for (int i = 0; i < list.size(); i++) {
+            if (i > 0) sb.append(',');
+            Tile n = list.get(i);
+            sb.append(n != null ? n.id : -1);
+        }
+    }
+
+    private static void appendRiverFrom(Tile t, StringBuilder sb) {
+        List<Integer> list = t.riverFrom;
+        if (list == null) return;
+        for (int i = 0; i < list.size(); i++) {
+            if (i > 0) sb.append(',');
+            Integer v = list.get(i);
+            sb.append(v != null ? v : -1);
+        }
+    }
+
+    /** Строки хранилища тайла идут в том же порядке, что и материализованный tile.resources. */
+    private static void appendResources(Tile t, ResourceStore resources, StringBuilder sb) {
+        if (resources != null) {
+            int from = resources.rowStart(t.id);
+            int to = resources.rowEnd(t.id);
+            for (int r = from; r < to; r++) {
+                if (r > from) sb.append(';');
+                ResourceType type = resources.type(r);
+                sb.append(type.id).append(':')
+                        .append(resources.layer(r).ordinal()).append(':')
+                        .append(resources.quality(r)).append(':')
+                        .append(resources.saturation(r)).append(':')
+                        .append(resources.amount(r));
+                if (type == ResourceType.TIDAL_PWR) {
+                    sb.append(':');
+                    appendFixed4(sb, resources.logTonnes(r));
+                    sb.append(':');
+                    appendFixed4(sb, resources.tonnes(r));
+                }
+            }
+            return;
+        }
+        if (t.resources == null) return;
+        for (int i = 0; i < t.resources.size(); i++) {
+            ResourcePresence r = t.resources.get(i);
+            if (i > 0) sb.append(';');
+            sb.append(r.type.id).append(':')
+                    .append(r.layer.ordinal()).append(':')
+                    .append(r.quality).append(':')
+                    .append(r.saturation).append(':')
+                    .append(r.amount);
+            if (r.type == ResourceType.TIDAL_PWR) {
+                sb.append(':');
+                appendFixed4(sb, r.logTonnes);
+                sb.append(':');
+                appendFixed4(sb, r.tonnes);
+            }
+        }
+    }
+
+    private static String biomePreferredSeasonName(int id) {
+        return switch (id) {
+            case 0 -> "INTERSEASON";
+            case 1 -> "SUMMER";
+            case 2 -> "WINTER";
+            default -> "UNKNOWN";
+        };
+    }
+
+    // ---------------------------
+    // ЧИСЛА
+    // ---------------------------
+
+    private static final long[] POW10 = {1, 10, 100, 1000};
+
+    /**
+     * То же, что String.format(Locale.US, "%.4f", v), без Formatter. Formatter округляет HALF_UP
+     * по десятичной записи числа; здесь округление по v·10⁴, поэтому значения у самой границы
+     * x.xxxx5, а также большие, NaN и бесконечности отдаются String.format.
+     */
+    static void appendFixed4(StringBuilder sb, double v) {
+        double a = Math.abs(v);
+        if (!(a < 1e7)) {
+            sb.append(fmt(v));
+            return;
+        }
+        double scaled = a * 10_000.0;
+        double whole = Math.floor(scaled);
+        double frac = scaled - whole;
+        if (Math.abs(frac - 0.5) < 1e-3) {
+            sb.append(fmt(v));
+            return;
+        }
+        long units = (long) whole + (frac > 0.5 ? 1 : 0);
+        if (v < 0 || (v == 0 && Double.doubleToRawLongBits(v) != 0)) sb.append('-');
+        sb.append(units / 10_000).append('.');
+        long rem = units % 10_000;
+        for (int p = 3; p > 0 && rem < POW10[p]; p--) sb.append('0');
+        sb.append(rem);
+    }
+
+    private static String fmt(double v) {
+        return String.format(Locale.US, "%.4f", v);
+    }
+
+    private static double nan0(double v) {
+        return Double.isNaN(v) ? 0.0 : v;
+    }
+
+    private static String sanitizeFilePart(String s) {
+        if (s == null || s.isBlank()) return "unnamed";
+        String cleaned = s.trim()
+                .replaceAll("[^a-zA-Z0-9._-]+", "_")
+                .replaceAll("_+", "_");
+        if (cleaned.length() > 80) {
+            cleaned = cleaned.substring(0, 80);
+        }
+        if (cleaned.isBlank()) return "unnamed";
+        return cleaned;
+    }
+}
@@ -32,4 +32,10 @@ public class TileSetSelector {
         }
         return FILES[best];
     }
+
+    /** Файл сетки уровня D2..D6 (для грубых вспомогательных сеток), null — такого уровня нет. */
+    public static String pathForLevel(int level) {
+        int i = level - 2;
+        return (i >= 0 && i < FILES.length) ? FILES[i] : null;
+    }
 }
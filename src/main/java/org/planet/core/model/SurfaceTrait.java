@@ -0,0 +1,41 @@
+package org.planet.core.model;
+
+/**
+ * Биты признаков поверхности для SurfaceType.traits() / SurfaceType.is(mask).
+ * Маски складываются через |: {@code st.is(SurfaceTrait.WATER | SurfaceTrait.COAST)}.
+ */
+public final class SurfaceTrait {
+
+    /** Любая водная поверхность: океаны, моря, озёра, морской лёд, кипящее море. */
+    public static final int WATER = 1;
+    /** Жидкая вода (WATER без кипящего моря). */
+    public static final int LIQUID = 1 << 1;
+    /** Открытая вода океана/моря, включая морской лёд (без озёр и кипящего моря). */
+    public static final int OPEN_WATER = 1 << 2;
+    /** Море или океан: OPEN_WATER плюс кипящее море. */
+    public static final int SEA = 1 << 3;
+    /** Озёра любого состава. */
+    public static final int LAKE = 1 << 4;
+    /** Береговые полосы (суша у воды). */
+    public static final int COAST = 1 << 5;
+    /** Лёд на суше: ледники и щиты. */
+    public static final int FROZEN = 1 << 6;
+    /** Лёд над океаном. */
+    public static final int SEA_ICE = 1 << 7;
+    /** Летучие льды (метан, аммиак, CO2). */
+    public static final int VOLATILE_ICE = 1 << 8;
+    /** Любой лёд: FROZEN | SEA_ICE | VOLATILE_ICE. */
+    public static final int ICE_COVER = 1 << 9;
+    public static final int FOREST = 1 << 10;
+    /** Болота. */
+    public static final int WETLAND = 1 << 11;
+    /** Расплав на поверхности: лавовые океаны, равнины, острова. */
+    public static final int LAVA = 1 << 12;
+    /** Вулканические постройки и поля. */
+    public static final int VOLCANIC = 1 << 13;
+    /** Поверхности без атмосферы: реголит, кратеры. */
+    public static final int AIRLESS = 1 << 14;
+
+    private SurfaceTrait() {
+    }
+}
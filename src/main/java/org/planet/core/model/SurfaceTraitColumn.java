@@ -0,0 +1,62 @@
+package org.planet.core.model;
+
+import java.util.List;
+
+/**
+ * Колонка признаков поверхности по id тайла: traits[id] == tiles.get(id).surfaceType.traits().
+ *
+ * Нужна циклам по соседям, где тип соседа читается много раз: бит из int[] вместо
+ * разыменования тайла и enum. Стадии воды, льда, лавы и импактов пишут типы через set(),
+ * который держит оба поля согласованными (GenerationPipeline сверяет колонку после них
+ * через firstMismatch); после остальных стадий колонку перечитывает refresh().
+ */
+public final class SurfaceTraitColumn {
+
+    private int[] traits;
+
+    private SurfaceTraitColumn(int size) {
+        traits = new int[size];
+    }
+
+    public static SurfaceTraitColumn of(List<Tile> tiles) {
+        SurfaceTraitColumn c = new SurfaceTraitColumn(tiles.size());
+        c.refresh(tiles);
+        return c;
+    }
+
+    /** Перечитать типы всех тайлов. */
+    public void refresh(List<Tile> tiles) {
+        if (traits.length != tiles.size()) traits = new int[tiles.size()];
+        for (int i = 0; i < traits.length; i++) {
+            traits[i] = tiles.get(i).surfaceType.traits();
+        }
+    }
+
+    /** Записать тип тайла и его признаки. */
+    public void set(Tile t, SurfaceType st) {
+        t.surfaceType = st;
+        traits[t.id] = st.traits();
+    }
+
+    /** id первого тайла, чьи признаки разошлись с колонкой, или -1. */
+    public int firstMismatch(List<Tile> tiles) {
+        if (traits.length != tiles.size()) return 0;
+        for (int i = 0; i < traits.length; i++) {
+            if (traits[i] != tiles.get(i).surfaceType.traits()) return i;
+        }
+        return -1;
+    }
+
+    public int traits(int tileId) {
+        return traits[tileId];
+    }
+
+    /** Есть ли у тайла хотя бы один признак из маски. */
+    public boolean is(int tileId, int mask) {
+        return (traits[tileId] & mask) != 0;
+    }
+
+    public int size() {
+        return traits.length;
+    }
+}
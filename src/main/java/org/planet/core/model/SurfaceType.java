@@ -143,7 +143,52 @@ public enum SurfaceType {
     MOUNTAINS_RAINFOREST,
 
     // ---- hot mud wetlands ----
-    MUD_SWAMP
-
-
+    MUD_SWAMP;
+
+    // ---- признаки (биты SurfaceTrait) ----
+    // Считаются один раз при загрузке enum; в горячих циклах проверяется бит вместо цепочки case.
+
+    private int traits;
+
+    static {
+        for (SurfaceType st : values()) {
+            st.traits = traitsOf(st);
+        }
+    }
+
+    /** Маска признаков типа (SurfaceTrait.*). */
+    public int traits() {
+        return traits;
+    }
+
+    /** Есть ли у типа хотя бы один признак из маски. */
+    public boolean is(int mask) {
+        return (traits & mask) != 0;
+    }
+
+    private static int traitsOf(SurfaceType st) {
+        int m = 0;
+        switch (st) {
+            case OCEAN, SHALLOW_SEA, OPEN_WATER_SHALLOW, OPEN_WATER_DEEP ->
+                    m = SurfaceTrait.WATER | SurfaceTrait.LIQUID | SurfaceTrait.OPEN_WATER | SurfaceTrait.SEA;
+            case ICE_OCEAN, SEA_ICE_SHALLOW, SEA_ICE_DEEP ->
+                    m = SurfaceTrait.WATER | SurfaceTrait.LIQUID | SurfaceTrait.OPEN_WATER | SurfaceTrait.SEA | SurfaceTrait.SEA_ICE | SurfaceTrait.ICE_COVER;
+            case LAVA_OCEAN -> m = SurfaceTrait.WATER | SurfaceTrait.LIQUID | SurfaceTrait.OPEN_WATER | SurfaceTrait.SEA | SurfaceTrait.LAVA;
+            case STEAM_SEA -> m = SurfaceTrait.WATER | SurfaceTrait.SEA;
+            case LAKE_FRESH, LAKE_SALT, LAKE_BRINE, LAKE_ACID -> m = SurfaceTrait.WATER | SurfaceTrait.LIQUID | SurfaceTrait.LAKE;
+            case COAST_SANDY, COAST_ROCKY -> m = SurfaceTrait.COAST;
+            case ICE, ICE_SHEET, GLACIER -> m = SurfaceTrait.FROZEN | SurfaceTrait.ICE_COVER;
+            case METHANE_ICE, AMMONIA_ICE, CO2_ICE -> m = SurfaceTrait.VOLATILE_ICE | SurfaceTrait.ICE_COVER;
+            case PLAINS_FOREST, FOREST, RAINFOREST,
+                    HILLS_FOREST, HILLS_RAINFOREST, MOUNTAINS_FOREST, MOUNTAINS_RAINFOREST,
+                    RIDGE_FOREST, CANYON_FOREST, BASIN_FOREST -> m = SurfaceTrait.FOREST;
+            case SWAMP, MUD_SWAMP, BASIN_SWAMP -> m = SurfaceTrait.WETLAND;
+            case LAVA_PLAINS, LAVA_ISLANDS, LAVA -> m = SurfaceTrait.LAVA;
+            case VOLCANIC, VOLCANIC_FIELD, VOLCANO, ACTIVE_VOLCANO -> m = SurfaceTrait.VOLCANIC;
+            case REGOLITH, CRATERED_SURFACE -> m = SurfaceTrait.AIRLESS;
+            default -> {
+            }
+        }
+        return m;
+    }
 }
@@ -0,0 +1,12 @@
+package org.planet.core.model.config;
+
+/** Число подшагов переноса IWV за климатический шаг WindGenerator. */
+public enum AdvectionStepping {
+    /** round(stepHours) подшагов по 1 ч независимо от ветра (как раньше); длина переноса — TILE_DIST_M. */
+    FIXED,
+    /**
+     * Минимум подшагов, при котором число Куранта каждого тайла не выше предела схемы; длина переноса
+     * тайла — по длинам его рёбер, куда уходит поток.
+     */
+    CFL
+}
@@ -0,0 +1,14 @@
+package org.planet.core.model.config;
+
+/** Как WindGenerator считает сглаживание и перемешивание полей по соседям. */
+public enum DiffusionSolver {
+    /** Один явный проход на шаг, доля κ на ребро сетки (как раньше): радиус сглаживания зависит от уровня сетки. */
+    EXPLICIT,
+    /**
+     * Неявный шаг (I + κL)u = u0 многосеточным V-циклом (MultigridDiffusion); κ пересчитывается
+     * к уровню сетки от diffusionRefLevel, так что радиус сглаживания в км один на всех уровнях.
+     * Ради этой независимости от сетки, не ради скорости: WIND с ним медленнее на всех измеренных
+     * сетках (D4 2.9 -> 5.8 с, D5 6.5 -> 15.1 с против EXPLICIT).
+     */
+    MULTIGRID
+}
@@ -1,5 +1,7 @@
 package org.planet.core.model.config;
 
+import java.util.Locale;
+
 public class GeneratorSettings {
 
     public long seed;
@@ -37,16 +39,97 @@ public class GeneratorSettings {
     // PHYSICAL = reduced-heuristics transport/condensation.
     public ClimateModelMode climateModelMode = ClimateModelMode.ENHANCED;
 
+    // --- Сходимость итерационных циклов ---
+    // false = фиксированные лимиты итераций (как раньше), true = останов, когда невязка ниже допуска.
+    public boolean adaptiveIterations = false;
+    // Относительная L2-невязка поля ветра за итерацию релаксации
+    // (турбулентный шум релаксации держит её на уровне ~0.03..0.05, ниже не опускается).
+    public double windRelaxTolerance = 0.06;
+    // Относительная L2-невязка IWV/почвы за сутки спин-апа влаги.
+    public double moistureSpinupTolerance = 0.012;
+    // RMS изменения высоты за итерацию эрозии (1 = 100 м); ниже ~0.5 округление почти всё гасит.
+    public double erosionTolerance = 0.25;
+    // Сколько итераций подряд невязка должна быть ниже допуска.
+    public int convergencePatience = 3;
+
+    // Сглаживание/перемешивание полей влагооборота и адвекции тепла: EXPLICIT — проход на шаг,
+    // MULTIGRID — неявная диффузия, κ задан для сетки diffusionRefLevel и пересчитывается к текущей.
+    public DiffusionSolver diffusionSolver = DiffusionSolver.EXPLICIT;
+    public int diffusionRefLevel = 4;
+    // Подшаги переноса IWV: FIXED — по 1 ч, CFL — по числу Куранта ветра (меньше на штиле, больше на сильном ветре).
+    public AdvectionStepping advectionStepping = AdvectionStepping.FIXED;
+
+    // Warm start влагооборота: CLIMATE_RECALC, сезонные прогоны и пересчёт после рек
+    // стартуют из годового равновесия (WorldContext.climateState) с укороченным спин-апом.
+    public boolean climateWarmStart = false;
+
+    // --- Тектонические плиты ---
+    public PlateGrowthMode plateGrowthMode = PlateGrowthMode.SWEEP;
+    // WEIGHTED: скорость роста плиты = 1 ± spread (равномерно), 0 = обычный Вороной по шагам.
+    public double plateGrowthSpread = 0.5;
+
+    // Случайность BASE_SURFACE / PLATES / MOUNTAINS / VOLCANISM: SEQUENTIAL сохраняет прежние планеты
+    // для тех же сидов, COUNTER — розыгрыши по (seed, стадия, тайл), циклы по тайлам параллельны.
+    public RngMode rngMode = RngMode.SEQUENTIAL;
+
+    // Ресурсы: копировать ли колонки ResourceStore в tile.resources (нужно UI и коду на списках).
+    // Экспорт и дамп читают хранилище напрямую, так что пакетной генерации копия не нужна.
+    public boolean materializeResources = true;
 
     public GeneratorSettings(long seed) {
         this.seed = seed;
         String modeProp = System.getProperty("planet.climateMode");
         if (modeProp != null && !modeProp.isBlank()) {
             try {
-                this.climateModelMode = ClimateModelMode.valueOf(modeProp.trim().toUpperCase());
+                this.climateModelMode = ClimateModelMode.valueOf(modeProp.trim().toUpperCase(Locale.ROOT));
             } catch (IllegalArgumentException ignored) {
                 this.climateModelMode = ClimateModelMode.ENHANCED;
             }
         }
+        String adaptiveProp = System.getProperty("planet.adaptiveIterations");
+        if (adaptiveProp != null && !adaptiveProp.isBlank()) {
+            this.adaptiveIterations = Boolean.parseBoolean(adaptiveProp.trim());
+        }
+        String warmStartProp = System.getProperty("planet.climate.warmStart");
+        if (warmStartProp != null && !warmStartProp.isBlank()) {
+            this.climateWarmStart = Boolean.parseBoolean(warmStartProp.trim());
+        }
+        String diffusionProp = System.getProperty("planet.climate.diffusion");
+        if (diffusionProp != null && !diffusionProp.isBlank()) {
+            try {
+                this.diffusionSolver = DiffusionSolver.valueOf(diffusionProp.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ignored) {
+                this.diffusionSolver = DiffusionSolver.EXPLICIT;
+            }
+        }
+        this.diffusionRefLevel = Integer.getInteger("planet.climate.diffusionRefLevel", diffusionRefLevel);
+        String advectionProp = System.getProperty("planet.climate.advection");
+        if (advectionProp != null && !advectionProp.isBlank()) {
+            try {
+                this.advectionStepping = AdvectionStepping.valueOf(advectionProp.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ignored) {
+                this.advectionStepping = AdvectionStepping.FIXED;
+            }
+        }
+        String plateGrowthProp = System.getProperty("planet.plates.growth");
+        if (plateGrowthProp != null && !plateGrowthProp.isBlank()) {
+            try {
+                this.plateGrowthMode = PlateGrowthMode.valueOf(plateGrowthProp.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ignored) {
+                this.plateGrowthMode = PlateGrowthMode.SWEEP;
+            }
+        }
+        String materializeProp = System.getProperty("planet.resources.materialize");
+        if (materializeProp != null && !materializeProp.isBlank()) {
+            this.materializeResources = Boolean.parseBoolean(materializeProp.trim());
+        }
+        String rngProp = System.getProperty("planet.rng");
+        if (rngProp != null && !rngProp.isBlank()) {
+            try {
+                this.rngMode = RngMode.valueOf(rngProp.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ignored) {
+                this.rngMode = RngMode.SEQUENTIAL;
+            }
+        }
     }
 }
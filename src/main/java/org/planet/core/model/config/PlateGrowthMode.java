@@ -0,0 +1,11 @@
+package org.planet.core.model.config;
+
+/** Рост плит от сидов в PlateGenerator. */
+public enum PlateGrowthMode {
+    /** Как прежний flood-fill проходами по id (форма плит та же, смещена к малым id). */
+    SWEEP,
+    /** Волна от всех сидов одновременно: плиты растут равномерно. */
+    BFS,
+    /** Вороной по числу шагов с весом: у каждой плиты своя скорость роста (plateGrowthSpread). */
+    WEIGHTED
+}
@@ -0,0 +1,9 @@
+package org.planet.core.model.config;
+
+/** Источник случайности стадий BASE_SURFACE, PLATES, MOUNTAINS, VOLCANISM. */
+public enum RngMode {
+    /** Свой java.util.Random(seed) в каждом генераторе: результат зависит от порядка обхода (как раньше). */
+    SEQUENTIAL,
+    /** CounterRng: число по (seed, стадия, тайл, номер розыгрыша), порядок обхода не важен. */
+    COUNTER
+}
@@ -0,0 +1,215 @@
+package org.planet.core.service;
+
+import org.planet.core.generation.CancellationToken;
+import org.planet.core.generation.ConsoleStageListener;
+import org.planet.core.generation.GenerationCancelledException;
+import org.planet.core.generation.StageId;
+import org.planet.core.generation.StageListener;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Фоновые генерации для UI: ограниченный пул, прогресс по стадиям и кооперативная отмена.
+ *
+ * Задачи группируются по ключу (например "preview" или "batch-save"). На ключ одновременно
+ * выполняется не больше одной задачи и ждёт не больше одной: новый запрос отменяет выполняющуюся
+ * (она остановится на ближайшей проверке токена) и вытесняет ждущую — частые повторы
+ * схлопываются, и до конца доходит только последний.
+ */
+public final class GenerationService implements AutoCloseable {
+
+    /** Работа задачи: пайплайн должен получить токен и слушателя. */
+    @FunctionalInterface
+    public interface Job<T> {
+        T run(CancellationToken cancellation, StageListener listener) throws Exception;
+    }
+
+    /** Запущенная (или ждущая) задача. */
+    public static final class Handle<T> {
+        private final CancellationToken token = new CancellationToken();
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        /** Результат; при отмене завершается CancellationException. */
+        public CompletableFuture<T> result() {
+            return result;
+        }
+
+        public void cancel() {
+            token.cancel();
+        }
+
+        public boolean isCancelled() {
+            return token.isCancelled();
+        }
+    }
+
+    private static final class Slot {
+        Handle<?> running;
+        Runnable pending;
+        Handle<?> pendingHandle;
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Slot> slots = new HashMap<>();
+
+    /**
+     * @param threads       сколько задач выполняется одновременно (сами стадии параллелятся внутри)
+     * @param queueCapacity сколько задач может ждать свободного потока; сверх — отказ
+     */
+    public GenerationService(int threads, int queueCapacity) {
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                Math.max(1, threads),
+                Math.max(1, threads),
+                30L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread th = new Thread(r, "generation-" + seq.incrementAndGet());
+                    th.setDaemon(true);
+                    return th;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /** Пул по умолчанию: planet.service.threads (2) потока, planet.service.queue (16) мест в очереди. */
+    public GenerationService() {
+        this(Integer.getInteger("planet.service.threads", 2), Integer.getInteger("planet.service.queue", 16));
+    }
+
+    /**
+     * Поставить задачу под ключом. Предыдущая задача того же ключа отменяется (ждущая — сразу,
+     * выполняющаяся — кооперативно); новая стартует, когда выполняющаяся закончится.
+     *
+     * @param progress получает события стадий из потока генерации (для UI — через Platform.runLater);
+     *                 null — только консоль
+     */
+    public <T> Handle<T> submit(String key, Job<T> job, StageListener progress) {
+        Handle<T> handle = new Handle<>();
+        StageListener listener = progressListener(progress);
+        Runnable task = () -> execute(key, handle, job, listener);
+
+        synchronized (slots) {
+            Slot slot = slots.computeIfAbsent(key, k -> new Slot());
+            if (slot.pendingHandle != null) {
+                slot.pendingHandle.cancel();
+                slot.pendingHandle.result.completeExceptionally(new CancellationException("superseded"));
+            }
+            if (slot.running != null) {
+                slot.running.cancel();
+                slot.pending = task;
+                slot.pendingHandle = handle;
+            } else {
+                slot.running = handle;
+                dispatch(key, slot, handle, task);
+            }
+        }
+        return handle;
+    }
+
+    /** Отменить выполняющуюся и ждущую задачи ключа. */
+    public void cancel(String key) {
+        synchronized (slots) {
+            Slot slot = slots.get(key);
+            if (slot == null) return;
+            if (slot.running != null) slot.running.cancel();
+            if (slot.pendingHandle != null) {
+                slot.pendingHandle.cancel();
+                slot.pendingHandle.result.completeExceptionally(new CancellationException("cancelled"));
+                slot.pending = null;
+                slot.pendingHandle = null;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (slots) {
+            for (String key : slots.keySet().toArray(new String[0])) {
+                cancel(key);
+            }
+        }
+        executor.shutdown();
+    }
+
+    private <T> void execute(String key, Handle<T> handle, Job<T> job, StageListener listener) {
+        try {
+            handle.token.throwIfCancelled();
+            T value = job.run(handle.token, listener);
+            if (handle.isCancelled()) {
+                handle.result.completeExceptionally(new CancellationException("cancelled"));
+            } else {
+                handle.result.complete(value);
+            }
+        } catch (GenerationCancelledException e) {
+            handle.result.completeExceptionally(new CancellationException("cancelled"));
+        } catch (Throwable e) {
+            handle.result.completeExceptionally(e);
+        } finally {
+            finished(key, handle);
+        }
+    }
+
+    private void finished(String key, Handle<?> handle) {
+        synchronized (slots) {
+            Slot slot = slots.get(key);
+            if (slot == null || slot.running != handle) return;
+            slot.running = null;
+            if (slot.pending != null) {
+                Runnable next = slot.pending;
+                Handle<?> nextHandle = slot.pendingHandle;
+                slot.pending = null;
+                slot.pendingHandle = null;
+                slot.running = nextHandle;
+                dispatch(key, slot, nextHandle, next);
+            } else {
+                slots.remove(key);
+            }
+        }
+    }
+
+    /** Вызывается под slots. */
+    private void dispatch(String key, Slot slot, Handle<?> handle, Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            slot.running = null;
+            if (slot.pending == null) slots.remove(key);
+            handle.result.completeExceptionally(e);
+        }
+    }
+
+    /** Консольный вывод + прогресс вызывающего. */
+    private static StageListener progressListener(StageListener progress) {
+        StageListener console = new ConsoleStageListener();
+        return new StageListener() {
+            @Override
+            public void onStageStart(StageId id, String name) {
+                console.onStageStart(id, name);
+                if (progress != null) progress.onStageStart(id, name);
+            }
+
+            @Override
+            public void onStageEnd(StageId id, String name, long elapsedMs) {
+                console.onStageEnd(id, name, elapsedMs);
+                if (progress != null) progress.onStageEnd(id, name, elapsedMs);
+            }
+
+            @Override
+            public void onIterationReport(StageId id, String loop, int iterations, int maxIterations,
+                                          double residualL2, double residualLinf) {
+                console.onIterationReport(id, loop, iterations, maxIterations, residualL2, residualLinf);
+                if (progress != null) {
+                    progress.onIterationReport(id, loop, iterations, maxIterations, residualL2, residualLinf);
+                }
+            }
+        };
+    }
+}
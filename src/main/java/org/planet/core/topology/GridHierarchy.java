@@ -0,0 +1,343 @@
+package org.planet.core.topology;
+
+import org.planet.core.io.CsvTileLoader;
+import org.planet.core.io.TileSetSelector;
+import org.planet.core.model.Tile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Многоуровневый индекс икосаэдрических сеток D2..D6: соседи каждого уровня (порядок как у
+ * IcosaNeighborsBuilder) и GridLevelMapping для каждой пары тонкий -> грубый уровень.
+ *
+ * Уровни и соответствия поднимаются лениво, при первом обращении: читается файл
+ * LatLongTileID*_v2.txt только этого уровня. Соседи и соответствия хранятся в бинарном кэше
+ * топологии (planet.topology.cache, по умолчанию topology_cache.bin в каталоге файлов сеток);
+ * запись уровня в кэше отбрасывается, если координаты тайлов в его файле изменились,
+ * соответствия — если изменился любой из двух уровней.
+ *
+ * Пользуются: BuildNeighborsStage (соседи без O(n^2) поиска), CoarseClimate, превью/LOD.
+ *
+ * TileGeometry уровня тоже общая (geometry): все планеты одной сетки читают одни и те же массивы
+ * рёбер вместо сборки своих. Геометрию только читают, не изменять.
+ */
+public final class GridHierarchy {
+
+    public static final int MIN_LEVEL = 2;
+    public static final int MAX_LEVEL = 6;
+
+    private static final int MAGIC = 0x50534754; // "PSGT"
+    private static final int VERSION = 2;
+
+    private static GridHierarchy shared;
+
+    /** Один уровень: координаты и соседи (CSR). */
+    private static final class Level {
+        final int level;
+        final long fingerprint;
+        final double[] lat;
+        final double[] lon;
+        final int[] nbStart;
+        final int[] nbIds;
+
+        Level(int level, long fingerprint, double[] lat, double[] lon, int[] nbStart, int[] nbIds) {
+            this.level = level;
+            this.fingerprint = fingerprint;
+            this.lat = lat;
+            this.lon = lon;
+            this.nbStart = nbStart;
+            this.nbIds = nbIds;
+        }
+
+        int size() {
+            return lat.length;
+        }
+    }
+
+    /** Соответствие в кэше с отпечатками уровней, от которых оно построено. */
+    private record CachedMapping(long fineFingerprint, long coarseFingerprint, GridLevelMapping mapping) {
+    }
+
+    /** null — индекс построен из переданных сеток (build), файлы и кэш не читаются. */
+    private final Path cache;
+    private final Map<Integer, Level> levels = new TreeMap<>();
+    private final Map<Integer, GridLevelMapping> mappings = new TreeMap<>();
+    private final Map<Integer, TileGeometry> geometries = new TreeMap<>();
+    /** Прочитано из кэша, но ещё не сверено с файлами сеток. */
+    private final Map<Integer, Level> cachedLevels = new TreeMap<>();
+    private final Map<Integer, CachedMapping> cachedMappings = new TreeMap<>();
+
+    private GridHierarchy(Path cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Общий индекс по файлам сеток; уровни поднимаются из кэша или строятся при первом обращении.
+     * Первое построение D5 занимает секунды (поиск соседей), D6 — дольше.
+     */
+    public static synchronized GridHierarchy shared() {
+        if (shared == null) {
+            String configured = System.getProperty("planet.topology.cache");
+            shared = open(configured != null ? Paths.get(configured) : gridDirectory().resolve("topology_cache.bin"));
+        }
+        return shared;
+    }
+
+    /** Каталог файлов сеток (TileSetSelector.pathForLevel). */
+    static Path gridDirectory() {
+        Path parent = Paths.get(TileSetSelector.pathForLevel(MIN_LEVEL)).toAbsolutePath().getParent();
+        return parent != null ? parent : Paths.get("").toAbsolutePath();
+    }
+
+    /** Индекс над кэшем: читается только сам кэш, файлы сеток — по мере обращения к уровням. */
+    static GridHierarchy open(Path cache) {
+        GridHierarchy h = new GridHierarchy(cache);
+        if (Files.isRegularFile(cache)) {
+            try {
+                h.read();
+            } catch (IOException | RuntimeException e) {
+                System.out.println("[TOPOLOGY] cache " + cache + " unreadable, rebuilding: " + e.getMessage());
+                h.cachedLevels.clear();
+                h.cachedMappings.clear();
+            }
+        }
+        return h;
+    }
+
+    /** @param grids тайлы уровней (соседи строятся здесь, соответствия — при первом запросе) */
+    public static GridHierarchy build(Map<Integer, List<Tile>> grids) {
+        GridHierarchy h = new GridHierarchy(null);
+        for (var e : grids.entrySet()) {
+            h.levels.put(e.getKey(), buildLevel(e.getKey(), e.getValue()));
+        }
+        return h;
+    }
+
+    private static Level buildLevel(int level, List<Tile> tiles) {
+        new IcosaNeighborsBuilder().build(tiles);
+        int n = tiles.size();
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        int[] nbStart = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            Tile t = tiles.get(i);
+            lat[i] = t.lat;
+            lon[i] = t.lon;
+            nbStart[i + 1] = nbStart[i] + t.neighbors.size();
+        }
+        int[] nbIds = new int[nbStart[n]];
+        for (int i = 0; i < n; i++) {
+            List<Tile> nbs = tiles.get(i).neighbors;
+            for (int k = 0; k < nbs.size(); k++) nbIds[nbStart[i] + k] = nbs.get(k).id;
+        }
+        return new Level(level, fingerprint(tiles), lat, lon, nbStart, nbIds);
+    }
+
+    /** Уровень: уже поднятый, из кэша (если файл сетки тот же) или построенный; null — уровня нет. */
+    private synchronized Level level(int level) {
+        Level l = levels.get(level);
+        if (l != null || cache == null || !hasLevel(level)) return l;
+
+        List<Tile> tiles = CsvTileLoader.load(TileSetSelector.pathForLevel(level));
+        Level cached = cachedLevels.remove(level);
+        if (cached != null && cached.size() == tiles.size() && cached.fingerprint == fingerprint(tiles)) {
+            l = cached;
+        } else {
+            if (cached != null) System.out.println("[TOPOLOGY] cache " + cache + ": D" + level + " is stale, rebuilding");
+            l = buildLevel(level, tiles);
+        }
+        levels.put(level, l);
+        if (l != cached) save();
+        return l;
+    }
+
+    public boolean hasLevel(int level) {
+        if (cache == null) return levels.containsKey(level);
+        String path = TileSetSelector.pathForLevel(level);
+        return path != null && new File(path).isFile();
+    }
+
+    public int tileCount(int level) {
+        Level l = level(level);
+        return l == null ? 0 : l.size();
+    }
+
+    /** Уровень, чья сетка совпадает с тайлами (число и координаты по id), иначе -1. */
+    public int levelOf(List<Tile> tiles) {
+        int level = GridLevelMapping.levelOf(tiles.size());
+        if (level < MIN_LEVEL || level > MAX_LEVEL) return -1;
+        Level l = level(level);
+        if (l == null || l.size() != tiles.size()) return -1;
+        for (int i = 0; i < tiles.size(); i++) {
+            Tile t = tiles.get(i);
+            if (t.id != i || t.lat != l.lat[i] || t.lon != l.lon[i]) return -1;
+        }
+        return level;
+    }
+
+    /** Проставить соседей уровня (тот же порядок, что у IcosaNeighborsBuilder). */
+    public void applyNeighbors(int level, List<Tile> tiles) {
+        Level l = level(level);
+        for (int i = 0; i < tiles.size(); i++) {
+            Tile t = tiles.get(i);
+            t.neighbors.clear();
+            for (int k = l.nbStart[i]; k < l.nbStart[i + 1]; k++) t.neighbors.add(tiles.get(l.nbIds[k]));
+        }
+    }
+
+    /** Свежие тайлы уровня с соседями (для вспомогательных грубых прогонов). */
+    public List<Tile> newTiles(int level) {
+        Level l = level(level);
+        List<Tile> tiles = new ArrayList<>(l.size());
+        for (int i = 0; i < l.size(); i++) tiles.add(new Tile(i, l.lat[i], l.lon[i]));
+        applyNeighbors(level, tiles);
+        return tiles;
+    }
+
+    /** Общая геометрия уровня (строится при первом запросе), null — уровня нет. */
+    public synchronized TileGeometry geometry(int level) {
+        if (level(level) == null) return null;
+        return geometries.computeIfAbsent(level, l -> TileGeometry.build(newTiles(l)));
+    }
+
+    /** Соответствие тонкого уровня грубому (coarseLevel < fineLevel), null — уровня нет. */
+    public synchronized GridLevelMapping mapping(int fineLevel, int coarseLevel) {
+        int key = pairKey(fineLevel, coarseLevel);
+        GridLevelMapping m = mappings.get(key);
+        if (m != null || coarseLevel >= fineLevel) return m;
+        Level fine = level(fineLevel);
+        Level coarse = level(coarseLevel);
+        if (fine == null || coarse == null) return null;
+
+        CachedMapping cached = cachedMappings.get(key);
+        if (cached != null && cached.fineFingerprint == fine.fingerprint && cached.coarseFingerprint == coarse.fingerprint) {
+            m = cached.mapping;
+        } else {
+            m = GridLevelMapping.build(newTiles(fineLevel), newTiles(coarseLevel));
+            cachedMappings.put(key, new CachedMapping(fine.fingerprint, coarse.fingerprint, m));
+            save();
+        }
+        mappings.put(key, m);
+        return m;
+    }
+
+    private static int pairKey(int fine, int coarse) {
+        return fine * 16 + coarse;
+    }
+
+    private static long fingerprint(List<Tile> tiles) {
+        long h = 1125899906842597L;
+        for (Tile t : tiles) {
+            h = 31 * h + t.id;
+            h = 31 * h + Double.doubleToLongBits(t.lat);
+            h = 31 * h + Double.doubleToLongBits(t.lon);
+        }
+        return h;
+    }
+
+    // --- бинарный кэш ---
+
+    /** Записать кэш: сверенные уровни и ещё не тронутые записи прежнего кэша. */
+    private void save() {
+        if (cache == null) return;
+        try {
+            write(cache);
+        } catch (IOException e) {
+            System.out.println("[TOPOLOGY] cannot write cache " + cache + ": " + e.getMessage());
+        }
+    }
+
+    void write(Path path) throws IOException {
+        Map<Integer, Level> all = new TreeMap<>(cachedLevels);
+        all.putAll(levels);
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(all.size());
+            for (Level l : all.values()) {
+                out.writeInt(l.level);
+                out.writeLong(l.fingerprint);
+                writeDoubles(out, l.lat);
+                writeDoubles(out, l.lon);
+                writeInts(out, l.nbStart);
+                writeInts(out, l.nbIds);
+            }
+            out.writeInt(cachedMappings.size());
+            for (var e : cachedMappings.entrySet()) {
+                GridLevelMapping m = e.getValue().mapping();
+                out.writeInt(e.getKey());
+                out.writeLong(e.getValue().fineFingerprint());
+                out.writeLong(e.getValue().coarseFingerprint());
+                out.writeInt(m.fineCount);
+                out.writeInt(m.coarseCount);
+                writeInts(out, m.parent);
+                writeInts(out, m.childStart);
+                writeInts(out, m.childIds);
+                writeInts(out, m.corner);
+                writeDoubles(out, m.weight);
+                writeInts(out, m.nearestFine);
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void read() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cache), 1 << 16))) {
+            if (in.readInt() != MAGIC) throw new IOException("not a topology cache");
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("unsupported version " + version);
+            int levelCount = in.readInt();
+            for (int i = 0; i < levelCount; i++) {
+                int level = in.readInt();
+                long fp = in.readLong();
+                cachedLevels.put(level, new Level(level, fp, readDoubles(in), readDoubles(in), readInts(in), readInts(in)));
+            }
+            int mappingCount = in.readInt();
+            for (int i = 0; i < mappingCount; i++) {
+                int key = in.readInt();
+                long fineFp = in.readLong();
+                long coarseFp = in.readLong();
+                int fineCount = in.readInt();
+                int coarseCount = in.readInt();
+                cachedMappings.put(key, new CachedMapping(fineFp, coarseFp, new GridLevelMapping(fineCount, coarseCount,
+                        readInts(in), readInts(in), readInts(in), readInts(in), readDoubles(in), readInts(in))));
+            }
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] a) throws IOException {
+        out.writeInt(a.length);
+        for (int v : a) out.writeInt(v);
+    }
+
+    private static void writeDoubles(DataOutputStream out, double[] a) throws IOException {
+        out.writeInt(a.length);
+        for (double v : a) out.writeDouble(v);
+    }
+
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int[] a = new int[in.readInt()];
+        for (int i = 0; i < a.length; i++) a[i] = in.readInt();
+        return a;
+    }
+
+    private static double[] readDoubles(DataInputStream in) throws IOException {
+        double[] a = new double[in.readInt()];
+        for (int i = 0; i < a.length; i++) a[i] = in.readDouble();
+        return a;
+    }
+}
@@ -0,0 +1,260 @@
+package org.planet.core.topology;
+
+import org.planet.core.model.Tile;
+
+import java.util.List;
+
+/**
+ * Соответствие тайлов двух икосаэдрических сеток разного разрешения (например D5 -> D3).
+ *
+ * Сетки не вложены (совпадают только 42 узла), поэтому:
+ * - родитель тонкого тайла — ближайший центр грубого тайла (ячейка Вороного грубой сетки);
+ * - дети грубого тайла лежат подряд (CSR): {@code childIds[childStart[c]..childStart[c + 1])};
+ * - для интерполяции тонкий тайл лежит в треугольнике из родителя и двух соседних между собой
+ *   соседей родителя: {@code corner[3i..3i+2]} с барицентрическими весами {@code weight[3i..3i+2]}
+ *   (неотрицательные, в сумме 1);
+ * - {@code nearestFine[c]} — ближайший к центру грубого тайла тонкий (для тайлов без детей).
+ *
+ * Грубой сетке нужны соседи (NEIGHBORS), тонкой — только координаты. Готовые соответствия
+ * всех пар уровней D2..D6 лежат в GridHierarchy.
+ */
+public final class GridLevelMapping {
+
+    public final int fineCount;
+    public final int coarseCount;
+    public final int[] parent;
+    public final int[] childStart;
+    public final int[] childIds;
+    public final int[] corner;
+    public final double[] weight;
+    public final int[] nearestFine;
+
+    private GridLevelMapping(int fineCount, int coarseCount) {
+        this(fineCount, coarseCount, new int[fineCount], new int[coarseCount + 1], new int[fineCount],
+                new int[fineCount * 3], new double[fineCount * 3], new int[coarseCount]);
+    }
+
+    /** Из готовых массивов (кэш GridHierarchy). */
+    GridLevelMapping(int fineCount, int coarseCount, int[] parent, int[] childStart, int[] childIds,
+                     int[] corner, double[] weight, int[] nearestFine) {
+        this.fineCount = fineCount;
+        this.coarseCount = coarseCount;
+        this.parent = parent;
+        this.childStart = childStart;
+        this.childIds = childIds;
+        this.corner = corner;
+        this.weight = weight;
+        this.nearestFine = nearestFine;
+    }
+
+    /**
+     * Уровень сетки по числу тайлов: 10·4^k + 2 тайлов — уровень k (D2 = 162 … D6 = 40962),
+     * иначе -1.
+     */
+    public static int levelOf(int tileCount) {
+        for (int level = 1; level <= 10; level++) {
+            long count = 10L * (1L << (2 * level)) + 2;
+            if (count == tileCount) return level;
+            if (count > tileCount) break;
+        }
+        return -1;
+    }
+
+    public static GridLevelMapping build(List<Tile> fine, List<Tile> coarse) {
+        int nf = fine.size();
+        int nc = coarse.size();
+        GridLevelMapping m = new GridLevelMapping(nf, nc);
+        double[] cv = unitVectors(coarse);
+        int[][] nbs = new int[nc][];
+        for (int c = 0; c < nc; c++) {
+            List<Tile> list = coarse.get(c).neighbors;
+            nbs[c] = new int[list == null ? 0 : list.size()];
+            for (int k = 0; k < nbs[c].length; k++) nbs[c][k] = list.get(k).id;
+        }
+
+        double[] p = new double[3];
+        int start = 0;
+        for (int i = 0; i < nf; i++) {
+            Tile t = fine.get(i);
+            unitVector(t.lat, t.lon, p, 0);
+            // соседние тайлы файла близки на сфере: жадный спуск от родителя предыдущего
+            int c = nearest(p, cv, nbs, start);
+            m.parent[i] = c;
+            start = c;
+            m.fillTriangle(i, p, c, cv, nbs);
+        }
+
+        for (int i = 0; i < nf; i++) m.childStart[m.parent[i] + 1]++;
+        for (int c = 0; c < nc; c++) m.childStart[c + 1] += m.childStart[c];
+        int[] fill = new int[nc];
+        for (int i = 0; i < nf; i++) {
+            int c = m.parent[i];
+            m.childIds[m.childStart[c] + fill[c]++] = i;
+        }
+        m.fillNearestFine(fine, coarse);
+        return m;
+    }
+
+    public int childCount(int coarseId) {
+        return childStart[coarseId + 1] - childStart[coarseId];
+    }
+
+    /** Значение грубого поля в тонком тайле (барицентрика по треугольнику). */
+    public double interpolate(double[] coarseField, int fineId) {
+        int k = fineId * 3;
+        return weight[k] * coarseField[corner[k]]
+                + weight[k + 1] * coarseField[corner[k + 1]]
+                + weight[k + 2] * coarseField[corner[k + 2]];
+    }
+
+    public void interpolate(double[] coarseField, double[] fineOut) {
+        for (int i = 0; i < fineCount; i++) fineOut[i] = interpolate(coarseField, i);
+    }
+
+    /** Среднее по детям; у грубого тайла без детей — значение ближайшего тонкого (nearestFine). */
+    public void average(double[] fineField, double[] coarseOut) {
+        for (int c = 0; c < coarseCount; c++) {
+            int a = childStart[c];
+            int b = childStart[c + 1];
+            if (a == b) {
+                coarseOut[c] = fineField[nearestFine[c]];
+                continue;
+            }
+            double sum = 0.0;
+            for (int k = a; k < b; k++) sum += fineField[childIds[k]];
+            coarseOut[c] = sum / (b - a);
+        }
+    }
+
+    private void fillNearestFine(List<Tile> fine, List<Tile> coarse) {
+        double[] cp = new double[3];
+        double[] fp = new double[3];
+        for (int c = 0; c < coarseCount; c++) {
+            Tile ct = coarse.get(c);
+            unitVector(ct.lat, ct.lon, cp, 0);
+            int best = -1;
+            double bestD = Double.POSITIVE_INFINITY;
+            // кандидаты — дети самого тайла и его соседей
+            for (int s = -1; s < (ct.neighbors == null ? 0 : ct.neighbors.size()); s++) {
+                int owner = s < 0 ? c : ct.neighbors.get(s).id;
+                for (int k = childStart[owner]; k < childStart[owner + 1]; k++) {
+                    Tile ft = fine.get(childIds[k]);
+                    unitVector(ft.lat, ft.lon, fp, 0);
+                    double d = dist2(cp, 0, fp, 0);
+                    if (d < bestD) {
+                        bestD = d;
+                        best = childIds[k];
+                    }
+                }
+            }
+            nearestFine[c] = best >= 0 ? best : 0;
+        }
+    }
+
+    private static int nearest(double[] p, double[] cv, int[][] nbs, int start) {
+        int cur = start;
+        double best = dist2(p, 0, cv, cur * 3);
+        while (true) {
+            int next = cur;
+            for (int nb : nbs[cur]) {
+                double d = dist2(p, 0, cv, nb * 3);
+                if (d < best || (d == best && nb < next)) {
+                    best = d;
+                    next = nb;
+                }
+            }
+            if (next == cur) return cur;
+            cur = next;
+        }
+    }
+
+    /** Треугольник (c, a, b) с соседними a-b вокруг c, где у точки наибольший минимальный вес. */
+    private void fillTriangle(int i, double[] p, int c, double[] cv, int[][] nbs) {
+        int k = i * 3;
+        corner[k] = corner[k + 1] = corner[k + 2] = c;
+        weight[k] = 1.0;
+        weight[k + 1] = weight[k + 2] = 0.0;
+
+        double bestMin = Double.NEGATIVE_INFINITY;
+        double[] w = new double[3];
+        int[] ring = nbs[c];
+        for (int x = 0; x < ring.length; x++) {
+            for (int y = x + 1; y < ring.length; y++) {
+                int a = ring[x];
+                int b = ring[y];
+                if (!contains(nbs[a], b)) continue;
+                if (!barycentric(p, cv, c, a, b, w)) continue;
+                double min = Math.min(w[0], Math.min(w[1], w[2]));
+                if (min <= bestMin) continue;
+                bestMin = min;
+                double w0 = Math.max(0.0, w[0]);
+                double w1 = Math.max(0.0, w[1]);
+                double w2 = Math.max(0.0, w[2]);
+                double sum = w0 + w1 + w2;
+                if (sum <= 0.0) continue;
+                corner[k] = c;
+                corner[k + 1] = a;
+                corner[k + 2] = b;
+                weight[k] = w0 / sum;
+                weight[k + 1] = w1 / sum;
+                weight[k + 2] = w2 / sum;
+            }
+        }
+    }
+
+    /** p = w0·C + w1·A + w2·B (правило Крамера), веса нормированы на сумму: луч через p. */
+    private static boolean barycentric(double[] p, double[] v, int c, int a, int b, double[] w) {
+        int ci = c * 3;
+        int ai = a * 3;
+        int bi = b * 3;
+        double det = det3(v[ci], v[ci + 1], v[ci + 2], v[ai], v[ai + 1], v[ai + 2], v[bi], v[bi + 1], v[bi + 2]);
+        if (Math.abs(det) < 1e-18) return false;
+        double d0 = det3(p[0], p[1], p[2], v[ai], v[ai + 1], v[ai + 2], v[bi], v[bi + 1], v[bi + 2]);
+        double d1 = det3(v[ci], v[ci + 1], v[ci + 2], p[0], p[1], p[2], v[bi], v[bi + 1], v[bi + 2]);
+        double d2 = det3(v[ci], v[ci + 1], v[ci + 2], v[ai], v[ai + 1], v[ai + 2], p[0], p[1], p[2]);
+        double sum = d0 + d1 + d2;
+        if (Math.abs(sum) < 1e-18) return false;
+        w[0] = d0 / sum;
+        w[1] = d1 / sum;
+        w[2] = d2 / sum;
+        return true;
+    }
+
+    /** Определитель матрицы со строками (a, b, c). */
+    private static double det3(double a0, double a1, double a2,
+                               double b0, double b1, double b2,
+                               double c0, double c1, double c2) {
+        return a0 * (b1 * c2 - b2 * c1) - a1 * (b0 * c2 - b2 * c0) + a2 * (b0 * c1 - b1 * c0);
+    }
+
+    private static boolean contains(int[] list, int v) {
+        for (int x : list) {
+            if (x == v) return true;
+        }
+        return false;
+    }
+
+    private static double[] unitVectors(List<Tile> tiles) {
+        double[] out = new double[tiles.size() * 3];
+        for (int i = 0; i < tiles.size(); i++) {
+            Tile t = tiles.get(i);
+            unitVector(t.lat, t.lon, out, i * 3);
+        }
+        return out;
+    }
+
+    private static void unitVector(double latDeg, double lonDeg, double[] out, int at) {
+        double lat = Math.toRadians(latDeg);
+        double lon = Math.toRadians(lonDeg);
+        out[at] = Math.cos(lat) * Math.cos(lon);
+        out[at + 1] = Math.cos(lat) * Math.sin(lon);
+        out[at + 2] = Math.sin(lat);
+    }
+
+    private static double dist2(double[] a, int ai, double[] b, int bi) {
+        double dx = a[ai] - b[bi];
+        double dy = a[ai + 1] - b[bi + 1];
+        double dz = a[ai + 2] - b[bi + 2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
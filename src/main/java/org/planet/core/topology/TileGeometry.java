@@ -0,0 +1,150 @@
+package org.planet.core.topology;
+
+import org.planet.core.model.Tile;
+
+import java.util.List;
+
+/**
+ * Предрасчитанная геометрия сетки: таблица рёбер (тайл -> сосед) и широтные множители тайлов.
+ *
+ * Рёбра лежат подряд (CSR): рёбра тайла {@code id} — это {@code first(id) + k},
+ * где k — индекс соседа в {@code tile.neighbors}. Строится один раз после NEIGHBORS,
+ * дальше генераторы читают массивы вместо toRadians/sin/cos/atan2 во внутренних циклах.
+ *
+ * Формулы совпадают с прежними локальными хелперами (111 км/градус, долгота с переходом через 180°),
+ * поэтому результаты генераторов не меняются.
+ */
+public final class TileGeometry {
+
+    /** Км на градус в планарном приближении (как в WindGenerator). */
+    public static final double KM_PER_DEG = 111.0;
+
+    /** Начало рёбер тайла: offset[id]..offset[id + 1). */
+    public final int[] offset;
+    /** id соседа на ребре (-1, если сосед null). */
+    public final int[] target;
+    /** Единичное направление тайл -> сосед (восток, север). */
+    public final double[] dirEast;
+    public final double[] dirNorth;
+    /** Единичное направление сосед -> тайл (в системе соседа): приток в тайл. */
+    public final double[] inEast;
+    public final double[] inNorth;
+    /** Планарная длина ребра, км (111 км/градус, cos широты тайла). */
+    public final double[] planarKm;
+    /** Длина ребра по большому кругу, радианы. */
+    public final double[] arcRad;
+    /** cos/sin широты тайла. */
+    public final double[] cosLat;
+    public final double[] sinLat;
+
+    private final double[] lat;
+    private final double[] lon;
+
+    private TileGeometry(int tileCount, int edgeCount) {
+        offset = new int[tileCount + 1];
+        target = new int[edgeCount];
+        dirEast = new double[edgeCount];
+        dirNorth = new double[edgeCount];
+        inEast = new double[edgeCount];
+        inNorth = new double[edgeCount];
+        planarKm = new double[edgeCount];
+        arcRad = new double[edgeCount];
+        cosLat = new double[tileCount];
+        sinLat = new double[tileCount];
+        lat = new double[tileCount];
+        lon = new double[tileCount];
+    }
+
+    public static TileGeometry build(List<Tile> tiles) {
+        int n = tiles.size();
+        int edges = 0;
+        for (Tile t : tiles) {
+            if (t.neighbors != null) edges += t.neighbors.size();
+        }
+
+        TileGeometry g = new TileGeometry(n, edges);
+        for (int i = 0; i < n; i++) {
+            Tile t = tiles.get(i);
+            double latRad = Math.toRadians(t.lat);
+            g.cosLat[i] = Math.cos(latRad);
+            g.sinLat[i] = Math.sin(latRad);
+            g.lat[i] = t.lat;
+            g.lon[i] = t.lon;
+        }
+
+        int e = 0;
+        for (int i = 0; i < n; i++) {
+            g.offset[i] = e;
+            Tile t = tiles.get(i);
+            if (t.neighbors == null) continue;
+            for (Tile nb : t.neighbors) {
+                if (nb == null) {
+                    g.target[e++] = -1;
+                    continue;
+                }
+                g.target[e] = nb.id;
+
+                double dx = lonDeltaDeg(t.lon, nb.lon) * KM_PER_DEG * g.cosLat[i];
+                double dy = (nb.lat - t.lat) * KM_PER_DEG;
+                double len = Math.sqrt(dx * dx + dy * dy);
+                g.planarKm[e] = len;
+                if (len >= 1e-6) {
+                    g.dirEast[e] = dx / len;
+                    g.dirNorth[e] = dy / len;
+                }
+
+                double rx = lonDeltaDeg(nb.lon, t.lon) * KM_PER_DEG * Math.cos(Math.toRadians(nb.lat));
+                double ry = (t.lat - nb.lat) * KM_PER_DEG;
+                double rlen = Math.sqrt(rx * rx + ry * ry);
+                if (rlen >= 1e-6) {
+                    g.inEast[e] = rx / rlen;
+                    g.inNorth[e] = ry / rlen;
+                }
+
+                g.arcRad[e] = haversine(t.lat, t.lon, g.cosLat[i], nb.lat, nb.lon, Math.cos(Math.toRadians(nb.lat)));
+                e++;
+            }
+        }
+        g.offset[n] = e;
+        return g;
+    }
+
+    /**
+     * Вернёт готовую геометрию, если она от этой же сетки, иначе построит новую.
+     * Для прямых вызовов генераторов вне пайплайна.
+     */
+    public static TileGeometry ensure(TileGeometry cached, List<Tile> tiles) {
+        if (cached != null && cached.size() == tiles.size()) return cached;
+        return build(tiles);
+    }
+
+    public int size() {
+        return cosLat.length;
+    }
+
+    /** Первое ребро тайла (k-й сосед — ребро first(id) + k). */
+    public int first(int tileId) {
+        return offset[tileId];
+    }
+
+    /** Угловое расстояние между любыми двумя тайлами, радианы (гаверсинус на кэшированных cos широты). */
+    public double arcRad(int a, int b) {
+        return haversine(lat[a], lon[a], cosLat[a], lat[b], lon[b], cosLat[b]);
+    }
+
+    private static double haversine(double lat1, double lon1, double cos1, double lat2, double lon2, double cos2) {
+        // sin^2(dLon/2) периодичен с шагом 360°, поэтому перенос долготы не нужен.
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double s = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + cos1 * cos2 * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * Math.atan2(Math.sqrt(s), Math.sqrt(1 - s));
+    }
+
+    private static double lonDeltaDeg(double fromLon, double toLon) {
+        double d = toLon - fromLon;
+        if (d > 180.0) d -= 360.0;
+        if (d < -180.0) d += 360.0;
+        return d;
+    }
+}
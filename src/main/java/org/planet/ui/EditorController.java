@@ -2,45 +2,51 @@ package org.planet.ui;
 
 import javafx.scene.canvas.Canvas;
 import javafx.scene.input.MouseEvent;
+import org.planet.core.generation.DirtyRegion;
 import org.planet.core.model.Tile;
 import org.planet.core.model.SurfaceType;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public class EditorController {
 
     private final Canvas canvas;
     private final List<Tile> tiles;
+    private Consumer<DirtyRegion> onEdit;
+    private TilePicker picker;
 
     public EditorController(Canvas canvas, List<Tile> tiles) {
         this.canvas = canvas;
         this.tiles = tiles;
     }
 
+    /**
+     * Обработчик правки: получает область (правленый тайл + кольца соседей) и сам применяет её,
+     * обычно через GenerationPipeline.rerun. Без обработчика тип просто записывается в тайл.
+     */
+    public void setOnEdit(Consumer<DirtyRegion> onEdit) {
+        this.onEdit = onEdit;
+    }
+
     public void enable() {
         canvas.addEventHandler(MouseEvent.MOUSE_CLICKED, e -> {
             Tile tile = findNearest(e.getX(), e.getY());
-            if (tile != null) {
-                tile.surfaceType = next(tile.surfaceType);
+            if (tile == null) return;
+            SurfaceType next = next(tile.surfaceType);
+            if (onEdit == null) {
+                tile.surfaceType = next;
+                return;
             }
+            onEdit.accept(DirtyRegion.of(tiles).edit(tile, next).expand(DirtyRegion.defaultRings()));
         });
     }
 
     private Tile findNearest(double x, double y) {
-        Tile best = null;
-        double bestDist = Double.MAX_VALUE;
-
-        for (Tile t : tiles) {
-            double tx = (t.lon / 100_000.0 + 180) / 360 * canvas.getWidth();
-            double ty = (90 - t.lat / 100_000.0) / 180 * canvas.getHeight();
-
-            double d = Math.hypot(tx - x, ty - y);
-            if (d < bestDist && d < 6) {
-                bestDist = d;
-                best = t;
-            }
+        if (picker == null || !picker.matches(tiles, canvas.getWidth(), canvas.getHeight())) {
+            picker = TilePicker.build(tiles, canvas.getWidth(), canvas.getHeight());
         }
-        return best;
+        return picker.nearest(x, y, 6);
     }
 
     private SurfaceType next(SurfaceType t) {
@@ -2,6 +2,7 @@ package org.planet.ui;
 
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Paint;
@@ -14,9 +15,13 @@ import org.planet.core.model.RiverBaseType;
 import org.planet.core.model.SurfaceType;
 import org.planet.core.model.Tile;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class MapRenderer {
 
@@ -52,6 +57,50 @@ public class MapRenderer {
         VERY_DEEP
     }
 
+    /**
+     * Ключ слоя карты. Сезон входит в ключ только для сезонных режимов, ресурс и слой — только
+     * для RESOURCES: остальные режимы от них не зависят и делят один слой.
+     */
+    private record LayerKey(DisplayMode mode, SeasonView season, ResourceType resource, ResourceLayerView layer) {
+        static LayerKey of(DisplayMode mode, SeasonView season, ResourceType resource, ResourceLayerView layer) {
+            boolean seasonal = mode == DisplayMode.TEMP || mode == DisplayMode.MOISTURE || mode == DisplayMode.WIND;
+            boolean res = mode == DisplayMode.RESOURCES;
+            return new LayerKey(mode, seasonal ? season : null, res ? resource : null, res ? layer : null);
+        }
+    }
+
+    private static final int MAX_CACHED_LAYERS = 24;
+
+    // Цвета тайлов по слоям (считаются и в фоне); готовые картинки слоёв (только FX-поток).
+    private final Map<LayerKey, Color[]> colours = new ConcurrentHashMap<>();
+    private final Map<LayerKey, WritableImage> layers = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LayerKey, WritableImage> eldest) {
+            return size() > MAX_CACHED_LAYERS;
+        }
+    };
+    private final AtomicInteger generation = new AtomicInteger();
+    private final Object colourLock = new Object();
+    private List<Tile> cachedTiles;
+    private TilePicker picker;
+    private double cachedWidth;
+    private double cachedHeight;
+
+    private static final ExecutorService COLOUR_WORKER = Executors.newSingleThreadExecutor(r -> {
+        Thread th = new Thread(r, "map-colours");
+        th.setDaemon(true);
+        return th;
+    });
+
+    /** Сбросить кэш слоёв: тайлы поменялись (правка, перегенерация). */
+    public void invalidate() {
+        synchronized (colourLock) {
+            generation.incrementAndGet();
+            colours.clear();
+        }
+        layers.clear();
+    }
+
     public void render(List<Tile> tiles,
                        DisplayMode mode,
                        SeasonView season,
@@ -59,14 +108,58 @@ public class MapRenderer {
                        ResourceLayerView layerView,
                        boolean tidalLocked,
                        double subsolarLatDeg) {
-        g.setFill(Color.BLACK);
-        g.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        if (tiles != cachedTiles || canvas.getWidth() != cachedWidth || canvas.getHeight() != cachedHeight) {
+            invalidate();
+            cachedTiles = tiles;
+            cachedWidth = canvas.getWidth();
+            cachedHeight = canvas.getHeight();
+        }
 
-        Map<Integer, Tile> byId = new HashMap<>();
-        for (Tile t : tiles) {
-            byId.put(t.id, t);
+        LayerKey key = LayerKey.of(mode, season, resourceType, layerView);
+        WritableImage layer = layers.get(key);
+        if (layer == null) {
+            Color[] fills = colours.get(key);
+            if (fills == null) {
+                fills = computeColours(tiles.toArray(new Tile[0]), key);
+                colours.put(key, fills);
+            }
+            drawLayer(tiles, key, fills);
+            layer = canvas.snapshot(null, new WritableImage((int) Math.ceil(cachedWidth), (int) Math.ceil(cachedHeight)));
+            layers.put(key, layer);
+            precomputeNeighbours(tiles, season, resourceType, layerView);
+        } else {
+            g.drawImage(layer, 0, 0);
         }
 
+        if (tidalLocked) {
+            drawTidalTerminatorOverlay(subsolarLatDeg);
+        }
+    }
+
+    /**
+     * В фоне посчитать цвета остальных режимов для текущего сезона, чтобы переключение не считало их на FX-потоке.
+     * Воркер читает снимок списка: сам список FX-поток меняет после перегенерации (tiles.clear/addAll).
+     */
+    private void precomputeNeighbours(List<Tile> tiles, SeasonView season, ResourceType resourceType, ResourceLayerView layerView) {
+        int gen = generation.get();
+        Tile[] snapshot = tiles.toArray(new Tile[0]);
+        for (DisplayMode m : DisplayMode.values()) {
+            LayerKey k = LayerKey.of(m, season, resourceType, layerView);
+            if (colours.containsKey(k)) continue;
+            COLOUR_WORKER.execute(() -> {
+                if (generation.get() != gen || colours.containsKey(k)) return;
+                Color[] fills = computeColours(snapshot, k);
+                // результат для старых тайлов не кладём
+                synchronized (colourLock) {
+                    if (generation.get() == gen) colours.putIfAbsent(k, fills);
+                }
+            });
+        }
+    }
+
+    /** Цвет точки каждого тайла (по позиции в списке) для слоя; без обращений к Canvas — можно вне FX-потока. */
+    private Color[] computeColours(Tile[] tiles, LayerKey key) {
+        SeasonView season = key.season();
         double minElev = 0;
         double maxElev = 1;
         double minTemp = -30;
@@ -75,7 +168,7 @@ public class MapRenderer {
         double maxMoist = 100;
         double minWind = 0;
         double maxWind = 20;
-        if (mode == DisplayMode.ELEVATION) {
+        if (key.mode() == DisplayMode.ELEVATION) {
             int min = Integer.MAX_VALUE;
             int max = Integer.MIN_VALUE;
             for (Tile t : tiles) {
@@ -84,7 +177,7 @@ public class MapRenderer {
             }
             minElev = min;
             maxElev = Math.max(min + 1, max);
-        } else if (mode == DisplayMode.TEMP) {
+        } else if (key.mode() == DisplayMode.TEMP) {
             double min = Double.POSITIVE_INFINITY;
             double max = Double.NEGATIVE_INFINITY;
             for (Tile t : tiles) {
@@ -94,7 +187,7 @@ public class MapRenderer {
             }
             minTemp = min;
             maxTemp = Math.max(min + 1, max);
-        } else if (mode == DisplayMode.MOISTURE) {
+        } else if (key.mode() == DisplayMode.MOISTURE) {
             double min = Double.POSITIVE_INFINITY;
             double max = Double.NEGATIVE_INFINITY;
             for (Tile t : tiles) {
@@ -104,7 +197,7 @@ public class MapRenderer {
             }
             minMoist = min;
             maxMoist = Math.max(min + 1, max);
-        } else if (mode == DisplayMode.WIND) {
+        } else if (key.mode() == DisplayMode.WIND) {
             double min = Double.POSITIVE_INFINITY;
             double max = Double.NEGATIVE_INFINITY;
             for (Tile t : tiles) {
@@ -116,20 +209,33 @@ public class MapRenderer {
             maxWind = Math.max(min + 1, max);
         }
 
-        for (Tile tile : tiles) {
-            double x = (tile.lon + 180) / 360 * canvas.getWidth();
-            double y = (90 - tile.lat) / 180 * canvas.getHeight();
-
-            Color fill = switch (mode) {
+        Color[] out = new Color[tiles.length];
+        for (int i = 0; i < out.length; i++) {
+            Tile tile = tiles[i];
+            out[i] = switch (key.mode()) {
                 case SURFACE -> color(tile.surfaceType);
                 case ELEVATION -> elevationColor(tile.elevation, minElev, maxElev);
                 case TEMP -> temperatureColor(tempBySeason(tile, season), minTemp, maxTemp);
                 case MOISTURE -> moistureColor(moistureBySeason(tile, season), minMoist, maxMoist);
                 case WIND -> windColor(windAvgBySeason(tile, season), minWind, maxWind);
                 case WATER_RIVERS -> waterColor(tile);
-                case RESOURCES -> resourceColor(tile, resourceType, layerView);
+                case RESOURCES -> resourceColor(tile, key.resource(), key.layer());
                 case FERTILITY -> fertilityColor(tile);
             };
+        }
+        return out;
+    }
+
+    private void drawLayer(List<Tile> tiles, LayerKey key, Color[] fills) {
+        DisplayMode mode = key.mode();
+        g.setFill(Color.BLACK);
+        g.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+
+        for (int i = 0; i < fills.length; i++) {
+            Tile tile = tiles.get(i);
+            Color fill = fills[i];
+            double x = (tile.lon + 180) / 360 * canvas.getWidth();
+            double y = (90 - tile.lat) / 180 * canvas.getHeight();
 
             boolean drawPointAfterRiver = (mode == DisplayMode.RESOURCES);
             if (!drawPointAfterRiver) {
@@ -138,7 +244,7 @@ public class MapRenderer {
             }
 
             if (mode == DisplayMode.WIND) {
-                drawWindGlyph(g, tile, season, x, y);
+                drawWindGlyph(g, tile, key.season(), x, y);
             }
 
             if (tile.isRiver) {
@@ -149,22 +255,21 @@ public class MapRenderer {
                 g.setFill(rc);
                 g.fillOval(x - 1, y - 1, 2, 2);
 
-                if (tile.riverTo >= 0) {
-                    Tile to = byId.get(tile.riverTo);
-                    if (to != null) {
-                        double tx = (to.lon + 180) / 360 * canvas.getWidth();
-                        double ty = (90 - to.lat) / 180 * canvas.getHeight();
-                        double w = riverWidth(tile.riverDischargeTps);
-                        g.setStroke(Color.rgb(0, 0, 0, 0.35));
-                        g.setLineWidth(w + 0.55);
-                        g.setLineDashes(null);
-                        g.strokeLine(x, y, tx, ty);
-                        g.setStroke(rc);
-                        g.setLineWidth(w);
-                        g.setLineDashes(null);
-                        g.strokeLine(x, y, tx, ty);
-                        g.setLineDashes(null);
-                    }
+                // id тайла = индекс в списке
+                Tile to = (tile.riverTo >= 0 && tile.riverTo < tiles.size()) ? tiles.get(tile.riverTo) : null;
+                if (to != null) {
+                    double tx = (to.lon + 180) / 360 * canvas.getWidth();
+                    double ty = (90 - to.lat) / 180 * canvas.getHeight();
+                    double w = riverWidth(tile.riverDischargeTps);
+                    g.setStroke(Color.rgb(0, 0, 0, 0.35));
+                    g.setLineWidth(w + 0.55);
+                    g.setLineDashes(null);
+                    g.strokeLine(x, y, tx, ty);
+                    g.setStroke(rc);
+                    g.setLineWidth(w);
+                    g.setLineDashes(null);
+                    g.strokeLine(x, y, tx, ty);
+                    g.setLineDashes(null);
                 }
             }
 
@@ -174,10 +279,6 @@ public class MapRenderer {
                 g.fillOval(x - 2, y - 2, 4, 4);
             }
         }
-
-        if (tidalLocked) {
-            drawTidalTerminatorOverlay(subsolarLatDeg);
-        }
     }
 
     private void drawTidalTerminatorOverlay(double subsolarLatDeg) {
@@ -277,22 +378,19 @@ public class MapRenderer {
     }
 
     public Tile pickNearestTile(List<Tile> tiles, double x, double y) {
-        Tile best = null;
-        double bestD = Double.POSITIVE_INFINITY;
-        double w = canvas.getWidth();
-        double h = canvas.getHeight();
-        for (Tile t : tiles) {
-            double tx = (t.lon + 180) / 360 * w;
-            double ty = (90 - t.lat) / 180 * h;
-            double dx = tx - x;
-            double dy = ty - y;
-            double d2 = dx * dx + dy * dy;
-            if (d2 < bestD) {
-                bestD = d2;
-                best = t;
-            }
+        return picker(tiles).nearest(x, y);
+    }
+
+    /** Ближайший тайл не дальше maxDist пикселей или null. */
+    public Tile pickNearestTile(List<Tile> tiles, double x, double y, double maxDist) {
+        return picker(tiles).nearest(x, y, maxDist);
+    }
+
+    private TilePicker picker(List<Tile> tiles) {
+        if (picker == null || !picker.matches(tiles, canvas.getWidth(), canvas.getHeight())) {
+            picker = TilePicker.build(tiles, canvas.getWidth(), canvas.getHeight());
         }
-        return best;
+        return picker;
     }
 
     public String formatTooltip(Tile t, DisplayMode mode, SeasonView season, ResourceType resourceType, ResourceLayerView layerView) {
@@ -543,18 +641,6 @@ public class MapRenderer {
         return 0.8;
     }
 
-    private boolean isWaterSurface(SurfaceType st) {
-        return switch (st) {
-            case OCEAN, ICE_OCEAN, LAVA_OCEAN,
-                    SHALLOW_SEA,
-                    OPEN_WATER_SHALLOW, OPEN_WATER_DEEP,
-                    LAKE_FRESH, LAKE_SALT, LAKE_BRINE, LAKE_ACID,
-                    SEA_ICE_SHALLOW, SEA_ICE_DEEP,
-                    STEAM_SEA -> true;
-            default -> false;
-        };
-    }
-
     private double windAvg(Tile t) {
         if (!Double.isNaN(t.windAvg)) return t.windAvg;
         return Math.sqrt(t.windX * t.windX + t.windY * t.windY);
@@ -0,0 +1,128 @@
+package org.planet.ui;
+
+import org.planet.core.model.Tile;
+
+import java.util.List;
+
+/**
+ * Поиск ближайшего тайла к точке на канве (равнопромежуточная проекция, как у MapRenderer).
+ *
+ * Экранные координаты тайлов раскладываются по сетке корзин размером примерно с шаг тайлов;
+ * запрос смотрит корзину точки и расширяет кольца, пока следующее кольцо не может дать тайл ближе.
+ * Индекс строится один раз на (список тайлов, размер канвы) — при ресайзе или новой планете
+ * matches() вернёт false, и его нужно пересобрать.
+ */
+final class TilePicker {
+
+    private final List<Tile> tiles;
+    private final Tile first;
+    private final int size;
+    private final double width;
+    private final double height;
+
+    private final double cell;
+    private final int cols;
+    private final int rows;
+    private final int[] cellStart;
+    private final int[] cellTiles;
+    private final double[] xs;
+    private final double[] ys;
+
+    private TilePicker(List<Tile> tiles, double width, double height) {
+        this.tiles = tiles;
+        this.first = tiles.isEmpty() ? null : tiles.get(0);
+        this.size = tiles.size();
+        this.width = width;
+        this.height = height;
+
+        int n = tiles.size();
+        this.cell = Math.max(2.0, Math.sqrt(Math.max(1.0, width * height) / Math.max(1, n)));
+        this.cols = Math.max(1, (int) Math.ceil(width / cell));
+        this.rows = Math.max(1, (int) Math.ceil(height / cell));
+        this.xs = new double[n];
+        this.ys = new double[n];
+
+        // counting sort по корзинам
+        int[] cellOf = new int[n];
+        this.cellStart = new int[cols * rows + 1];
+        for (int i = 0; i < n; i++) {
+            Tile t = tiles.get(i);
+            xs[i] = (t.lon + 180) / 360 * width;
+            ys[i] = (90 - t.lat) / 180 * height;
+            cellOf[i] = cellIndex(xs[i], ys[i]);
+            cellStart[cellOf[i] + 1]++;
+        }
+        for (int c = 0; c < cols * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        this.cellTiles = new int[n];
+        int[] fill = new int[cols * rows];
+        for (int i = 0; i < n; i++) {
+            int c = cellOf[i];
+            cellTiles[cellStart[c] + fill[c]++] = i;
+        }
+    }
+
+    static TilePicker build(List<Tile> tiles, double width, double height) {
+        return new TilePicker(tiles, width, height);
+    }
+
+    /** Индекс собран для этих тайлов и этого размера канвы. */
+    boolean matches(List<Tile> tiles, double width, double height) {
+        return tiles == this.tiles
+                && tiles.size() == size
+                && (tiles.isEmpty() || tiles.get(0) == first)
+                && width == this.width
+                && height == this.height;
+    }
+
+    /** Ближайший тайл (при равных расстояниях — раньше в списке) или null для пустого списка. */
+    Tile nearest(double x, double y) {
+        return nearest(x, y, Double.POSITIVE_INFINITY);
+    }
+
+    /** Ближайший тайл не дальше maxDist пикселей (строго меньше) или null. */
+    Tile nearest(double x, double y, double maxDist) {
+        if (size == 0) return null;
+        int cx = clamp((int) Math.floor(x / cell), cols);
+        int cy = clamp((int) Math.floor(y / cell), rows);
+
+        int best = -1;
+        double bestD2 = maxDist * maxDist;
+        int maxRing = Math.max(cols, rows);
+        for (int r = 0; r <= maxRing; r++) {
+            // тайлы в кольце r и дальше не ближе (r-1)·cell (и для точки за краем поля тоже)
+            double reach = (r - 1) * cell;
+            if (r > 0 && reach * reach > bestD2) break;
+            for (int gy = cy - r; gy <= cy + r; gy++) {
+                if (gy < 0 || gy >= rows) continue;
+                boolean edgeRow = gy == cy - r || gy == cy + r;
+                for (int gx = cx - r; gx <= cx + r; gx += (edgeRow || r == 0) ? 1 : 2 * r) {
+                    if (gx < 0 || gx >= cols) continue;
+                    int c = gy * cols + gx;
+                    for (int k = cellStart[c]; k < cellStart[c + 1]; k++) {
+                        int i = cellTiles[k];
+                        double dx = xs[i] - x;
+                        double dy = ys[i] - y;
+                        double d2 = dx * dx + dy * dy;
+                        if (d2 < bestD2 || (d2 == bestD2 && best >= 0 && i < best)) {
+                            bestD2 = d2;
+                            best = i;
+                        }
+                    }
+                }
+            }
+        }
+        return best < 0 ? null : tiles.get(best);
+    }
+
+    private int cellIndex(double x, double y) {
+        int gx = clamp((int) Math.floor(x / cell), cols);
+        int gy = clamp((int) Math.floor(y / cell), rows);
+        return gy * cols + gx;
+    }
+
+    private static int clamp(int v, int n) {
+        return v < 0 ? 0 : (v >= n ? n - 1 : v);
+    }
+}
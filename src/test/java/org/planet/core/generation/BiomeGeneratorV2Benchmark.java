@@ -0,0 +1,73 @@
+package org.planet.core.generation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.planet.core.topology.GridHierarchy;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: классификация биомов BiomeGeneratorV2 на D5 (файл сетки), по тайлам последовательно
+ * и параллельно (planet.biome.parallel). Вход — планета после стадий до BIOMES (BiomeInput);
+ * перед каждым вызовом surfaceType возвращается к этому состоянию.
+ *
+ * Запуск из корня репозитория:
+ *   mvn test-compile
+ *   java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.planet.core.generation.BiomeGeneratorV2Benchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BiomeGeneratorV2Benchmark {
+
+    @Param({"5"})
+    public int grid;
+
+    @Param({"false", "true"})
+    public String parallel;
+
+    private BiomeInput input;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        System.setProperty("planet.biome.parallel", parallel);
+        GridHierarchy grids = GridHierarchy.shared();
+        if (!grids.hasLevel(grid)) {
+            throw new IllegalStateException("нет LatLongTileID" + grid + "_v2.txt в рабочем каталоге");
+        }
+        input = BiomeInput.prepare(grids.newTiles(grid));
+    }
+
+    @Setup(Level.Invocation)
+    public void restore() {
+        input.restore();
+    }
+
+    @Benchmark
+    public Object classify() {
+        input.classify();
+        return input.tiles;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BiomeGeneratorV2Benchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,60 @@
+package org.planet.core.generation;
+
+import org.junit.jupiter.api.Test;
+import org.planet.core.model.SurfaceType;
+import org.planet.core.model.Tile;
+import org.planet.core.topology.GridHierarchy;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class BiomeGeneratorV2Test {
+
+    private static final String PARALLEL = "planet.biome.parallel";
+
+    @Test
+    void parallelClassificationMatchesSequential() {
+        GridHierarchy grids = GridHierarchy.shared();
+        assumeTrue(grids.hasLevel(4), "нет LatLongTileID4_v2.txt в рабочем каталоге");
+        BiomeInput input = BiomeInput.prepare(grids.newTiles(4));
+
+        Snapshot sequential = classify(input, false);
+        Snapshot parallel = classify(input, true);
+
+        assertArrayEquals(sequential.surface, parallel.surface, "surfaceType");
+        assertArrayEquals(sequential.regime, parallel.regime, "biomeRegime");
+        assertArrayEquals(sequential.modifiers, parallel.modifiers, "biomeModifierMask");
+
+        // вход не вырожденный: классификация дала несколько типов суши
+        Set<SurfaceType> kinds = new HashSet<>();
+        for (Tile t : input.tiles) kinds.add(t.surfaceType);
+        assertTrue(kinds.size() > 5, "типов поверхности: " + kinds);
+    }
+
+    private static Snapshot classify(BiomeInput input, boolean parallel) {
+        String previous = System.getProperty(PARALLEL);
+        System.setProperty(PARALLEL, Boolean.toString(parallel));
+        try {
+            input.restore();
+            input.classify();
+        } finally {
+            if (previous == null) System.clearProperty(PARALLEL);
+            else System.setProperty(PARALLEL, previous);
+        }
+        int n = input.tiles.size();
+        Snapshot s = new Snapshot(new String[n], new String[n], new int[n]);
+        for (Tile t : input.tiles) {
+            s.surface[t.id] = String.valueOf(t.surfaceType);
+            s.regime[t.id] = String.valueOf(t.biomeRegime);
+            s.modifiers[t.id] = t.biomeModifierMask;
+        }
+        return s;
+    }
+
+    private record Snapshot(String[] surface, String[] regime, int[] modifiers) {
+    }
+}
@@ -0,0 +1,82 @@
+package org.planet.core.generation;
+
+import org.planet.core.model.SurfaceType;
+import org.planet.core.model.Tile;
+import org.planet.core.model.config.ClimateModelMode;
+import org.planet.core.model.config.GeneratorSettings;
+import org.planet.core.model.config.PlanetConfig;
+
+import java.util.List;
+
+/**
+ * Вход BIOMES для тестов и бенчмарков: землеподобная планета, прогнанная пайплайном до биомов
+ * (StageProfile.upToWind — все стадии, кроме эрозии и BIOMES). Классификация читает и меняет
+ * surfaceType, поэтому он сохраняется и restore() возвращает сетку к состоянию перед BIOMES.
+ * ctx — контекст прогона (геометрия, настройки) для тестов климата на той же планете.
+ */
+final class BiomeInput {
+
+    static final long SEED = 12345L;
+
+    final List<Tile> tiles;
+    final PlanetConfig planet;
+    final WorldContext ctx;
+    private final SurfaceType[] surface;
+
+    private BiomeInput(List<Tile> tiles, PlanetConfig planet, WorldContext ctx) {
+        this.tiles = tiles;
+        this.planet = planet;
+        this.ctx = ctx;
+        this.surface = new SurfaceType[tiles.size()];
+        for (Tile t : tiles) surface[t.id] = t.surfaceType;
+    }
+
+    static BiomeInput prepare(List<Tile> tiles) {
+        PlanetConfig planet = earthLike();
+        WorldType worldType = WorldClassifier.classify(planet);
+        GeneratorSettings settings = new GeneratorSettings(SEED);
+        settings.climateModelMode = ClimateModelMode.ENHANCED;
+        PlanetTuning.apply(settings, planet, worldType);
+        WorldContext ctx = new GenerationPipeline(2.5, 0.7, 0.3, 0.15, StageProfile.upToWind(), true, null)
+                .run(tiles, planet, settings, PlanetTuning.plateCount(planet, worldType));
+        return new BiomeInput(tiles, planet, ctx);
+    }
+
+    void restore() {
+        for (Tile t : tiles) t.surfaceType = surface[t.id];
+    }
+
+    /** Классификация всей сетки, как в BiomeStage.apply. */
+    void classify() {
+        new BiomeGeneratorV2().apply(tiles, planet, true, SEED, ClimateModelMode.ENHANCED);
+    }
+
+    private static PlanetConfig earthLike() {
+        PlanetConfig p = new PlanetConfig();
+        p.hasAtmosphere = true;
+        p.atmosphereDensity = 1.0;
+        p.atmosphericPressure = 1000;
+        p.gravity = 1.0;
+        p.radiusKm = 6371;
+        p.meanTemperature = 15;
+        p.meanTemperatureK = 288;
+        p.minTemperatureK = 220;
+        p.maxTemperatureK = 320;
+        p.equilibriumTemperatureK = 255;
+        p.greenhouseDeltaK = 33;
+        p.waterCoverageOrdinal = 3;
+        p.hasLife = true;
+        p.hasSurfaceLife = true;
+        p.axialTilt = 23.5;
+        p.rotationPeriodHours = 24;
+        p.rotationPrograde = 1;
+        p.volcanism = 30;
+        p.tectonicActivity = 50;
+        p.orbitalPeriodDays = 365;
+        p.massEarth = 1;
+        p.fracRock = 0.7;
+        p.fracIron = 0.3;
+        p.o2Pct = 21;
+        return p;
+    }
+}
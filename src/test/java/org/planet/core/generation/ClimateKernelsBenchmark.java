@@ -0,0 +1,81 @@
+package org.planet.core.generation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.planet.core.io.CsvTileLoader;
+import org.planet.core.model.Tile;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: qsat по всей сетке за один вызов ядра (как на шаге цикла влаги в WindGenerator).
+ *
+ * Запуск из корня репозитория (vector требует сборки с профилем vector):
+ *   mvn -Pvector test-compile
+ *   java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.planet.core.generation.ClimateKernelsBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class ClimateKernelsBenchmark {
+
+    /** Уровень сетки: файл LatLongTileID{grid}_v2.txt в рабочем каталоге. */
+    @Param({"4", "5"})
+    public int grid;
+
+    @Param({"scalar", "vector"})
+    public String kernel;
+
+    private ClimateKernels kernels;
+    private double[] tempC;
+    private double[] pKPa;
+    private double[] out;
+
+    @Setup
+    public void setup() {
+        kernels = "vector".equals(kernel) ? ClimateKernels.vector() : new ClimateKernels.Scalar();
+        if (kernels == null) {
+            throw new IllegalStateException("VectorClimateKernels недоступны: соберите с -Pvector");
+        }
+        List<Tile> tiles = CsvTileLoader.load("LatLongTileID" + grid + "_v2.txt");
+        int n = tiles.size();
+        tempC = new double[n];
+        pKPa = new double[n];
+        out = new double[n];
+        for (int i = 0; i < n; i++) {
+            Tile t = tiles.get(i);
+            // правдоподобный разброс: от полярного льда до тропиков, давление падает с высотой
+            tempC[i] = 30.0 - 0.9 * Math.abs(t.lat) + ((i * 37) % 11 - 5);
+            pKPa[i] = 101.325 * Math.exp(-((i * 53) % 40) * 0.1);
+        }
+    }
+
+    @Benchmark
+    public void saturationSpecificHumidity(Blackhole bh) {
+        kernels.saturationSpecificHumidity(tempC, pKPa, out, 0, out.length);
+        bh.consume(out);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ClimateKernelsBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,71 @@
+package org.planet.core.generation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ClimateKernelsTest {
+
+    /** Весь рабочий диапазон температур с шагом 0.25 °C (включая стыки кусков формулы) на шести давлениях. */
+    private static final double[] PRESSURES = {0.0, 0.5, 5.0, 40.0, 101.325, 250.0, 800.0};
+    private static final int TEMPS = 4 * (900 + 220) + 1;
+
+    private final double[] tempC = new double[TEMPS * PRESSURES.length];
+    private final double[] pKPa = new double[TEMPS * PRESSURES.length];
+
+    ClimateKernelsTest() {
+        for (int pi = 0; pi < PRESSURES.length; pi++) {
+            for (int k = 0; k < TEMPS; k++) {
+                tempC[pi * TEMPS + k] = -220.0 + k * 0.25;
+                pKPa[pi * TEMPS + k] = PRESSURES[pi];
+            }
+        }
+    }
+
+    @Test
+    void scalarKernelMatchesPointFormulaBitForBit() {
+        double[] out = new double[tempC.length];
+        new ClimateKernels.Scalar().saturationSpecificHumidity(tempC, pKPa, out, 0, out.length);
+        for (int i = 0; i < out.length; i++) {
+            double expected = ClimateKernels.saturationSpecificHumidity(tempC[i], pKPa[i]);
+            assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(out[i]),
+                    "t=" + tempC[i] + " p=" + pKPa[i]);
+        }
+    }
+
+    @Test
+    void scalarKernelHonoursRange() {
+        double[] out = new double[tempC.length];
+        java.util.Arrays.fill(out, -1.0);
+        new ClimateKernels.Scalar().saturationSpecificHumidity(tempC, pKPa, out, 10, 20);
+        assertEquals(-1.0, out[9]);
+        assertEquals(-1.0, out[20]);
+        assertTrue(out[10] >= 0.0);
+    }
+
+    @Test
+    void vectorKernelWithinTolerance() {
+        ClimateKernels vector = ClimateKernels.vector();
+        assumeTrue(vector != null, "VectorClimateKernels: нужна сборка -Pvector");
+        assertNotNull(vector.name());
+
+        // Нечётная длина и ненулевое начало — чтобы попасть и в векторную часть, и в скалярный хвост.
+        int from = 3;
+        int to = tempC.length - 5;
+        double[] expected = new double[tempC.length];
+        double[] actual = new double[tempC.length];
+        new ClimateKernels.Scalar().saturationSpecificHumidity(tempC, pKPa, expected, from, to);
+        vector.saturationSpecificHumidity(tempC, pKPa, actual, from, to);
+
+        double worst = 0.0;
+        for (int i = from; i < to; i++) {
+            double scale = Math.max(Math.abs(expected[i]), 1e-12);
+            worst = Math.max(worst, Math.abs(expected[i] - actual[i]) / scale);
+        }
+        assertTrue(worst <= ClimateKernels.EQUIVALENCE_TOLERANCE,
+                "max relative error " + worst + " > " + ClimateKernels.EQUIVALENCE_TOLERANCE);
+    }
+}
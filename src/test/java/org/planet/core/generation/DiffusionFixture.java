@@ -0,0 +1,59 @@
+package org.planet.core.generation;
+
+import org.planet.core.model.Tile;
+import org.planet.core.topology.TileGeometry;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Входы для проверок MultigridDiffusion: веса рёбер как у явных консервативных проходов WindGenerator
+ * (κ / max(deg_i, deg_j), без diffusionScale) и явный шаг u − h·L u по тем же весам.
+ */
+final class DiffusionFixture {
+
+    private DiffusionFixture() {
+    }
+
+    static double[] conservativeWeights(List<Tile> tiles, TileGeometry geo, double kappa) {
+        double[] w = new double[geo.target.length];
+        for (int i = 0; i < tiles.size(); i++) {
+            int degI = tiles.get(i).neighbors.size();
+            for (int e = geo.offset[i]; e < geo.offset[i + 1]; e++) {
+                int degJ = tiles.get(geo.target[e]).neighbors.size();
+                w[e] = kappa / Math.max(degI, degJ);
+            }
+        }
+        return w;
+    }
+
+    /** u − h · L u, (L u)_i = Σ_e w[e] · (u_i − u_target(e)). h = 1 — один явный проход WindGenerator. */
+    static double[] explicitStep(TileGeometry geo, double[] w, double[] u, double h) {
+        double[] out = new double[u.length];
+        for (int i = 0; i < u.length; i++) {
+            double lu = 0.0;
+            for (int e = geo.offset[i]; e < geo.offset[i + 1]; e++) lu += w[e] * (u[i] - u[geo.target[e]]);
+            out[i] = u[i] - h * lu;
+        }
+        return out;
+    }
+
+    /** Крупномасштабное поле (несколько волн по широте и долготе). */
+    static double[] smoothField(List<Tile> tiles) {
+        double[] u = new double[tiles.size()];
+        for (Tile t : tiles) {
+            double lat = Math.toRadians(t.lat);
+            double lon = Math.toRadians(t.lon);
+            u[t.id] = 10.0 + 5.0 * Math.sin(2.0 * lat) * Math.cos(3.0 * lon);
+        }
+        return u;
+    }
+
+    /** Белый шум вокруг 10 — вся энергия на масштабе тайла. */
+    static double[] roughField(List<Tile> tiles, long seed) {
+        Random rnd = new Random(seed);
+        double[] u = new double[tiles.size()];
+        for (int i = 0; i < u.length; i++) u[i] = 10.0 + rnd.nextGaussian();
+        return u;
+    }
+}
@@ -0,0 +1,60 @@
+package org.planet.core.generation;
+
+import org.planet.core.model.Tile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Прежний рост плит PlateGenerator (проходы по списку тайлов над HashMap, пока что-то меняется) —
+ * эталон для PlateGeneratorTest и точка отсчёта в PlateGeneratorBenchmark.
+ * Розыгрыши Random те же, что у PlateGenerator(seed) без потока CounterRng.
+ */
+final class LegacyPlateGrowth {
+
+    private LegacyPlateGrowth() {}
+
+    /** @return plateId по id тайла */
+    static int[] assign(List<Tile> tiles, long seed, int plateCount) {
+        Random random = new Random(seed);
+        for (int i = 0; i < plateCount; i++) {
+            random.nextDouble();
+            random.nextDouble();
+            random.nextDouble();
+        }
+
+        Map<Tile, Integer> assignment = new HashMap<>();
+        List<Tile> shuffled = new ArrayList<>(tiles);
+        Collections.shuffle(shuffled, random);
+        for (int i = 0; i < plateCount; i++) {
+            assignment.put(shuffled.get(i), i);
+        }
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Tile t : tiles) {
+                if (assignment.containsKey(t)) continue;
+                for (Tile n : t.neighbors) {
+                    Integer p = assignment.get(n);
+                    if (p != null) {
+                        assignment.put(t, p);
+                        changed = true;
+                        break;
+                    }
+                }
+            }
+        }
+
+        int[] plateOf = new int[tiles.size()];
+        for (Tile t : tiles) {
+            Integer p = assignment.get(t);
+            plateOf[t.id] = (p != null) ? p : random.nextInt(plateCount);
+        }
+        return plateOf;
+    }
+}
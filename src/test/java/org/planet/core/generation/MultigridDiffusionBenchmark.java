@@ -0,0 +1,85 @@
+package org.planet.core.generation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.planet.core.model.Tile;
+import org.planet.core.topology.GridHierarchy;
+import org.planet.core.topology.TileGeometry;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: неявный шаг MultigridDiffusion против явного прохода на D3..D5 (файлы сеток).
+ * solve — до DEFAULT_TOLERANCE из начального приближения rhs (как в WindGenerator); число V-циклов
+ * от уровня не зависит (κ = 0.52 — 2 цикла, κ = 2.08 — 3), так что solve / cycles — цена одного
+ * V-цикла уровня вместе со сборкой операторов Галёркина. explicitPass — один явный консервативный
+ * проход по тем же весам (EXPLICIT).
+ *
+ * Запуск из корня репозитория:
+ *   mvn test-compile
+ *   java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.planet.core.generation.MultigridDiffusionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultigridDiffusionBenchmark {
+
+    @Param({"3", "4", "5"})
+    public int grid;
+
+    @Param({"0.52", "2.08"})
+    public double kappa;
+
+    private TileGeometry geo;
+    private MultigridDiffusion mg;
+    private double[] w;
+    private double[] rhs;
+    private double[] u;
+
+    @Setup
+    public void setup() {
+        GridHierarchy grids = GridHierarchy.shared();
+        if (!grids.hasLevel(grid)) {
+            throw new IllegalStateException("нет LatLongTileID" + grid + "_v2.txt в рабочем каталоге");
+        }
+        List<Tile> tiles = grids.newTiles(grid);
+        geo = grids.geometry(grid);
+        mg = MultigridDiffusion.forTiles(tiles);
+        w = DiffusionFixture.conservativeWeights(tiles, geo, kappa);
+        rhs = DiffusionFixture.roughField(tiles, 7L);
+        u = new double[rhs.length];
+    }
+
+    @Benchmark
+    public MultigridDiffusion.Result solve() {
+        System.arraycopy(rhs, 0, u, 0, u.length);
+        return mg.solve(geo, w, rhs, u, MultigridDiffusion.DEFAULT_TOLERANCE);
+    }
+
+    @Benchmark
+    public double[] explicitPass() {
+        return DiffusionFixture.explicitStep(geo, w, rhs, 1.0);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MultigridDiffusionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
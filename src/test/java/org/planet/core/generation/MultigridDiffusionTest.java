@@ -0,0 +1,90 @@
+package org.planet.core.generation;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.planet.core.model.Tile;
+import org.planet.core.topology.GridHierarchy;
+import org.planet.core.topology.TileGeometry;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * MULTIGRID как замена явных проходов: неявный шаг (I + L) u = u0 при тех же весах, что у явного
+ * прохода с κ (diffusionScale = 1), сравнивается с эталоном — 512 явными шагами по κ/512
+ * (≈ exp(−L) u0). Неявный Эйлер гасит мелкие масштабы слабее точного потока, отсюда допуски;
+ * одиночный явный проход (EXPLICIT) на тех же κ от эталона дальше.
+ */
+class MultigridDiffusionTest {
+
+    private static final int REFERENCE_STEPS = 512;
+    /** κ одного прохода в WindGenerator: перемешивание IWV, сглаживание осадков, конвергенции. */
+    private static final double[] DEFAULT_KAPPAS = {0.14, 0.28, 0.52};
+    /** κ, пересчитанный к сетке на уровень тоньше (diffusionScale = 4) — полный V-цикл. */
+    private static final double SCALED_KAPPA = 2.08;
+
+    @ParameterizedTest
+    @ValueSource(ints = {3, 4})
+    void implicitStepTracksManySmallExplicitSteps(int level) {
+        GridHierarchy grids = GridHierarchy.shared();
+        assumeTrue(grids.hasLevel(level), "нет LatLongTileID" + level + "_v2.txt в рабочем каталоге");
+        List<Tile> tiles = grids.newTiles(level);
+        TileGeometry geo = grids.geometry(level);
+        MultigridDiffusion mg = MultigridDiffusion.forTiles(tiles);
+        assertNotNull(mg, "D" + level);
+
+        double[] smooth = DiffusionFixture.smoothField(tiles);
+        double[] rough = DiffusionFixture.roughField(tiles, 7L);
+        for (double kappa : DEFAULT_KAPPAS) {
+            check(tiles, geo, mg, smooth, kappa, 0.01, "D" + level + " smooth κ=" + kappa);
+            check(tiles, geo, mg, rough, kappa, 0.10, "D" + level + " rough κ=" + kappa);
+        }
+        check(tiles, geo, mg, smooth, SCALED_KAPPA, 0.05, "D" + level + " smooth κ=" + SCALED_KAPPA);
+        check(tiles, geo, mg, rough, SCALED_KAPPA, 0.25, "D" + level + " rough κ=" + SCALED_KAPPA);
+    }
+
+    /**
+     * @param bound допуск относительной L2-ошибки ||u − эталон|| / ||u0 − среднее||
+     */
+    private static void check(List<Tile> tiles, TileGeometry geo, MultigridDiffusion mg,
+                              double[] u0, double kappa, double bound, String what) {
+        double[] w = DiffusionFixture.conservativeWeights(tiles, geo, kappa);
+        double[] reference = u0;
+        for (int s = 0; s < REFERENCE_STEPS; s++) {
+            reference = DiffusionFixture.explicitStep(geo, w, reference, 1.0 / REFERENCE_STEPS);
+        }
+        double[] onePass = DiffusionFixture.explicitStep(geo, w, u0, 1.0);
+
+        double[] u = u0.clone();
+        MultigridDiffusion.Result r = mg.solve(geo, w, u0, u, MultigridDiffusion.DEFAULT_TOLERANCE);
+        assertTrue(r.residual() <= MultigridDiffusion.DEFAULT_TOLERANCE, what + ": невязка " + r.residual());
+
+        double mgError = relativeError(u, reference, u0);
+        double explicitError = relativeError(onePass, reference, u0);
+        assertTrue(mgError <= bound, what + ": ошибка MULTIGRID " + mgError + " > " + bound);
+        assertTrue(mgError <= explicitError, what + ": MULTIGRID " + mgError + " дальше явного прохода " + explicitError);
+        // веса симметричны: сумма сохраняется, как у консервативных явных проходов
+        assertEquals(sum(u0), sum(u), 1e-6 * sum(u0), what + ": сумма");
+    }
+
+    private static double relativeError(double[] u, double[] reference, double[] u0) {
+        double mean = sum(u0) / u0.length;
+        double err = 0.0;
+        double spread = 0.0;
+        for (int i = 0; i < u.length; i++) {
+            err += (u[i] - reference[i]) * (u[i] - reference[i]);
+            spread += (u0[i] - mean) * (u0[i] - mean);
+        }
+        return Math.sqrt(err / spread);
+    }
+
+    private static double sum(double[] u) {
+        double s = 0.0;
+        for (double v : u) s += v;
+        return s;
+    }
+}
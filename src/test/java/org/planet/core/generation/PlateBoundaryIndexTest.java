@@ -0,0 +1,58 @@
+package org.planet.core.generation;
+
+import org.junit.jupiter.api.Test;
+import org.planet.core.model.TectonicPlate;
+import org.planet.core.model.Tile;
+import org.planet.core.model.config.PlanetConfig;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlateBoundaryIndexTest {
+
+    @Test
+    void distanceIsBfsFromBoundaryTiles() {
+        List<Tile> tiles = SyntheticIcosphere.tiles(4);
+        List<TectonicPlate> plates = new PlateGenerator(7L).generatePlates(tiles, new PlanetConfig(), 12);
+        PlateBoundaryIndex idx = PlateBoundaryIndex.build(tiles, plates);
+
+        int maxDistance = 0;
+        for (Tile t : tiles) {
+            int d = idx.distanceToBoundary(t.id);
+            assertTrue(d != PlateBoundaryIndex.UNREACHABLE, "tile " + t.id);
+            if (idx.isBoundary(t.id)) {
+                assertEquals(0, d, "boundary tile " + t.id);
+                continue;
+            }
+            int best = PlateBoundaryIndex.UNREACHABLE;
+            for (Tile nb : t.neighbors) best = Math.min(best, idx.distanceToBoundary(nb.id));
+            assertEquals(best + 1, d, "tile " + t.id);
+            maxDistance = Math.max(maxDistance, d);
+        }
+        assertTrue(maxDistance > 1);
+    }
+
+    @Test
+    void singlePlateIsUnreachable() {
+        List<Tile> tiles = SyntheticIcosphere.tiles(2);
+        for (Tile t : tiles) t.plateId = 0;
+        PlateBoundaryIndex idx = PlateBoundaryIndex.build(tiles, null);
+        assertEquals(0, idx.boundaryTileCount());
+        assertEquals(PlateBoundaryIndex.UNREACHABLE, idx.distanceToBoundary(0));
+    }
+
+    @Test
+    void ensureRebuildsForOtherPlateAssignment() {
+        List<Tile> tiles = SyntheticIcosphere.tiles(3);
+        List<TectonicPlate> plates = new PlateGenerator(1L).generatePlates(tiles, new PlanetConfig(), 8);
+        PlateBoundaryIndex idx = PlateBoundaryIndex.build(tiles, plates);
+        assertSame(idx, PlateBoundaryIndex.ensure(idx, tiles, plates));
+
+        plates = new PlateGenerator(2L).generatePlates(tiles, new PlanetConfig(), 8);
+        assertNotSame(idx, PlateBoundaryIndex.ensure(idx, tiles, plates));
+    }
+}
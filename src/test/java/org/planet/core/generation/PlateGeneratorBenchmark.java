@@ -0,0 +1,70 @@
+package org.planet.core.generation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.planet.core.model.Tile;
+import org.planet.core.model.config.PlanetConfig;
+import org.planet.core.model.config.PlateGrowthMode;
+import org.planet.core.topology.GridHierarchy;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: рост плит PlateGenerator на D4/D5 (файлы сеток) и D6 (SyntheticIcosphere, файла ещё нет).
+ * LEGACY — прежний flood-fill над HashMap (LegacyPlateGrowth), остальные — PlateGrowthMode.
+ *
+ * Запуск из корня репозитория:
+ *   mvn test-compile
+ *   java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.planet.core.generation.PlateGeneratorBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlateGeneratorBenchmark {
+
+    @Param({"4", "5", "6"})
+    public int grid;
+
+    @Param({"LEGACY", "SWEEP", "BFS", "WEIGHTED"})
+    public String mode;
+
+    @Param({"8", "35"})
+    public int plates;
+
+    private List<Tile> tiles;
+    private final PlanetConfig planet = new PlanetConfig();
+
+    @Setup
+    public void setup() {
+        GridHierarchy grids = GridHierarchy.shared();
+        tiles = grids.hasLevel(grid) ? grids.newTiles(grid) : SyntheticIcosphere.tiles(grid);
+    }
+
+    @Benchmark
+    public Object grow() {
+        if ("LEGACY".equals(mode)) return LegacyPlateGrowth.assign(tiles, 12345L, plates);
+        return new PlateGenerator(12345L).generatePlates(tiles, planet, plates, PlateGrowthMode.valueOf(mode), 0.5);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PlateGeneratorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,63 @@
+package org.planet.core.generation;
+
+import org.junit.jupiter.api.Test;
+import org.planet.core.model.Tile;
+import org.planet.core.model.config.PlanetConfig;
+import org.planet.core.model.config.PlateGrowthMode;
+import org.planet.core.topology.GridHierarchy;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class PlateGeneratorTest {
+
+    private static final long[] SEEDS = {1L, 42L, 12345L, -7L};
+    private static final int[] PLATE_COUNTS = {8, 20, 35};
+
+    @Test
+    void sweepMatchesLegacyFloodFillOnSyntheticGrids() {
+        for (int level = 2; level <= 5; level++) {
+            assertSweepMatchesLegacy(SyntheticIcosphere.tiles(level), "synthetic level " + level);
+        }
+    }
+
+    @Test
+    void sweepMatchesLegacyFloodFillOnTileFile() {
+        GridHierarchy grids = GridHierarchy.shared();
+        assumeTrue(grids.hasLevel(4), "нет LatLongTileID4_v2.txt в рабочем каталоге");
+        assertSweepMatchesLegacy(grids.newTiles(4), "D4");
+    }
+
+    @Test
+    void everyModeAssignsEveryTileAndKeepsEveryPlate() {
+        List<Tile> tiles = SyntheticIcosphere.tiles(4);
+        for (PlateGrowthMode mode : PlateGrowthMode.values()) {
+            for (int plates : PLATE_COUNTS) {
+                new PlateGenerator(42L).generatePlates(tiles, new PlanetConfig(), plates, mode, 0.5);
+                int[] size = new int[plates];
+                for (Tile t : tiles) {
+                    assertTrue(t.plateId >= 0 && t.plateId < plates, mode + ": plateId " + t.plateId);
+                    size[t.plateId]++;
+                }
+                for (int p = 0; p < plates; p++) {
+                    assertTrue(size[p] > 0, mode + ": пустая плита " + p + " из " + plates);
+                }
+            }
+        }
+    }
+
+    private static void assertSweepMatchesLegacy(List<Tile> tiles, String grid) {
+        for (long seed : SEEDS) {
+            for (int plates : PLATE_COUNTS) {
+                int[] expected = LegacyPlateGrowth.assign(tiles, seed, plates);
+                new PlateGenerator(seed).generatePlates(tiles, new PlanetConfig(), plates, PlateGrowthMode.SWEEP, 0.0);
+                int[] actual = new int[tiles.size()];
+                for (Tile t : tiles) actual[t.id] = t.plateId;
+                assertArrayEquals(expected, actual, grid + " seed=" + seed + " plates=" + plates);
+            }
+        }
+    }
+}
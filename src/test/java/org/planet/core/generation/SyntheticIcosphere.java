@@ -0,0 +1,86 @@
+package org.planet.core.generation;
+
+import org.planet.core.model.Tile;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Сетка той же топологии, что D-уровни (12 пентагонов, остальное гексы): вершины икосаэдра,
+ * k раз поделённого пополам по рёбрам, — 10·4^k + 2 тайлов. Для уровней без файла (D6).
+ * Порядок id другой, чем в LatLongTileID*_v2.txt, но первые 12 — пентагоны, как там.
+ */
+final class SyntheticIcosphere {
+
+    private SyntheticIcosphere() {}
+
+    static List<Tile> tiles(int level) {
+        List<double[]> v = new ArrayList<>();
+        double p = (1.0 + Math.sqrt(5.0)) / 2.0;
+        double[][] base = {
+                {-1, p, 0}, {1, p, 0}, {-1, -p, 0}, {1, -p, 0},
+                {0, -1, p}, {0, 1, p}, {0, -1, -p}, {0, 1, -p},
+                {p, 0, -1}, {p, 0, 1}, {-p, 0, -1}, {-p, 0, 1}
+        };
+        for (double[] b : base) v.add(normalize(b));
+        int[][] faces = {
+                {0, 11, 5}, {0, 5, 1}, {0, 1, 7}, {0, 7, 10}, {0, 10, 11},
+                {1, 5, 9}, {5, 11, 4}, {11, 10, 2}, {10, 7, 6}, {7, 1, 8},
+                {3, 9, 4}, {3, 4, 2}, {3, 2, 6}, {3, 6, 8}, {3, 8, 9},
+                {4, 9, 5}, {2, 4, 11}, {6, 2, 10}, {8, 6, 7}, {9, 8, 1}
+        };
+        for (int k = 0; k < level; k++) {
+            Map<Long, Integer> mid = new HashMap<>();
+            int[][] next = new int[faces.length * 4][];
+            int f = 0;
+            for (int[] t : faces) {
+                int a = midpoint(v, mid, t[0], t[1]);
+                int b = midpoint(v, mid, t[1], t[2]);
+                int c = midpoint(v, mid, t[2], t[0]);
+                next[f++] = new int[]{t[0], a, c};
+                next[f++] = new int[]{t[1], b, a};
+                next[f++] = new int[]{t[2], c, b};
+                next[f++] = new int[]{a, b, c};
+            }
+            faces = next;
+        }
+
+        List<Tile> tiles = new ArrayList<>(v.size());
+        List<Set<Integer>> adj = new ArrayList<>(v.size());
+        for (int id = 0; id < v.size(); id++) {
+            double[] q = v.get(id);
+            tiles.add(new Tile(id, Math.toDegrees(Math.asin(q[2])), Math.toDegrees(Math.atan2(q[1], q[0]))));
+            adj.add(new LinkedHashSet<>());
+        }
+        for (int[] t : faces) {
+            for (int e = 0; e < 3; e++) {
+                adj.get(t[e]).add(t[(e + 1) % 3]);
+                adj.get(t[(e + 1) % 3]).add(t[e]);
+            }
+        }
+        for (Tile t : tiles) {
+            for (int nb : adj.get(t.id)) t.neighbors.add(tiles.get(nb));
+        }
+        return tiles;
+    }
+
+    private static int midpoint(List<double[]> v, Map<Long, Integer> cache, int a, int b) {
+        long key = ((long) Math.min(a, b) << 32) | Math.max(a, b);
+        Integer id = cache.get(key);
+        if (id != null) return id;
+        double[] pa = v.get(a);
+        double[] pb = v.get(b);
+        v.add(normalize(new double[]{pa[0] + pb[0], pa[1] + pb[1], pa[2] + pb[2]}));
+        cache.put(key, v.size() - 1);
+        return v.size() - 1;
+    }
+
+    private static double[] normalize(double[] q) {
+        double len = Math.sqrt(q[0] * q[0] + q[1] * q[1] + q[2] * q[2]);
+        return new double[]{q[0] / len, q[1] / len, q[2] / len};
+    }
+}